@@ -0,0 +1,98 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synthetic inputs for the benchmarks.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * @return a mojo configured with the defaults of its parameters, as far as the benchmarks need them.
+     */
+    static ThriftCompileMojo createMojo(int compileThreads) throws Exception {
+        final ThriftCompileMojo mojo = new ThriftCompileMojo();
+        setField(mojo, "compileThreads", compileThreads);
+        setField(mojo, "hashDependentPaths", true);
+        setField(mojo, "metrics", new BuildMetrics());
+        return mojo;
+    }
+
+    /**
+     * Sets a (private) parameter of {@code mojo}, the way Maven injects it.
+     */
+    static void setField(AbstractThriftMojo mojo, String name, Object value) throws Exception {
+        final Field field = AbstractThriftMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    /**
+     * Writes a jar holding {@code thriftEntries} thrift files next to {@code otherEntries} class files.
+     *
+     * @param entrySize the size of every entry in bytes.
+     */
+    static void writeJar(File jar, int thriftEntries, int otherEntries, int entrySize) throws IOException {
+        final byte[] content = Strings.repeat("x", entrySize).getBytes(Charsets.UTF_8);
+        final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(jar)));
+        try {
+            for (int i = 0; i < otherEntries; i++) {
+                out.putNextEntry(new ZipEntry("com/example/package" + (i % 20) + "/Generated" + i + ".class"));
+                out.write(content);
+                out.closeEntry();
+            }
+            for (int i = 0; i < thriftEntries; i++) {
+                out.putNextEntry(new ZipEntry("idl/service" + i + ".thrift"));
+                out.write(content);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes {@code directories} directories of {@code filesPerDirectory} thrift files each,
+     * together with as many files that do not match the includes.
+     */
+    static void writeIdlTree(File root, int directories, int filesPerDirectory) throws IOException {
+        for (int d = 0; d < directories; d++) {
+            final File directory = new File(root, "module" + (d % 10) + "/package" + d);
+            for (int f = 0; f < filesPerDirectory; f++) {
+                final File thriftFile = new File(directory, "service" + f + ".thrift");
+                Files.createParentDirs(thriftFile);
+                Files.asCharSink(thriftFile, Charsets.UTF_8).write("struct Service" + f + " {}\n");
+                Files.asCharSink(new File(directory, "README" + f + ".md"), Charsets.UTF_8).write("docs\n");
+            }
+        }
+    }
+
+    /**
+     * Writes a stand-in for the {@code thrift} executable that exits right away, so that
+     * the process handling of {@link Thrift} is measured rather than the compiler.
+     */
+    static File writeStubCompiler(File directory) throws IOException {
+        final File stub = new File(directory, "thrift-stub");
+        Files.asCharSink(stub, Charsets.UTF_8).write("#!/bin/sh\nexit 0\n");
+        if (!stub.setExecutable(true)) {
+            throw new IOException("Unable to make " + stub + " executable");
+        }
+        return stub;
+    }
+
+}
@@ -0,0 +1,79 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AbstractThriftMojo#makeThriftPathFromJars(File, Iterable)} against a few
+ * large jars and against many small jars, with and without the dependency cache.
+ *
+ * @author zhfchdev@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DependencyScanBenchmark {
+
+    @Param({"few-large", "many-small"})
+    public String jarSet;
+
+    @Param({"1", "4"})
+    public int compileThreads;
+
+    @Param({"false", "true"})
+    public boolean useDependencyCache;
+
+    private File workDirectory;
+    private File temporaryThriftFileDirectory;
+    private List<File> jars;
+    private ThriftCompileMojo mojo;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workDirectory = Files.createTempDir();
+        temporaryThriftFileDirectory = new File(workDirectory, "thrift-dependencies");
+        final boolean fewLarge = "few-large".equals(jarSet);
+        final int jarCount = fewLarge ? 4 : 200;
+        jars = Lists.newArrayList();
+        for (int i = 0; i < jarCount; i++) {
+            final File jar = new File(workDirectory, "dependency" + i + ".jar");
+            if (fewLarge) {
+                BenchmarkSupport.writeJar(jar, 50, 5000, 2048);
+            } else {
+                BenchmarkSupport.writeJar(jar, 2, 20, 512);
+            }
+            jars.add(jar);
+        }
+
+        mojo = BenchmarkSupport.createMojo(compileThreads);
+        BenchmarkSupport.setField(mojo, "useDependencyCache", useDependencyCache);
+        BenchmarkSupport.setField(mojo, "dependencyCacheDirectory", new File(workDirectory, "cache"));
+    }
+
+    @Benchmark
+    public Set<File> makeThriftPathFromJars() throws Exception {
+        return mojo.makeThriftPathFromJars(temporaryThriftFileDirectory, jars);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(workDirectory);
+    }
+
+}
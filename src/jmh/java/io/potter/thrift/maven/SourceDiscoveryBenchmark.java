@@ -0,0 +1,57 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the discovery of the thrift files to compile in large IDL trees.
+ *
+ * @author zhfchdev@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SourceDiscoveryBenchmark {
+
+    @Param({"100", "1000"})
+    public int directories;
+
+    @Param({"10"})
+    public int filesPerDirectory;
+
+    private File idlDirectory;
+    private ThriftCompileMojo mojo;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        idlDirectory = Files.createTempDir();
+        BenchmarkSupport.writeIdlTree(idlDirectory, directories, filesPerDirectory);
+        mojo = BenchmarkSupport.createMojo(1);
+    }
+
+    @Benchmark
+    public Set<File> findThriftFiles() throws Exception {
+        return mojo.findThriftFilesInDirectories(ImmutableList.of(idlDirectory));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(idlDirectory);
+    }
+
+}
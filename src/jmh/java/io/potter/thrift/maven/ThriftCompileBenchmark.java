@@ -0,0 +1,81 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Thrift#compile()} with a stub compiler, that is the cost
+ * of launching and supervising the {@code thrift} processes.
+ *
+ * @author zhfchdev@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThriftCompileBenchmark {
+
+    @Param({"16"})
+    public int thriftFileCount;
+
+    @Param({"1", "4"})
+    public int compileThreads;
+
+    @Param({"false", "true"})
+    public boolean batchCompile;
+
+    private File workDirectory;
+    private File idlDirectory;
+    private File outputDirectory;
+    private File stubCompiler;
+    private List<File> thriftFiles;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workDirectory = Files.createTempDir();
+        idlDirectory = new File(workDirectory, "idl");
+        outputDirectory = new File(workDirectory, "generated");
+        FileUtils.forceMkdir(outputDirectory);
+        stubCompiler = BenchmarkSupport.writeStubCompiler(workDirectory);
+        thriftFiles = Lists.newArrayList();
+        for (int i = 0; i < thriftFileCount; i++) {
+            final File thriftFile = new File(idlDirectory, "service" + i + ".thrift");
+            Files.createParentDirs(thriftFile);
+            Files.asCharSink(thriftFile, Charsets.UTF_8).write("struct Service" + i + " {}\n");
+            thriftFiles.add(thriftFile);
+        }
+    }
+
+    @Benchmark
+    public int compile() throws Exception {
+        return new Thrift.Builder(stubCompiler.getPath(), outputDirectory)
+                .setGenerator("java")
+                .addThriftPathElement(idlDirectory)
+                .addThriftFiles(thriftFiles)
+                .setCompileThreads(compileThreads)
+                .setBatchCompile(batchCompile)
+                .build()
+                .compile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(workDirectory);
+    }
+
+}
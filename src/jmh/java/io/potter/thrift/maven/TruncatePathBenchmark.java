@@ -0,0 +1,51 @@
+package io.potter.thrift.maven;
+
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AbstractThriftMojo#truncatePath(String)}, hashing the jar path or making
+ * it relative to the local repository.
+ *
+ * @author zhfchdev@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TruncatePathBenchmark {
+
+    @Param({"true", "false"})
+    public boolean hashDependentPaths;
+
+    private String jarPath;
+    private ThriftCompileMojo mojo;
+
+    @Setup
+    public void setup() throws Exception {
+        final File repository = new File(System.getProperty("user.home"), ".m2/repository");
+        jarPath = new File(repository, "org/apache/thrift/libthrift/0.11.0/libthrift-0.11.0.jar").getPath();
+        mojo = BenchmarkSupport.createMojo(1);
+        BenchmarkSupport.setField(mojo, "hashDependentPaths", hashDependentPaths);
+        BenchmarkSupport.setField(mojo, "localRepository", new MavenArtifactRepository("local",
+                repository.toURI().toString(), new DefaultRepositoryLayout(),
+                new ArtifactRepositoryPolicy(), new ArtifactRepositoryPolicy()));
+    }
+
+    @Benchmark
+    public String truncatePath() throws Exception {
+        return mojo.truncatePath(jarPath);
+    }
+
+}
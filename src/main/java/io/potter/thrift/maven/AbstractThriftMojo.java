@@ -1,9 +1,17 @@
 package io.potter.thrift.maven;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -16,6 +24,7 @@ import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException
 import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -26,19 +35,25 @@ import org.apache.maven.repository.RepositorySystem;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.cli.CommandLineException;
-import org.codehaus.plexus.util.io.RawInputStreamFacade;
 
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>Abstract Mojo implementation.</p>
@@ -60,6 +75,8 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
 
     private static final String DEFAULT_INCLUDES = "**/*" + THRIFT_FILE_SUFFIX;
 
+    private static final int MAX_LOGGED_DIAGNOSTICS = 50;
+
     /**
      * The current Maven project.
      */
@@ -126,12 +143,98 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
     private File[] additionalThriftPathElements = new File[]{};
 
     /**
-     * Since {@code thrift} cannot access jars, thrift files in dependencies are extracted to this location
-     * and deleted on exit. This directory is always cleaned during execution.
+     * Since {@code thrift} cannot access jars, thrift files in dependencies are extracted to this location.
+     * The compile and testCompile goals share it: a jar is only extracted again when it changed, so the
+     * testCompile goal only extracts the test dependencies.
      */
     @Parameter(defaultValue = "${project.build.directory}/thrift-dependencies", required = true)
     private File temporaryThriftFileDirectory;
 
+    /**
+     * Set this to {@code true} to keep the thrift files extracted from dependency jars in
+     * {@code dependencyCacheDirectory} instead of {@code temporaryThriftFileDirectory}. Jars are
+     * recognized by path, size and modification time, so unchanged jars are neither reopened nor
+     * extracted again by later builds or by other modules sharing the cache.
+     */
+    @Parameter(property = "thrift.dependencyCache", defaultValue = "false")
+    private boolean useDependencyCache;
+
+    /**
+     * Set this to {@code true} to only extract the dependency thrift files that the thrift files
+     * of the project include, directly or transitively, and to only put the directories they are
+     * found in on the thrift path. The jars are indexed without extracting anything, and the
+     * includes are resolved the way {@code thrift} resolves them. Takes precedence over
+     * {@code useDependencyCache}.
+     */
+    @Parameter(property = "thrift.lazyDependencies", defaultValue = "false")
+    private boolean lazyDependencyExtraction;
+
+    /**
+     * Set this to {@code true} to only look for thrift files in dependency jars that carry the
+     * {@code META-INF/thrift/idl.index} written by {@code writeIdlIndex}. Other jars are skipped
+     * without enumerating their entries, so thrift files in jars built without the index are not
+     * found. Indexed jars are read from the index either way.
+     */
+    @Parameter(property = "thrift.indexedDependenciesOnly", defaultValue = "false")
+    private boolean indexedDependenciesOnly;
+
+    /**
+     * Set this to {@code true} to put the thrift source roots of dependencies built by the same
+     * reactor, with this plugin, on the thrift path as they are, instead of extracting the thrift
+     * files from their jars. They come right after the thrift source root of the project.
+     */
+    @Parameter(property = "thrift.reactorSources", defaultValue = "false")
+    private boolean useReactorSources;
+
+    /**
+     * The directory in which thrift files extracted from dependency jars are cached when
+     * {@code useDependencyCache} is {@code true}. It can be shared between modules and builds.
+     */
+    @Parameter(property = "thrift.dependencyCacheDirectory",
+            defaultValue = "${settings.localRepository}/.cache/thrift-maven-plugin/dependencies")
+    private File dependencyCacheDirectory;
+
+    /**
+     * Set this to {@code true} to write every distinct dependency thrift file once into
+     * {@code contentStoreDirectory}, named after its content, and to extract dependency jars as
+     * hard links to it. Symbolic links are used where hard links are not supported, copies where
+     * neither is.
+     */
+    @Parameter(property = "thrift.contentStore", defaultValue = "false")
+    private boolean useContentStore;
+
+    /**
+     * The directory in which the content store keeps the dependency thrift files when
+     * {@code useContentStore} is {@code true}. It can be shared between modules and builds; hard
+     * links require it to be on the same file system as the build directory.
+     */
+    @Parameter(property = "thrift.contentStoreDirectory",
+            defaultValue = "${settings.localRepository}/.cache/thrift-maven-plugin/content")
+    private File contentStoreDirectory;
+
+    /**
+     * Set this to {@code true} to restore the java sources generated from a thrift file from
+     * {@code buildCacheDirectory} instead of running {@code thrift}, whenever the thrift file, the
+     * files it includes, the {@code thrift} executable and the generator are the same as in an
+     * earlier compilation, by any module or build sharing the cache.
+     */
+    @Parameter(property = "thrift.buildCache", defaultValue = "false")
+    private boolean useBuildCache;
+
+    /**
+     * The directory holding the build cache. Point it at a directory kept between CI jobs to share
+     * the cache between them.
+     */
+    @Parameter(property = "thrift.buildCacheDirectory",
+            defaultValue = "${settings.localRepository}/.cache/thrift-maven-plugin/generated")
+    private File buildCacheDirectory;
+
+    /**
+     * The size of the build cache, in megabytes, above which the least recently used entries are evicted.
+     */
+    @Parameter(property = "thrift.buildCacheMaxSize", defaultValue = "512")
+    private long buildCacheMaxSize;
+
     /**
      * This is the path to the local maven {@code repository}.
      */
@@ -150,6 +253,14 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.directory}/thrift-plugins")
     private File thriftPluginDirectory;
 
+    /**
+     * How many minutes a {@code thrift} executable installed from a snapshot {@code thriftArtifact}
+     * is used before the artifact is resolved again. Executables of releases are used as long as
+     * their content is unchanged; {@code -U} resolves again, offline builds never do.
+     */
+    @Parameter(property = "thrift.binaryRevalidationMinutes", defaultValue = "1440")
+    private long binaryRevalidationMinutes;
+
     /**
      * Set this to {@code false} to disable hashing of dependent jar paths.
      * <p/>
@@ -172,36 +283,236 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
     @Parameter
     private boolean checkStaleness = false;
 
+    /**
+     * How staleness is checked when {@code checkStaleness} is {@code true}: {@code MTIME} compares
+     * the modification times of thrift and java files, {@code DIGEST} compares a content digest of the
+     * thrift files, the include path, the executable and the generator with the one recorded in a
+     * {@code .fingerprint} file next to the output directory, as long as the files generated then are
+     * all still there.
+     */
+    @Parameter(defaultValue = "MTIME")
+    private StalenessStrategy stalenessStrategy = StalenessStrategy.MTIME;
+
+    /**
+     * Set this to {@code true} to only compile the thrift files that changed since the previous
+     * build, together with every thrift file that includes them directly or transitively. Only
+     * the java files generated from changed or deleted thrift files are removed.
+     */
+    @Parameter(property = "thrift.incremental", defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * The directory in which the plugin keeps the state it needs between builds.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/thrift-state", required = true)
+    private File stateDirectory;
+
+    /**
+     * The current mojo execution, used to keep the state of several executions apart.
+     */
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private MojoExecution mojoExecution;
+
+    /**
+     * The maximum number of {@code thrift} processes to run in parallel. Defaults to the number
+     * of available processors, lowered to the CPU quota and the memory limit of the container the
+     * build runs in; set it to {@code 1} to compile the thrift files one by one. It also bounds the
+     * number of dependency jars scanned at the same time.
+     */
+    @Parameter(property = "thrift.compileThreads")
+    private int compileThreads = ContainerResources.compileThreads();
+
+    /**
+     * Set this to {@code true} to compile the thrift files of each thrift path element with a
+     * few {@code thrift -r} invocations on a generated file including all of them, instead of
+     * one invocation per file. Thrift files including files that are not compiled by this
+     * execution are still compiled one by one. Ignored when {@code incremental} or
+     * {@code useBuildCache} is set, since they need the files generated from each thrift file.
+     */
+    @Parameter(property = "thrift.batchCompile", defaultValue = "false")
+    private boolean batchCompile;
+
+    /**
+     * Only pass each {@code thrift} process the thrift path elements it needs to resolve the
+     * includes of the files it compiles. Set this to {@code false} to pass every element to
+     * every process.
+     */
+    @Parameter(property = "thrift.minimalThriftPath", defaultValue = "true")
+    private boolean minimalThriftPath = true;
+
+    /**
+     * Set this to {@code true} to leave out the thrift path elements holding the same thrift
+     * files as an earlier element, as when several versions of a jar ship the same IDL. Every
+     * thrift file of the thrift path is hashed to find them, up to {@code compileThreads} at a
+     * time.
+     */
+    @Parameter(property = "thrift.collapseDuplicateThriftPath", defaultValue = "false")
+    private boolean collapseDuplicateThriftPath;
+
+    /**
+     * Set this to {@code true} to write the phase timings, the duration of every {@code thrift}
+     * invocation and the counters logged after each execution to {@code metricsFile} as JSON.
+     */
+    @Parameter(property = "thrift.metrics", defaultValue = "false")
+    private boolean writeMetrics;
+
+    /**
+     * The JSON file the metrics of every execution in the module are written to, as an array.
+     */
+    @Parameter(property = "thrift.metricsFile", defaultValue = "${project.build.directory}/thrift-metrics.json")
+    private File metricsFile;
+
+    /**
+     * A JSON file to write the distinct warnings and errors reported by {@code thrift} to, with their
+     * file, line, severity, message and the number of times they were reported. Not written if unset.
+     */
+    @Parameter(property = "thrift.diagnosticsReport")
+    private File diagnosticsReport;
+
+    /**
+     * Set this to {@code true} to remove the generation date from the {@code @Generated} annotation
+     * of the generated java files, or to replace it with {@code generatedDate}, so that the same
+     * thrift files always generate the same bytes.
+     */
+    @Parameter(property = "thrift.normalize", defaultValue = "false")
+    private boolean normalizeGeneratedSources;
+
+    /**
+     * The date to put into the {@code @Generated} annotations when {@code normalizeGeneratedSources}
+     * is {@code true}, for instance {@code ${project.build.outputTimestamp}}. Left out if empty.
+     */
+    @Parameter(property = "thrift.generatedDate", defaultValue = "")
+    private String generatedDate;
+
+    /**
+     * Set this to {@code true} to parse and check the thrift files and the files they include before
+     * {@code thrift} runs, so that every syntax error, missing include, include cycle and unknown type
+     * is reported at once. The {@code validate} goal does the same without compiling.
+     */
+    @Parameter(property = "thrift.validate", defaultValue = "false")
+    private boolean validate;
+
+    /**
+     * How the java sources are generated: {@code NATIVE} runs the {@code thrift} executable, {@code JAVA}
+     * generates them inside the build from the parsed thrift files, in parallel, without
+     * {@code thriftExecutable} or {@code thriftArtifact}. The {@code JAVA} engine follows the java
+     * generator of {@code thrift} 0.11.0 and fails on options and constructs it does not support. It is
+     * experimental: its output has not been compared with the one of {@code thrift} 0.11.0 yet.
+     */
+    @Parameter(property = "thrift.engine", defaultValue = "NATIVE")
+    private ThriftEngine engine = ThriftEngine.NATIVE;
+
+    /**
+     * The definitions to generate, named like {@code tutorial.Calculator}. They are generated with
+     * the types, services and constants they reach through their fields, functions, extended services
+     * and constant values, across includes; the other definitions of the thrift files are left out.
+     * Generates all definitions if empty.
+     */
+    @Parameter(property = "thrift.roots")
+    private Set<String> roots = ImmutableSet.of();
+
+    private BuildMetrics metrics;
+
+    /**
+     * The thrift path elements derived from the dependencies, kept between runs when
+     * {@link #retainDependencies()} is {@code true}.
+     */
+    private ImmutableSet<File> retainedThriftPathElements;
+
     /**
      * Executes the mojo.
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         checkParameters();
+        compileOnce();
+    }
+
+    /**
+     * Runs the whole pipeline once, from finding the thrift files to attaching the generated sources.
+     */
+    final void compileOnce() throws MojoExecutionException, MojoFailureException {
+        metrics = new BuildMetrics();
+        try {
+            executeWithMetrics();
+        } finally {
+            reportMetrics();
+        }
+    }
+
+    private void executeWithMetrics() throws MojoExecutionException, MojoFailureException {
         final File thriftSourceRoot = getThriftSourceRoot();
         if (thriftSourceRoot.exists()) {
             try {
+                long start = System.nanoTime();
                 ImmutableSet<File> thriftFiles = findThriftFilesInDirectory(thriftSourceRoot);
+                metrics.recordPhase("discovery", start);
                 final File outputDirectory = getOutputDirectory();
                 ImmutableSet<File> outputFiles = findGeneratedFilesInDirectory(getOutputDirectory());
 
                 if (thriftFiles.isEmpty()) {
                     getLog().info("No thrift files to compile.");
-                } else if (checkStaleness && ((lastModified(thriftFiles) + staleMillis) < lastModified(outputFiles))) {
+                } else if (!validateOnly() && checkStaleness && stalenessStrategy == StalenessStrategy.MTIME
+                        && ((lastModified(thriftFiles) + staleMillis) < lastModified(outputFiles))) {
                     getLog().info("Skipping compilation because target directory newer than sources.");
-                    attachFiles();
+                    attach();
                 } else {
-                    ImmutableSet<File> derivedThriftPathElements =
-                            makeThriftPathFromJars(temporaryThriftFileDirectory, getDependencyArtifactFiles());
-                    FileUtils.forceMkdir(outputDirectory);
+                    start = System.nanoTime();
+                    final ImmutableMap<File, File> reactorSourceRoots = findReactorSourceRoots();
+                    final ImmutableSet<File> derivedThriftPathElements;
+                    if (retainedThriftPathElements != null) {
+                        derivedThriftPathElements = retainedThriftPathElements;
+                    } else if (lazyDependencyExtraction) {
+                        derivedThriftPathElements =
+                                makeThriftPathFromIncludes(thriftSourceRoot, thriftFiles, reactorSourceRoots);
+                    } else {
+                        derivedThriftPathElements = ImmutableSet.<File>builder()
+                                .addAll(reactorSourceRoots.values())
+                                .addAll(makeThriftPathFromJars(temporaryThriftFileDirectory,
+                                        Sets.difference(getDependencyArtifactFiles(), reactorSourceRoots.keySet())))
+                                .build();
+                        if (retainDependencies()) {
+                            // the extracted files depend on the includes in lazy mode, so only these are kept
+                            retainedThriftPathElements = derivedThriftPathElements;
+                        }
+                    }
+                    metrics.recordPhase("dependencies", start);
 
-                    // Quick fix to fix issues with two mvn installs in a row (ie no clean)
-                    FileUtils.cleanDirectory(outputDirectory);
+                    ImmutableList<File> thriftPath = ImmutableList.<File>builder()
+                            .add(thriftSourceRoot)
+                            .addAll(derivedThriftPathElements)
+                            .addAll(Arrays.asList(additionalThriftPathElements))
+                            .build();
+                    if (collapseDuplicateThriftPath) {
+                        thriftPath = collapseDuplicates(thriftPath);
+                    }
+
+                    if (validate || validateOnly() || !roots.isEmpty()) {
+                        final ThriftValidator.Result parsed = validate(thriftFiles, thriftPath);
+                        if (validateOnly()) {
+                            return;
+                        }
+                        if (!roots.isEmpty()) {
+                            final ThriftPruner.Pruned pruned = prune(parsed, thriftFiles, thriftPath);
+                            if (pruned != null) {
+                                thriftFiles = pruned.getThriftFiles();
+                                thriftPath = pruned.getThriftPath();
+                            }
+                        }
+                    }
+                    FileUtils.forceMkdir(outputDirectory);
 
+                    if (engine == ThriftEngine.JAVA) {
+                        getLog().warn("The JAVA engine is experimental, its output has not been compared with"
+                                + " the one of thrift 0.11.0 yet; use the NATIVE engine for releases.");
+                        // keeps fingerprints, incremental states and cache entries apart from those of thrift
+                        thriftExecutable = JavaGenerator.ENGINE_NAME;
+                    }
                     if (thriftExecutable == null && thriftArtifact != null) {
-                        final Artifact artifact = createDependencyArtifact(thriftArtifact);
-                        final File file = resolveBinaryArtifact(artifact);
+                        start = System.nanoTime();
+                        final File file = resolveBinaryArtifact(thriftArtifact);
                         thriftExecutable = file.getAbsolutePath();
+                        metrics.recordPhase("binaryResolution", start);
                     }
                     if (thriftExecutable == null) {
                         // Try to fall back to 'protoc' in $PATH
@@ -209,21 +520,51 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
                         thriftExecutable = "thrift";
                     }
 
-                    Thrift thrift = new Thrift.Builder(thriftExecutable, outputDirectory)
-                            .setGenerator(generator)
-                            .addThriftPathElement(thriftSourceRoot)
-                            .addThriftPathElements(derivedThriftPathElements)
-                            .addThriftPathElements(Arrays.asList(additionalThriftPathElements))
-                            .addThriftFiles(thriftFiles)
-                            .build();
-                    final int exitStatus = thrift.compile();
-                    if (exitStatus != 0) {
-                        getLog().error("thrift failed output: " + thrift.getOutput());
-                        getLog().error("thrift failed error: " + thrift.getError());
-                        throw new MojoFailureException(
-                                "thrift did not exit cleanly. Review output for more information.");
+                    Fingerprint fingerprint = null;
+                    final File fingerprintFile =
+                            new File(outputDirectory.getParentFile(), outputDirectory.getName() + ".fingerprint");
+                    if (checkStaleness && stalenessStrategy == StalenessStrategy.DIGEST) {
+                        start = System.nanoTime();
+                        fingerprint = Fingerprint.compute(thriftFiles, thriftPath, thriftExecutable, outputConfiguration(),
+                                compileThreads);
+                        metrics.recordPhase("fingerprint", start);
+                        final Fingerprint previousFingerprint = Fingerprint.read(fingerprintFile);
+                        if (!fingerprint.equals(previousFingerprint)) {
+                            getLog().info("Fingerprint changed: "
+                                    + Joiner.on(", ").join(fingerprint.differences(previousFingerprint)));
+                        } else if (previousFingerprint.isOutputPresent(outputDirectory)) {
+                            getLog().info("Skipping compilation because the fingerprint of the sources is unchanged.");
+                            attach();
+                            return;
+                        } else {
+                            getLog().info("Fingerprint unchanged, but generated files are missing.");
+                        }
+                        FileUtils.forceDelete(fingerprintFile);
+                    }
+
+                    if (isIncremental()) {
+                        compileIncrementally(thriftFiles, thriftPath, outputDirectory);
+                    } else {
+                        // generate next to the output directory, so that unchanged files keep their timestamps
+                        final File scratchDirectory = new File(stateDirectory, getStateName() + "-output");
+                        FileUtils.forceMkdir(scratchDirectory);
+                        FileUtils.cleanDirectory(scratchDirectory);
+                        final OutputSync outputSync = new OutputSync();
+                        if (useBuildCache) {
+                            // the scratch directory is empty, only the final sync is worth counting
+                            generate(thriftFiles, thriftPath, scratchDirectory,
+                                    IncrementalState.scan(outputConfiguration(), thriftFiles, thriftPath), new OutputSync());
+                        } else {
+                            compile(thriftFiles, thriftPath, scratchDirectory, false);
+                        }
+                        outputSync.sync(scratchDirectory, outputDirectory);
+                        FileUtils.deleteDirectory(scratchDirectory);
+                        logOutputSync(outputSync);
+                    }
+                    if (fingerprint != null) {
+                        fingerprint.write(fingerprintFile, outputDirectory);
                     }
-                    attachFiles();
+                    attach();
                 }
             } catch (IOException e) {
                 throw new MojoFailureException("An IO error occured", e);
@@ -238,6 +579,414 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Parses the thrift files and the files they include, and fails with all the problems found.
+     */
+    private ThriftValidator.Result validate(ImmutableSet<File> thriftFiles, ImmutableList<File> thriftPath)
+            throws IOException, MojoFailureException {
+        final long start = System.nanoTime();
+        final ThriftValidator.Result result = new ThriftValidator(thriftPath, compileThreads).validate(thriftFiles);
+        metrics.recordPhase("validation", start);
+        metrics.increment("validatedFiles", result.getDocuments().size());
+        failOnProblems(result);
+        getLog().info(String.format("Validated %d thrift file(s).", result.getDocuments().size()));
+        return result;
+    }
+
+    /**
+     * Writes the definitions reachable from {@code roots} into {@code stateDirectory}.
+     *
+     * @return the pruned thrift files and thrift path, or {@code null} if the thrift files cannot be pruned.
+     */
+    private ThriftPruner.Pruned prune(ThriftValidator.Result parsed, ImmutableSet<File> thriftFiles,
+                                      ImmutableList<File> thriftPath) throws IOException {
+        final long start = System.nanoTime();
+        final ThriftPruner pruner = new ThriftPruner(parsed, roots);
+        final ThriftPruner.Pruned pruned = pruner.write(thriftFiles, thriftPath,
+                new File(stateDirectory, getStateName() + "-pruned"), compileThreads);
+        metrics.recordPhase("pruning", start);
+        if (pruned == null) {
+            getLog().warn("Generating all definitions: the thrift files include files outside the thrift path"
+                    + " or by absolute paths, which the pruned files cannot.");
+            return null;
+        }
+        metrics.increment("prunedDefinitions", pruner.getTotal() - pruner.getKept());
+        getLog().info(String.format("Keeping %d of %d definition(s), reachable from %s.",
+                pruner.getKept(), pruner.getTotal(), Joiner.on(", ").join(roots)));
+        return pruned;
+    }
+
+    private void failOnProblems(ThriftValidator.Result result) throws MojoFailureException {
+        if (!result.isValid()) {
+            for (ThriftValidator.Problem problem : result.getProblems()) {
+                getLog().error(problem.toString());
+            }
+            throw new MojoFailureException(String.format("Found %d problem(s) in the thrift files:%n%s",
+                    result.getProblems().size(), Joiner.on(String.format("%n")).join(result.getProblems())));
+        }
+    }
+
+    /**
+     * Leaves out the thrift path elements that hold the same thrift files as an earlier element.
+     */
+    private ImmutableList<File> collapseDuplicates(ImmutableList<File> thriftPath) throws IOException {
+        final Map<File, File> duplicates = DuplicateThriftPathElements.find(thriftPath, compileThreads);
+        if (duplicates.isEmpty()) {
+            return thriftPath;
+        }
+        for (Map.Entry<File, File> duplicate : duplicates.entrySet()) {
+            getLog().info(String.format("Leaving %s out of the thrift path, it holds the same thrift files as %s",
+                    duplicate.getKey(), duplicate.getValue()));
+        }
+        metrics.increment("duplicateThriftPathElements", duplicates.size());
+        final ImmutableList.Builder<File> collapsed = ImmutableList.builder();
+        for (File thriftPathElement : thriftPath) {
+            if (!duplicates.containsKey(thriftPathElement)) {
+                collapsed.add(thriftPathElement);
+            }
+        }
+        return collapsed.build();
+    }
+
+    private void attach() throws IOException {
+        final long start = System.nanoTime();
+        attachFiles();
+        metrics.recordPhase("attach", start);
+    }
+
+    /**
+     * Logs the metrics of this execution and writes them to {@code metricsFile} if requested.
+     * Each execution leaves its metrics in {@code stateDirectory}, so that the metrics file
+     * covers the compile and the testCompile goal alike.
+     */
+    private void reportMetrics() {
+        getLog().info("Thrift metrics: " + metrics.summary());
+        if (!writeMetrics) {
+            return;
+        }
+        try {
+            metrics.writeJson(new File(stateDirectory, getStateName() + ".metrics.json"), getStateName());
+            final File[] executionMetricsFiles = stateDirectory.listFiles(new FilenameFilter() {
+                public boolean accept(File dir, String name) {
+                    return name.endsWith(".metrics.json");
+                }
+            });
+            Arrays.sort(executionMetricsFiles);
+            final List<String> executionMetrics = Lists.newArrayList();
+            for (File executionMetricsFile : executionMetricsFiles) {
+                executionMetrics.add(Files.asCharSource(executionMetricsFile, Charsets.UTF_8).read().trim());
+            }
+            Files.createParentDirs(metricsFile);
+            Files.asCharSink(metricsFile, Charsets.UTF_8).write("[\n" + Joiner.on(",\n").join(executionMetrics) + "\n]\n");
+        } catch (IOException e) {
+            getLog().warn("Unable to write " + metricsFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Generates the java sources of {@code thriftFiles} with the configured engine.
+     *
+     * @return the directory the sources of each thrift file were generated into.
+     * @throws MojoFailureException if {@code thrift} did not exit cleanly.
+     */
+    private Map<File, File> compile(Set<File> thriftFiles, List<File> thriftPath, File outputDirectory,
+                                    boolean separateOutputDirectories)
+            throws IOException, CommandLineException, MojoFailureException {
+        if (thriftFiles.isEmpty()) {
+            // the roots only reach definitions of included files that are not compiled
+            return Collections.emptyMap();
+        }
+        final Map<File, File> outputDirectories = engine == ThriftEngine.JAVA
+                ? generateJava(thriftFiles, thriftPath, outputDirectory, separateOutputDirectories)
+                : runThrift(thriftFiles, thriftPath, outputDirectory, separateOutputDirectories);
+        if (normalizeGeneratedSources) {
+            final long normalizeStart = System.nanoTime();
+            final GeneratedSourceNormalizer normalizer = new GeneratedSourceNormalizer(generatedDate, compileThreads);
+            normalizer.normalize(outputDirectory);
+            metrics.recordPhase("normalize", normalizeStart);
+            metrics.increment("filesNormalized", normalizer.getNormalized());
+        }
+        return outputDirectories;
+    }
+
+    /**
+     * Runs {@code thrift} on {@code thriftFiles}.
+     *
+     * @return the directory the sources of each thrift file were generated into.
+     * @throws MojoFailureException if {@code thrift} did not exit cleanly.
+     */
+    private Map<File, File> runThrift(Set<File> thriftFiles, List<File> thriftPath, File outputDirectory,
+                                      boolean separateOutputDirectories)
+            throws IOException, CommandLineException, MojoFailureException {
+        // each execution compiles its own files, so each keeps its own history
+        final File historyFile = new File(stateDirectory, getStateName() + ".durations");
+        final CompileHistory history = CompileHistory.read(historyFile);
+        Thrift thrift = new Thrift.Builder(thriftExecutable, outputDirectory)
+                .setGenerator(generator)
+                .addThriftPathElements(thriftPath)
+                .addThriftFiles(thriftFiles)
+                .setCompileThreads(compileThreads)
+                .setSeparateOutputDirectories(separateOutputDirectories)
+                .setBatchCompile(batchCompile && !separateOutputDirectories)
+                .setMinimalThriftPath(minimalThriftPath)
+                .setCompileHistory(history)
+                .build();
+        if (!history.isEmpty()) {
+            getLog().debug(String.format("Compiling with %d thread(s), the slowest thrift files first.",
+                    compileThreads));
+        }
+        final long start = System.nanoTime();
+        final int exitStatus;
+        try {
+            exitStatus = thrift.compile();
+        } finally {
+            metrics.recordPhase("thrift", start);
+            metrics.recordInvocations(thrift.getInvocations());
+            history.record(thrift.getInvocations());
+        }
+        // outside the finally block, so that a failure to write them never hides the one of thrift
+        history.write(historyFile);
+        reportDiagnostics(thrift.getDiagnostics());
+        metrics.increment("filesCompiled", thriftFiles.size());
+        if (exitStatus != 0) {
+            final File failedThriftFile = thrift.getFailedThriftFile();
+            if (failedThriftFile != null) {
+                getLog().error("thrift failed on: " + failedThriftFile);
+            }
+            if (thrift.getDiagnostics().count(ThriftDiagnostics.Severity.ERROR) == 0) {
+                // the errors have been logged already when thrift reported them in its usual format
+                getLog().error("thrift failed output: " + (failedThriftFile != null
+                        ? thrift.getOutput(failedThriftFile) : thrift.getOutput()));
+                getLog().error("thrift failed error: " + (failedThriftFile != null
+                        ? thrift.getError(failedThriftFile) : thrift.getError()));
+            }
+            throw new MojoFailureException(
+                    "thrift did not exit cleanly. Review output for more information.");
+        }
+        final Map<File, File> outputDirectories = Maps.newHashMap();
+        for (File thriftFile : thriftFiles) {
+            outputDirectories.put(thriftFile, thrift.getOutputDirectory(thriftFile));
+        }
+        return outputDirectories;
+    }
+
+    /**
+     * Logs the distinct warnings and errors of {@code thrift}, at most {@link #MAX_LOGGED_DIAGNOSTICS}
+     * of them, with a summary, and writes them to {@code diagnosticsReport} if requested.
+     */
+    private void reportDiagnostics(ThriftDiagnostics diagnostics) throws IOException {
+        final int warnings = diagnostics.count(ThriftDiagnostics.Severity.WARNING);
+        final int errors = diagnostics.count(ThriftDiagnostics.Severity.ERROR);
+        metrics.increment("thriftWarnings", warnings);
+        metrics.increment("thriftErrors", errors);
+        if (diagnosticsReport != null) {
+            diagnostics.writeJson(diagnosticsReport);
+        }
+        if (diagnostics.isEmpty()) {
+            return;
+        }
+        final List<ThriftDiagnostics.Diagnostic> distinct = diagnostics.getDiagnostics();
+        final int logged = Math.min(distinct.size(), MAX_LOGGED_DIAGNOSTICS);
+        for (ThriftDiagnostics.Diagnostic diagnostic : distinct.subList(0, logged)) {
+            if (diagnostic.getSeverity() == ThriftDiagnostics.Severity.ERROR) {
+                getLog().error(diagnostic.toString());
+            } else {
+                getLog().warn(diagnostic.toString());
+            }
+        }
+        final int unlogged = distinct.size() - logged + diagnostics.getDropped();
+        getLog().info(String.format("thrift reported %d warning(s) and %d error(s)%s%s.", warnings, errors,
+                diagnostics.getDuplicates() > 0 ? String.format(", %d repeated", diagnostics.getDuplicates()) : "",
+                unlogged > 0 ? String.format(", %d more not logged", unlogged) : ""));
+    }
+
+    /**
+     * Generates the java sources of {@code thriftFiles} inside the build, up to {@code compileThreads}
+     * files at a time, from the parsed thrift files.
+     *
+     * @return the directory the sources of each thrift file were generated into.
+     * @throws MojoFailureException if the thrift files do not validate.
+     */
+    private Map<File, File> generateJava(Set<File> thriftFiles, List<File> thriftPath, File outputDirectory,
+                                         boolean separateOutputDirectories)
+            throws IOException, MojoFailureException {
+        final long start = System.nanoTime();
+        final ThriftValidator.Result parsed = new ThriftValidator(thriftPath, compileThreads).validate(thriftFiles);
+        failOnProblems(parsed);
+        final JavaGenerator javaGenerator =
+                new JavaGenerator(generator, new SimpleDateFormat("yyyy-MM-dd").format(new Date()));
+        final Map<File, File> outputDirectories = Maps.newHashMap();
+        final ExecutorService executor = Executors.newFixedThreadPool(compileThreads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-java-%d").setDaemon(true).build());
+        try {
+            final List<Future<List<String>>> futures = Lists.newArrayList();
+            int index = 0;
+            for (final File thriftFile : thriftFiles) {
+                final File thriftOutputDirectory = separateOutputDirectories
+                        ? new File(outputDirectory, Integer.toString(index++)) : outputDirectory;
+                outputDirectories.put(thriftFile, thriftOutputDirectory);
+                futures.add(executor.submit(new Callable<List<String>>() {
+                    public List<String> call() throws IOException {
+                        return javaGenerator.generate(thriftFile, parsed, thriftOutputDirectory);
+                    }
+                }));
+            }
+            for (Future<List<String>> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating java sources", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+            metrics.recordPhase("javaGenerator", start);
+        }
+        metrics.increment("filesCompiled", thriftFiles.size());
+        return outputDirectories;
+    }
+
+    /**
+     * @return the generator, and the normalization of the generated files if any, to tell apart
+     * outputs generated differently.
+     */
+    private String outputConfiguration() {
+        if (!normalizeGeneratedSources) {
+            return generator;
+        }
+        return generator + " (" + new GeneratedSourceNormalizer(generatedDate, 1).describe() + ")";
+    }
+
+    /**
+     * Compiles only the thrift files that changed since the previous build, and the files that
+     * include them, and removes the java files generated from changed or deleted thrift files.
+     * Falls back to compiling everything when there is no usable state from a previous build.
+     */
+    private void compileIncrementally(ImmutableSet<File> thriftFiles, ImmutableList<File> thriftPath,
+                                      File outputDirectory)
+            throws IOException, CommandLineException, MojoFailureException {
+        final File stateFile = new File(stateDirectory, getStateName() + ".state");
+        final String configuration = thriftExecutable + " --gen " + outputConfiguration();
+
+        final IncrementalState previous = IncrementalState.read(stateFile);
+        final IncrementalState current = IncrementalState.scan(configuration, thriftFiles, thriftPath);
+        // the state is only valid once the output directory matches it again
+        FileUtils.forceDelete(stateFile);
+
+        final Set<File> staleThriftFiles;
+        if (previous == null || !configuration.equals(previous.getConfiguration())) {
+            getLog().info("No usable incremental state, compiling all thrift files.");
+            staleThriftFiles = thriftFiles;
+        } else {
+            staleThriftFiles = current.staleSources(previous, outputDirectory);
+            for (File thriftFile : Sets.difference(thriftFiles, staleThriftFiles)) {
+                current.setGeneratedFiles(thriftFile, previous.getGeneratedFiles(thriftFile));
+            }
+            getLog().info(String.format("%d of %d thrift files need to be compiled.",
+                    staleThriftFiles.size(), thriftFiles.size()));
+        }
+
+        final OutputSync outputSync = new OutputSync();
+        if (!staleThriftFiles.isEmpty()) {
+            final Map<File, List<String>> generatedFiles =
+                    generate(staleThriftFiles, thriftPath, outputDirectory, current, outputSync);
+            for (Map.Entry<File, List<String>> entry : generatedFiles.entrySet()) {
+                current.setGeneratedFiles(entry.getKey(), entry.getValue());
+            }
+        }
+        // drops the files of deleted thrift files and the files stale thrift files no longer generate
+        final List<String> keptFiles = Lists.newArrayList();
+        for (File thriftFile : thriftFiles) {
+            keptFiles.addAll(current.getGeneratedFiles(thriftFile));
+        }
+        outputSync.deleteObsolete(outputDirectory, keptFiles);
+        logOutputSync(outputSync);
+        current.write(stateFile);
+    }
+
+    /**
+     * Generates the java sources of {@code thriftFiles} into {@code outputDirectory}, restoring them
+     * from the build cache where possible. Each thrift file is compiled into its own work directory
+     * first, so that the files generated from it can be told apart.
+     *
+     * @param graph      the include graph of {@code thriftFiles}.
+     * @param outputSync moves the generated files into {@code outputDirectory}, keeping unchanged files.
+     * @return the paths of the generated files, relative to {@code outputDirectory}, by thrift file.
+     */
+    private Map<File, List<String>> generate(Set<File> thriftFiles, List<File> thriftPath, File outputDirectory,
+                                             IncrementalState graph, OutputSync outputSync)
+            throws IOException, CommandLineException, MojoFailureException {
+        final Map<File, List<String>> generatedFiles = Maps.newHashMap();
+        final Map<File, String> cacheKeys = Maps.newHashMap();
+        final BuildCache buildCache =
+                useBuildCache ? new BuildCache(buildCacheDirectory, buildCacheMaxSize * 1024 * 1024) : null;
+        final File workDirectory = new File(stateDirectory, getStateName());
+        FileUtils.forceMkdir(workDirectory);
+        FileUtils.cleanDirectory(workDirectory);
+        if (buildCache != null) {
+            final String executableDigest = Fingerprint.executableDigest(thriftExecutable);
+            final File restoreDirectory = new File(workDirectory, "restored");
+            for (File thriftFile : thriftFiles) {
+                final String cacheKey = BuildCache.key(outputConfiguration(), executableDigest, graph.contentKey(thriftFile));
+                final List<String> restoredFiles = buildCache.restore(cacheKey, restoreDirectory);
+                if (restoredFiles != null) {
+                    for (String path : restoredFiles) {
+                        outputSync.move(new File(restoreDirectory, path), new File(outputDirectory, path));
+                    }
+                    generatedFiles.put(thriftFile, restoredFiles);
+                } else {
+                    cacheKeys.put(thriftFile, cacheKey);
+                }
+            }
+        }
+
+        final Set<File> compiledThriftFiles = Sets.difference(thriftFiles, generatedFiles.keySet()).immutableCopy();
+        if (!compiledThriftFiles.isEmpty()) {
+
+            final Map<File, File> thriftOutputDirectories = compile(compiledThriftFiles, thriftPath, workDirectory, true);
+            for (File thriftFile : compiledThriftFiles) {
+                final File thriftOutputDirectory = thriftOutputDirectories.get(thriftFile);
+                final List<String> paths = Lists.newArrayList();
+                if (thriftOutputDirectory.isDirectory()) {
+                    for (String path : FileUtils.getFileNames(thriftOutputDirectory, "**", null, false)) {
+                        paths.add(path.replace(File.separatorChar, '/'));
+                    }
+                }
+                if (buildCache != null) {
+                    buildCache.store(cacheKeys.get(thriftFile), thriftOutputDirectory, paths);
+                }
+                for (String path : paths) {
+                    outputSync.move(new File(thriftOutputDirectory, path), new File(outputDirectory, path));
+                }
+                generatedFiles.put(thriftFile, paths);
+            }
+        }
+        FileUtils.deleteDirectory(workDirectory);
+
+        if (buildCache != null) {
+            final int evicted = buildCache.evict();
+            getLog().info(String.format("Build cache: %d hits, %d misses, %d entries evicted.",
+                    buildCache.getHits(), buildCache.getMisses(), evicted));
+            metrics.increment("buildCacheHits", buildCache.getHits());
+            metrics.increment("buildCacheMisses", buildCache.getMisses());
+        }
+        return generatedFiles;
+    }
+
+    private void logOutputSync(OutputSync outputSync) {
+        getLog().info(String.format("Generated files: %d written, %d unchanged, %d deleted.",
+                outputSync.getWritten(), outputSync.getUnchanged(), outputSync.getDeleted()));
+    }
+
+    /**
+     * @return a name for the files this execution keeps in {@code stateDirectory}.
+     */
+    private String getStateName() {
+        return mojoExecution.getGoal() + "-" + mojoExecution.getExecutionId();
+    }
+
     private ImmutableSet<File> findGeneratedFilesInDirectory(File directory) throws IOException {
         if (directory == null || !directory.isDirectory())
             return ImmutableSet.of();
@@ -255,15 +1004,19 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
         return result;
     }
 
-    private void checkParameters() {
+    final void checkParameters() {
         Preconditions.checkNotNull(project, "project missing");
         Preconditions.checkNotNull(projectHelper, "projectHelper missing");
         Preconditions.checkNotNull(artifactFactory, "artifactFactory missing");
         Preconditions.checkNotNull(artifactResolver, "artifactResolver missing");
         Preconditions.checkNotNull(repositorySystem, "repositorySystem missing");
         Preconditions.checkNotNull(resolutionErrorHandler, "resolutionErrorHandler missing");
-        Preconditions.checkArgument(thriftExecutable != null || thriftArtifact != null, "thriftExecutable or thriftArtifact missing");
+        Preconditions.checkNotNull(engine, "engine missing");
+        Preconditions.checkNotNull(roots, "roots missing");
+        Preconditions.checkArgument(validateOnly() || engine == ThriftEngine.JAVA || thriftExecutable != null
+                || thriftArtifact != null, "thriftExecutable or thriftArtifact missing");
         Preconditions.checkNotNull(generator, "generator missing");
+        Preconditions.checkArgument(compileThreads > 0, "compileThreads must be positive");
         final File thriftSourceRoot = getThriftSourceRoot();
         Preconditions.checkNotNull(thriftSourceRoot);
         Preconditions.checkArgument(!thriftSourceRoot.isFile(), "thriftSourceRoot is a file, not a diretory");
@@ -272,6 +1025,16 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
         final File outputDirectory = getOutputDirectory();
         Preconditions.checkNotNull(outputDirectory);
         Preconditions.checkState(!outputDirectory.isFile(), "the outputDirectory is a file, not a directory");
+        Preconditions.checkNotNull(stalenessStrategy, "stalenessStrategy missing");
+        if (useDependencyCache) {
+            Preconditions.checkNotNull(dependencyCacheDirectory, "dependencyCacheDirectory missing");
+        }
+        if (useBuildCache) {
+            Preconditions.checkNotNull(buildCacheDirectory, "buildCacheDirectory missing");
+            Preconditions.checkArgument(buildCacheMaxSize >= 0, "buildCacheMaxSize must not be negative");
+        }
+        Preconditions.checkNotNull(stateDirectory, "stateDirectory missing");
+        Preconditions.checkNotNull(mojoExecution, "mojoExecution missing");
     }
 
     protected abstract File getThriftSourceRoot();
@@ -280,7 +1043,36 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
 
     protected abstract File getOutputDirectory();
 
-    protected abstract void attachFiles();
+    protected abstract void attachFiles() throws IOException;
+
+    /**
+     * @return whether only the thrift files affected by changes since the last execution are compiled.
+     */
+    protected boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return whether the thrift files are only validated, instead of compiled.
+     */
+    protected boolean validateOnly() {
+        return false;
+    }
+
+    /**
+     * @return whether the thrift path elements derived from the dependencies are kept for the next
+     * {@link #compileOnce()}, instead of being looked up again.
+     */
+    protected boolean retainDependencies() {
+        return false;
+    }
+
+    /**
+     * @return the thrift path elements configured in addition to the thrift source root and the dependencies.
+     */
+    protected List<File> getAdditionalThriftPathElements() {
+        return Arrays.asList(additionalThriftPathElements);
+    }
 
     /**
      * Gets the {@link File} for each dependency artifact.
@@ -295,53 +1087,178 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
         return ImmutableSet.copyOf(dependencyArtifactFiles);
     }
 
-    private ImmutableSet<File> makeThriftPathFromJars(File temporaryThriftFileDirectory, Iterable<File> classpathElementFiles)
+    /**
+     * Extracts the thrift files of every dependency jar and returns the directories to add to the
+     * thrift path. The jars are scanned and extracted in parallel, up to {@code compileThreads} at a time.
+     */
+    ImmutableSet<File> makeThriftPathFromJars(final File temporaryThriftFileDirectory,
+                                              Iterable<File> classpathElementFiles)
             throws IOException, MojoExecutionException {
         Preconditions.checkNotNull(classpathElementFiles, "classpathElementFiles");
-        // clean the temporary directory to ensure that stale files aren't used
+        final ContentStore contentStore = useContentStore ? new ContentStore(contentStoreDirectory) : null;
+        final DependencyIdlCache cache = useDependencyCache
+                ? new DependencyIdlCache(dependencyCacheDirectory, indexedDependenciesOnly, contentStore) : null;
+        // stale files are never used: a jar is extracted again as soon as it changed
+        final ExtractedDependencies extractedDependencies =
+                cache == null ? ExtractedDependencies.open(temporaryThriftFileDirectory, indexedDependenciesOnly, contentStore) : null;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(compileThreads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-dependencies-%d").setDaemon(true).build());
+        // in classpath order, whichever jar is scanned first
+        final Set<File> thriftDirectories = Sets.newLinkedHashSet();
+        try {
+            final List<Future<ImmutableSet<File>>> futures = Lists.newArrayList();
+            for (final File classpathElementFile : classpathElementFiles) {
+                futures.add(executor.submit(new Callable<ImmutableSet<File>>() {
+                    public ImmutableSet<File> call() throws IOException, MojoExecutionException {
+                        return makeThriftPathFromClasspathElement(classpathElementFile, cache,
+                                extractedDependencies);
+                    }
+                }));
+            }
+            for (Future<ImmutableSet<File>> future : futures) {
+                thriftDirectories.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while extracting dependency thrift files", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class, MojoExecutionException.class);
+            throw new MojoExecutionException("Unable to extract dependency thrift files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (cache != null) {
+            getLog().info(String.format("Dependency thrift file cache: %d hits, %d misses.",
+                    cache.getHits(), cache.getMisses()));
+            metrics.increment("dependencyCacheHits", cache.getHits());
+            metrics.increment("dependencyCacheMisses", cache.getMisses());
+            metrics.increment("bytesExtracted", cache.getExtractedBytes());
+        } else {
+            extractedDependencies.write();
+            getLog().info(String.format("Dependency thrift files: %d jars reused, %d jars extracted.",
+                    extractedDependencies.getReused(), extractedDependencies.getExtracted()));
+            metrics.increment("dependenciesReused", extractedDependencies.getReused());
+            metrics.increment("dependenciesExtracted", extractedDependencies.getExtracted());
+            metrics.increment("bytesExtracted", extractedDependencies.getExtractedBytes());
+        }
+        reportContentStore(contentStore);
+        return ImmutableSet.copyOf(thriftDirectories);
+    }
+
+    /**
+     * @return the thrift source roots of the dependencies built by the reactor, by artifact file, if
+     * {@code useReactorSources} is set.
+     */
+    private ImmutableMap<File, File> findReactorSourceRoots() {
+        if (!useReactorSources || session == null || mojoExecution == null) {
+            return ImmutableMap.of();
+        }
+        final ImmutableMap<File, File> reactorSourceRoots = ReactorThriftSources.find(session.getProjects(),
+                mojoExecution.getGroupId() + ":" + mojoExecution.getArtifactId(), getDependencyArtifacts());
+        for (Map.Entry<File, File> reactorSourceRoot : reactorSourceRoots.entrySet()) {
+            getLog().debug(String.format("Using %s instead of %s", reactorSourceRoot.getValue(),
+                    reactorSourceRoot.getKey()));
+        }
+        metrics.increment("reactorSourceRoots", reactorSourceRoots.size());
+        return reactorSourceRoots;
+    }
+
+    /**
+     * Extracts the dependency thrift files included by {@code thriftFiles}, directly or transitively,
+     * and returns the directories to add to the thrift path.
+     *
+     * @param reactorSourceRoots the thrift source roots to use instead of the jars of reactor dependencies.
+     */
+    private ImmutableSet<File> makeThriftPathFromIncludes(File thriftSourceRoot, Set<File> thriftFiles,
+                                                          Map<File, File> reactorSourceRoots)
+            throws IOException, MojoExecutionException {
+        // the extracted files depend on the includes, so nothing of an earlier execution can be reused
         if (temporaryThriftFileDirectory.exists()) {
             FileUtils.cleanDirectory(temporaryThriftFileDirectory);
         }
-        Set<File> thriftDirectories = Sets.newHashSet();
-        for (File classpathElementFile : classpathElementFiles) {
+        final List<File> classpathElementFiles = Lists.newArrayList();
+        final Map<File, String> jarDirectoryNames = Maps.newHashMap();
+        for (Artifact artifact : getDependencyArtifacts()) {
+            final File classpathElementFile = artifact.getFile();
+            if (classpathElementFile == null || classpathElementFiles.contains(classpathElementFile)
+                    || reactorSourceRoots.containsKey(classpathElementFile)) {
+                continue;
+            }
+            classpathElementFiles.add(classpathElementFile);
             // for some reason under IAM, we receive poms as dependent files
-            // I am excluding .xml rather than including .jar as there may be other extensions in use (sar, har, zip)
             if (classpathElementFile.isFile() && classpathElementFile.canRead() &&
                     !classpathElementFile.getName().endsWith(".xml")) {
+                jarDirectoryNames.put(classpathElementFile, truncatePath(classpathElementFile.getPath()));
+            }
+        }
 
-                // create the jar file. the constructor validates.
-                JarFile classpathJar;
-                try {
-                    classpathJar = new JarFile(classpathElementFile);
-                } catch (IOException e) {
-                    throw new IllegalArgumentException(String.format(
-                            "%s was not a readable artifact", classpathElementFile));
-                }
-                for (JarEntry jarEntry : Collections.list(classpathJar.entries())) {
-                    final String jarEntryName = jarEntry.getName();
-                    if (jarEntry.getName().endsWith(THRIFT_FILE_SUFFIX)) {
-                        final File uncompressedCopy =
-                                new File(new File(temporaryThriftFileDirectory,
-                                        truncatePath(classpathJar.getName())), jarEntryName);
-                        uncompressedCopy.getParentFile().mkdirs();
-                        FileUtils.copyStreamToFile(new RawInputStreamFacade(classpathJar
-                                .getInputStream(jarEntry)), uncompressedCopy);
-                        thriftDirectories.add(uncompressedCopy.getParentFile());
-                    }
-                }
-            } else if (classpathElementFile.isDirectory()) {
-                File[] thriftFiles = classpathElementFile.listFiles(new FilenameFilter() {
-                    public boolean accept(File dir, String name) {
-                        return name.endsWith(THRIFT_FILE_SUFFIX);
-                    }
-                });
+        final ContentStore contentStore = useContentStore ? new ContentStore(contentStoreDirectory) : null;
+        final IncludeDrivenExtractor extractor =
+                IncludeDrivenExtractor.index(temporaryThriftFileDirectory, classpathElementFiles, jarDirectoryNames,
+                        indexedDependenciesOnly, contentStore);
+        final ImmutableList<File> sourcePath = ImmutableList.<File>builder()
+                .add(thriftSourceRoot)
+                .addAll(reactorSourceRoots.values())
+                .build();
+        final ImmutableSet<File> thriftPath = ImmutableSet.<File>builder()
+                .addAll(reactorSourceRoots.values())
+                .addAll(extractor.extract(thriftFiles, sourcePath, Arrays.asList(additionalThriftPathElements)))
+                .build();
+        getLog().info(String.format("Extracted %d of %d dependency thrift files, %d dependency include directories.",
+                extractor.getExtractedFiles(), extractor.getIndexedFiles(), thriftPath.size()));
+        metrics.increment("jarsScanned", jarDirectoryNames.size());
+        metrics.increment("dependencyFilesIndexed", extractor.getIndexedFiles());
+        metrics.increment("dependencyFilesExtracted", extractor.getExtractedFiles());
+        reportContentStore(contentStore);
+        return thriftPath;
+    }
+
+    private void reportContentStore(ContentStore contentStore) {
+        if (contentStore == null) {
+            return;
+        }
+        getLog().info(String.format("Content store: %d files written, %d linked, %d copied.",
+                contentStore.getBlobsWritten(), contentStore.getLinked(), contentStore.getCopied()));
+        metrics.increment("contentStoreWrites", contentStore.getBlobsWritten());
+        metrics.increment("contentStoreLinks", contentStore.getLinked());
+        metrics.increment("contentStoreCopies", contentStore.getCopied());
+    }
 
-                if (thriftFiles.length > 0) {
-                    thriftDirectories.add(classpathElementFile);
+    private ImmutableSet<File> makeThriftPathFromClasspathElement(File classpathElementFile,
+                                                                  DependencyIdlCache cache,
+                                                                  ExtractedDependencies extractedDependencies)
+            throws IOException, MojoExecutionException {
+        final long start = System.nanoTime();
+        final ImmutableSet.Builder<File> thriftDirectories = ImmutableSet.builder();
+        // for some reason under IAM, we receive poms as dependent files
+        // I am excluding .xml rather than including .jar as there may be other extensions in use (sar, har, zip)
+        if (classpathElementFile.isFile() && classpathElementFile.canRead() &&
+                !classpathElementFile.getName().endsWith(".xml")) {
+            metrics.increment("jarsScanned", 1);
+            if (cache != null) {
+                thriftDirectories.addAll(cache.getOrExtract(classpathElementFile));
+            } else {
+                thriftDirectories.addAll(extractedDependencies.getOrExtract(classpathElementFile,
+                        truncatePath(classpathElementFile.getPath())));
+            }
+        } else if (classpathElementFile.isDirectory()) {
+            File[] thriftFiles = classpathElementFile.listFiles(new FilenameFilter() {
+                public boolean accept(File dir, String name) {
+                    return name.endsWith(THRIFT_FILE_SUFFIX);
                 }
+            });
+
+            if (thriftFiles.length > 0) {
+                thriftDirectories.add(classpathElementFile);
             }
         }
-        return ImmutableSet.copyOf(thriftDirectories);
+        if (getLog().isDebugEnabled()) {
+            getLog().debug(String.format("Scanned %s for thrift files in %d ms",
+                    classpathElementFile, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+        return thriftDirectories.build();
     }
 
     private ImmutableSet<File> findThriftFilesInDirectory(File directory) throws IOException {
@@ -410,7 +1327,53 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
         return hexString.toString();
     }
 
-    private File resolveBinaryArtifact(final Artifact artifact) throws MojoExecutionException {
+    /**
+     * Resolves the {@code thrift} executable and installs it in {@code thriftPluginDirectory}. Both
+     * happen at most once per session, even when modules of a parallel build ask at the same time,
+     * and not at all if a verified executable of the artifact is installed already.
+     */
+    private File resolveBinaryArtifact(String artifactSpec) throws MojoExecutionException, IOException {
+        final Artifact artifact = createDependencyArtifact(artifactSpec);
+        final long maxAgeMillis;
+        if (session.isOffline() || !artifact.isSnapshot()) {
+            maxAgeMillis = Long.MAX_VALUE;
+        } else if (session.getRequest().isUpdateSnapshots()) {
+            maxAgeMillis = -1;
+        } else {
+            maxAgeMillis = TimeUnit.MINUTES.toMillis(binaryRevalidationMinutes);
+        }
+        final File installed = InstalledExecutable.find(thriftPluginDirectory, artifactSpec, maxAgeMillis);
+        if (installed != null) {
+            getLog().debug("Using installed executable " + installed.getAbsolutePath());
+            metrics.increment("binaryCacheHits", 1);
+            return installed;
+        }
+        metrics.increment("binaryCacheMisses", 1);
+
+        final ThriftExecutables executables = ThriftExecutables.forSession(session);
+        final File sourceFile = executables.resolve(artifactSpec, new Callable<File>() {
+            public File call() throws MojoExecutionException {
+                return resolveArtifactFile(artifact);
+            }
+        });
+
+        // Copy the file to the project build directory and make it executable
+        String sourceFileName = sourceFile.getName();
+        String targetFileName;
+        if (Os.isFamily(Os.FAMILY_WINDOWS) && !sourceFileName.endsWith(".exe")) {
+            targetFileName = sourceFileName + ".exe";
+        } else {
+            targetFileName = sourceFileName;
+        }
+        final File targetFile = executables.install(sourceFile, new File(thriftPluginDirectory, targetFileName));
+        InstalledExecutable.record(thriftPluginDirectory, artifactSpec, targetFile, sourceFile);
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Executable file: " + targetFile.getAbsolutePath());
+        }
+        return targetFile;
+    }
+
+    private File resolveArtifactFile(final Artifact artifact) throws MojoExecutionException {
         final ArtifactResolutionResult result;
         try {
             final ArtifactResolutionRequest request = new ArtifactResolutionRequest()
@@ -444,40 +1407,7 @@ public abstract class AbstractThriftMojo extends AbstractMojo {
         if (getLog().isDebugEnabled()) {
             getLog().debug("Resolved artifact: " + resolvedBinaryArtifact);
         }
-
-        // Copy the file to the project build directory and make it executable
-        File sourceFile = resolvedBinaryArtifact.getFile();
-        String sourceFileName = sourceFile.getName();
-        String targetFileName;
-        if (Os.isFamily(Os.FAMILY_WINDOWS) && !sourceFileName.endsWith(".exe")) {
-            targetFileName = sourceFileName + ".exe";
-        } else {
-            targetFileName = sourceFileName;
-        }
-        final File targetFile = new File(thriftPluginDirectory, targetFileName);
-        if (targetFile.exists()) {
-            // The file must have already been copied in a prior plugin execution/invocation
-            getLog().debug("Executable file already exists: " + targetFile.getAbsolutePath());
-            return targetFile;
-        }
-        try {
-            FileUtils.forceMkdir(thriftPluginDirectory);
-        } catch (IOException e) {
-            throw new MojoExecutionException("Unable to create directory " + thriftPluginDirectory, e);
-        }
-        try {
-            FileUtils.copyFile(sourceFile, targetFile);
-        } catch (IOException e) {
-            throw new MojoExecutionException("Unable to copy the file to " + thriftPluginDirectory, e);
-        }
-        if (!Os.isFamily(Os.FAMILY_WINDOWS)) {
-            targetFile.setExecutable(true);
-        }
-
-        if (getLog().isDebugEnabled()) {
-            getLog().debug("Executable file: " + targetFile.getAbsolutePath());
-        }
-        return targetFile;
+        return resolvedBinaryArtifact.getFile();
     }
 
         /**
@@ -0,0 +1,229 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A content-addressed cache of the java sources generated from single thrift
+ * files. An entry is keyed by the content of the thrift file and its include
+ * closure, the {@code thrift} executable and the generator options, so modules
+ * compiling the same shared thrift files restore the generated sources instead
+ * of running {@code thrift} again.</p>
+ *
+ * <p>Entries are published atomically and the least recently used ones are
+ * evicted once the cache grows beyond its maximum size.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class BuildCache {
+
+    private static final String HEADER = "# thrift-maven-plugin generated sources v1";
+
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    /**
+     * How long an entry directory may go without its entry file before it is taken for abandoned.
+     */
+    private static final long ABANDONED_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final File directory;
+    private final long maxSize;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param directory the cache directory, shared between modules and builds.
+     * @param maxSize   the size in bytes above which entries are evicted.
+     */
+    BuildCache(File directory, long maxSize) {
+        this.directory = Preconditions.checkNotNull(directory, "directory");
+        Preconditions.checkArgument(maxSize >= 0, "maxSize must not be negative");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param generator          the value for the {@code --gen} option.
+     * @param executableDigest   the digest of the {@code thrift} executable.
+     * @param contentKey         the digest of the thrift file and its include closure.
+     * @return the key of the cache entry.
+     */
+    static String key(String generator, String executableDigest, HashCode contentKey) {
+        return Hashing.sha256().newHasher()
+                .putString(generator, Charsets.UTF_8).putByte((byte) 0)
+                .putString(executableDigest, Charsets.UTF_8).putByte((byte) 0)
+                .putBytes(contentKey.asBytes())
+                .hash().toString();
+    }
+
+    /**
+     * Copies the sources cached under {@code key} into {@code outputDirectory}.
+     *
+     * @return the paths of the restored sources relative to {@code outputDirectory}, or
+     * {@code null} if there is no such entry, or it lists a path that leaves its directory.
+     */
+    List<String> restore(String key, File outputDirectory) {
+        final File entryFile = new File(directory, key + ENTRY_SUFFIX);
+        try {
+            final List<String> lines = entryFile.isFile()
+                    ? Files.asCharSource(entryFile, Charsets.UTF_8).readLines() : ImmutableList.<String>of();
+            if (lines.size() < 2 || !HEADER.equals(lines.get(0))) {
+                misses.incrementAndGet();
+                return null;
+            }
+            final List<String> paths = lines.subList(2, lines.size());
+            final File entryDirectory = new File(directory, key);
+            for (String path : paths) {
+                if (!RelativePaths.isContained(path)) {
+                    // a corrupt entry, or one written to escape the output directory
+                    misses.incrementAndGet();
+                    return null;
+                }
+            }
+            for (String path : paths) {
+                FileUtils.copyFile(new File(entryDirectory, path), new File(outputDirectory, path));
+            }
+            // the modification time of the entry file records its last use
+            entryFile.setLastModified(System.currentTimeMillis());
+            hits.incrementAndGet();
+            return ImmutableList.copyOf(paths);
+        } catch (IOException e) {
+            // evicted while we were reading it
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the sources generated below {@code generatedDirectory} under {@code key}.
+     *
+     * @param paths the paths of the generated sources relative to {@code generatedDirectory}.
+     */
+    void store(String key, File generatedDirectory, List<String> paths) throws IOException {
+        if (new File(directory, key + ENTRY_SUFFIX).isFile()) {
+            // stored by another module in the meantime
+            return;
+        }
+        final File entryDirectory = new File(directory, key);
+        final String unique = "." + UUID.randomUUID() + ".tmp";
+        final File temporaryDirectory = new File(directory, key + unique);
+        FileUtils.forceMkdir(temporaryDirectory);
+
+        long size = 0;
+        for (String path : paths) {
+            final File source = new File(generatedDirectory, path);
+            FileUtils.copyFile(source, new File(temporaryDirectory, path));
+            size += source.length();
+        }
+        if (!temporaryDirectory.renameTo(entryDirectory)
+                && !(isAbandoned(entryDirectory) && replace(entryDirectory, temporaryDirectory))) {
+            // another build published the same entry first, and may still be writing its entry file
+            FileUtils.deleteDirectory(temporaryDirectory);
+            return;
+        }
+
+        final List<String> lines = Lists.newArrayList(HEADER, Long.toString(size));
+        lines.addAll(paths);
+        final File temporaryEntryFile = new File(directory, key + unique + ENTRY_SUFFIX);
+        Files.asCharSink(temporaryEntryFile, Charsets.UTF_8).writeLines(lines, "\n");
+        FileUtils.rename(temporaryEntryFile, new File(directory, key + ENTRY_SUFFIX));
+    }
+
+    /**
+     * @return whether {@code entryDirectory} was left without an entry file long ago, by a build that stopped
+     * while publishing it or by an interrupted eviction, rather than being published right now.
+     */
+    private boolean isAbandoned(File entryDirectory) {
+        return entryDirectory.isDirectory() && !new File(directory, entryDirectory.getName() + ENTRY_SUFFIX).isFile()
+                && System.currentTimeMillis() - entryDirectory.lastModified() > ABANDONED_MILLIS;
+    }
+
+    private static boolean replace(File entryDirectory, File temporaryDirectory) throws IOException {
+        FileUtils.deleteDirectory(entryDirectory);
+        return temporaryDirectory.renameTo(entryDirectory);
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is no larger than its maximum size.
+     *
+     * @return the number of evicted entries.
+     */
+    int evict() throws IOException {
+        final File[] entryFiles = directory.listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(ENTRY_SUFFIX) && !file.getName().contains(".tmp");
+            }
+        });
+        if (entryFiles == null) {
+            return 0;
+        }
+        long size = 0;
+        final long[] sizes = new long[entryFiles.length];
+        for (int i = 0; i < entryFiles.length; i++) {
+            sizes[i] = entrySize(entryFiles[i]);
+            size += sizes[i];
+        }
+        if (size <= maxSize) {
+            return 0;
+        }
+
+        final Integer[] order = new Integer[entryFiles.length];
+        final long[] lastUsed = new long[entryFiles.length];
+        for (int i = 0; i < entryFiles.length; i++) {
+            order[i] = i;
+            lastUsed[i] = entryFiles[i].lastModified();
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer left, Integer right) {
+                return lastUsed[left] < lastUsed[right] ? -1 : (lastUsed[left] == lastUsed[right] ? 0 : 1);
+            }
+        });
+
+        int evicted = 0;
+        for (int i = 0; i < order.length && size > maxSize; i++) {
+            final File entryFile = entryFiles[order[i]];
+            final String key = entryFile.getName().substring(0, entryFile.getName().length() - ENTRY_SUFFIX.length());
+            // drop the entry file first so that nobody starts restoring a half deleted entry
+            FileUtils.forceDelete(entryFile);
+            FileUtils.deleteDirectory(new File(directory, key));
+            size -= sizes[order[i]];
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private static long entrySize(File entryFile) {
+        try {
+            final List<String> lines = Files.asCharSource(entryFile, Charsets.UTF_8).readLines();
+            return lines.size() < 2 ? 0 : Long.parseLong(lines.get(1));
+        } catch (IOException e) {
+            return 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+}
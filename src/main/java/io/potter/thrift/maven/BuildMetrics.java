@@ -0,0 +1,133 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The time spent in each phase of a mojo execution, the duration of every
+ * {@code thrift} invocation and a few counters, such as the number of jars
+ * scanned or the number of build cache hits.</p>
+ *
+ * <p>Safe to update from several threads.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class BuildMetrics {
+
+    private final Map<String, Long> phaseNanos = Maps.newLinkedHashMap();
+    private final Map<String, Long> counters = Maps.newLinkedHashMap();
+    private final List<Thrift.Invocation> invocations = Lists.newArrayList();
+
+    /**
+     * Adds the time elapsed since {@code startNanos} to {@code phase}.
+     *
+     * @param startNanos a value of {@link System#nanoTime()} taken when the phase started.
+     */
+    synchronized void recordPhase(String phase, long startNanos) {
+        final long elapsed = System.nanoTime() - startNanos;
+        final Long previous = phaseNanos.get(phase);
+        phaseNanos.put(phase, previous == null ? elapsed : previous + elapsed);
+    }
+
+    synchronized void increment(String counter, long delta) {
+        final Long previous = counters.get(counter);
+        counters.put(counter, previous == null ? delta : previous + delta);
+    }
+
+    synchronized void recordInvocations(List<Thrift.Invocation> thriftInvocations) {
+        invocations.addAll(thriftInvocations);
+        increment("thriftInvocations", thriftInvocations.size());
+    }
+
+    /**
+     * @return the milliseconds spent in each phase, in the order the phases started.
+     */
+    synchronized ImmutableMap<String, Long> getPhaseMillis() {
+        final ImmutableMap.Builder<String, Long> phaseMillis = ImmutableMap.builder();
+        for (Map.Entry<String, Long> phase : phaseNanos.entrySet()) {
+            phaseMillis.put(phase.getKey(), TimeUnit.NANOSECONDS.toMillis(phase.getValue()));
+        }
+        return phaseMillis.build();
+    }
+
+    synchronized ImmutableMap<String, Long> getCounters() {
+        return ImmutableMap.copyOf(counters);
+    }
+
+    /**
+     * @return a one line summary, for the build log.
+     */
+    synchronized String summary() {
+        final List<String> parts = Lists.newArrayList();
+        for (Map.Entry<String, Long> phase : getPhaseMillis().entrySet()) {
+            parts.add(phase.getKey() + " " + phase.getValue() + " ms");
+        }
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            parts.add(counter.getKey() + " " + counter.getValue());
+        }
+        return Joiner.on(", ").join(parts);
+    }
+
+    /**
+     * Writes the metrics as a JSON object.
+     *
+     * @param execution the name of the mojo execution the metrics were recorded for.
+     */
+    synchronized void writeJson(File file, String execution) throws IOException {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"execution\": ").append(quote(execution)).append(",\n");
+        json.append("  \"phasesMillis\": {");
+        appendMembers(json, getPhaseMillis());
+        json.append("},\n  \"counters\": {");
+        appendMembers(json, counters);
+        json.append("},\n  \"invocations\": [");
+        for (int i = 0; i < invocations.size(); i++) {
+            final Thrift.Invocation invocation = invocations.get(i);
+            final List<String> thriftFiles = Lists.newArrayList();
+            for (File thriftFile : invocation.getThriftFiles()) {
+                thriftFiles.add(quote(thriftFile.getPath()));
+            }
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"thriftFiles\": [").append(Joiner.on(", ").join(thriftFiles))
+                    .append("], \"millis\": ").append(invocation.getMillis())
+                    .append(", \"exitCode\": ").append(invocation.getExitCode()).append('}');
+        }
+        json.append(invocations.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        Files.createParentDirs(file);
+        Files.asCharSink(file, Charsets.UTF_8).write(json);
+    }
+
+    private static void appendMembers(StringBuilder json, Map<String, Long> members) {
+        boolean first = true;
+        for (Map.Entry<String, Long> member : members.entrySet()) {
+            json.append(first ? "" : ", ").append(quote(member.getKey())).append(": ").append(member.getValue());
+            first = false;
+        }
+    }
+
+    static String quote(String value) {
+        final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+}
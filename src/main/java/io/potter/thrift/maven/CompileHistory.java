@@ -0,0 +1,115 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>How long {@code thrift} took to compile each thrift file in earlier builds, so that the
+ * slowest files can be started first.</p>
+ *
+ * <p>A file compiled by a batch is charged an equal share of the batch. A new measurement is
+ * averaged with the previous estimate, so that a single slow run does not reorder the build.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class CompileHistory {
+
+    private static final String HEADER = "# thrift-maven-plugin compile history v1";
+    private static final Joiner TAB_JOINER = Joiner.on('\t');
+    private static final Splitter TAB_SPLITTER = Splitter.on('\t').limit(2);
+
+    private final Map<File, Long> millis;
+
+    CompileHistory() {
+        this(Maps.<File, Long>newTreeMap());
+    }
+
+    private CompileHistory(Map<File, Long> millis) {
+        this.millis = millis;
+    }
+
+    /**
+     * @return the history recorded in {@code historyFile}, or an empty history if there is none
+     * or it cannot be read.
+     */
+    static CompileHistory read(File historyFile) throws IOException {
+        if (!historyFile.isFile()) {
+            return new CompileHistory();
+        }
+        final List<String> lines = Files.asCharSource(historyFile, Charsets.UTF_8).readLines();
+        if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+            return new CompileHistory();
+        }
+        final Map<File, Long> millis = Maps.newTreeMap();
+        for (String line : lines.subList(1, lines.size())) {
+            final List<String> fields = TAB_SPLITTER.splitToList(line);
+            if (fields.size() != 2) {
+                return new CompileHistory();
+            }
+            try {
+                millis.put(new File(fields.get(1)), Long.parseLong(fields.get(0)));
+            } catch (NumberFormatException e) {
+                return new CompileHistory();
+            }
+        }
+        return new CompileHistory(millis);
+    }
+
+    /**
+     * @return the milliseconds {@code thrift} is expected to take on {@code thriftFile}, or
+     * {@code -1} if it has not been compiled before.
+     */
+    synchronized long estimate(File thriftFile) {
+        final Long estimate = millis.get(thriftFile);
+        return estimate == null ? -1 : estimate;
+    }
+
+    synchronized boolean isEmpty() {
+        return millis.isEmpty();
+    }
+
+    /**
+     * Updates the estimates with the invocations that exited cleanly.
+     */
+    synchronized void record(Iterable<Thrift.Invocation> invocations) {
+        for (Thrift.Invocation invocation : invocations) {
+            if (invocation.getExitCode() != 0) {
+                continue;
+            }
+            final long share = invocation.getMillis() / invocation.getThriftFiles().size();
+            for (File thriftFile : invocation.getThriftFiles()) {
+                final Long previous = millis.get(thriftFile);
+                millis.put(thriftFile, previous == null ? share : (previous + share) / 2);
+            }
+        }
+    }
+
+    synchronized ImmutableMap<File, Long> getMillis() {
+        return ImmutableMap.copyOf(millis);
+    }
+
+    /**
+     * Records this history, leaving out the thrift files that no longer exist.
+     */
+    synchronized void write(File historyFile) throws IOException {
+        final List<String> lines = Lists.newArrayList(HEADER);
+        for (Map.Entry<File, Long> entry : millis.entrySet()) {
+            if (entry.getKey().isFile()) {
+                lines.add(TAB_JOINER.join(entry.getValue(), entry.getKey()));
+            }
+        }
+        Files.createParentDirs(historyFile);
+        Files.asCharSink(historyFile, Charsets.UTF_8).writeLines(lines, "\n");
+    }
+
+}
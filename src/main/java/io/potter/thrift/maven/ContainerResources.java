@@ -0,0 +1,138 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>Finds how many {@code thrift} processes the machine or container can run at the same time:
+ * the available processors, lowered to the CPU quota and to the memory limit of the cgroup the
+ * build runs in, for cgroup v2 ({@code cpu.max}, {@code memory.max}) and v1
+ * ({@code cpu.cfs_quota_us}, {@code memory.limit_in_bytes}).</p>
+ *
+ * <p>Older JVMs report the processors of the host inside a container, and none accounts for the
+ * memory each process needs, so an unbounded build could be throttled or killed.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ContainerResources {
+
+    /**
+     * The memory a {@code thrift} process is given when the memory limit is split, enough for
+     * large thrift files.
+     */
+    static final long PROCESS_MEMORY = 128L * 1024 * 1024;
+
+    private static final File CGROUP_ROOT = new File("/sys/fs/cgroup");
+
+    private final File cgroupRoot;
+    private final int processors;
+    private final long reservedMemory;
+
+    /**
+     * @param cgroupRoot     where the cgroup file system is mounted.
+     * @param processors     the processors the JVM reports.
+     * @param reservedMemory the memory of the limit that is not available to {@code thrift}, like
+     *                       the heap of the build.
+     */
+    ContainerResources(File cgroupRoot, int processors, long reservedMemory) {
+        this.cgroupRoot = cgroupRoot;
+        this.processors = processors;
+        this.reservedMemory = reservedMemory;
+    }
+
+    /**
+     * @return the number of {@code thrift} processes to run at the same time in this JVM.
+     */
+    static int compileThreads() {
+        return new ContainerResources(CGROUP_ROOT, Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory()).getCompileThreads();
+    }
+
+    int getCompileThreads() {
+        long threads = processors;
+        final long cpus = getCpuLimit();
+        if (cpus > 0) {
+            threads = Math.min(threads, cpus);
+        }
+        final long memory = getMemoryLimit();
+        if (memory > 0) {
+            threads = Math.min(threads, (memory - reservedMemory) / PROCESS_MEMORY);
+        }
+        return (int) Math.max(1, threads);
+    }
+
+    /**
+     * @return the CPU quota rounded up to whole processors, or {@code -1} if there is none.
+     */
+    long getCpuLimit() {
+        final List<String> max = read("cpu.max");
+        if (max != null && max.size() == 2) {
+            return processors(max.get(0), max.get(1));
+        }
+        final List<String> quota = read("cpu/cpu.cfs_quota_us");
+        final List<String> period = read("cpu/cpu.cfs_period_us");
+        if (quota != null && period != null) {
+            return processors(quota.get(0), period.get(0));
+        }
+        return -1;
+    }
+
+    /**
+     * @return the memory limit in bytes, or {@code -1} if there is none.
+     */
+    long getMemoryLimit() {
+        List<String> limit = read("memory.max");
+        if (limit == null) {
+            limit = read("memory/memory.limit_in_bytes");
+        }
+        if (limit == null) {
+            return -1;
+        }
+        final long bytes = parse(limit.get(0));
+        // cgroup v1 reports no limit as the largest page aligned value
+        return bytes <= 0 || bytes >= Long.MAX_VALUE / 2 ? -1 : bytes;
+    }
+
+    private static long processors(String quota, String period) {
+        final long quotaMicros = parse(quota);
+        final long periodMicros = parse(period);
+        if (quotaMicros <= 0 || periodMicros <= 0) {
+            return -1;
+        }
+        return (quotaMicros + periodMicros - 1) / periodMicros;
+    }
+
+    private static long parse(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            // "max" in cgroup v2
+            return -1;
+        }
+    }
+
+    /**
+     * @return the whitespace separated fields of the first line of a cgroup file, or {@code null} if
+     * it cannot be read.
+     */
+    private List<String> read(String path) {
+        final File file = new File(cgroupRoot, path);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            final String line = Files.asCharSource(file, Charsets.UTF_8).readFirstLine();
+            final List<String> fields = line == null
+                    ? null : Splitter.on(' ').trimResults().omitEmptyStrings().splitToList(line);
+            return fields == null || fields.isEmpty() ? null : fields;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+}
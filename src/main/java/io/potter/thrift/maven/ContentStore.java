@@ -0,0 +1,117 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A content-addressed store for thrift files extracted from dependency jars. Every
+ * distinct file is written once, named after the SHA-256 of its content, and the
+ * extracted trees are made of hard links to it. Where hard links are not supported,
+ * for instance across file systems, symbolic links are used, and copies as a last
+ * resort.</p>
+ *
+ * <p>Blobs are published atomically, so several modules or builds can share one store.
+ * Materialized files must never be written in place, since that would change the blob
+ * and every other file linked to it; they are only ever replaced.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ContentStore {
+
+    private final File directory;
+    private final AtomicInteger blobsWritten = new AtomicInteger();
+    private final AtomicInteger linked = new AtomicInteger();
+    private final AtomicInteger copied = new AtomicInteger();
+    private volatile boolean hardLinksUnsupported;
+    private volatile boolean symbolicLinksUnsupported;
+
+    ContentStore(File directory) {
+        this.directory = Preconditions.checkNotNull(directory, "directory");
+    }
+
+    /**
+     * Stores the content of {@code in} unless the store already has it, and makes {@code target}
+     * a link to it, replacing any existing file.
+     *
+     * @param in     the content; not closed.
+     * @param target the file to materialize.
+     */
+    void materialize(InputStream in, File target) throws IOException {
+        final byte[] content = ByteStreams.toByteArray(in);
+        final String digest = Hashing.sha256().hashBytes(content).toString();
+        final File blob = new File(new File(directory, digest.substring(0, 2)), digest);
+        if (!blob.isFile()) {
+            FileUtils.forceMkdir(blob.getParentFile());
+            final File temporaryBlob = new File(blob.getParentFile(), digest + "." + UUID.randomUUID() + ".tmp");
+            Files.write(temporaryBlob.toPath(), content);
+            // a concurrent writer of the same blob writes the same content
+            Files.move(temporaryBlob.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            blobsWritten.incrementAndGet();
+        }
+
+        FileUtils.forceMkdir(target.getParentFile());
+        Files.deleteIfExists(target.toPath());
+        if (link(blob, target)) {
+            linked.incrementAndGet();
+        } else {
+            Files.copy(blob.toPath(), target.toPath());
+            copied.incrementAndGet();
+        }
+    }
+
+    private boolean link(File blob, File target) {
+        if (!hardLinksUnsupported) {
+            try {
+                Files.createLink(target.toPath(), blob.toPath());
+                return true;
+            } catch (IOException e) {
+                hardLinksUnsupported = true;
+            } catch (UnsupportedOperationException e) {
+                hardLinksUnsupported = true;
+            }
+        }
+        if (!symbolicLinksUnsupported) {
+            try {
+                Files.createSymbolicLink(target.toPath(), blob.getAbsoluteFile().toPath());
+                return true;
+            } catch (IOException e) {
+                symbolicLinksUnsupported = true;
+            } catch (UnsupportedOperationException e) {
+                symbolicLinksUnsupported = true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of distinct files written to the store.
+     */
+    int getBlobsWritten() {
+        return blobsWritten.get();
+    }
+
+    /**
+     * @return the number of files materialized as links.
+     */
+    int getLinked() {
+        return linked.get();
+    }
+
+    /**
+     * @return the number of files materialized as copies, since links were not supported.
+     */
+    int getCopied() {
+        return copied.get();
+    }
+
+}
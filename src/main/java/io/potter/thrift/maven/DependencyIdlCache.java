@@ -0,0 +1,185 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A cache of the thrift files extracted from dependency jars that outlives a
+ * single build. Jars are keyed by path, size and modification time, so an
+ * unchanged jar is neither reopened nor extracted again; jars without any
+ * thrift file are remembered as well.</p>
+ *
+ * <p>When only indexed jars are extracted, jars without an {@link IdlIndex} are
+ * cached as holding no thrift file, under keys of their own.</p>
+ *
+ * <p>Entries are published atomically, so several modules of a (parallel)
+ * reactor build, or several builds, can share one cache directory.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class DependencyIdlCache {
+
+    private static final String HEADER = "# thrift-maven-plugin extracted idl v1";
+
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final File directory;
+    private final boolean indexedOnly;
+    private final ContentStore contentStore;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicLong extractedBytes = new AtomicLong();
+
+    DependencyIdlCache(File directory, boolean indexedOnly, ContentStore contentStore) {
+        this.directory = Preconditions.checkNotNull(directory, "directory");
+        this.indexedOnly = indexedOnly;
+        this.contentStore = contentStore;
+    }
+
+    /**
+     * Looks {@code jar} up, extracting it into the cache on a miss. Safe to call
+     * from several threads.
+     *
+     * @param jar a dependency jar.
+     * @return the directories holding the thrift files of {@code jar}, empty if it has none.
+     */
+    ImmutableSet<File> getOrExtract(File jar) throws IOException {
+        final ImmutableSet<File> thriftDirectories = get(jar);
+        if (thriftDirectories != null) {
+            hits.incrementAndGet();
+            return thriftDirectories;
+        }
+        misses.incrementAndGet();
+        return put(jar);
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the size of the thrift files extracted on misses.
+     */
+    long getExtractedBytes() {
+        return extractedBytes.get();
+    }
+
+    /**
+     * @param jar a dependency jar.
+     * @return the directories holding the thrift files of {@code jar}, empty if it has
+     * none, or {@code null} if the jar is not in the cache.
+     */
+    ImmutableSet<File> get(File jar) throws IOException {
+        final String key = key(jar);
+        final File index = new File(directory, key + INDEX_SUFFIX);
+        if (!index.isFile()) {
+            return null;
+        }
+        final List<String> lines = Files.asCharSource(index, Charsets.UTF_8).readLines();
+        if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+            return null;
+        }
+        final File entryDirectory = new File(directory, key);
+        final ImmutableSet.Builder<File> thriftDirectories = ImmutableSet.builder();
+        for (String entryName : lines.subList(1, lines.size())) {
+            final File thriftFile = new File(entryDirectory, entryName);
+            if (!thriftFile.isFile()) {
+                // somebody cleaned up behind our back
+                return null;
+            }
+            thriftDirectories.add(thriftFile.getParentFile());
+        }
+        return thriftDirectories.build();
+    }
+
+    /**
+     * Extracts the thrift files of {@code jar} into the cache.
+     *
+     * @param jar a dependency jar.
+     * @return the directories holding the thrift files of {@code jar}, empty if it has none.
+     */
+    ImmutableSet<File> put(File jar) throws IOException {
+        final String key = key(jar);
+        final File entryDirectory = new File(directory, key);
+        final String unique = "." + UUID.randomUUID() + ".tmp";
+        final File temporaryDirectory = new File(directory, key + unique);
+        FileUtils.forceMkdir(directory);
+
+        final List<String> entryNames = ThriftJarExtractor.extract(jar, temporaryDirectory, indexedOnly, contentStore);
+        for (String entryName : entryNames) {
+            extractedBytes.addAndGet(new File(temporaryDirectory, entryName).length());
+        }
+        if (!entryNames.isEmpty()) {
+            if (containsAll(entryDirectory, entryNames)) {
+                // extracted concurrently; the content is the same for the same key
+                FileUtils.deleteDirectory(temporaryDirectory);
+            } else if (!replace(entryDirectory, temporaryDirectory)) {
+                FileUtils.deleteDirectory(temporaryDirectory);
+                if (!entryDirectory.isDirectory()) {
+                    throw new IOException("Unable to move extracted thrift files to " + entryDirectory);
+                }
+            }
+        }
+
+        final List<String> lines = Lists.newArrayList(HEADER);
+        lines.addAll(entryNames);
+        final File temporaryIndex = new File(directory, key + unique + INDEX_SUFFIX);
+        Files.asCharSink(temporaryIndex, Charsets.UTF_8).writeLines(lines, "\n");
+        final File index = new File(directory, key + INDEX_SUFFIX);
+        if (!temporaryIndex.renameTo(index)) {
+            FileUtils.forceDelete(index);
+            FileUtils.rename(temporaryIndex, index);
+        }
+
+        final ImmutableSet.Builder<File> thriftDirectories = ImmutableSet.builder();
+        for (String entryName : entryNames) {
+            thriftDirectories.add(new File(entryDirectory, entryName).getParentFile());
+        }
+        return thriftDirectories.build();
+    }
+
+    private static boolean containsAll(File entryDirectory, List<String> entryNames) {
+        for (String entryName : entryNames) {
+            if (!new File(entryDirectory, entryName).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean replace(File entryDirectory, File temporaryDirectory) throws IOException {
+        if (entryDirectory.exists()) {
+            FileUtils.deleteDirectory(entryDirectory);
+        }
+        return temporaryDirectory.renameTo(entryDirectory);
+    }
+
+    /**
+     * @return a key that changes whenever the jar at this path is replaced.
+     */
+    private String key(File jar) {
+        return Hashing.sha256().newHasher()
+                .putString(jar.getAbsolutePath(), Charsets.UTF_8)
+                .putLong(jar.length())
+                .putLong(jar.lastModified())
+                .putBoolean(indexedOnly)
+                .hash().toString();
+    }
+
+}
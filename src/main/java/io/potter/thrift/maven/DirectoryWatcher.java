@@ -0,0 +1,109 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches directory trees for changes to thrift files. Directories created below a watched
+ * directory are watched as well.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class DirectoryWatcher implements Closeable {
+
+    private static final String THRIFT_FILE_SUFFIX = ".thrift";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = Maps.newHashMap();
+
+    DirectoryWatcher(Iterable<File> roots) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (File root : roots) {
+            if (root.isDirectory()) {
+                register(root.toPath());
+            }
+        }
+    }
+
+    private void register(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes)
+                    throws IOException {
+                directories.put(directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Waits for thrift files to change, then for {@code quietMillis} without further changes, so that
+     * a burst of changes, like a checkout or a save of several files, is reported at once.
+     *
+     * @return the changed thrift files, and the created or deleted directories.
+     */
+    ImmutableSet<File> awaitChanges(long quietMillis) throws IOException, InterruptedException {
+        final ImmutableSet.Builder<File> changes = ImmutableSet.builder();
+        boolean changed = false;
+        WatchKey key = watchService.take();
+        while (key != null || !changed) {
+            if (key != null) {
+                changed |= collect(key, changes);
+            }
+            key = changed ? watchService.poll(quietMillis, TimeUnit.MILLISECONDS) : watchService.take();
+        }
+        return changes.build();
+    }
+
+    private boolean collect(WatchKey key, ImmutableSet.Builder<File> changes) throws IOException {
+        final Path directory = directories.get(key);
+        if (directory == null) {
+            key.cancel();
+            return false;
+        }
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changes.add(directory.toFile());
+                changed = true;
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                register(path);
+                changes.add(path.toFile());
+                changed = true;
+            } else if (path.getFileName().toString().endsWith(THRIFT_FILE_SUFFIX)
+                    || (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && directories.containsValue(path))) {
+                changes.add(path.toFile());
+                changed = true;
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return changed;
+    }
+
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+}
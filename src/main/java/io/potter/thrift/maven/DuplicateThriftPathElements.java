@@ -0,0 +1,122 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds thrift path elements holding exactly the same thrift files, byte for byte, as
+ * an earlier element, as happens when several versions of a jar ship the same IDL.
+ * {@code thrift} never picks a file from such a duplicate, since the earlier element
+ * always has it too, so duplicates can be left out of the thrift path. Finding them
+ * means hashing every thrift file of the thrift path, so it is only done on request.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class DuplicateThriftPathElements {
+
+    private DuplicateThriftPathElements() {
+    }
+
+    /**
+     * @param thriftPath the thrift path, in order.
+     * @param threads    the number of thrift files to hash at the same time.
+     * @return the duplicates, mapped to the earlier element they duplicate.
+     * @throws IOException if a thrift file cannot be read.
+     */
+    static ImmutableMap<File, File> find(List<File> thriftPath, int threads) throws IOException {
+        Preconditions.checkArgument(threads > 0, "threads must be positive");
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-duplicates-%d").setDaemon(true).build());
+        try {
+            // every file is submitted before the first digest is awaited
+            final Map<File, SortedMap<String, Future<HashCode>>> digests = Maps.newLinkedHashMap();
+            for (File thriftPathElement : thriftPath) {
+                if (!digests.containsKey(thriftPathElement)) {
+                    digests.put(thriftPathElement, digest(executor, thriftPathElement));
+                }
+            }
+
+            final Map<HashCode, File> firstElements = Maps.newHashMap();
+            final ImmutableMap.Builder<File, File> duplicates = ImmutableMap.builder();
+            for (Map.Entry<File, SortedMap<String, Future<HashCode>>> element : digests.entrySet()) {
+                if (element.getValue().isEmpty()) {
+                    continue;
+                }
+                final HashCode contentKey = contentKey(element.getValue());
+                final File firstElement = firstElements.get(contentKey);
+                if (firstElement == null) {
+                    firstElements.put(contentKey, element.getKey());
+                } else {
+                    duplicates.put(element.getKey(), firstElement);
+                }
+            }
+            return duplicates.build();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the digests of the thrift files below {@code directory}, by their '/' separated path.
+     */
+    private static SortedMap<String, Future<HashCode>> digest(ExecutorService executor, File directory)
+            throws IOException {
+        final SortedMap<String, Future<HashCode>> digests = Maps.newTreeMap();
+        if (!directory.isDirectory()) {
+            return digests;
+        }
+        @SuppressWarnings("unchecked")
+        final List<String> paths = FileUtils.getFileNames(directory, "**/*.thrift", null, false);
+        for (String path : paths) {
+            final File file = new File(directory, path);
+            digests.put(path.replace(File.separatorChar, '/'), executor.submit(new Callable<HashCode>() {
+                public HashCode call() throws IOException {
+                    return Files.asByteSource(file).hash(Hashing.sha256());
+                }
+            }));
+        }
+        return digests;
+    }
+
+    /**
+     * @return the digest of the paths and contents of the thrift files of a thrift path element.
+     */
+    private static HashCode contentKey(SortedMap<String, Future<HashCode>> digests) throws IOException {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        try {
+            for (Map.Entry<String, Future<HashCode>> digest : digests.entrySet()) {
+                hasher.putString(digest.getKey(), Charsets.UTF_8).putByte((byte) 0)
+                        .putBytes(digest.getValue().get().asBytes());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing thrift files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to hash thrift files", e.getCause());
+        }
+        return hasher.hash();
+    }
+
+}
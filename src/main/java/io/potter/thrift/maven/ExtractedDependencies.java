@@ -0,0 +1,207 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>The thrift files extracted from dependency jars into the temporary thrift file
+ * directory, together with an index recording the jar each directory was extracted
+ * from. The compile and the testCompile goal share that directory, so the test goal
+ * only extracts the jars the compile goal did not already extract, and a jar is
+ * extracted again only when it changed. Switching between extracting all jars and
+ * only indexed jars starts over.</p>
+ *
+ * <p>Safe to use from several threads; {@link #write()} must be called once all jars
+ * have been looked up.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ExtractedDependencies {
+
+    private static final String HEADER = "# thrift-maven-plugin extracted dependencies v1";
+
+    static final String INDEX_FILE_NAME = ".extracted";
+
+    private static final Joiner TAB_JOINER = Joiner.on('\t');
+
+    private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+    private final File directory;
+    private final boolean indexedOnly;
+    private final ContentStore contentStore;
+    private final ConcurrentMap<String, Entry> entries;
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger extracted = new AtomicInteger();
+    private final AtomicLong extractedBytes = new AtomicLong();
+
+    private ExtractedDependencies(File directory, boolean indexedOnly, ContentStore contentStore,
+                                  Map<String, Entry> entries) {
+        this.directory = directory;
+        this.indexedOnly = indexedOnly;
+        this.contentStore = contentStore;
+        this.entries = Maps.newConcurrentMap();
+        this.entries.putAll(entries);
+    }
+
+    /**
+     * Reads the index of {@code directory}. Without a readable index nothing in the directory can
+     * be trusted, so it is cleaned.
+     *
+     * @param directory    the temporary thrift file directory.
+     * @param indexedOnly  whether jars without an {@link IdlIndex} are skipped.
+     * @param contentStore the store to link the extracted files to, or {@code null} to copy them.
+     */
+    static ExtractedDependencies open(File directory, boolean indexedOnly, ContentStore contentStore)
+            throws IOException {
+        final Map<String, Entry> entries = readIndex(new File(directory, INDEX_FILE_NAME), header(indexedOnly));
+        if (entries == null) {
+            if (directory.exists()) {
+                FileUtils.cleanDirectory(directory);
+            }
+            return new ExtractedDependencies(directory, indexedOnly, contentStore, Maps.<String, Entry>newHashMap());
+        }
+        return new ExtractedDependencies(directory, indexedOnly, contentStore, entries);
+    }
+
+    private static String header(boolean indexedOnly) {
+        return indexedOnly ? HEADER + " indexed-only" : HEADER;
+    }
+
+    private static Map<String, Entry> readIndex(File index, String header) throws IOException {
+        if (!index.isFile()) {
+            return null;
+        }
+        final List<String> lines = Files.asCharSource(index, Charsets.UTF_8).readLines();
+        if (lines.isEmpty() || !header.equals(lines.get(0))) {
+            return null;
+        }
+        final Map<String, Entry> entries = Maps.newHashMap();
+        for (String line : lines.subList(1, lines.size())) {
+            final List<String> fields = TAB_SPLITTER.splitToList(line);
+            if (fields.size() < 4) {
+                return null;
+            }
+            try {
+                entries.put(fields.get(0), new Entry(fields.get(1), Long.parseLong(fields.get(2)),
+                        Long.parseLong(fields.get(3)), fields.subList(4, fields.size())));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the directories holding the thrift files of {@code jar}, extracting them below
+     * {@code name} unless they were extracted from the same jar before.
+     *
+     * @param jar  a dependency jar.
+     * @param name the name of the directory the jar is extracted to.
+     * @return the directories holding the thrift files of {@code jar}, empty if it has none.
+     */
+    ImmutableSet<File> getOrExtract(File jar, String name) throws IOException {
+        Preconditions.checkArgument(!name.equals(INDEX_FILE_NAME), "%s is reserved", name);
+        final File jarDirectory = new File(directory, name);
+        final Entry entry = entries.get(name);
+        if (entry != null && entry.matches(jar) && entry.isExtractedTo(jarDirectory)) {
+            reused.incrementAndGet();
+            return entry.thriftDirectories(jarDirectory);
+        }
+
+        if (jarDirectory.exists()) {
+            FileUtils.deleteDirectory(jarDirectory);
+        }
+        final List<String> entryNames = ThriftJarExtractor.extract(jar, jarDirectory, indexedOnly, contentStore);
+        for (String entryName : entryNames) {
+            extractedBytes.addAndGet(new File(jarDirectory, entryName).length());
+        }
+        final Entry extractedEntry = new Entry(jar.getAbsolutePath(), jar.length(), jar.lastModified(), entryNames);
+        entries.put(name, extractedEntry);
+        extracted.incrementAndGet();
+        return extractedEntry.thriftDirectories(jarDirectory);
+    }
+
+    /**
+     * Records which jars the directories were extracted from, for the next execution.
+     */
+    void write() throws IOException {
+        final List<String> lines = Lists.newArrayList(header(indexedOnly));
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            final Entry value = entry.getValue();
+            final List<Object> fields = Lists.<Object>newArrayList(entry.getKey(), value.jarPath, value.length,
+                    value.lastModified);
+            fields.addAll(value.entryNames);
+            lines.add(TAB_JOINER.join(fields));
+        }
+        final File index = new File(directory, INDEX_FILE_NAME);
+        Files.createParentDirs(index);
+        Files.asCharSink(index, Charsets.UTF_8).writeLines(lines, "\n");
+    }
+
+    int getReused() {
+        return reused.get();
+    }
+
+    int getExtracted() {
+        return extracted.get();
+    }
+
+    long getExtractedBytes() {
+        return extractedBytes.get();
+    }
+
+    private static final class Entry {
+
+        private final String jarPath;
+        private final long length;
+        private final long lastModified;
+        private final ImmutableList<String> entryNames;
+
+        Entry(String jarPath, long length, long lastModified, List<String> entryNames) {
+            this.jarPath = jarPath;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.entryNames = ImmutableList.copyOf(entryNames);
+        }
+
+        boolean matches(File jar) {
+            return jarPath.equals(jar.getAbsolutePath()) && length == jar.length()
+                    && lastModified == jar.lastModified();
+        }
+
+        boolean isExtractedTo(File jarDirectory) {
+            for (String entryName : entryNames) {
+                if (!new File(jarDirectory, entryName).isFile()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        ImmutableSet<File> thriftDirectories(File jarDirectory) {
+            final ImmutableSet.Builder<File> thriftDirectories = ImmutableSet.builder();
+            for (String entryName : entryNames) {
+                thriftDirectories.add(new File(jarDirectory, entryName).getParentFile());
+            }
+            return thriftDirectories.build();
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>A content digest of everything that determines the output of a {@code thrift}
+ * compilation: the thrift files, the thrift files found on the include path, the
+ * {@code thrift} executable and the generator options.</p>
+ *
+ * <p>The files are hashed in parallel, each one streamed through the digest, so
+ * that large trees do not have to be held in memory.</p>
+ *
+ * <p>The recorded fingerprint also lists the files generated by the compilation, so
+ * that it no longer counts once they were deleted: the output directory is kept
+ * apart from the fingerprint file and can be cleaned on its own.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class Fingerprint {
+
+    private static final String HEADER = "# thrift-maven-plugin fingerprint v2";
+
+    private static final Joiner TAB_JOINER = Joiner.on('\t');
+
+    private static final Splitter TAB_SPLITTER = Splitter.on('\t').limit(2);
+
+    private static final String SOURCES = "sources";
+    private static final String INCLUDE_PATH = "includePath";
+    private static final String EXECUTABLE = "executable";
+    private static final String GENERATOR = "generator";
+    private static final String GENERATED = "generated";
+
+    private final SortedMap<String, String> components;
+    private final ImmutableList<String> generatedFiles;
+
+    private Fingerprint(SortedMap<String, String> components, ImmutableList<String> generatedFiles) {
+        this.components = Collections.unmodifiableSortedMap(components);
+        this.generatedFiles = generatedFiles;
+    }
+
+    /**
+     * Computes the fingerprint of a compilation.
+     *
+     * @param thriftFiles the thrift files to compile.
+     * @param thriftPath  the directories passed to {@code thrift} with {@code -I}.
+     * @param executable  the {@code thrift} executable, either a path or a name looked up on the {@code PATH}.
+     * @param generator   the value for the {@code --gen} option.
+     * @param threads     the number of files to hash at the same time.
+     * @return the fingerprint.
+     * @throws IOException if a file cannot be read.
+     */
+    static Fingerprint compute(Iterable<File> thriftFiles, List<File> thriftPath, String executable,
+                               String generator, int threads) throws IOException {
+        Preconditions.checkArgument(threads > 0, "threads must be positive");
+        final List<File> includePathFiles = Lists.newArrayList();
+        for (File thriftPathElement : thriftPath) {
+            if (thriftPathElement.isDirectory()) {
+                includePathFiles.addAll(FileUtils.getFiles(thriftPathElement, "**/*.thrift", null));
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-digest-%d").setDaemon(true).build());
+        try {
+            final Map<File, Future<HashCode>> sourceDigests = digest(executor, thriftFiles);
+            final Map<File, Future<HashCode>> includePathDigests = digest(executor, includePathFiles);
+
+            final Hasher includePathHasher = Hashing.sha256().newHasher();
+            for (File thriftPathElement : thriftPath) {
+                includePathHasher.putString(thriftPathElement.getPath(), Charsets.UTF_8).putByte((byte) 0);
+            }
+
+            final SortedMap<String, String> components = Maps.newTreeMap();
+            components.put(SOURCES, combine(Hashing.sha256().newHasher(), sourceDigests));
+            components.put(INCLUDE_PATH, combine(includePathHasher, includePathDigests));
+            components.put(EXECUTABLE, executableDigest(executable));
+            components.put(GENERATOR, generator);
+            return new Fingerprint(components, ImmutableList.<String>of());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<File, Future<HashCode>> digest(ExecutorService executor, Iterable<File> files) {
+        final Map<File, Future<HashCode>> digests = Maps.newTreeMap();
+        for (final File file : files) {
+            if (!digests.containsKey(file)) {
+                digests.put(file, executor.submit(new Callable<HashCode>() {
+                    public HashCode call() throws IOException {
+                        return Files.asByteSource(file).hash(Hashing.sha256());
+                    }
+                }));
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * Folds the digests, in path order, into {@code hasher}.
+     */
+    private static String combine(Hasher hasher, Map<File, Future<HashCode>> digests) throws IOException {
+        try {
+            for (Map.Entry<File, Future<HashCode>> digest : digests.entrySet()) {
+                hasher.putString(digest.getKey().getPath(), Charsets.UTF_8).putByte((byte) 0)
+                        .putBytes(digest.getValue().get().asBytes());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing thrift files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to hash thrift files", e.getCause());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @param executable the {@code thrift} executable, either a path or a name looked up on the {@code PATH}.
+     * @return the content digest of the executable, or {@code executable} itself if it cannot be found.
+     */
+    static String executableDigest(String executable) throws IOException {
+        final File executableFile = findExecutable(executable);
+        return executableFile == null
+                ? executable : Files.asByteSource(executableFile).hash(Hashing.sha256()).toString();
+    }
+
+    /**
+     * Finds the file that will be run for {@code executable}, searching the {@code PATH}
+     * when it is a bare name.
+     *
+     * @return the executable file, or {@code null} if it cannot be found.
+     */
+    static File findExecutable(String executable) {
+        final File file = new File(executable);
+        if (file.isFile()) {
+            return file;
+        }
+        if (file.getParentFile() != null) {
+            return null;
+        }
+        final String path = System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        final List<String> names = Os.isFamily(Os.FAMILY_WINDOWS)
+                ? ImmutableList.of(executable, executable + ".exe") : ImmutableList.of(executable);
+        for (String directory : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(path)) {
+            for (String name : names) {
+                final File candidate = new File(directory, name);
+                if (candidate.isFile()) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param fingerprintFile the file written by {@link #write(File)}.
+     * @return the recorded fingerprint, or {@code null} if there is none.
+     */
+    static Fingerprint read(File fingerprintFile) throws IOException {
+        if (!fingerprintFile.isFile()) {
+            return null;
+        }
+        final List<String> lines = Files.asCharSource(fingerprintFile, Charsets.UTF_8).readLines();
+        if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+            return null;
+        }
+        final SortedMap<String, String> components = Maps.newTreeMap();
+        final ImmutableList.Builder<String> generatedFiles = ImmutableList.builder();
+        for (String line : lines.subList(1, lines.size())) {
+            final List<String> fields = TAB_SPLITTER.splitToList(line);
+            if (fields.size() != 2) {
+                return null;
+            }
+            if (GENERATED.equals(fields.get(0))) {
+                generatedFiles.add(fields.get(1));
+            } else {
+                components.put(fields.get(0), fields.get(1));
+            }
+        }
+        return new Fingerprint(components, generatedFiles.build());
+    }
+
+    /**
+     * Records this fingerprint, with the java files below {@code outputDirectory} as the generated files.
+     */
+    void write(File fingerprintFile, File outputDirectory) throws IOException {
+        final List<String> lines = Lists.newArrayList(HEADER);
+        for (Map.Entry<String, String> component : components.entrySet()) {
+            lines.add(TAB_JOINER.join(component.getKey(), component.getValue()));
+        }
+        if (outputDirectory.isDirectory()) {
+            @SuppressWarnings("unchecked")
+            final List<String> paths = FileUtils.getFileNames(outputDirectory, "**/*.java", null, false);
+            Collections.sort(paths);
+            for (String path : paths) {
+                lines.add(TAB_JOINER.join(GENERATED, path.replace(File.separatorChar, '/')));
+            }
+        }
+        Files.createParentDirs(fingerprintFile);
+        Files.asCharSink(fingerprintFile, Charsets.UTF_8).writeLines(lines, "\n");
+    }
+
+    /**
+     * @return whether the files generated when this fingerprint was recorded are all still below
+     * {@code outputDirectory}; never when there were none, as the directory may just have been emptied.
+     */
+    boolean isOutputPresent(File outputDirectory) {
+        if (generatedFiles.isEmpty() || !outputDirectory.isDirectory()) {
+            return false;
+        }
+        for (String path : generatedFiles) {
+            if (!new File(outputDirectory, path).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the names of the components that differ from {@code other}, for logging.
+     */
+    List<String> differences(Fingerprint other) {
+        final List<String> differences = Lists.newArrayList();
+        for (Map.Entry<String, String> component : components.entrySet()) {
+            if (other == null || !component.getValue().equals(other.components.get(component.getKey()))) {
+                differences.add(component.getKey());
+            }
+        }
+        return differences;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Fingerprint && components.equals(((Fingerprint) obj).components);
+    }
+
+    @Override
+    public int hashCode() {
+        return components.hashCode();
+    }
+
+}
@@ -0,0 +1,178 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Removes the generation date {@code thrift} stamps into the {@code @Generated} annotation of
+ * every java file, or replaces it with a fixed date, so that the same thrift files always
+ * generate the same bytes.
+ *
+ * <p>Each file is read line by line up to its annotation, which {@code thrift} puts in front of the
+ * type declaration. Files without it, or already normalized, are left after a few lines; the others
+ * are streamed to a temporary file that replaces them.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class GeneratedSourceNormalizer {
+
+    private static final Pattern GENERATED_DATE =
+            Pattern.compile("^(@(?:[\\w.]+\\.)?Generated\\(.*?)(, date = \"[^\"]*\")");
+
+    /**
+     * The annotation comes before the type declaration, so a file without it is not read further.
+     */
+    private static final Pattern TYPE_DECLARATION =
+            Pattern.compile("^(?:public |abstract |final )*(?:class|interface|enum|@interface) ");
+
+    private final String date;
+    private final int threads;
+    private final AtomicInteger normalized = new AtomicInteger();
+
+    /**
+     * @param date    the date to put into the annotations, or {@code null} to leave it out.
+     * @param threads the number of files to normalize at the same time.
+     */
+    GeneratedSourceNormalizer(String date, int threads) {
+        this.date = Strings.emptyToNull(date);
+        this.threads = threads;
+    }
+
+    /**
+     * @return a description of the normalization, to tell apart outputs normalized differently.
+     */
+    String describe() {
+        return date == null ? "date removed" : "date " + date;
+    }
+
+    /**
+     * Normalizes the java files below {@code directory} in place.
+     */
+    void normalize(File directory) throws IOException {
+        if (!directory.isDirectory()) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        final List<File> javaFiles = FileUtils.getFiles(directory, "**/*.java", null);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-normalize-%d").setDaemon(true).build());
+        try {
+            final List<Future<Void>> futures = Lists.newArrayList();
+            for (final File javaFile : javaFiles) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        normalizeFile(javaFile);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while normalizing " + directory, e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IOException("Unable to normalize " + directory, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void normalizeFile(File javaFile) throws IOException {
+        final StringBuilder head = new StringBuilder();
+        final Reader in = Files.newReader(javaFile, Charsets.UTF_8);
+        try {
+            String line;
+            while ((line = readLine(in)) != null) {
+                final Matcher matcher = GENERATED_DATE.matcher(line);
+                if (matcher.find()) {
+                    final String replacement = date == null ? "" : ", date = \"" + date + "\"";
+                    if (!matcher.group(2).equals(replacement)) {
+                        head.append(line, 0, matcher.start(2)).append(replacement)
+                                .append(line.substring(matcher.end(2)));
+                        replace(javaFile, head, in);
+                        normalized.incrementAndGet();
+                    }
+                    return;
+                }
+                if (TYPE_DECLARATION.matcher(line).find()) {
+                    return;
+                }
+                head.append(line);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes {@code head} and the rest of {@code in} to a temporary file, which then replaces {@code javaFile}.
+     */
+    private static void replace(File javaFile, CharSequence head, Reader in) throws IOException {
+        final File temporaryFile = new File(javaFile.getParentFile(),
+                "." + javaFile.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            final Writer out = Files.newWriter(temporaryFile, Charsets.UTF_8);
+            try {
+                out.append(head);
+                CharStreams.copy(in, out);
+            } finally {
+                out.close();
+            }
+            if (!temporaryFile.renameTo(javaFile)) {
+                FileUtils.forceDelete(javaFile);
+                FileUtils.rename(temporaryFile, javaFile);
+            }
+        } finally {
+            if (temporaryFile.exists()) {
+                FileUtils.forceDelete(temporaryFile);
+            }
+        }
+    }
+
+    /**
+     * @return the next line of {@code in} with its line terminator, or {@code null} at the end of the stream.
+     */
+    private static String readLine(Reader in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            line.append((char) c);
+            if (c == '\n') {
+                break;
+            }
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    /**
+     * @return the number of files that were changed.
+     */
+    int getNormalized() {
+        return normalized.get();
+    }
+
+}
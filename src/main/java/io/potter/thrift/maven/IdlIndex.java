@@ -0,0 +1,95 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An index of the thrift files packaged in a jar, stored in the jar itself as
+ * {@value #ENTRY_NAME}. It lists the entry name and the content digest of every
+ * thrift file, so that consumers can find and extract the thrift files of a jar
+ * without enumerating all of its entries, and can tell jars without thrift files
+ * apart without looking at them at all.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class IdlIndex {
+
+    static final String ENTRY_NAME = "META-INF/thrift/idl.index";
+
+    private static final String HEADER = "# thrift-maven-plugin idl index v1";
+
+    private static final Joiner TAB_JOINER = Joiner.on('\t');
+
+    private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+    private IdlIndex() {
+    }
+
+    /**
+     * Writes the index of the thrift files below {@code thriftSourceRoot}, which are packaged
+     * with their path relative to it.
+     *
+     * @param indexFile the file to write, left untouched if its content would not change.
+     * @return the indexed thrift files, by entry name.
+     */
+    static ImmutableMap<String, String> write(File thriftSourceRoot, File indexFile) throws IOException {
+        final ImmutableMap.Builder<String, String> entries = ImmutableMap.builder();
+        final List<String> lines = Lists.newArrayList(HEADER);
+        if (thriftSourceRoot.isDirectory()) {
+            @SuppressWarnings("unchecked")
+            final List<String> paths = FileUtils.getFileNames(thriftSourceRoot, "**/*.thrift", null, false);
+            Collections.sort(paths);
+            for (String path : paths) {
+                final String entryName = path.replace(File.separatorChar, '/');
+                final String digest = Files.asByteSource(new File(thriftSourceRoot, path))
+                        .hash(Hashing.sha256()).toString();
+                entries.put(entryName, digest);
+                lines.add(TAB_JOINER.join(entryName, digest));
+            }
+        }
+        final String content = Joiner.on('\n').join(lines) + '\n';
+        if (!indexFile.isFile() || !content.equals(Files.asCharSource(indexFile, Charsets.UTF_8).read())) {
+            Files.createParentDirs(indexFile);
+            Files.asCharSink(indexFile, Charsets.UTF_8).write(content);
+        }
+        return entries.build();
+    }
+
+    /**
+     * @param in the content of an index entry; not closed.
+     * @return the content digests of the indexed thrift files, by entry name, or {@code null}
+     * if the index is not readable.
+     */
+    static ImmutableMap<String, String> read(InputStream in) throws IOException {
+        final List<String> lines = CharStreams.readLines(new InputStreamReader(in, Charsets.UTF_8));
+        if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+            return null;
+        }
+        final Map<String, String> entries = Maps.newLinkedHashMap();
+        for (String line : lines.subList(1, lines.size())) {
+            final List<String> fields = TAB_SPLITTER.splitToList(line);
+            if (fields.size() != 2) {
+                return null;
+            }
+            entries.put(fields.get(0), fields.get(1));
+        }
+        return ImmutableMap.copyOf(entries);
+    }
+
+}
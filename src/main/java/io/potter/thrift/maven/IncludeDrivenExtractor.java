@@ -0,0 +1,305 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>Extracts only the dependency thrift files the sources include, directly or
+ * transitively, instead of every thrift file of every dependency jar.</p>
+ *
+ * <p>The jars are indexed from their {@link IdlIndex} or their central directories, without
+ * inflating any thrift file. The includes of the sources are then resolved the way
+ * {@code thrift} resolves them against the full thrift path: relative to the including file, then against the source
+ * path, the directories of the dependency thrift files in classpath order and the
+ * additional thrift path elements. Only the matched entries are extracted, and only
+ * the directories they were matched in end up on the thrift path.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class IncludeDrivenExtractor {
+
+    private static final String THRIFT_FILE_SUFFIX = ".thrift";
+
+    private final File temporaryDirectory;
+    private final List<SearchDirectory> dependencyDirectories;
+    /**
+     * The thrift entries of each jar, with their digest in the index of the jar.
+     */
+    private final Map<File, Map<String, String>> jarEntries;
+    private final Map<File, String> jarDirectoryNames;
+    private final ContentStore contentStore;
+    /**
+     * The jar and entry each extracted file came from, so that its own includes can be resolved relative to it.
+     */
+    private final Map<File, Origin> origins = Maps.newHashMap();
+    private final Map<File, ZipFile> openJars = Maps.newHashMap();
+    private int extractedFiles;
+
+    private IncludeDrivenExtractor(File temporaryDirectory, List<SearchDirectory> dependencyDirectories,
+                                   Map<File, Map<String, String>> jarEntries, Map<File, String> jarDirectoryNames,
+                                   ContentStore contentStore) {
+        this.temporaryDirectory = temporaryDirectory;
+        this.dependencyDirectories = dependencyDirectories;
+        this.jarEntries = jarEntries;
+        this.jarDirectoryNames = jarDirectoryNames;
+        this.contentStore = contentStore;
+    }
+
+    /**
+     * Indexes the thrift files of the classpath elements.
+     *
+     * @param temporaryDirectory the directory to extract into.
+     * @param classpathElements  jars and directories, in classpath order.
+     * @param jarDirectoryNames  the name of the directory each jar is extracted to.
+     * @param indexedOnly        whether jars without an {@link IdlIndex} are skipped.
+     * @param contentStore       the store to link the extracted files to, or {@code null} to copy them.
+     */
+    static IncludeDrivenExtractor index(File temporaryDirectory, Iterable<File> classpathElements,
+                                        Map<File, String> jarDirectoryNames, boolean indexedOnly,
+                                        ContentStore contentStore) throws IOException {
+        final List<SearchDirectory> dependencyDirectories = Lists.newArrayList();
+        final Map<File, Map<String, String>> jarEntries = Maps.newHashMap();
+        for (File classpathElement : classpathElements) {
+            if (jarDirectoryNames.containsKey(classpathElement)) {
+                final Map<String, String> entries = ThriftJarExtractor.listThriftEntries(classpathElement, indexedOnly);
+                final Set<String> entryDirectories = Sets.newLinkedHashSet();
+                for (String entryName : entries.keySet()) {
+                    final int slash = entryName.lastIndexOf('/');
+                    entryDirectories.add(slash < 0 ? "" : entryName.substring(0, slash + 1));
+                }
+                jarEntries.put(classpathElement, entries);
+                for (String entryDirectory : entryDirectories) {
+                    dependencyDirectories.add(new SearchDirectory(classpathElement, entryDirectory));
+                }
+            } else if (classpathElement.isDirectory() && containsThriftFiles(classpathElement)) {
+                dependencyDirectories.add(new SearchDirectory(classpathElement, null));
+            }
+        }
+        return new IncludeDrivenExtractor(temporaryDirectory, dependencyDirectories, jarEntries, jarDirectoryNames,
+                contentStore);
+    }
+
+    private static boolean containsThriftFiles(File directory) {
+        final String[] thriftFiles = directory.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(THRIFT_FILE_SUFFIX);
+            }
+        });
+        return thriftFiles != null && thriftFiles.length > 0;
+    }
+
+    /**
+     * Extracts the dependency thrift files included by {@code sources}, directly or transitively.
+     *
+     * @param sources          the thrift files to compile.
+     * @param sourcePath       the thrift path elements that come before the dependencies.
+     * @param additionalPath   the thrift path elements that come after the dependencies.
+     * @return the directories to put on the thrift path for the dependencies, in thrift path order.
+     */
+    ImmutableSet<File> extract(Set<File> sources, List<File> sourcePath, List<File> additionalPath)
+            throws IOException {
+        final Set<SearchDirectory> usedDirectories = Sets.newHashSet();
+        try {
+            final Set<File> visited = Sets.newHashSet();
+            final Deque<File> queue = new ArrayDeque<File>(sources);
+            while (!queue.isEmpty()) {
+                final File file = queue.poll();
+                if (!visited.add(file)) {
+                    continue;
+                }
+                for (String include : ThriftIncludes.parse(file)) {
+                    final File resolved = resolve(include, file, sourcePath, additionalPath, usedDirectories);
+                    if (resolved != null) {
+                        queue.add(resolved);
+                    }
+                    // unresolved includes are left to thrift to report
+                }
+            }
+        } finally {
+            for (ZipFile zipFile : openJars.values()) {
+                zipFile.close();
+            }
+            openJars.clear();
+        }
+
+        final ImmutableSet.Builder<File> thriftPath = ImmutableSet.builder();
+        for (SearchDirectory directory : dependencyDirectories) {
+            if (usedDirectories.contains(directory)) {
+                thriftPath.add(directory.getFile(temporaryDirectory, jarDirectoryNames));
+            }
+        }
+        return thriftPath.build();
+    }
+
+    private File resolve(String include, File includingFile, List<File> sourcePath, List<File> additionalPath,
+                         Set<SearchDirectory> usedDirectories) throws IOException {
+        if (new File(include).isAbsolute()) {
+            return ThriftIncludes.resolve(include, includingFile, additionalPath);
+        }
+        final Origin origin = origins.get(includingFile);
+        if (origin != null) {
+            // siblings inside the jar are found next to the extracted file, once they are extracted as well
+            final String sibling = normalize(origin.entryDirectory() + include);
+            if (sibling != null && jarEntries.get(origin.jar).containsKey(sibling)) {
+                return extract(origin.jar, sibling);
+            }
+        }
+        final File resolved = ThriftIncludes.resolve(include, includingFile, sourcePath);
+        if (resolved != null) {
+            return resolved;
+        }
+        for (SearchDirectory directory : dependencyDirectories) {
+            if (directory.jar == null) {
+                final File candidate = new File(directory.directory(), include);
+                if (candidate.isFile()) {
+                    usedDirectories.add(directory);
+                    return candidate;
+                }
+            } else {
+                final String entryName = normalize(directory.entryDirectory + include);
+                if (entryName != null && jarEntries.get(directory.jar).containsKey(entryName)) {
+                    usedDirectories.add(directory);
+                    return extract(directory.jar, entryName);
+                }
+            }
+        }
+        for (File thriftPathElement : additionalPath) {
+            final File candidate = new File(thriftPathElement, include);
+            if (candidate.isFile()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private File extract(File jar, String entryName) throws IOException {
+        final File file = new File(new File(temporaryDirectory, jarDirectoryNames.get(jar)), entryName);
+        if (origins.containsKey(file)) {
+            return file;
+        }
+        ZipFile zipFile = openJars.get(jar);
+        if (zipFile == null) {
+            zipFile = new ZipFile(jar);
+            openJars.put(jar, zipFile);
+        }
+        ThriftJarExtractor.extractEntry(zipFile, entryName, jarEntries.get(jar).get(entryName), file, contentStore);
+        origins.put(file, new Origin(jar, entryName));
+        extractedFiles++;
+        return file;
+    }
+
+    /**
+     * Resolves {@code .} and {@code ..} segments of a jar entry path.
+     *
+     * @return the normalized path, or {@code null} if it leaves the root of the jar.
+     */
+    static String normalize(String path) {
+        final LinkedList<String> segments = Lists.newLinkedList();
+        for (String segment : Splitter.on('/').omitEmptyStrings().split(path.replace('\\', '/'))) {
+            if ("..".equals(segment)) {
+                if (segments.isEmpty()) {
+                    return null;
+                }
+                segments.removeLast();
+            } else if (!".".equals(segment)) {
+                segments.add(segment);
+            }
+        }
+        return Joiner.on('/').join(segments);
+    }
+
+    /**
+     * @return the number of thrift files in the indexed jars.
+     */
+    int getIndexedFiles() {
+        int indexedFiles = 0;
+        for (Map<String, String> entries : jarEntries.values()) {
+            indexedFiles += entries.size();
+        }
+        return indexedFiles;
+    }
+
+    int getExtractedFiles() {
+        return extractedFiles;
+    }
+
+    /**
+     * A directory {@code thrift} would search for includes: a directory holding thrift
+     * files in a jar, or a classpath directory.
+     */
+    private static final class SearchDirectory {
+
+        private final File jar;
+        private final String entryDirectory;
+        private final File classpathDirectory;
+
+        SearchDirectory(File jarOrDirectory, String entryDirectory) {
+            this.jar = entryDirectory == null ? null : jarOrDirectory;
+            this.entryDirectory = entryDirectory;
+            this.classpathDirectory = entryDirectory == null ? jarOrDirectory : null;
+        }
+
+        File directory() {
+            return classpathDirectory;
+        }
+
+        File getFile(File temporaryDirectory, Map<File, String> jarDirectoryNames) {
+            if (jar == null) {
+                return classpathDirectory;
+            }
+            final File jarDirectory = new File(temporaryDirectory, jarDirectoryNames.get(jar));
+            return entryDirectory.isEmpty() ? jarDirectory : new File(jarDirectory, entryDirectory);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SearchDirectory)) {
+                return false;
+            }
+            final SearchDirectory other = (SearchDirectory) obj;
+            return jar == null
+                    ? other.jar == null && classpathDirectory.equals(other.classpathDirectory)
+                    : jar.equals(other.jar) && entryDirectory.equals(other.entryDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            return jar == null ? classpathDirectory.hashCode() : 31 * jar.hashCode() + entryDirectory.hashCode();
+        }
+
+    }
+
+    private static final class Origin {
+
+        private final File jar;
+        private final String entryName;
+
+        Origin(File jar, String entryName) {
+            this.jar = Preconditions.checkNotNull(jar);
+            this.entryName = entryName;
+        }
+
+        String entryDirectory() {
+            final int slash = entryName.lastIndexOf('/');
+            return slash < 0 ? "" : entryName.substring(0, slash + 1);
+        }
+
+    }
+
+}
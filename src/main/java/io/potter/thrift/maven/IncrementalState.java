@@ -0,0 +1,254 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The include graph of a set of thrift files together with the content digest of
+ * every file in it and the java files generated from each source.</p>
+ *
+ * <p>The state of the previous build is persisted so that the next build only has to
+ * recompile the sources that changed, or whose include closure changed, since then.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class IncrementalState {
+
+    private static final String HEADER = "# thrift-maven-plugin incremental state v1";
+
+    private static final String MISSING = "missing";
+
+    private static final Joiner TAB_JOINER = Joiner.on('\t');
+
+    private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+    private final String configuration;
+    private final ImmutableSet<File> sources;
+    private final Map<File, String> digests;
+    private final SetMultimap<File, File> includes;
+    private final SetMultimap<File, String> generatedFiles;
+
+    private IncrementalState(String configuration, ImmutableSet<File> sources, Map<File, String> digests,
+                             SetMultimap<File, File> includes, SetMultimap<File, String> generatedFiles) {
+        this.configuration = Preconditions.checkNotNull(configuration, "configuration");
+        this.sources = sources;
+        this.digests = digests;
+        this.includes = includes;
+        this.generatedFiles = generatedFiles;
+    }
+
+    /**
+     * Builds the include graph of {@code sources}, following includes into the thrift path.
+     *
+     * @param configuration a description of everything besides the thrift files that affects
+     *                      the generated code; a different value invalidates the whole state.
+     * @param sources       the thrift files to compile.
+     * @param thriftPath    the directories passed to {@code thrift} with {@code -I}.
+     * @return the current state, without any generated files.
+     * @throws IOException if a thrift file cannot be read.
+     */
+    static IncrementalState scan(String configuration, Set<File> sources, List<File> thriftPath)
+            throws IOException {
+        final Map<File, String> digests = Maps.newHashMap();
+        final SetMultimap<File, File> includes = LinkedHashMultimap.create();
+        final Deque<File> queue = new ArrayDeque<File>(sources);
+        while (!queue.isEmpty()) {
+            final File file = queue.poll();
+            if (digests.containsKey(file)) {
+                continue;
+            }
+            if (!file.isFile()) {
+                digests.put(file, MISSING);
+                continue;
+            }
+            digests.put(file, Files.asByteSource(file).hash(Hashing.sha256()).toString());
+            for (String include : ThriftIncludes.parse(file)) {
+                File resolved = ThriftIncludes.resolve(include, file, thriftPath);
+                if (resolved == null) {
+                    // remember where thrift looks first, so that the file shows up as changed once it exists
+                    resolved = new File(file.getParentFile(), include);
+                }
+                includes.put(file, resolved);
+                queue.add(resolved);
+            }
+        }
+        return new IncrementalState(configuration, ImmutableSet.copyOf(sources), digests, includes,
+                LinkedHashMultimap.<File, String>create());
+    }
+
+    /**
+     * @param stateFile the file written by {@link #write(File)}.
+     * @return the persisted state, or {@code null} if there is none or it cannot be read.
+     */
+    static IncrementalState read(File stateFile) throws IOException {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        final List<String> lines = Files.asCharSource(stateFile, Charsets.UTF_8).readLines();
+        if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+            return null;
+        }
+        String configuration = null;
+        final Set<File> sources = Sets.newLinkedHashSet();
+        final Map<File, String> digests = Maps.newHashMap();
+        final SetMultimap<File, File> includes = LinkedHashMultimap.create();
+        final SetMultimap<File, String> generatedFiles = LinkedHashMultimap.create();
+        for (String line : lines.subList(1, lines.size())) {
+            final List<String> fields = Lists.newArrayList(TAB_SPLITTER.split(line));
+            final String kind = fields.get(0);
+            if ("configuration".equals(kind) && fields.size() == 2) {
+                configuration = fields.get(1);
+            } else if ("source".equals(kind) && fields.size() == 2) {
+                sources.add(new File(fields.get(1)));
+            } else if ("file".equals(kind) && fields.size() == 3) {
+                digests.put(new File(fields.get(1)), fields.get(2));
+            } else if ("include".equals(kind) && fields.size() == 3) {
+                includes.put(new File(fields.get(1)), new File(fields.get(2)));
+            } else if ("generated".equals(kind) && fields.size() == 3) {
+                generatedFiles.put(new File(fields.get(1)), fields.get(2));
+            } else {
+                return null;
+            }
+        }
+        if (configuration == null) {
+            return null;
+        }
+        return new IncrementalState(configuration, ImmutableSet.copyOf(sources), digests, includes, generatedFiles);
+    }
+
+    /**
+     * Persists this state.
+     */
+    void write(File stateFile) throws IOException {
+        final List<String> lines = Lists.newArrayList();
+        lines.add(HEADER);
+        lines.add(TAB_JOINER.join("configuration", configuration));
+        for (File source : sources) {
+            lines.add(TAB_JOINER.join("source", source.getPath()));
+        }
+        for (Map.Entry<File, String> digest : digests.entrySet()) {
+            lines.add(TAB_JOINER.join("file", digest.getKey().getPath(), digest.getValue()));
+        }
+        for (Map.Entry<File, File> include : includes.entries()) {
+            lines.add(TAB_JOINER.join("include", include.getKey().getPath(), include.getValue().getPath()));
+        }
+        for (Map.Entry<File, String> generatedFile : generatedFiles.entries()) {
+            lines.add(TAB_JOINER.join("generated", generatedFile.getKey().getPath(), generatedFile.getValue()));
+        }
+        Files.createParentDirs(stateFile);
+        Files.asCharSink(stateFile, Charsets.UTF_8).writeLines(lines, "\n");
+    }
+
+    String getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return the paths, relative to the output directory, of the files generated from {@code source}.
+     */
+    Set<String> getGeneratedFiles(File source) {
+        return generatedFiles.get(source);
+    }
+
+    void setGeneratedFiles(File source, Iterable<String> paths) {
+        Preconditions.checkArgument(sources.contains(source), "%s is not a source", source);
+        generatedFiles.replaceValues(source, paths);
+    }
+
+    /**
+     * Finds the sources that need to be compiled: new sources, sources of which a
+     * generated file disappeared, and sources that include, directly or transitively,
+     * a file whose content or include resolution changed.
+     *
+     * @param previous        the state of the previous build.
+     * @param outputDirectory the directory that holds the files generated by the previous build.
+     * @return the stale sources.
+     */
+    ImmutableSet<File> staleSources(IncrementalState previous, File outputDirectory) {
+        final Set<File> changedFiles = Sets.newHashSet();
+        for (Map.Entry<File, String> digest : digests.entrySet()) {
+            final File file = digest.getKey();
+            if (!digest.getValue().equals(previous.digests.get(file))
+                    || !includes.get(file).equals(previous.includes.get(file))) {
+                changedFiles.add(file);
+            }
+        }
+
+        final ImmutableSet.Builder<File> staleSources = ImmutableSet.builder();
+        for (File source : sources) {
+            if (!previous.sources.contains(source) || !Sets.intersection(closure(source), changedFiles).isEmpty()) {
+                staleSources.add(source);
+                continue;
+            }
+            for (String generatedFile : previous.getGeneratedFiles(source)) {
+                if (!new File(outputDirectory, generatedFile).isFile()) {
+                    staleSources.add(source);
+                    break;
+                }
+            }
+        }
+        return staleSources.build();
+    }
+
+    /**
+     * Digests {@code source} together with its include closure. Only file names and contents
+     * are taken into account, not the directories holding them, so the same thrift files
+     * produce the same key in every module.
+     *
+     * @param source a source of this state.
+     * @return the content key of {@code source}.
+     */
+    HashCode contentKey(File source) {
+        Preconditions.checkArgument(sources.contains(source), "%s is not a source", source);
+        final Hasher hasher = Hashing.sha256().newHasher()
+                .putString(source.getName(), Charsets.UTF_8).putByte((byte) 0)
+                .putString(digests.get(source), Charsets.UTF_8).putByte((byte) 0);
+        final Set<String> included = Sets.newTreeSet();
+        for (File file : closure(source)) {
+            if (!file.equals(source)) {
+                included.add(file.getName() + '\0' + digests.get(file));
+            }
+        }
+        for (String file : included) {
+            hasher.putString(file, Charsets.UTF_8).putByte((byte) 0);
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * @return {@code file} and every file it includes, directly or transitively.
+     */
+    private Set<File> closure(File file) {
+        final Set<File> closure = Sets.newHashSet();
+        final Deque<File> queue = new ArrayDeque<File>();
+        queue.add(file);
+        while (!queue.isEmpty()) {
+            final File next = queue.poll();
+            if (closure.add(next)) {
+                queue.addAll(includes.get(next));
+            }
+        }
+        return closure;
+    }
+
+}
@@ -0,0 +1,96 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <p>A record of the {@code thrift} executable installed in the plugin directory for an
+ * artifact: its file name, the SHA-256 of its content and when it was resolved. As long
+ * as the executable still matches the digest, the artifact does not need to be resolved
+ * again, which spares the repository metadata checks of snapshot artifacts.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class InstalledExecutable {
+
+    private static final String HEADER = "# thrift-maven-plugin installed executable v1";
+
+    private static final String RECORD_SUFFIX = ".installed";
+
+    private static final Joiner TAB_JOINER = Joiner.on('\t');
+
+    private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+    private InstalledExecutable() {
+    }
+
+    /**
+     * @param directory    the directory executables are installed in.
+     * @param artifactSpec the artifact, in {@code groupId:artifactId:version[:type[:classifier]]} format.
+     * @param maxAgeMillis how long ago the artifact may have been resolved at most.
+     * @return the installed executable, or {@code null} if there is none, it was modified, or it is too old.
+     */
+    static File find(File directory, String artifactSpec, long maxAgeMillis) throws IOException {
+        final File record = recordFile(directory, artifactSpec);
+        if (!record.isFile()) {
+            return null;
+        }
+        final List<String> lines = Files.asCharSource(record, Charsets.UTF_8).readLines();
+        if (lines.size() != 2 || !HEADER.equals(lines.get(0))) {
+            return null;
+        }
+        final List<String> fields = TAB_SPLITTER.splitToList(lines.get(1));
+        if (fields.size() != 3) {
+            return null;
+        }
+        final long resolvedMillis;
+        try {
+            resolvedMillis = Long.parseLong(fields.get(2));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (System.currentTimeMillis() - resolvedMillis > maxAgeMillis) {
+            return null;
+        }
+        final File executable = new File(directory, fields.get(0));
+        if (!executable.isFile() || !fields.get(1).equals(digest(executable))) {
+            return null;
+        }
+        return executable;
+    }
+
+    /**
+     * Records {@code executable} as the installed executable of {@code artifactSpec}, resolved just now.
+     * The digest is the one of the resolved {@code artifactFile}, so that an executable which does not
+     * match the artifact is never taken for an installed one.
+     */
+    static void record(File directory, String artifactSpec, File executable, File artifactFile) throws IOException {
+        final File record = recordFile(directory, artifactSpec);
+        final File temporaryRecord = new File(directory, record.getName() + "." + UUID.randomUUID() + ".tmp");
+        Files.asCharSink(temporaryRecord, Charsets.UTF_8).writeLines(ImmutableList.of(HEADER,
+                TAB_JOINER.join(executable.getName(), digest(artifactFile), System.currentTimeMillis())), "\n");
+        if (!temporaryRecord.renameTo(record)) {
+            FileUtils.forceDelete(record);
+            FileUtils.rename(temporaryRecord, record);
+        }
+    }
+
+    private static File recordFile(File directory, String artifactSpec) {
+        return new File(directory, "." + artifactSpec.replaceAll("[^A-Za-z0-9._-]", "_") + RECORD_SUFFIX);
+    }
+
+    private static String digest(File executable) throws IOException {
+        return Files.asByteSource(executable).hash(Hashing.sha256()).toString();
+    }
+
+}
@@ -0,0 +1,2061 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import io.potter.thrift.maven.ThriftDocument.Const;
+import io.potter.thrift.maven.ThriftDocument.ConstKind;
+import io.potter.thrift.maven.ThriftDocument.ConstValue;
+import io.potter.thrift.maven.ThriftDocument.Definition;
+import io.potter.thrift.maven.ThriftDocument.EnumDefinition;
+import io.potter.thrift.maven.ThriftDocument.EnumValue;
+import io.potter.thrift.maven.ThriftDocument.Field;
+import io.potter.thrift.maven.ThriftDocument.Function;
+import io.potter.thrift.maven.ThriftDocument.Kind;
+import io.potter.thrift.maven.ThriftDocument.Requiredness;
+import io.potter.thrift.maven.ThriftDocument.Service;
+import io.potter.thrift.maven.ThriftDocument.Struct;
+import io.potter.thrift.maven.ThriftDocument.Type;
+import io.potter.thrift.maven.ThriftDocument.Typedef;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>Generates java sources from thrift files inside the build, the way the {@code java} generator of
+ * {@code thrift} 0.11.0 does, so that neither a {@code thrift} executable nor a process per file is
+ * needed.</p>
+ *
+ * <p>Supports the {@code hashcode} (which, as in {@code thrift} 0.11.0, changes nothing),
+ * {@code private-members} and {@code generated_annotations} options. Unions, struct constants,
+ * nested container constants and container default values are rejected.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class JavaGenerator {
+
+    static final String THRIFT_VERSION = "0.11.0";
+
+    /**
+     * Stands in for the {@code thrift} executable in fingerprints, incremental states and build cache keys.
+     */
+    static final String ENGINE_NAME = "thrift-maven-plugin java generator (thrift " + THRIFT_VERSION + ")";
+
+    private static final String AUTOGENERATED = "Autogenerated by Thrift Compiler (" + THRIFT_VERSION + ")";
+
+    private static final String SUPPRESS_WARNINGS =
+            "@SuppressWarnings({\"cast\", \"rawtypes\", \"serial\", \"unchecked\", \"unused\"})";
+
+    private static final String TTYPE = "org.apache.thrift.protocol.TType.";
+
+    private static final String TEXCEPTION = "org.apache.thrift.TException";
+
+    private static final String TPROTOCOL = "org.apache.thrift.protocol.TProtocol";
+
+    private static final ImmutableSet<String> SUPPORTED_OPTIONS =
+            ImmutableSet.of("hashcode", "private-members", "generated_annotations");
+
+    private static final ImmutableMap<String, String> PRIMITIVE_TYPES = ImmutableMap.<String, String>builder()
+            .put("bool", "boolean").put("byte", "byte").put("i8", "byte").put("i16", "short").put("i32", "int")
+            .put("i64", "long").put("double", "double").build();
+
+    private static final ImmutableMap<String, String> BOXED_TYPES = ImmutableMap.<String, String>builder()
+            .put("bool", "java.lang.Boolean").put("byte", "java.lang.Byte").put("i8", "java.lang.Byte")
+            .put("i16", "java.lang.Short").put("i32", "java.lang.Integer").put("i64", "java.lang.Long")
+            .put("double", "java.lang.Double").put("string", "java.lang.String").put("slist", "java.lang.String")
+            .put("binary", "java.nio.ByteBuffer").build();
+
+    private static final ImmutableMap<String, String> PROTOCOL_TYPES = ImmutableMap.<String, String>builder()
+            .put("bool", "Bool").put("byte", "Byte").put("i8", "Byte").put("i16", "I16").put("i32", "I32")
+            .put("i64", "I64").put("double", "Double").put("string", "String").put("slist", "String")
+            .put("binary", "Binary").build();
+
+    private final boolean privateMembers;
+    private final boolean generatedAnnotation;
+    private final boolean datedAnnotation;
+    private final String date;
+
+    /**
+     * @param generator the value of the {@code --gen} option, like {@code java:hashcode}.
+     * @param date      the date put into the {@code @Generated} annotations.
+     * @throws IllegalArgumentException if the generator or one of its options is not supported.
+     */
+    JavaGenerator(String generator, String date) {
+        final int colon = generator.indexOf(':');
+        final String language = colon < 0 ? generator : generator.substring(0, colon);
+        if (!"java".equals(language)) {
+            throw new IllegalArgumentException("the java engine only supports the java generator, not " + language);
+        }
+        boolean privateMembers = false;
+        String generatedAnnotations = null;
+        if (colon >= 0) {
+            for (String option : Splitter.on(',').trimResults().omitEmptyStrings().split(generator.substring(colon + 1))) {
+                final int equals = option.indexOf('=');
+                final String key = equals < 0 ? option : option.substring(0, equals);
+                if (!SUPPORTED_OPTIONS.contains(key)) {
+                    throw new IllegalArgumentException("the java engine does not support the " + key
+                            + " option, only " + Joiner.on(", ").join(SUPPORTED_OPTIONS));
+                }
+                if ("private-members".equals(key)) {
+                    privateMembers = true;
+                } else if ("generated_annotations".equals(key)) {
+                    generatedAnnotations = equals < 0 ? "" : option.substring(equals + 1);
+                    if (!"undated".equals(generatedAnnotations) && !"suppress".equals(generatedAnnotations)) {
+                        throw new IllegalArgumentException("generated_annotations must be undated or suppress");
+                    }
+                }
+            }
+        }
+        this.privateMembers = privateMembers;
+        this.generatedAnnotation = !"suppress".equals(generatedAnnotations);
+        this.datedAnnotation = generatedAnnotations == null;
+        this.date = date;
+    }
+
+    /**
+     * Generates the java sources of {@code thriftFile}, but not of the files it includes.
+     *
+     * @param parsed          the parsed {@code thriftFile} and the files it includes.
+     * @param outputDirectory the directory the package directories are created in.
+     * @return the paths of the generated files, relative to {@code outputDirectory}.
+     * @throws IllegalArgumentException if the file uses something the java engine does not support.
+     */
+    List<String> generate(File thriftFile, ThriftValidator.Result parsed, File outputDirectory) throws IOException {
+        final File canonicalFile = thriftFile.getCanonicalFile();
+        final ThriftDocument document = parsed.getDocuments().get(canonicalFile);
+        if (document == null) {
+            throw new IllegalArgumentException(thriftFile + " was not parsed");
+        }
+        return new Program(document, parsed).generate(outputDirectory);
+    }
+
+    private static String packageOf(ThriftDocument document) {
+        final String namespace = document.getNamespaces().get("java");
+        if (namespace != null) {
+            return namespace;
+        }
+        final String defaultNamespace = document.getNamespaces().get("*");
+        return defaultNamespace == null ? "" : defaultNamespace;
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Turns {@code someField} into {@code SOME_FIELD}, like {@code thrift} names the {@code _Fields} constants.
+     */
+    private static String constantName(String name) {
+        final StringBuilder constant = new StringBuilder();
+        boolean first = true;
+        boolean previousUpper = false;
+        for (char c : name.toCharArray()) {
+            final boolean upper = Character.isUpperCase(c);
+            if (upper && !first && !previousUpper) {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+            first = false;
+            previousUpper = upper;
+        }
+        return constant.toString();
+    }
+
+    private static String escape(String text) {
+        final StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                escaped.append(c).append(text.charAt(++i));
+            } else if (c == '"') {
+                escaped.append("\\\"");
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * A type with its typedefs resolved.
+     */
+    private static final class JavaType {
+
+        private final String baseType;
+        private final Definition definition;
+        private final ThriftDocument document;
+        private final String container;
+        private final JavaType keyType;
+        private final JavaType valueType;
+        private final String typedefName;
+
+        private JavaType(String baseType, Definition definition, ThriftDocument document, String container,
+                         JavaType keyType, JavaType valueType, String typedefName) {
+            this.baseType = baseType;
+            this.definition = definition;
+            this.document = document;
+            this.container = container;
+            this.keyType = keyType;
+            this.valueType = valueType;
+            this.typedefName = typedefName;
+        }
+
+        JavaType withTypedef(String name) {
+            return new JavaType(baseType, definition, document, container, keyType, valueType, name);
+        }
+
+        boolean isBase() {
+            return baseType != null;
+        }
+
+        boolean isPrimitive() {
+            return baseType != null && PRIMITIVE_TYPES.containsKey(baseType);
+        }
+
+        boolean isBinary() {
+            return "binary".equals(baseType);
+        }
+
+        boolean isEnum() {
+            return definition != null && definition.getKind() == Kind.ENUM;
+        }
+
+        boolean isStruct() {
+            return definition != null && definition.getKind() != Kind.ENUM;
+        }
+
+        boolean isContainer() {
+            return container != null;
+        }
+
+        boolean isMap() {
+            return "map".equals(container);
+        }
+
+        boolean isList() {
+            return "list".equals(container);
+        }
+
+    }
+
+    /**
+     * Writes indented java code.
+     */
+    private static final class Code {
+
+        private final StringBuilder text = new StringBuilder();
+        private int level;
+
+        Code line(String line) {
+            if (!line.isEmpty()) {
+                text.append(indentation()).append(line);
+            }
+            text.append('\n');
+            return this;
+        }
+
+        Code blank() {
+            text.append('\n');
+            return this;
+        }
+
+        Code open(String line) {
+            line(line);
+            level++;
+            return this;
+        }
+
+        Code close(String line) {
+            level--;
+            return line(line);
+        }
+
+        Code indent() {
+            level++;
+            return this;
+        }
+
+        Code outdent() {
+            level--;
+            return this;
+        }
+
+        String indentation() {
+            return Strings.repeat("  ", level);
+        }
+
+        Code doc(String doc) {
+            if (doc != null) {
+                line("/**");
+                for (String docLine : Splitter.on('\n').split(doc)) {
+                    line(" * " + docLine);
+                }
+                line(" */");
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+
+    }
+
+    /**
+     * Generates the files of a single thrift file.
+     */
+    private final class Program {
+
+        private final ThriftDocument document;
+        private final ThriftValidator.Result parsed;
+        private final String packageName;
+        private int temporaryCount;
+
+        Program(ThriftDocument document, ThriftValidator.Result parsed) {
+            this.document = document;
+            this.parsed = parsed;
+            this.packageName = packageOf(document);
+        }
+
+        List<String> generate(File outputDirectory) throws IOException {
+            final List<String> paths = Lists.newArrayList();
+            final List<Const> constants = Lists.newArrayList();
+            for (Definition definition : document.getDefinitions()) {
+                if (definition.getKind() == Kind.CONST) {
+                    constants.add((Const) definition);
+                }
+            }
+            if (!constants.isEmpty()) {
+                paths.add(write(outputDirectory, document.getProgramName() + "Constants", constants(constants)));
+            }
+            for (Definition definition : document.getDefinitions()) {
+                switch (definition.getKind()) {
+                    case ENUM:
+                        paths.add(write(outputDirectory, definition.getName(), enumeration((EnumDefinition) definition)));
+                        break;
+                    case STRUCT:
+                    case EXCEPTION:
+                        paths.add(write(outputDirectory, definition.getName(), structFile((Struct) definition)));
+                        break;
+                    case UNION:
+                        throw unsupported(definition.getName(), definition.getLine(), "unions are");
+                    case SERVICE:
+                        paths.add(write(outputDirectory, definition.getName(), service((Service) definition)));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return paths;
+        }
+
+        private String write(File outputDirectory, String className, String content) throws IOException {
+            final String path = (packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/") + className + ".java";
+            final File file = new File(outputDirectory, path);
+            Files.createParentDirs(file);
+            Files.asCharSink(file, Charsets.UTF_8).write(content);
+            return path;
+        }
+
+        private IllegalArgumentException unsupported(String name, int line, String what) {
+            return new IllegalArgumentException(String.format("%s:%d: %s not supported by the java engine (%s)",
+                    document.getFile(), line, what, name));
+        }
+
+        private String temporary(String prefix) {
+            return prefix + temporaryCount++;
+        }
+
+        private Code header() {
+            final Code code = new Code();
+            code.line("/**")
+                    .line(" * " + AUTOGENERATED)
+                    .line(" *")
+                    .line(" * DO NOT EDIT UNLESS YOU ARE SURE THAT YOU KNOW WHAT YOU ARE DOING")
+                    .line(" *  @generated")
+                    .line(" */");
+            if (!packageName.isEmpty()) {
+                code.line("package " + packageName + ";");
+            }
+            return code.blank();
+        }
+
+        private void generatedAnnotation(Code code) {
+            if (generatedAnnotation) {
+                code.line("@javax.annotation.Generated(value = \"" + AUTOGENERATED + "\""
+                        + (datedAnnotation ? ", date = \"" + date + "\"" : "") + ")");
+            }
+        }
+
+        /**
+         * A field of a generated struct.
+         */
+        private final class FieldInfo {
+
+            private final Field field;
+            private final JavaType type;
+            private final String name;
+            private final String capitalName;
+            private final String constant;
+            private String issetId;
+
+            FieldInfo(Field field, JavaType type) {
+                this.field = field;
+                this.type = type;
+                this.name = field.getName();
+                this.capitalName = capitalize(name);
+                this.constant = constantName(name);
+            }
+
+            boolean isOptional() {
+                return field.getRequiredness() == Requiredness.OPTIONAL;
+            }
+
+            boolean isRequired() {
+                return field.getRequiredness() == Requiredness.REQUIRED;
+            }
+
+            String getter() {
+                return ("bool".equals(type.baseType) ? "is" : "get") + capitalName;
+            }
+
+            String isSet() {
+                return "isSet" + capitalName;
+            }
+
+            String doc() {
+                if (!type.isEnum()) {
+                    return field.getDoc();
+                }
+                return Strings.nullToEmpty(field.getDoc()) + "\n@see " + typeName(type, false, false);
+            }
+
+        }
+
+        // types
+
+        JavaType resolve(Type type, ThriftDocument context) {
+            if (type.isContainer()) {
+                return new JavaType(null, null, null, type.getName(),
+                        type.getKeyType() == null ? null : resolve(type.getKeyType(), context),
+                        resolve(type.getValueType(), context), null);
+            }
+            if (type.isBaseType()) {
+                return new JavaType(type.getName(), null, null, null, null, null, null);
+            }
+            final String name = type.getName();
+            final int dot = name.indexOf('.');
+            ThriftDocument owner = context;
+            String localName = name;
+            if (dot >= 0) {
+                owner = parsed.getIncludedDocuments(context.getFile()).get(name.substring(0, dot));
+                localName = name.substring(dot + 1);
+            }
+            final Definition definition = owner == null ? null : owner.getDefinition(localName);
+            if (definition == null) {
+                throw new IllegalArgumentException(String.format("%s:%d: unknown type '%s'",
+                        context.getFile(), type.getLine(), name));
+            }
+            if (definition.getKind() == Kind.TYPEDEF) {
+                return resolve(((Typedef) definition).getType(), owner).withTypedef(localName);
+            }
+            return new JavaType(null, definition, owner, null, null, null, null);
+        }
+
+        String definitionName(Definition definition, ThriftDocument owner) {
+            final String ownerPackage = packageOf(owner);
+            return owner != document && !ownerPackage.isEmpty()
+                    ? ownerPackage + "." + definition.getName() : definition.getName();
+        }
+
+        String qualifiedName(JavaType type) {
+            final String ownerPackage = packageOf(type.document);
+            return ownerPackage.isEmpty() ? type.definition.getName() : ownerPackage + "." + type.definition.getName();
+        }
+
+        String typeName(JavaType type, boolean boxed, boolean init) {
+            if (type.isBase()) {
+                return boxed || !type.isPrimitive() ? BOXED_TYPES.get(type.baseType) : PRIMITIVE_TYPES.get(type.baseType);
+            }
+            if (type.isContainer()) {
+                if (type.isMap()) {
+                    return (init ? "java.util.HashMap<" : "java.util.Map<") + typeName(type.keyType, true, false)
+                            + "," + typeName(type.valueType, true, false) + ">";
+                }
+                final String collection = type.isList()
+                        ? (init ? "java.util.ArrayList<" : "java.util.List<")
+                        : (init ? "java.util.HashSet<" : "java.util.Set<");
+                return collection + typeName(type.valueType, true, false) + ">";
+            }
+            return definitionName(type.definition, type.document);
+        }
+
+        String ttype(JavaType type) {
+            if (type.isBase()) {
+                final String protocolType = PROTOCOL_TYPES.get(type.baseType);
+                return TTYPE + ("Binary".equals(protocolType) ? "STRING" : protocolType.toUpperCase());
+            }
+            if (type.isContainer()) {
+                return TTYPE + type.container.toUpperCase();
+            }
+            return TTYPE + (type.isEnum() ? "I32" : "STRUCT");
+        }
+
+        String defaultPrimitive(JavaType type) {
+            if ("bool".equals(type.baseType)) {
+                return "false";
+            }
+            return "double".equals(type.baseType) ? "0.0" : "0";
+        }
+
+        // constants
+
+        private String constants(List<Const> constants) {
+            final Code code = header();
+            code.line(SUPPRESS_WARNINGS);
+            code.open("public class " + document.getProgramName() + "Constants {");
+            code.blank();
+            for (Const constant : constants) {
+                final JavaType type = resolve(constant.getType(), document);
+                code.doc(constant.getDoc());
+                if (type.isContainer()) {
+                    code.line("public static final " + typeName(type, false, false) + " " + constant.getName()
+                            + " = new " + typeName(type, false, true) + "();");
+                    code.open("static {");
+                    final List<ConstValue> elements = constant.getValue().getElements();
+                    if (type.isMap()) {
+                        for (int i = 0; i + 1 < elements.size(); i += 2) {
+                            code.line(constant.getName() + ".put(" + constValue(constant.getName(), type.keyType, elements.get(i))
+                                    + ", " + constValue(constant.getName(), type.valueType, elements.get(i + 1)) + ");");
+                        }
+                    } else {
+                        for (ConstValue element : elements) {
+                            code.line(constant.getName() + ".add(" + constValue(constant.getName(), type.valueType, element) + ");");
+                        }
+                    }
+                    code.close("}");
+                } else {
+                    code.line("public static final " + typeName(type, false, false) + " " + constant.getName()
+                            + " = " + constValue(constant.getName(), type, constant.getValue()) + ";");
+                }
+                code.blank();
+            }
+            code.close("}");
+            return code.toString();
+        }
+
+        String constValue(String name, JavaType type, ConstValue value) {
+            if (type.isContainer()) {
+                throw unsupported(name, value.getLine(), "nested container constants and container default values are");
+            }
+            if (type.isStruct()) {
+                throw unsupported(name, value.getLine(), "struct constants are");
+            }
+            if (type.isEnum()) {
+                final EnumDefinition enumeration = (EnumDefinition) type.definition;
+                String valueName = null;
+                if (value.getKind() == ConstKind.INTEGER) {
+                    for (EnumValue enumValue : enumeration.getValues()) {
+                        if (Long.decode(value.getText()) == enumValue.getValue()) {
+                            valueName = enumValue.getName();
+                        }
+                    }
+                } else if (value.getKind() == ConstKind.IDENTIFIER) {
+                    valueName = value.getText().substring(value.getText().lastIndexOf('.') + 1);
+                }
+                if (valueName == null) {
+                    throw new IllegalArgumentException(String.format("%s:%d: %s is not a value of %s",
+                            document.getFile(), value.getLine(), value, enumeration.getName()));
+                }
+                return qualifiedName(type) + "." + valueName;
+            }
+            final String baseType = type.baseType;
+            if ("string".equals(baseType) || "slist".equals(baseType) || "binary".equals(baseType)) {
+                final String string = "\"" + escape(value.getText()) + "\"";
+                return "binary".equals(baseType) ? "java.nio.ByteBuffer.wrap(" + string + ".getBytes())" : string;
+            }
+            if ("bool".equals(baseType)) {
+                if (value.getKind() == ConstKind.IDENTIFIER) {
+                    return value.getText();
+                }
+                return Long.decode(value.getText()) != 0 ? "true" : "false";
+            }
+            if ("double".equals(baseType)) {
+                return value.getKind() == ConstKind.INTEGER ? "(double)" + value.getText() : value.getText();
+            }
+            final String number = Long.toString(Long.decode(value.getText()));
+            if ("byte".equals(baseType) || "i8".equals(baseType)) {
+                return "(byte)" + number;
+            }
+            if ("i16".equals(baseType)) {
+                return "(short)" + number;
+            }
+            return "i64".equals(baseType) ? number + "L" : number;
+        }
+
+        // enums
+
+        private String enumeration(EnumDefinition enumeration) {
+            final Code code = header();
+            code.blank();
+            code.doc(enumeration.getDoc());
+            code.open("public enum " + enumeration.getName() + " implements org.apache.thrift.TEnum {");
+            final List<EnumValue> values = enumeration.getValues();
+            for (int i = 0; i < values.size(); i++) {
+                final EnumValue value = values.get(i);
+                code.doc(value.getDoc());
+                code.line(value.getName() + "(" + value.getValue() + ")" + (i + 1 < values.size() ? "," : ";"));
+            }
+            code.blank()
+                    .line("private final int value;")
+                    .blank()
+                    .open("private " + enumeration.getName() + "(int value) {")
+                    .line("this.value = value;")
+                    .close("}")
+                    .blank()
+                    .line("/**")
+                    .line(" * Get the integer value of this enum value, as defined in the Thrift IDL.")
+                    .line(" */")
+                    .open("public int getValue() {")
+                    .line("return value;")
+                    .close("}")
+                    .blank()
+                    .line("/**")
+                    .line(" * Find a the enum type by its integer value, as defined in the Thrift IDL.")
+                    .line(" * @return null if the value is not found.")
+                    .line(" */")
+                    .open("public static " + enumeration.getName() + " findByValue(int value) { ")
+                    .open("switch (value) {");
+            for (EnumValue value : values) {
+                code.open("case " + value.getValue() + ":").line("return " + value.getName() + ";").outdent();
+            }
+            code.open("default:").line("return null;").outdent();
+            code.close("}").close("}").close("}");
+            return code.toString();
+        }
+
+        // structs
+
+        private String structFile(Struct struct) {
+            final Code code = header();
+            struct(code, struct, false, false);
+            return code.toString();
+        }
+
+        private List<FieldInfo> fields(Struct struct) {
+            final List<FieldInfo> fields = Lists.newArrayList();
+            for (Field field : struct.getFields()) {
+                final FieldInfo info = new FieldInfo(field, resolve(field.getType(), document));
+                if (info.type.isPrimitive()) {
+                    info.issetId = "__" + field.getName().toUpperCase() + "_ISSET_ID";
+                }
+                fields.add(info);
+            }
+            return fields;
+        }
+
+        /**
+         * Generates a struct or exception, or the arguments or result struct of a function when {@code nested}.
+         */
+        private void struct(Code code, Struct struct, boolean nested, boolean result) {
+            final String name = struct.getName();
+            final List<FieldInfo> fields = fields(struct);
+            int primitives = 0;
+            for (FieldInfo field : fields) {
+                if (field.issetId != null) {
+                    primitives++;
+                }
+            }
+            final String bitfield = primitives > 64 ? "__isset_bit_vector" : "__isset_bitfield";
+
+            if (!nested) {
+                code.line(SUPPRESS_WARNINGS);
+            }
+            code.doc(struct.getDoc());
+            if (!nested) {
+                generatedAnnotation(code);
+            }
+            code.open("public " + (nested ? "static " : "") + "class " + name
+                    + (struct.getKind() == Kind.EXCEPTION ? " extends " + TEXCEPTION : "")
+                    + " implements org.apache.thrift.TBase<" + name + ", " + name + "._Fields>, java.io.Serializable, Cloneable, Comparable<"
+                    + name + "> {");
+            code.line("private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct(\""
+                    + name + "\");");
+            code.blank();
+            for (FieldInfo field : fields) {
+                code.line("private static final org.apache.thrift.protocol.TField " + field.constant
+                        + "_FIELD_DESC = new org.apache.thrift.protocol.TField(\"" + field.name + "\", "
+                        + ttype(field.type) + ", (short)" + field.field.getId() + ");");
+            }
+            code.blank();
+            code.line("private static final org.apache.thrift.scheme.SchemeFactory STANDARD_SCHEME_FACTORY = new "
+                    + name + "StandardSchemeFactory();");
+            code.line("private static final org.apache.thrift.scheme.SchemeFactory TUPLE_SCHEME_FACTORY = new "
+                    + name + "TupleSchemeFactory();");
+            code.blank();
+            for (FieldInfo field : fields) {
+                code.doc(field.doc());
+                code.line((privateMembers ? "private " : "public ") + typeName(field.type, false, false) + " "
+                        + field.name + "; // " + (field.isOptional() ? "optional" : "required"));
+            }
+            fieldsEnum(code, fields);
+            code.blank();
+
+            // isset bits
+            if (primitives > 0) {
+                code.line("// isset id assignments");
+                int index = 0;
+                for (FieldInfo field : fields) {
+                    if (field.issetId != null) {
+                        code.line("private static final int " + field.issetId + " = " + index++ + ";");
+                    }
+                }
+                if (primitives > 64) {
+                    code.line("private java.util.BitSet __isset_bit_vector = new java.util.BitSet(" + primitives + ");");
+                } else {
+                    code.line("private " + (primitives <= 8 ? "byte" : primitives <= 16 ? "short" : primitives <= 32
+                            ? "int" : "long") + " __isset_bitfield = 0;");
+                }
+            }
+            final List<String> optionals = Lists.newArrayList();
+            for (FieldInfo field : fields) {
+                if (field.isOptional()) {
+                    optionals.add("_Fields." + field.constant);
+                }
+            }
+            if (!optionals.isEmpty()) {
+                code.line("private static final _Fields optionals[] = {" + Joiner.on(',').join(optionals) + "};");
+            }
+            metaData(code, name, fields);
+            code.blank();
+
+            constructors(code, name, fields, bitfield, primitives);
+            accessors(code, name, fields, bitfield, primitives);
+            fieldValues(code, fields);
+            equalsAndHashCode(code, name, fields);
+            compareTo(code, name, fields);
+
+            code.open("public _Fields fieldForId(int fieldId) {")
+                    .line("return _Fields.findByThriftId(fieldId);")
+                    .close("}")
+                    .blank()
+                    .open("public void read(" + TPROTOCOL + " iprot) throws " + TEXCEPTION + " {")
+                    .line("scheme(iprot).read(iprot, this);")
+                    .close("}")
+                    .blank()
+                    .open("public void write(" + TPROTOCOL + " oprot) throws " + TEXCEPTION + " {")
+                    .line("scheme(oprot).write(oprot, this);")
+                    .close("}")
+                    .blank();
+            toString(code, name, fields);
+            validate(code, fields);
+            serialization(code, primitives > 64 ? "__isset_bit_vector = new java.util.BitSet(1);"
+                    : primitives > 0 ? "__isset_bitfield = 0;" : null);
+            standardScheme(code, name, fields, result);
+            tupleScheme(code, name, fields);
+            code.open("private static <S extends org.apache.thrift.scheme.IScheme> S scheme(" + TPROTOCOL + " proto) {")
+                    .line("return (org.apache.thrift.scheme.StandardScheme.class.equals(proto.getScheme()) ? STANDARD_SCHEME_FACTORY : TUPLE_SCHEME_FACTORY).getScheme();")
+                    .close("}");
+            code.close("}");
+            if (nested) {
+                code.blank();
+            }
+        }
+
+        private void fieldsEnum(Code code, List<FieldInfo> fields) {
+            code.blank();
+            code.line("/** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */");
+            code.open("public enum _Fields implements org.apache.thrift.TFieldIdEnum {");
+            if (fields.isEmpty()) {
+                code.outdent().line(";").indent();
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                final FieldInfo field = fields.get(i);
+                code.doc(field.doc());
+                code.line(field.constant + "((short)" + field.field.getId() + ", \"" + field.name + "\")"
+                        + (i + 1 < fields.size() ? "," : ";"));
+            }
+            code.blank()
+                    .line("private static final java.util.Map<java.lang.String, _Fields> byName = new java.util.HashMap<java.lang.String, _Fields>();")
+                    .blank()
+                    .open("static {")
+                    .open("for (_Fields field : java.util.EnumSet.allOf(_Fields.class)) {")
+                    .line("byName.put(field.getFieldName(), field);")
+                    .close("}")
+                    .close("}")
+                    .blank()
+                    .line("/**")
+                    .line(" * Find the _Fields constant that matches fieldId, or null if its not found.")
+                    .line(" */")
+                    .open("public static _Fields findByThriftId(int fieldId) {")
+                    .open("switch(fieldId) {");
+            for (FieldInfo field : fields) {
+                code.open("case " + field.field.getId() + ": // " + field.constant)
+                        .line("return " + field.constant + ";")
+                        .outdent();
+            }
+            code.open("default:").line("return null;").outdent();
+            code.close("}")
+                    .close("}")
+                    .blank()
+                    .line("/**")
+                    .line(" * Find the _Fields constant that matches fieldId, throwing an exception")
+                    .line(" * if it is not found.")
+                    .line(" */")
+                    .open("public static _Fields findByThriftIdOrThrow(int fieldId) {")
+                    .line("_Fields fields = findByThriftId(fieldId);")
+                    .line("if (fields == null) throw new java.lang.IllegalArgumentException(\"Field \" + fieldId + \" doesn't exist!\");")
+                    .line("return fields;")
+                    .close("}")
+                    .blank()
+                    .line("/**")
+                    .line(" * Find the _Fields constant that matches name, or null if its not found.")
+                    .line(" */")
+                    .open("public static _Fields findByName(java.lang.String name) {")
+                    .line("return byName.get(name);")
+                    .close("}")
+                    .blank()
+                    .line("private final short _thriftId;")
+                    .line("private final java.lang.String _fieldName;")
+                    .blank()
+                    .open("_Fields(short thriftId, java.lang.String fieldName) {")
+                    .line("_thriftId = thriftId;")
+                    .line("_fieldName = fieldName;")
+                    .close("}")
+                    .blank()
+                    .open("public short getThriftFieldId() {")
+                    .line("return _thriftId;")
+                    .close("}")
+                    .blank()
+                    .open("public java.lang.String getFieldName() {")
+                    .line("return _fieldName;")
+                    .close("}")
+                    .close("}");
+        }
+
+        private void metaData(Code code, String name, List<FieldInfo> fields) {
+            code.line("public static final java.util.Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;");
+            code.open("static {");
+            code.line("java.util.Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new java.util.EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);");
+            for (FieldInfo field : fields) {
+                code.line("tmpMap.put(_Fields." + field.constant + ", new org.apache.thrift.meta_data.FieldMetaData(\""
+                        + field.name + "\", org.apache.thrift.TFieldRequirementType."
+                        + (field.isRequired() ? "REQUIRED" : field.isOptional() ? "OPTIONAL" : "DEFAULT") + ", ");
+                code.indent().indent();
+                code.text.append(code.indentation());
+                valueMetaData(code, field.type);
+                code.text.append("));\n");
+                code.outdent().outdent();
+            }
+            code.line("metaDataMap = java.util.Collections.unmodifiableMap(tmpMap);");
+            code.line("org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(" + name + ".class, metaDataMap);");
+            code.close("}");
+        }
+
+        private void valueMetaData(Code code, JavaType type) {
+            final StringBuilder out = code.text;
+            if (type.isContainer()) {
+                final String kind = type.isMap() ? "Map" : type.isList() ? "List" : "Set";
+                out.append("new org.apache.thrift.meta_data.").append(kind).append("MetaData(").append(ttype(type)).append(", \n");
+                code.indent().indent();
+                if (type.isMap()) {
+                    out.append(code.indentation());
+                    valueMetaData(code, type.keyType);
+                    out.append(", \n");
+                }
+                out.append(code.indentation());
+                valueMetaData(code, type.valueType);
+                out.append(")");
+                code.outdent().outdent();
+            } else if (type.typedefName == null && type.isStruct()) {
+                out.append("new org.apache.thrift.meta_data.StructMetaData(" + TTYPE + "STRUCT, ")
+                        .append(typeName(type, false, false)).append(".class)");
+            } else if (type.typedefName == null && type.isEnum()) {
+                out.append("new org.apache.thrift.meta_data.EnumMetaData(" + TTYPE + "ENUM, ")
+                        .append(typeName(type, false, false)).append(".class)");
+            } else {
+                out.append("new org.apache.thrift.meta_data.FieldValueMetaData(").append(ttype(type));
+                if (type.typedefName != null) {
+                    out.append(code.indentation()).append(", \"").append(type.typedefName).append("\"");
+                } else if (type.isBinary()) {
+                    out.append(code.indentation()).append(", true");
+                }
+                out.append(")");
+            }
+        }
+
+        private void constructors(Code code, String name, List<FieldInfo> fields, String bitfield, int primitives) {
+            code.open("public " + name + "() {");
+            boolean defaults = false;
+            for (FieldInfo field : fields) {
+                if (field.field.getDefaultValue() != null) {
+                    code.line("this." + field.name + " = " + defaultValue(field) + ";");
+                    defaults = true;
+                }
+            }
+            if (defaults) {
+                code.blank();
+            }
+            code.close("}");
+            code.blank();
+
+            final List<FieldInfo> constructorFields = Lists.newArrayList();
+            for (FieldInfo field : fields) {
+                if (!field.isOptional()) {
+                    constructorFields.add(field);
+                }
+            }
+            if (!constructorFields.isEmpty()) {
+                code.line("public " + name + "(");
+                code.indent();
+                for (int i = 0; i < constructorFields.size(); i++) {
+                    final FieldInfo field = constructorFields.get(i);
+                    code.line(typeName(field.type, false, false) + " " + field.name
+                            + (i + 1 < constructorFields.size() ? "," : ")"));
+                }
+                code.outdent();
+                code.open("{");
+                code.line("this();");
+                for (FieldInfo field : constructorFields) {
+                    if (field.type.isBinary()) {
+                        code.line("this." + field.name + " = org.apache.thrift.TBaseHelper.copyBinary(" + field.name + ");");
+                    } else {
+                        code.line("this." + field.name + " = " + field.name + ";");
+                    }
+                    if (field.issetId != null) {
+                        code.line("set" + field.capitalName + "IsSet(true);");
+                    }
+                }
+                code.close("}");
+                code.blank();
+            }
+
+            code.line("/**")
+                    .line(" * Performs a deep copy on <i>other</i>.")
+                    .line(" */")
+                    .open("public " + name + "(" + name + " other) {");
+            if (primitives > 64) {
+                code.line("__isset_bit_vector.clear();");
+                code.line("__isset_bit_vector.or(other.__isset_bit_vector);");
+            } else if (primitives > 0) {
+                code.line(bitfield + " = other." + bitfield + ";");
+            }
+            for (FieldInfo field : fields) {
+                if (field.issetId != null) {
+                    code.line("this." + field.name + " = other." + field.name + ";");
+                } else {
+                    code.open("if (other." + field.isSet() + "()) {");
+                    copy(code, field);
+                    code.close("}");
+                }
+            }
+            code.close("}");
+            code.blank();
+            code.open("public " + name + " deepCopy() {")
+                    .line("return new " + name + "(this);")
+                    .close("}")
+                    .blank();
+
+            code.line("@Override");
+            code.open("public void clear() {");
+            for (FieldInfo field : fields) {
+                if (field.field.getDefaultValue() != null) {
+                    code.line("this." + field.name + " = " + defaultValue(field) + ";");
+                    code.blank();
+                } else if (field.issetId != null) {
+                    code.line("set" + field.capitalName + "IsSet(false);");
+                    code.line("this." + field.name + " = " + defaultPrimitive(field.type) + ";");
+                } else {
+                    code.line("this." + field.name + " = null;");
+                }
+            }
+            code.close("}");
+            code.blank();
+        }
+
+        private String defaultValue(FieldInfo field) {
+            return constValue(field.name, field.type, field.field.getDefaultValue());
+        }
+
+        private void copy(Code code, FieldInfo field) {
+            final JavaType type = field.type;
+            if (type.isContainer()) {
+                copyContainer(code, type, "other." + field.name, "__this__" + field.name, "other_element");
+                code.line("this." + field.name + " = __this__" + field.name + ";");
+            } else {
+                code.line("this." + field.name + " = " + copyExpression(type, "other." + field.name) + ";");
+            }
+        }
+
+        private String copyExpression(JavaType type, String source) {
+            if (type.isBinary()) {
+                return "org.apache.thrift.TBaseHelper.copyBinary(" + source + ")";
+            }
+            if (type.isStruct()) {
+                return "new " + typeName(type, false, false) + "(" + source + ")";
+            }
+            return source;
+        }
+
+        private boolean isImmutable(JavaType type) {
+            return (type.isBase() && !type.isBinary()) || type.isEnum();
+        }
+
+        private void copyContainer(Code code, JavaType type, String source, String result, String element) {
+            final boolean shallow = type.isMap()
+                    ? isImmutable(type.keyType) && isImmutable(type.valueType) : isImmutable(type.valueType);
+            if (shallow) {
+                code.line(typeName(type, false, false) + " " + result + " = new " + typeName(type, false, true)
+                        + "(" + source + ");");
+                return;
+            }
+            code.line(typeName(type, false, false) + " " + result + " = new " + typeName(type, false, true)
+                    + "(" + source + ".size());");
+            if (type.isMap()) {
+                code.open("for (java.util.Map.Entry<" + typeName(type.keyType, true, false) + ", "
+                        + typeName(type.valueType, true, false) + "> " + element + " : " + source + ".entrySet()) {");
+                code.line(typeName(type.keyType, false, false) + " " + element + "_key = " + element + ".getKey();");
+                code.line(typeName(type.valueType, false, false) + " " + element + "_value = " + element + ".getValue();");
+                final String key = copyElement(code, type.keyType, element + "_key", result + "_copy_key");
+                final String value = copyElement(code, type.valueType, element + "_value", result + "_copy_value");
+                code.line(result + ".put(" + key + ", " + value + ");");
+            } else {
+                code.open("for (" + typeName(type.valueType, false, false) + " " + element + " : " + source + ") {");
+                final String copy = copyElement(code, type.valueType, element, result + "_copy");
+                code.line(result + ".add(" + copy + ");");
+            }
+            code.close("}");
+        }
+
+        /**
+         * @return the expression of the copy of {@code source}, after the statements copying a container.
+         */
+        private String copyElement(Code code, JavaType type, String source, String result) {
+            if (type.isContainer()) {
+                copyContainer(code, type, source, result, result + "_element");
+                return result;
+            }
+            return copyExpression(type, source);
+        }
+
+        private void accessors(Code code, String name, List<FieldInfo> fields, String bitfield, int primitives) {
+            for (FieldInfo field : fields) {
+                final JavaType type = field.type;
+                final String javaType = typeName(type, false, false);
+                if (type.isContainer()) {
+                    code.open("public int get" + field.capitalName + "Size() {")
+                            .line("return (this." + field.name + " == null) ? 0 : this." + field.name + ".size();")
+                            .close("}")
+                            .blank();
+                    if (type.isMap()) {
+                        code.open("public void putTo" + field.capitalName + "(" + typeName(type.keyType, false, false)
+                                + " key, " + typeName(type.valueType, false, false) + " val) {")
+                                .open("if (this." + field.name + " == null) {")
+                                .line("this." + field.name + " = new " + typeName(type, false, true) + "();")
+                                .close("}")
+                                .line("this." + field.name + ".put(key, val);")
+                                .close("}")
+                                .blank();
+                    } else {
+                        code.open("public java.util.Iterator<" + typeName(type.valueType, true, false) + "> get"
+                                + field.capitalName + "Iterator() {")
+                                .line("return (this." + field.name + " == null) ? null : this." + field.name + ".iterator();")
+                                .close("}")
+                                .blank()
+                                .open("public void addTo" + field.capitalName + "(" + typeName(type.valueType, false, false)
+                                        + " elem) {")
+                                .open("if (this." + field.name + " == null) {")
+                                .line("this." + field.name + " = new " + typeName(type, false, true) + "();")
+                                .close("}")
+                                .line("this." + field.name + ".add(elem);")
+                                .close("}")
+                                .blank();
+                    }
+                }
+                if (type.isBinary()) {
+                    code.open("public byte[] " + field.getter() + "() {")
+                            .line("set" + field.capitalName + "(org.apache.thrift.TBaseHelper.rightSize(" + field.name + "));")
+                            .line("return " + field.name + " == null ? null : " + field.name + ".array();")
+                            .close("}")
+                            .blank()
+                            .open("public java.nio.ByteBuffer bufferFor" + field.capitalName + "() {")
+                            .line("return org.apache.thrift.TBaseHelper.copyBinary(" + field.name + ");")
+                            .close("}")
+                            .blank();
+                } else {
+                    code.doc(type.isEnum() ? field.doc() : null);
+                    code.open("public " + javaType + " " + field.getter() + "() {")
+                            .line("return this." + field.name + ";")
+                            .close("}")
+                            .blank();
+                }
+                if (type.isBinary()) {
+                    code.open("public " + name + " set" + field.capitalName + "(byte[] " + field.name + ") {")
+                            .line("this." + field.name + " = " + field.name + " == null ? (java.nio.ByteBuffer)null : java.nio.ByteBuffer.wrap("
+                                    + field.name + ".clone());")
+                            .line("return this;")
+                            .close("}")
+                            .blank()
+                            .open("public " + name + " set" + field.capitalName + "(java.nio.ByteBuffer " + field.name + ") {")
+                            .line("this." + field.name + " = org.apache.thrift.TBaseHelper.copyBinary(" + field.name + ");")
+                            .line("return this;")
+                            .close("}")
+                            .blank();
+                } else {
+                    code.doc(type.isEnum() ? field.doc() : null);
+                    code.open("public " + name + " set" + field.capitalName + "(" + javaType + " " + field.name + ") {")
+                            .line("this." + field.name + " = " + field.name + ";");
+                    if (field.issetId != null) {
+                        code.line("set" + field.capitalName + "IsSet(true);");
+                    }
+                    code.line("return this;").close("}").blank();
+                }
+                code.open("public void unset" + field.capitalName + "() {");
+                if (field.issetId == null) {
+                    code.line("this." + field.name + " = null;");
+                } else if (primitives > 64) {
+                    code.line("__isset_bit_vector.clear(" + field.issetId + ");");
+                } else {
+                    code.line(bitfield + " = org.apache.thrift.EncodingUtils.clearBit(" + bitfield + ", " + field.issetId + ");");
+                }
+                code.close("}").blank();
+                code.line("/** Returns true if field " + field.name + " is set (has been assigned a value) and false otherwise */");
+                code.open("public boolean " + field.isSet() + "() {");
+                if (field.issetId == null) {
+                    code.line("return this." + field.name + " != null;");
+                } else if (primitives > 64) {
+                    code.line("return __isset_bit_vector.get(" + field.issetId + ");");
+                } else {
+                    code.line("return org.apache.thrift.EncodingUtils.testBit(" + bitfield + ", " + field.issetId + ");");
+                }
+                code.close("}").blank();
+                code.open("public void set" + field.capitalName + "IsSet(boolean value) {");
+                if (field.issetId == null) {
+                    code.open("if (!value) {").line("this." + field.name + " = null;").close("}");
+                } else if (primitives > 64) {
+                    code.line("__isset_bit_vector.set(" + field.issetId + ", value);");
+                } else {
+                    code.line(bitfield + " = org.apache.thrift.EncodingUtils.setBit(" + bitfield + ", " + field.issetId + ", value);");
+                }
+                code.close("}").blank();
+            }
+        }
+
+        private void fieldValues(Code code, List<FieldInfo> fields) {
+            code.open("public void setFieldValue(_Fields field, java.lang.Object value) {");
+            code.line("switch (field) {");
+            for (FieldInfo field : fields) {
+                code.line("case " + field.constant + ":");
+                code.indent().open("if (value == null) {").line("unset" + field.capitalName + "();").close("} else {").indent();
+                if (field.type.isBinary()) {
+                    code.open("if (value instanceof byte[]) {")
+                            .line("set" + field.capitalName + "((byte[])value);")
+                            .close("} else {")
+                            .indent()
+                            .line("set" + field.capitalName + "((java.nio.ByteBuffer)value);")
+                            .close("}");
+                } else {
+                    code.line("set" + field.capitalName + "((" + typeName(field.type, true, false) + ")value);");
+                }
+                code.close("}").line("break;").outdent().blank();
+            }
+            code.line("}");
+            code.close("}");
+            code.blank();
+
+            code.open("public java.lang.Object getFieldValue(_Fields field) {");
+            code.line("switch (field) {");
+            for (FieldInfo field : fields) {
+                code.line("case " + field.constant + ":");
+                code.indent().line("return " + field.getter() + "();").outdent().blank();
+            }
+            code.line("}");
+            code.line("throw new java.lang.IllegalStateException();");
+            code.close("}");
+            code.blank();
+
+            code.line("/** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */");
+            code.open("public boolean isSet(_Fields field) {");
+            code.open("if (field == null) {").line("throw new java.lang.IllegalArgumentException();").close("}");
+            code.blank();
+            code.line("switch (field) {");
+            for (FieldInfo field : fields) {
+                code.line("case " + field.constant + ":");
+                code.indent().line("return " + field.isSet() + "();").outdent();
+            }
+            code.line("}");
+            code.line("throw new java.lang.IllegalStateException();");
+            code.close("}");
+            code.blank();
+        }
+
+        private void equalsAndHashCode(Code code, String name, List<FieldInfo> fields) {
+            code.line("@Override");
+            code.open("public boolean equals(java.lang.Object that) {")
+                    .line("if (that == null)")
+                    .indent().line("return false;").outdent()
+                    .line("if (that instanceof " + name + ")")
+                    .indent().line("return this.equals((" + name + ")that);").outdent()
+                    .line("return false;")
+                    .close("}")
+                    .blank();
+            code.open("public boolean equals(" + name + " that) {")
+                    .line("if (that == null)")
+                    .indent().line("return false;").outdent()
+                    .line("if (this == that)")
+                    .indent().line("return true;").outdent()
+                    .blank();
+            for (FieldInfo field : fields) {
+                final boolean checkPresence = field.isOptional() || field.issetId == null;
+                final String thisPresent = "this_present_" + field.name;
+                final String thatPresent = "that_present_" + field.name;
+                code.line("boolean " + thisPresent + " = true" + (checkPresence ? " && this." + field.isSet() + "()" : "") + ";");
+                code.line("boolean " + thatPresent + " = true" + (checkPresence ? " && that." + field.isSet() + "()" : "") + ";");
+                code.open("if (" + thisPresent + " || " + thatPresent + ") {");
+                code.line("if (!(" + thisPresent + " && " + thatPresent + "))");
+                code.indent().line("return false;").outdent();
+                if (field.type.isBase() && field.type.isPrimitive()) {
+                    code.line("if (this." + field.name + " != that." + field.name + ")");
+                } else {
+                    code.line("if (!this." + field.name + ".equals(that." + field.name + "))");
+                }
+                code.indent().line("return false;").outdent();
+                code.close("}");
+                code.blank();
+            }
+            code.line("return true;");
+            code.close("}");
+            code.blank();
+
+            code.line("@Override");
+            code.open("public int hashCode() {");
+            code.line("int hashCode = 1;");
+            code.blank();
+            for (FieldInfo field : fields) {
+                final boolean checkPresence = field.isOptional() || field.issetId == null;
+                if (checkPresence) {
+                    code.line("hashCode = hashCode * 8191 + ((" + field.isSet() + "()) ? 131071 : 524287);");
+                    code.line("if (" + field.isSet() + "())");
+                    code.indent();
+                }
+                code.line("hashCode = hashCode * 8191 + " + hash(field) + ";");
+                if (checkPresence) {
+                    code.outdent();
+                }
+                code.blank();
+            }
+            code.line("return hashCode;");
+            code.close("}");
+            code.blank();
+        }
+
+        private String hash(FieldInfo field) {
+            final String baseType = field.type.baseType;
+            if ("bool".equals(baseType)) {
+                return "((" + field.name + ") ? 131071 : 524287)";
+            }
+            if ("i64".equals(baseType) || "double".equals(baseType)) {
+                return "org.apache.thrift.TBaseHelper.hashCode(" + field.name + ")";
+            }
+            if ("i32".equals(baseType)) {
+                return field.name;
+            }
+            if (field.type.isPrimitive()) {
+                return "(int) (" + field.name + ")";
+            }
+            if (field.type.isEnum()) {
+                return field.name + ".getValue()";
+            }
+            return field.name + ".hashCode()";
+        }
+
+        private void compareTo(Code code, String name, List<FieldInfo> fields) {
+            code.line("@Override");
+            code.open("public int compareTo(" + name + " other) {");
+            code.open("if (!getClass().equals(other.getClass())) {")
+                    .line("return getClass().getName().compareTo(other.getClass().getName());")
+                    .close("}")
+                    .blank()
+                    .line("int lastComparison = 0;")
+                    .blank();
+            for (FieldInfo field : fields) {
+                code.line("lastComparison = java.lang.Boolean.valueOf(" + field.isSet() + "()).compareTo(other."
+                        + field.isSet() + "());");
+                code.open("if (lastComparison != 0) {").line("return lastComparison;").close("}");
+                code.open("if (" + field.isSet() + "()) {");
+                code.line("lastComparison = org.apache.thrift.TBaseHelper.compareTo(this." + field.name + ", other."
+                        + field.name + ");");
+                code.open("if (lastComparison != 0) {").line("return lastComparison;").close("}");
+                code.close("}");
+            }
+            code.line("return 0;");
+            code.close("}");
+            code.blank();
+        }
+
+        private void toString(Code code, String name, List<FieldInfo> fields) {
+            code.line("@Override");
+            code.open("public java.lang.String toString() {");
+            code.line("java.lang.StringBuilder sb = new java.lang.StringBuilder(\"" + name + "(\");");
+            code.line("boolean first = true;");
+            code.blank();
+            boolean first = true;
+            for (FieldInfo field : fields) {
+                if (field.isOptional()) {
+                    code.open("if (" + field.isSet() + "()) {");
+                }
+                if (!first) {
+                    code.line("if (!first) sb.append(\", \");");
+                }
+                code.line("sb.append(\"" + field.name + ":\");");
+                if (field.issetId != null) {
+                    code.line("sb.append(this." + field.name + ");");
+                } else {
+                    code.open("if (this." + field.name + " == null) {").line("sb.append(\"null\");").close("} else {").indent();
+                    if (field.type.isBinary()) {
+                        code.line("org.apache.thrift.TBaseHelper.toString(this." + field.name + ", sb);");
+                    } else {
+                        code.line("sb.append(this." + field.name + ");");
+                    }
+                    code.close("}");
+                }
+                code.line("first = false;");
+                if (field.isOptional()) {
+                    code.close("}");
+                }
+                first = false;
+            }
+            code.line("sb.append(\")\");");
+            code.line("return sb.toString();");
+            code.close("}");
+            code.blank();
+        }
+
+        private void validate(Code code, List<FieldInfo> fields) {
+            code.open("public void validate() throws " + TEXCEPTION + " {");
+            code.line("// check for required fields");
+            for (FieldInfo field : fields) {
+                if (!field.isRequired()) {
+                    continue;
+                }
+                if (field.issetId != null) {
+                    code.line("// alas, we cannot check '" + field.name
+                            + "' because it's a primitive and you chose the non-beans generator.");
+                } else {
+                    code.open("if (" + field.name + " == null) {")
+                            .line("throw new org.apache.thrift.protocol.TProtocolException(\"Required field '" + field.name
+                                    + "' was not present! Struct: \" + toString());")
+                            .close("}");
+                }
+            }
+            code.line("// check for sub-struct validity");
+            for (FieldInfo field : fields) {
+                if (field.type.isStruct() && field.type.definition.getKind() == Kind.STRUCT) {
+                    code.open("if (" + field.name + " != null) {").line(field.name + ".validate();").close("}");
+                }
+            }
+            code.close("}");
+            code.blank();
+        }
+
+        private void serialization(Code code, String resetIsset) {
+            code.open("private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {")
+                    .open("try {")
+                    .line("write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));")
+                    .close("} catch (" + TEXCEPTION + " te) {")
+                    .indent()
+                    .line("throw new java.io.IOException(te);")
+                    .close("}")
+                    .close("}")
+                    .blank();
+            code.open("private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, java.lang.ClassNotFoundException {")
+                    .open("try {");
+            if (resetIsset != null) {
+                code.line("// it doesn't seem like you should have to do this, but java serialization is wacky, and doesn't call the default constructor.");
+                code.line(resetIsset);
+            }
+            code.line("read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));")
+                    .close("} catch (" + TEXCEPTION + " te) {")
+                    .indent()
+                    .line("throw new java.io.IOException(te);")
+                    .close("}")
+                    .close("}")
+                    .blank();
+        }
+
+        private void standardScheme(Code code, String name, List<FieldInfo> fields, boolean result) {
+            code.open("private static class " + name + "StandardSchemeFactory implements org.apache.thrift.scheme.SchemeFactory {")
+                    .open("public " + name + "StandardScheme getScheme() {")
+                    .line("return new " + name + "StandardScheme();")
+                    .close("}")
+                    .close("}")
+                    .blank();
+            code.open("private static class " + name + "StandardScheme extends org.apache.thrift.scheme.StandardScheme<" + name + "> {");
+            code.blank();
+            code.open("public void read(" + TPROTOCOL + " iprot, " + name + " struct) throws " + TEXCEPTION + " {");
+            code.line("org.apache.thrift.protocol.TField schemeField;");
+            code.line("iprot.readStructBegin();");
+            code.line("while (true)");
+            code.open("{");
+            code.line("schemeField = iprot.readFieldBegin();");
+            code.open("if (schemeField.type == " + TTYPE + "STOP) { ").line("break;").close("}");
+            code.open("switch (schemeField.id) {");
+            for (FieldInfo field : fields) {
+                code.open("case " + field.field.getId() + ": // " + field.constant);
+                code.open("if (schemeField.type == " + ttype(field.type) + ") {");
+                readValue(code, field.type, "struct." + field.name);
+                code.line("struct.set" + field.capitalName + "IsSet(true);");
+                code.close("} else { ").indent();
+                code.line("org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);");
+                code.close("}");
+                code.line("break;");
+                code.outdent();
+            }
+            code.open("default:").line("org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);").outdent();
+            code.close("}");
+            code.line("iprot.readFieldEnd();");
+            code.close("}");
+            code.line("iprot.readStructEnd();");
+            code.blank();
+            code.line("// check for required fields of primitive type, which can't be checked in the validate method");
+            for (FieldInfo field : fields) {
+                if (field.isRequired() && field.issetId != null) {
+                    code.open("if (!struct." + field.isSet() + "()) {")
+                            .line("throw new org.apache.thrift.protocol.TProtocolException(\"Required field '" + field.name
+                                    + "' was not found in serialized data! Struct: \" + toString());")
+                            .close("}");
+                }
+            }
+            code.line("struct.validate();");
+            code.close("}");
+            code.blank();
+
+            code.open("public void write(" + TPROTOCOL + " oprot, " + name + " struct) throws " + TEXCEPTION + " {");
+            code.line("struct.validate();");
+            code.blank();
+            code.line("oprot.writeStructBegin(STRUCT_DESC);");
+            if (result) {
+                for (int i = 0; i < fields.size(); i++) {
+                    final FieldInfo field = fields.get(i);
+                    if (i == 0) {
+                        code.open("if (struct." + field.isSet() + "()) {");
+                    } else {
+                        code.close("} else if (struct." + field.isSet() + "()) {").indent();
+                    }
+                    writeField(code, field);
+                }
+                if (!fields.isEmpty()) {
+                    code.close("}");
+                }
+            } else {
+                for (FieldInfo field : fields) {
+                    final boolean nullable = field.issetId == null;
+                    if (nullable) {
+                        code.open("if (struct." + field.name + " != null) {");
+                    }
+                    if (field.isOptional()) {
+                        code.open("if (struct." + field.isSet() + "()) {");
+                    }
+                    writeField(code, field);
+                    if (field.isOptional()) {
+                        code.close("}");
+                    }
+                    if (nullable) {
+                        code.close("}");
+                    }
+                }
+            }
+            code.line("oprot.writeFieldStop();");
+            code.line("oprot.writeStructEnd();");
+            code.close("}");
+            code.blank();
+            code.close("}");
+            code.blank();
+        }
+
+        private void writeField(Code code, FieldInfo field) {
+            code.line("oprot.writeFieldBegin(" + field.constant + "_FIELD_DESC);");
+            writeValue(code, field.type, "struct." + field.name);
+            code.line("oprot.writeFieldEnd();");
+        }
+
+        private void tupleScheme(Code code, String name, List<FieldInfo> fields) {
+            code.open("private static class " + name + "TupleSchemeFactory implements org.apache.thrift.scheme.SchemeFactory {")
+                    .open("public " + name + "TupleScheme getScheme() {")
+                    .line("return new " + name + "TupleScheme();")
+                    .close("}")
+                    .close("}")
+                    .blank();
+            code.open("private static class " + name + "TupleScheme extends org.apache.thrift.scheme.TupleScheme<" + name + "> {");
+            code.blank();
+            final List<FieldInfo> optionalFields = Lists.newArrayList();
+            for (FieldInfo field : fields) {
+                if (!field.isRequired()) {
+                    optionalFields.add(field);
+                }
+            }
+
+            code.line("@Override");
+            code.open("public void write(" + TPROTOCOL + " prot, " + name + " struct) throws " + TEXCEPTION + " {");
+            code.line("org.apache.thrift.protocol.TTupleProtocol oprot = (org.apache.thrift.protocol.TTupleProtocol) prot;");
+            for (FieldInfo field : fields) {
+                if (field.isRequired()) {
+                    writeValue(code, field.type, "struct." + field.name);
+                }
+            }
+            if (!optionalFields.isEmpty()) {
+                code.line("java.util.BitSet optionals = new java.util.BitSet();");
+                for (int i = 0; i < optionalFields.size(); i++) {
+                    code.open("if (struct." + optionalFields.get(i).isSet() + "()) {")
+                            .line("optionals.set(" + i + ");")
+                            .close("}");
+                }
+                code.line("oprot.writeBitSet(optionals, " + optionalFields.size() + ");");
+                for (FieldInfo field : optionalFields) {
+                    code.open("if (struct." + field.isSet() + "()) {");
+                    writeValue(code, field.type, "struct." + field.name);
+                    code.close("}");
+                }
+            }
+            code.close("}");
+            code.blank();
+
+            code.line("@Override");
+            code.open("public void read(" + TPROTOCOL + " prot, " + name + " struct) throws " + TEXCEPTION + " {");
+            code.line("org.apache.thrift.protocol.TTupleProtocol iprot = (org.apache.thrift.protocol.TTupleProtocol) prot;");
+            for (FieldInfo field : fields) {
+                if (field.isRequired()) {
+                    readValue(code, field.type, "struct." + field.name);
+                    code.line("struct.set" + field.capitalName + "IsSet(true);");
+                }
+            }
+            if (!optionalFields.isEmpty()) {
+                code.line("java.util.BitSet incoming = iprot.readBitSet(" + optionalFields.size() + ");");
+                for (int i = 0; i < optionalFields.size(); i++) {
+                    final FieldInfo field = optionalFields.get(i);
+                    code.open("if (incoming.get(" + i + ")) {");
+                    readValue(code, field.type, "struct." + field.name);
+                    code.line("struct.set" + field.capitalName + "IsSet(true);");
+                    code.close("}");
+                }
+            }
+            code.close("}");
+            code.close("}");
+            code.blank();
+        }
+
+        /**
+         * Reads a value of {@code type} from {@code iprot} into {@code target}; containers are read
+         * with the standard protocol calls, which the tuple protocol implements too.
+         */
+        private void readValue(Code code, JavaType type, String target) {
+            if (type.isStruct()) {
+                code.line(target + " = new " + typeName(type, false, false) + "();");
+                code.line(target + ".read(iprot);");
+            } else if (type.isEnum()) {
+                code.line(target + " = " + qualifiedName(type) + ".findByValue(iprot.readI32());");
+            } else if (type.isBase()) {
+                code.line(target + " = iprot.read" + PROTOCOL_TYPES.get(type.baseType) + "();");
+            } else {
+                final String protocolClass = type.isMap() ? "TMap" : type.isList() ? "TList" : "TSet";
+                final String begin = type.isMap() ? "Map" : type.isList() ? "List" : "Set";
+                final String container = temporary("_" + begin.toLowerCase());
+                code.open("{");
+                code.line("org.apache.thrift.protocol." + protocolClass + " " + container + " = iprot.read" + begin + "Begin();");
+                code.line(target + " = new " + typeName(type, false, true) + "(" + (type.isList() ? "" : "2*")
+                        + container + ".size);");
+                final String key = type.isMap() ? temporary("_key") : null;
+                final String element = temporary(type.isMap() ? "_val" : "_elem");
+                if (key != null) {
+                    code.line(typeName(type.keyType, false, false) + " " + key + ";");
+                }
+                code.line(typeName(type.valueType, false, false) + " " + element + ";");
+                final String index = temporary("_i");
+                code.line("for (int " + index + " = 0; " + index + " < " + container + ".size; ++" + index + ")");
+                code.open("{");
+                if (key != null) {
+                    readValue(code, type.keyType, key);
+                }
+                readValue(code, type.valueType, element);
+                code.line(target + (key != null ? ".put(" + key + ", " : ".add(") + element + ");");
+                code.close("}");
+                code.line("iprot.read" + begin + "End();");
+                code.close("}");
+            }
+        }
+
+        private void writeValue(Code code, JavaType type, String source) {
+            if (type.isStruct()) {
+                code.line(source + ".write(oprot);");
+            } else if (type.isEnum()) {
+                code.line("oprot.writeI32(" + source + ".getValue());");
+            } else if (type.isBase()) {
+                code.line("oprot.write" + PROTOCOL_TYPES.get(type.baseType) + "(" + source + ");");
+            } else {
+                final String begin = type.isMap() ? "Map" : type.isList() ? "List" : "Set";
+                code.open("{");
+                code.line("oprot.write" + begin + "Begin(new org.apache.thrift.protocol.T" + begin + "("
+                        + (type.isMap() ? ttype(type.keyType) + ", " : "") + ttype(type.valueType) + ", "
+                        + source + ".size()));");
+                final String iterator = temporary("_iter");
+                if (type.isMap()) {
+                    code.line("for (java.util.Map.Entry<" + typeName(type.keyType, true, false) + ", "
+                            + typeName(type.valueType, true, false) + "> " + iterator + " : " + source + ".entrySet())");
+                    code.open("{");
+                    writeValue(code, type.keyType, iterator + ".getKey()");
+                    writeValue(code, type.valueType, iterator + ".getValue()");
+                } else {
+                    code.line("for (" + typeName(type.valueType, false, false) + " " + iterator + " : " + source + ")");
+                    code.open("{");
+                    writeValue(code, type.valueType, iterator);
+                }
+                code.close("}");
+                code.line("oprot.write" + begin + "End();");
+                code.close("}");
+            }
+        }
+
+        // services
+
+        private String service(Service service) {
+            final Code code = header();
+            code.line(SUPPRESS_WARNINGS);
+            generatedAnnotation(code);
+            code.open("public class " + service.getName() + " {");
+            code.blank();
+            final String parent = service.getExtendsName() == null ? null : serviceName(service.getExtendsName());
+            final List<Function> functions = service.getFunctions();
+
+            code.doc(service.getDoc());
+            code.open("public interface Iface" + (parent == null ? "" : " extends " + parent + ".Iface") + " {");
+            code.blank();
+            for (Function function : functions) {
+                code.doc(function.getDoc());
+                code.line("public " + returnType(function) + " " + function.getName() + "(" + parameters(function)
+                        + ") throws " + throwsClause(function) + ";");
+                code.blank();
+            }
+            code.close("}");
+            code.blank();
+
+            code.open("public interface AsyncIface" + (parent == null ? "" : " extends " + parent + " .AsyncIface") + " {");
+            code.blank();
+            for (Function function : functions) {
+                code.line("public void " + function.getName() + "(" + asyncParameters(function) + ") throws " + TEXCEPTION + ";");
+                code.blank();
+            }
+            code.close("}");
+            code.blank();
+
+            client(code, parent, functions);
+            asyncClient(code, parent, functions);
+            processor(code, parent, functions);
+            asyncProcessor(code, parent, functions);
+
+            for (Function function : functions) {
+                struct(code, new Struct(Kind.STRUCT, function.getName() + "_args", function.getLine(), null,
+                        function.getArguments()), true, false);
+                if (!function.isOneway()) {
+                    final List<Field> resultFields = Lists.newArrayList();
+                    if (function.getReturnType() != null) {
+                        resultFields.add(new Field(0, true, Requiredness.DEFAULT, function.getReturnType(), "success",
+                                null, function.getLine(), null));
+                    }
+                    resultFields.addAll(function.getExceptions());
+                    struct(code, new Struct(Kind.STRUCT, function.getName() + "_result", function.getLine(), null,
+                            resultFields), true, true);
+                }
+            }
+            code.close("}");
+            return code.toString();
+        }
+
+        private String serviceName(String name) {
+            final int dot = name.indexOf('.');
+            if (dot < 0) {
+                return name;
+            }
+            final ThriftDocument owner = parsed.getIncludedDocuments(document.getFile()).get(name.substring(0, dot));
+            return definitionName(owner.getDefinition(name.substring(dot + 1)), owner);
+        }
+
+        private String returnType(Function function) {
+            return function.getReturnType() == null ? "void" : typeName(resolve(function.getReturnType(), document), false, false);
+        }
+
+        private String boxedReturnType(Function function) {
+            return function.getReturnType() == null ? "Void" : typeName(resolve(function.getReturnType(), document), true, false);
+        }
+
+        private String parameters(Function function) {
+            final List<String> parameters = Lists.newArrayList();
+            for (Field argument : function.getArguments()) {
+                parameters.add(typeName(resolve(argument.getType(), document), false, false) + " " + argument.getName());
+            }
+            return Joiner.on(", ").join(parameters);
+        }
+
+        private String asyncParameters(Function function) {
+            final String parameters = parameters(function);
+            return (parameters.isEmpty() ? "" : parameters + ", ") + "org.apache.thrift.async.AsyncMethodCallback<"
+                    + boxedReturnType(function) + "> resultHandler";
+        }
+
+        private String argumentNames(Function function, String prefix) {
+            final List<String> names = Lists.newArrayList();
+            for (Field argument : function.getArguments()) {
+                names.add(prefix + argument.getName());
+            }
+            return Joiner.on(", ").join(names);
+        }
+
+        private String throwsClause(Function function) {
+            final List<String> exceptions = Lists.newArrayList();
+            for (Field exception : function.getExceptions()) {
+                exceptions.add(typeName(resolve(exception.getType(), document), false, false));
+            }
+            exceptions.add(TEXCEPTION);
+            return Joiner.on(", ").join(exceptions);
+        }
+
+        private void client(Code code, String parent, List<Function> functions) {
+            code.open("public static class Client extends " + (parent == null ? "org.apache.thrift.TServiceClient" : parent + ".Client")
+                    + " implements Iface {");
+            code.open("public static class Factory implements org.apache.thrift.TServiceClientFactory<Client> {")
+                    .line("public Factory() {}")
+                    .open("public Client getClient(" + TPROTOCOL + " prot) {")
+                    .line("return new Client(prot);")
+                    .close("}")
+                    .open("public Client getClient(" + TPROTOCOL + " iprot, " + TPROTOCOL + " oprot) {")
+                    .line("return new Client(iprot, oprot);")
+                    .close("}")
+                    .close("}")
+                    .blank();
+            code.line("public Client(" + TPROTOCOL + " prot)")
+                    .open("{")
+                    .line("super(prot, prot);")
+                    .close("}")
+                    .blank()
+                    .open("public Client(" + TPROTOCOL + " iprot, " + TPROTOCOL + " oprot) {")
+                    .line("super(iprot, oprot);")
+                    .close("}")
+                    .blank();
+            for (Function function : functions) {
+                final String name = function.getName();
+                code.line("public " + returnType(function) + " " + name + "(" + parameters(function) + ") throws "
+                        + throwsClause(function));
+                code.open("{");
+                code.line("send_" + name + "(" + argumentNames(function, "") + ");");
+                if (!function.isOneway()) {
+                    code.line((function.getReturnType() == null ? "" : "return ") + "recv_" + name + "();");
+                }
+                code.close("}");
+                code.blank();
+                code.line("public void send_" + name + "(" + parameters(function) + ") throws " + TEXCEPTION);
+                code.open("{");
+                code.line(name + "_args args = new " + name + "_args();");
+                for (Field argument : function.getArguments()) {
+                    code.line("args.set" + capitalize(argument.getName()) + "(" + argument.getName() + ");");
+                }
+                code.line((function.isOneway() ? "sendBaseOneway" : "sendBase") + "(\"" + name + "\", args);");
+                code.close("}");
+                code.blank();
+                if (!function.isOneway()) {
+                    code.line("public " + returnType(function) + " recv_" + name + "() throws " + throwsClause(function));
+                    code.open("{");
+                    code.line(name + "_result result = new " + name + "_result();");
+                    code.line("receiveBase(result, \"" + name + "\");");
+                    if (function.getReturnType() != null) {
+                        code.open("if (result.isSetSuccess()) {").line("return result.success;").close("}");
+                    }
+                    for (Field exception : function.getExceptions()) {
+                        code.open("if (result." + exception.getName() + " != null) {")
+                                .line("throw result." + exception.getName() + ";")
+                                .close("}");
+                    }
+                    if (function.getReturnType() == null) {
+                        code.line("return;");
+                    } else {
+                        code.line("throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, \""
+                                + name + " failed: unknown result\");");
+                    }
+                    code.close("}");
+                    code.blank();
+                }
+            }
+            code.close("}");
+        }
+
+        private void asyncClient(Code code, String parent, List<Function> functions) {
+            code.open("public static class AsyncClient extends "
+                    + (parent == null ? "org.apache.thrift.async.TAsyncClient" : parent + ".AsyncClient") + " implements AsyncIface {");
+            code.open("public static class Factory implements org.apache.thrift.async.TAsyncClientFactory<AsyncClient> {")
+                    .line("private org.apache.thrift.async.TAsyncClientManager clientManager;")
+                    .line("private org.apache.thrift.protocol.TProtocolFactory protocolFactory;")
+                    .open("public Factory(org.apache.thrift.async.TAsyncClientManager clientManager, org.apache.thrift.protocol.TProtocolFactory protocolFactory) {")
+                    .line("this.clientManager = clientManager;")
+                    .line("this.protocolFactory = protocolFactory;")
+                    .close("}")
+                    .open("public AsyncClient getAsyncClient(org.apache.thrift.transport.TNonblockingTransport transport) {")
+                    .line("return new AsyncClient(protocolFactory, clientManager, transport);")
+                    .close("}")
+                    .close("}")
+                    .blank();
+            code.open("public AsyncClient(org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.async.TAsyncClientManager clientManager, org.apache.thrift.transport.TNonblockingTransport transport) {")
+                    .line("super(protocolFactory, clientManager, transport);")
+                    .close("}")
+                    .blank();
+            for (Function function : functions) {
+                final String name = function.getName();
+                final String resultType = boxedReturnType(function);
+                final String arguments = argumentNames(function, "");
+                code.open("public void " + name + "(" + asyncParameters(function) + ") throws " + TEXCEPTION + " {")
+                        .line("checkReady();")
+                        .line(name + "_call method_call = new " + name + "_call(" + (arguments.isEmpty() ? "" : arguments + ", ")
+                                + "resultHandler, this, ___protocolFactory, ___transport);")
+                        .line("this.___currentMethod = method_call;")
+                        .line("___manager.call(method_call);")
+                        .close("}")
+                        .blank();
+                code.open("public static class " + name + "_call extends org.apache.thrift.async.TAsyncMethodCall<" + resultType + "> {");
+                for (Field argument : function.getArguments()) {
+                    code.line("private " + typeName(resolve(argument.getType(), document), false, false) + " "
+                            + argument.getName() + ";");
+                }
+                code.open("public " + name + "_call(" + asyncParameters(function)
+                        + ", org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws "
+                        + TEXCEPTION + " {");
+                code.line("super(client, protocolFactory, transport, resultHandler, " + function.isOneway() + ");");
+                for (Field argument : function.getArguments()) {
+                    code.line("this." + argument.getName() + " = " + argument.getName() + ";");
+                }
+                code.close("}");
+                code.blank();
+                code.open("public void write_args(" + TPROTOCOL + " prot) throws " + TEXCEPTION + " {");
+                code.line("prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage(\"" + name
+                        + "\", org.apache.thrift.protocol.TMessageType." + (function.isOneway() ? "ONEWAY" : "CALL") + ", 0));");
+                code.line(name + "_args args = new " + name + "_args();");
+                for (Field argument : function.getArguments()) {
+                    code.line("args.set" + capitalize(argument.getName()) + "(" + argument.getName() + ");");
+                }
+                code.line("args.write(prot);");
+                code.line("prot.writeMessageEnd();");
+                code.close("}");
+                code.blank();
+                code.open("public " + resultType + " getResult() throws " + throwsClause(function) + " {");
+                code.open("if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {")
+                        .line("throw new java.lang.IllegalStateException(\"Method call not finished!\");")
+                        .close("}");
+                code.line("org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());");
+                code.line(TPROTOCOL + " prot = client.getProtocolFactory().getProtocol(memoryTransport);");
+                if (function.isOneway()) {
+                    code.line("return null;");
+                } else if (function.getReturnType() == null) {
+                    code.line("(new Client(prot)).recv_" + name + "();");
+                    code.line("return null;");
+                } else {
+                    code.line("return (new Client(prot)).recv_" + name + "();");
+                }
+                code.close("}");
+                code.close("}");
+                code.blank();
+            }
+            code.close("}");
+            code.blank();
+        }
+
+        private void processor(Code code, String parent, List<Function> functions) {
+            final String processFunction = "org.apache.thrift.ProcessFunction<I, ? extends org.apache.thrift.TBase>";
+            code.open("public static class Processor<I extends Iface> extends "
+                    + (parent == null ? "org.apache.thrift.TBaseProcessor<I>" : parent + ".Processor<I>")
+                    + " implements org.apache.thrift.TProcessor {");
+            code.line("private static final org.slf4j.Logger _LOGGER = org.slf4j.LoggerFactory.getLogger(Processor.class.getName());");
+            code.open("public Processor(I iface) {")
+                    .line("super(iface, getProcessMap(new java.util.HashMap<java.lang.String, " + processFunction + ">()));")
+                    .close("}")
+                    .blank()
+                    .open("protected Processor(I iface, java.util.Map<java.lang.String, " + processFunction + "> processMap) {")
+                    .line("super(iface, getProcessMap(processMap));")
+                    .close("}")
+                    .blank()
+                    .open("private static <I extends Iface> java.util.Map<java.lang.String, " + processFunction
+                            + "> getProcessMap(java.util.Map<java.lang.String, " + processFunction + "> processMap) {");
+            for (Function function : functions) {
+                code.line("processMap.put(\"" + function.getName() + "\", new " + function.getName() + "());");
+            }
+            code.line("return processMap;").close("}").blank();
+            for (Function function : functions) {
+                final String name = function.getName();
+                code.open("public static class " + name + "<I extends Iface> extends org.apache.thrift.ProcessFunction<I, "
+                        + name + "_args> {");
+                code.open("public " + name + "() {").line("super(\"" + name + "\");").close("}").blank();
+                code.open("public " + name + "_args getEmptyArgsInstance() {").line("return new " + name + "_args();").close("}").blank();
+                code.open("protected boolean isOneway() {").line("return " + function.isOneway() + ";").close("}").blank();
+                code.line("@Override");
+                code.open("protected boolean handleRuntimeExceptions() {").line("return false;").close("}").blank();
+                code.open("public " + (function.isOneway() ? "org.apache.thrift.TBase" : name + "_result") + " getResult(I iface, "
+                        + name + "_args args) throws " + TEXCEPTION + " {");
+                final String call = "iface." + name + "(" + argumentNames(function, "args.") + ");";
+                if (function.isOneway()) {
+                    code.line(call);
+                    code.line("return null;");
+                } else {
+                    code.line(name + "_result result = new " + name + "_result();");
+                    if (!function.getExceptions().isEmpty()) {
+                        code.open("try {");
+                    }
+                    if (function.getReturnType() == null) {
+                        code.line(call);
+                    } else {
+                        code.line("result.success = " + call);
+                        if (resolve(function.getReturnType(), document).isPrimitive()) {
+                            code.line("result.setSuccessIsSet(true);");
+                        }
+                    }
+                    for (Field exception : function.getExceptions()) {
+                        code.close("} catch (" + typeName(resolve(exception.getType(), document), false, false) + " "
+                                + exception.getName() + ") {").indent();
+                        code.line("result." + exception.getName() + " = " + exception.getName() + ";");
+                    }
+                    if (!function.getExceptions().isEmpty()) {
+                        code.close("}");
+                    }
+                    code.line("return result;");
+                }
+                code.close("}");
+                code.close("}");
+                code.blank();
+            }
+            code.close("}");
+            code.blank();
+        }
+
+        private void asyncProcessor(Code code, String parent, List<Function> functions) {
+            final String processFunction = "org.apache.thrift.AsyncProcessFunction<I, ? extends org.apache.thrift.TBase, ?>";
+            code.open("public static class AsyncProcessor<I extends AsyncIface> extends "
+                    + (parent == null ? "org.apache.thrift.TBaseAsyncProcessor<I>" : parent + ".AsyncProcessor<I>") + " {");
+            code.line("private static final org.slf4j.Logger _LOGGER = org.slf4j.LoggerFactory.getLogger(AsyncProcessor.class.getName());");
+            code.open("public AsyncProcessor(I iface) {")
+                    .line("super(iface, getProcessMap(new java.util.HashMap<java.lang.String, " + processFunction + ">()));")
+                    .close("}")
+                    .blank()
+                    .open("protected AsyncProcessor(I iface, java.util.Map<java.lang.String, " + processFunction + "> processMap) {")
+                    .line("super(iface, getProcessMap(processMap));")
+                    .close("}")
+                    .blank()
+                    .open("private static <I extends AsyncIface> java.util.Map<java.lang.String, " + processFunction
+                            + "> getProcessMap(java.util.Map<java.lang.String, " + processFunction + "> processMap) {");
+            for (Function function : functions) {
+                code.line("processMap.put(\"" + function.getName() + "\", new " + function.getName() + "());");
+            }
+            code.line("return processMap;").close("}").blank();
+            for (Function function : functions) {
+                final String name = function.getName();
+                final String resultType = boxedReturnType(function);
+                code.open("public static class " + name + "<I extends AsyncIface> extends org.apache.thrift.AsyncProcessFunction<I, "
+                        + name + "_args, " + resultType + "> {");
+                code.open("public " + name + "() {").line("super(\"" + name + "\");").close("}").blank();
+                code.open("public " + name + "_args getEmptyArgsInstance() {").line("return new " + name + "_args();").close("}").blank();
+                code.open("public org.apache.thrift.async.AsyncMethodCallback<" + resultType
+                        + "> getResultHandler(final org.apache.thrift.server.AbstractNonblockingServer.AsyncFrameBuffer fb, final int seqid) {");
+                code.line("final org.apache.thrift.AsyncProcessFunction fcall = this;");
+                code.open("return new org.apache.thrift.async.AsyncMethodCallback<" + resultType + ">() { ");
+                if (function.isOneway()) {
+                    code.open("public void onComplete(" + resultType + " o) {").close("}");
+                    code.open("public void onError(java.lang.Exception e) {")
+                            .open("if (e instanceof org.apache.thrift.transport.TTransportException) {")
+                            .line("_LOGGER.error(\"TTransportException inside handler\", e);")
+                            .line("fb.close();")
+                            .close("} else {")
+                            .indent()
+                            .line("_LOGGER.error(\"Exception inside oneway handler\", e);")
+                            .close("}")
+                            .close("}");
+                } else {
+                    code.open("public void onComplete(" + resultType + " o) {");
+                    code.line(name + "_result result = new " + name + "_result();");
+                    if (function.getReturnType() != null) {
+                        code.line("result.success = o;");
+                        if (resolve(function.getReturnType(), document).isPrimitive()) {
+                            code.line("result.setSuccessIsSet(true);");
+                        }
+                    }
+                    code.open("try {")
+                            .line("fcall.sendResponse(fb, result, org.apache.thrift.protocol.TMessageType.REPLY,seqid);")
+                            .close("} catch (org.apache.thrift.transport.TTransportException e) {")
+                            .indent()
+                            .line("_LOGGER.error(\"TTransportException writing to internal frame buffer\", e);")
+                            .line("fb.close();")
+                            .close("} catch (java.lang.Exception e) {")
+                            .indent()
+                            .line("_LOGGER.error(\"Exception writing to internal frame buffer\", e);")
+                            .line("onError(e);")
+                            .close("}")
+                            .close("}");
+                    code.open("public void onError(java.lang.Exception e) {");
+                    code.line("byte msgType = org.apache.thrift.protocol.TMessageType.REPLY;");
+                    code.line("org.apache.thrift.TSerializable msg;");
+                    code.line(name + "_result result = new " + name + "_result();");
+                    boolean first = true;
+                    for (Field exception : function.getExceptions()) {
+                        final String exceptionType = typeName(resolve(exception.getType(), document), false, false);
+                        code.line((first ? "if" : "else if") + " (e instanceof " + exceptionType + ") {");
+                        code.indent()
+                                .line("result." + exception.getName() + " = (" + exceptionType + ") e;")
+                                .line("result.set" + capitalize(exception.getName()) + "IsSet(true);")
+                                .line("msg = result;")
+                                .outdent();
+                        code.line("}");
+                        first = false;
+                    }
+                    code.line((first ? "if" : "else if") + " (e instanceof org.apache.thrift.transport.TTransportException) {");
+                    code.indent()
+                            .line("_LOGGER.error(\"TTransportException inside handler\", e);")
+                            .line("fb.close();")
+                            .line("return;")
+                            .close("} else if (e instanceof org.apache.thrift.TApplicationException) {")
+                            .indent()
+                            .line("_LOGGER.error(\"TApplicationException inside handler\", e);")
+                            .line("msgType = org.apache.thrift.protocol.TMessageType.EXCEPTION;")
+                            .line("msg = (org.apache.thrift.TApplicationException)e;")
+                            .close("} else {")
+                            .indent()
+                            .line("_LOGGER.error(\"Exception inside handler\", e);")
+                            .line("msgType = org.apache.thrift.protocol.TMessageType.EXCEPTION;")
+                            .line("msg = new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.INTERNAL_ERROR, e.getMessage());")
+                            .close("}");
+                    code.open("try {")
+                            .line("fcall.sendResponse(fb,msg,msgType,seqid);")
+                            .close("} catch (java.lang.Exception ex) {")
+                            .indent()
+                            .line("_LOGGER.error(\"Exception writing to internal frame buffer\", ex);")
+                            .line("fb.close();")
+                            .close("}")
+                            .close("}");
+                }
+                code.close("};");
+                code.close("}");
+                code.blank();
+                code.open("protected boolean isOneway() {").line("return " + function.isOneway() + ";").close("}").blank();
+                code.open("public void start(I iface, " + name + "_args args, org.apache.thrift.async.AsyncMethodCallback<"
+                        + resultType + "> resultHandler) throws " + TEXCEPTION + " {");
+                final String arguments = argumentNames(function, "args.");
+                code.line("iface." + name + "(" + (arguments.isEmpty() ? "" : arguments + ",") + "resultHandler);");
+                code.close("}");
+                code.close("}");
+                code.blank();
+            }
+            code.close("}");
+            code.blank();
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Moves freshly generated java files into the output directory without touching the
+ * files whose content did not change, and deletes the files that are no longer generated.</p>
+ *
+ * <p>Unchanged files keep their modification time, so incremental java compilers and IDEs
+ * do not recompile them after every run of {@code thrift}.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class OutputSync {
+
+    private int written;
+    private int unchanged;
+    private int deleted;
+
+    /**
+     * Moves every file below {@code sourceDirectory} to the same path below
+     * {@code targetDirectory}, then deletes the files of {@code targetDirectory}
+     * that do not exist below {@code sourceDirectory}.
+     *
+     * @param sourceDirectory the directory holding the generated files; empty afterwards.
+     * @param targetDirectory the output directory.
+     */
+    void sync(File sourceDirectory, File targetDirectory) throws IOException {
+        final Set<String> paths = Sets.newHashSet();
+        if (sourceDirectory.isDirectory()) {
+            for (String path : FileUtils.getFileNames(sourceDirectory, "**", null, false)) {
+                move(new File(sourceDirectory, path), new File(targetDirectory, path));
+                paths.add(path);
+            }
+        }
+        deleteObsolete(targetDirectory, paths);
+    }
+
+    /**
+     * Moves {@code source} to {@code target}, unless {@code target} already has the same content,
+     * in which case {@code source} is deleted and {@code target} is left alone.
+     *
+     * @return {@code true} if {@code target} was written.
+     */
+    boolean move(File source, File target) throws IOException {
+        if (sameContent(source, target)) {
+            FileUtils.forceDelete(source);
+            unchanged++;
+            return false;
+        }
+        FileUtils.rename(source, target);
+        written++;
+        return true;
+    }
+
+    /**
+     * Deletes the files below {@code targetDirectory} whose path is not in {@code keptPaths},
+     * together with the directories that become empty.
+     *
+     * @param keptPaths paths relative to {@code targetDirectory}, with either separator.
+     */
+    void deleteObsolete(File targetDirectory, Collection<String> keptPaths) throws IOException {
+        if (!targetDirectory.isDirectory()) {
+            return;
+        }
+        final Set<String> kept = Sets.newHashSet();
+        for (String path : keptPaths) {
+            kept.add(path.replace('/', File.separatorChar));
+        }
+        for (String path : FileUtils.getFileNames(targetDirectory, "**", null, false)) {
+            if (!kept.contains(path)) {
+                FileUtils.forceDelete(new File(targetDirectory, path));
+                deleted++;
+            }
+        }
+        deleteEmptyDirectories(targetDirectory);
+    }
+
+    private static void deleteEmptyDirectories(File targetDirectory) throws IOException {
+        @SuppressWarnings("unchecked")
+        final List<String> directories = FileUtils.getDirectoryNames(targetDirectory, "**", null, false);
+        // the deepest directories come last
+        for (int i = directories.size() - 1; i >= 0; i--) {
+            final File directory = new File(targetDirectory, directories.get(i));
+            final String[] children = directory.list();
+            if (children != null && children.length == 0 && !directory.equals(targetDirectory)) {
+                FileUtils.forceDelete(directory);
+            }
+        }
+    }
+
+    private static boolean sameContent(File source, File target) throws IOException {
+        return target.isFile() && source.length() == target.length() && Files.equal(source, target);
+    }
+
+    int getWritten() {
+        return written;
+    }
+
+    int getUnchanged() {
+        return unchanged;
+    }
+
+    int getDeleted() {
+        return deleted;
+    }
+
+}
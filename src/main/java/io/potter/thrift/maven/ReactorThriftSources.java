@@ -0,0 +1,113 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Finds the dependencies built by the same reactor that compile thrift files with this
+ * plugin, and the thrift source roots they package. Those thrift files can be put on the
+ * thrift path as they are, instead of being extracted from the jar of the module, which
+ * may not even be packaged yet.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ReactorThriftSources {
+
+    private static final String TEST_JAR_CLASSIFIER = "tests";
+
+    private ReactorThriftSources() {
+    }
+
+    /**
+     * @param reactorProjects the projects of the reactor.
+     * @param pluginKey       the {@code groupId:artifactId} of this plugin.
+     * @param artifacts       the dependency artifacts.
+     * @return the thrift source roots of the dependencies built by the reactor, by artifact file.
+     */
+    static ImmutableMap<File, File> find(List<MavenProject> reactorProjects, String pluginKey,
+                                         Iterable<Artifact> artifacts) {
+        final ImmutableMap.Builder<File, File> sourceRoots = ImmutableMap.builder();
+        for (Artifact artifact : artifacts) {
+            if (artifact.getFile() == null) {
+                continue;
+            }
+            final MavenProject reactorProject = findProject(reactorProjects, artifact);
+            if (reactorProject == null) {
+                continue;
+            }
+            final Plugin plugin = findPlugin(reactorProject, pluginKey);
+            if (plugin == null) {
+                continue;
+            }
+            final File sourceRoot;
+            if (Strings.isNullOrEmpty(artifact.getClassifier())) {
+                sourceRoot = sourceRoot(reactorProject, plugin, "thriftSourceRoot", "src/main/thrift");
+            } else if (TEST_JAR_CLASSIFIER.equals(artifact.getClassifier())) {
+                sourceRoot = sourceRoot(reactorProject, plugin, "thriftTestSourceRoot", "src/test/thrift");
+            } else {
+                continue;
+            }
+            if (sourceRoot.isDirectory()) {
+                sourceRoots.put(artifact.getFile(), sourceRoot);
+            }
+        }
+        return sourceRoots.build();
+    }
+
+    private static MavenProject findProject(List<MavenProject> reactorProjects, Artifact artifact) {
+        for (MavenProject reactorProject : reactorProjects) {
+            if (reactorProject.getGroupId().equals(artifact.getGroupId())
+                    && reactorProject.getArtifactId().equals(artifact.getArtifactId())
+                    && reactorProject.getVersion().equals(artifact.getBaseVersion())) {
+                return reactorProject;
+            }
+        }
+        return null;
+    }
+
+    private static Plugin findPlugin(MavenProject reactorProject, String pluginKey) {
+        @SuppressWarnings("unchecked")
+        final List<Plugin> plugins = reactorProject.getBuildPlugins();
+        for (Plugin plugin : plugins) {
+            if (pluginKey.equals(plugin.getKey())) {
+                return plugin;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the configured thrift source root of {@code reactorProject}, an execution
+     * configuration taking precedence over the plugin configuration.
+     */
+    private static File sourceRoot(MavenProject reactorProject, Plugin plugin, String parameter,
+                                   String defaultPath) {
+        final List<Object> configurations = Lists.newArrayList();
+        for (PluginExecution execution : plugin.getExecutions()) {
+            configurations.add(execution.getConfiguration());
+        }
+        configurations.add(plugin.getConfiguration());
+        String path = defaultPath;
+        for (Object configuration : configurations) {
+            if (configuration instanceof Xpp3Dom) {
+                final Xpp3Dom child = ((Xpp3Dom) configuration).getChild(parameter);
+                if (child != null && !Strings.isNullOrEmpty(child.getValue())) {
+                    path = child.getValue().trim();
+                    break;
+                }
+            }
+        }
+        final File sourceRoot = new File(path);
+        return sourceRoot.isAbsolute() ? sourceRoot : new File(reactorProject.getBasedir(), path);
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.potter.thrift.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+/**
+ * Resolves the relative paths read from cache entries, indexes and jars, which are not trusted: a
+ * path like {@code ../../.bashrc} or {@code /etc/passwd} must never be read or written.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class RelativePaths {
+
+    private RelativePaths() {
+    }
+
+    /**
+     * @return whether {@code path} is relative and stays below the directory it is resolved against.
+     */
+    static boolean isContained(String path) {
+        if (path.isEmpty() || path.startsWith("/") || path.startsWith("\\")) {
+            return false;
+        }
+        try {
+            final Path normalized = new File(path).toPath().normalize();
+            // a drive relative path on windows has a root, but is not absolute
+            return normalized.getRoot() == null && !normalized.toString().isEmpty()
+                    && !normalized.getName(0).toString().equals("..");
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return {@code path} resolved against {@code directory}.
+     * @throws IOException if {@code path} leaves {@code directory}.
+     */
+    static File resolve(File directory, String path) throws IOException {
+        if (!isContained(path)) {
+            throw new IOException(String.format("%s leaves %s", path, directory));
+        }
+        return new File(directory, path);
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.potter.thrift.maven;
+
+/**
+ * How the plugin decides that the generated sources are up to date when
+ * {@code checkStaleness} is enabled.
+ *
+ * @author zhfchdev@gmail.com
+ */
+public enum StalenessStrategy {
+
+    /**
+     * Compares the newest thrift file with the newest generated java file.
+     */
+    MTIME,
+
+    /**
+     * Compares a digest of the thrift files, the include path, the {@code thrift}
+     * executable and the generator with the one recorded by the previous build.
+     * Unlike {@link #MTIME} it is not fooled by checkouts or cache restores that
+     * touch every file.
+     */
+    DIGEST
+
+}
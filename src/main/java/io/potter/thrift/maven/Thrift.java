@@ -1,17 +1,41 @@
 package io.potter.thrift.maven;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.codehaus.plexus.util.cli.Commandline;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>This class represents an invokable configuration of the {@code thrift}
@@ -32,8 +56,17 @@ final class Thrift {
     private final ImmutableSet<File> thriftPathElements;
     private final ImmutableSet<File> thriftFiles;
     private final File javaOutputDirectory;
-    private final CommandLineUtils.StringStreamConsumer output;
-    private final CommandLineUtils.StringStreamConsumer error;
+    private final ImmutableMap<File, File> outputDirectories;
+    private final int compileThreads;
+    private final boolean batchCompile;
+    private final boolean minimalThriftPath;
+    private final CompileHistory history;
+    private final long unknownCost;
+    private final List<Invocation> invocations;
+    private final ConcurrentMap<File, ThriftOutput> outputs;
+    private final ConcurrentMap<File, ThriftOutput> errors;
+    private final ThriftDiagnostics diagnostics;
+    private volatile File failedThriftFile;
 
     /**
      * Constructs a new instance. This should only be used by the {@link Builder}.
@@ -44,77 +77,527 @@ final class Thrift {
      * @param thriftFiles         The thrift source files to compile.
      * @param javaOutputDirectory The directory into which the java source files
      *                            will be generated.
+     * @param separateOutputDirectories Whether each thrift file is compiled into
+     *                            its own subdirectory of {@code javaOutputDirectory}.
+     * @param compileThreads      The maximum number of {@code thrift} processes
+     *                            running at the same time.
+     * @param batchCompile        Whether several thrift files may be compiled by
+     *                            a single {@code thrift} process.
+     * @param minimalThriftPath   Whether each {@code thrift} process only gets the
+     *                            thrift path elements its includes need.
+     * @param history             How long the thrift files took to compile before,
+     *                            may be {@code null}.
      */
     private Thrift(String executable, String generator, ImmutableSet<File> thriftPath,
-                   ImmutableSet<File> thriftFiles, File javaOutputDirectory) {
+                   ImmutableSet<File> thriftFiles, File javaOutputDirectory,
+                   boolean separateOutputDirectories, int compileThreads, boolean batchCompile,
+                   boolean minimalThriftPath, CompileHistory history) {
         this.executable = Preconditions.checkNotNull(executable, "executable");
         this.generator = Preconditions.checkNotNull(generator, "generator");
         this.thriftPathElements = Preconditions.checkNotNull(thriftPath, "thriftPath");
         this.thriftFiles = Preconditions.checkNotNull(thriftFiles, "thriftFiles");
         this.javaOutputDirectory = Preconditions.checkNotNull(javaOutputDirectory, "javaOutputDirectory");
-        this.error = new CommandLineUtils.StringStreamConsumer();
-        this.output = new CommandLineUtils.StringStreamConsumer();
+        final ImmutableMap.Builder<File, File> outputDirectories = ImmutableMap.builder();
+        int index = 0;
+        for (File thriftFile : thriftFiles) {
+            outputDirectories.put(thriftFile, separateOutputDirectories
+                    ? new File(javaOutputDirectory, Integer.toString(index++)) : javaOutputDirectory);
+        }
+        this.outputDirectories = outputDirectories.build();
+        Preconditions.checkArgument(compileThreads > 0, "compileThreads must be positive");
+        this.compileThreads = compileThreads;
+        Preconditions.checkArgument(!(batchCompile && separateOutputDirectories),
+                "batch compilation cannot separate the output of each thrift file");
+        this.batchCompile = batchCompile;
+        this.minimalThriftPath = minimalThriftPath;
+        this.history = history;
+        long knownCost = 0;
+        int known = 0;
+        for (File thriftFile : thriftFiles) {
+            final long estimate = history == null ? -1 : history.estimate(thriftFile);
+            if (estimate >= 0) {
+                knownCost += estimate;
+                known++;
+            }
+        }
+        this.unknownCost = known == 0 ? 1 : Math.max(1, knownCost / known);
+        this.invocations = Collections.synchronizedList(Lists.<Invocation>newArrayList());
+        this.outputs = Maps.newConcurrentMap();
+        this.errors = Maps.newConcurrentMap();
+        this.diagnostics = new ThriftDiagnostics();
     }
 
     /**
      * Invokes the {@code thrift} compiler using the configuration specified at
-     * construction.
+     * construction. Each thrift file is compiled by its own {@code thrift}
+     * process; up to {@code compileThreads} of them run at the same time,
+     * the ones that took longest before first, so that the slowest file does
+     * not start last. The first non-zero exit cancels every invocation that
+     * is still pending or running.
      *
      * @return The exit status of {@code thrift}.
      * @throws CommandLineException
      */
     public int compile() throws CommandLineException {
+        final List<List<File>> units = longestFirst(batchCompile ? planBatches() : singletons(thriftFiles));
+        final int threads = Math.min(compileThreads, units.size());
+        if (threads <= 1) {
+            for (List<File> unit : units) {
+                final int result = compile(unit);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            // result will always be 0 here.
+            return 0;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-compile-%d").setDaemon(true).build());
+        try {
+            final CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(executor);
+            final List<Future<Integer>> futures = Lists.newArrayListWithCapacity(units.size());
+            for (final List<File> unit : units) {
+                futures.add(completionService.submit(new Callable<Integer>() {
+                    public Integer call() throws CommandLineException {
+                        return compile(unit);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                final int result = completionService.take().get();
+                if (result != 0) {
+                    return result;
+                }
+            }
+            // result will always be 0 here.
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandLineException("Interrupted while waiting for thrift", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CommandLineException) {
+                throw (CommandLineException) e.getCause();
+            }
+            throw new CommandLineException("thrift invocation failed", e.getCause());
+        } finally {
+            // interrupting a worker destroys the thrift process it is waiting for
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the milliseconds {@code thrift} is expected to take on {@code thriftFile}: the time it
+     * took before, or the average of the other files for a new one.
+     */
+    private long cost(File thriftFile) {
+        final long estimate = history == null ? -1 : history.estimate(thriftFile);
+        return estimate >= 0 ? estimate : unknownCost;
+    }
+
+    private long cost(List<File> unit) {
+        long cost = 0;
+        for (File thriftFile : unit) {
+            cost += cost(thriftFile);
+        }
+        return cost;
+    }
 
+    private List<List<File>> longestFirst(List<List<File>> units) {
+        final List<List<File>> sorted = Lists.newArrayList(units);
+        // stable, so that files without a history keep their order
+        Collections.sort(sorted, new Comparator<List<File>>() {
+            public int compare(List<File> first, List<File> second) {
+                return Longs.compare(cost(second), cost(first));
+            }
+        });
+        return sorted;
+    }
+
+    private static List<List<File>> singletons(Collection<File> thriftFiles) {
+        final List<List<File>> units = Lists.newArrayListWithCapacity(thriftFiles.size());
+        for (File thriftFile : thriftFiles) {
+            units.add(ImmutableList.of(thriftFile));
+        }
+        return units;
+    }
+
+    /**
+     * Groups the thrift files by the thrift path element they live in. A group is split into at
+     * most {@code compileThreads} batches, so that all threads are kept busy, and a batch never
+     * holds two files with the same name, since {@code thrift} names programs after their file.
+     * The files are handed out longest first, each to the batch with the least work so far.
+     * Files including anything that is not compiled by this instance are compiled on their own,
+     * because {@code thrift -r} would generate the included files too.
+     */
+    private List<List<File>> planBatches() {
+        final Map<File, List<File>> groups = Maps.newLinkedHashMap();
+        final List<List<File>> units = Lists.newArrayList();
         for (File thriftFile : thriftFiles) {
-            Commandline cl = new Commandline();
-            cl.setExecutable(executable);
-            cl.addArguments(buildThriftCommand(thriftFile).toArray(new String[]{}));
-            final int result = CommandLineUtils.executeCommandLine(cl, null, output, error);
+            final File root = findThriftPathElement(thriftFile);
+            if (root != null && includesOnlyCompiledFiles(thriftFile)) {
+                if (!groups.containsKey(root)) {
+                    groups.put(root, Lists.<File>newArrayList());
+                }
+                groups.get(root).add(thriftFile);
+            } else {
+                units.add(ImmutableList.of(thriftFile));
+            }
+        }
+        for (List<File> group : groups.values()) {
+            final int batchCount = Math.min(compileThreads, group.size());
+            final List<List<File>> batches = Lists.newArrayList();
+            final List<Set<String>> batchNames = Lists.newArrayList();
+            final List<Long> batchCosts = Lists.newArrayList();
+            for (int i = 0; i < batchCount; i++) {
+                batches.add(Lists.<File>newArrayList());
+                batchNames.add(Sets.<String>newHashSet());
+                batchCosts.add(0L);
+            }
+            for (List<File> thriftFile : longestFirst(singletons(group))) {
+                final String name = thriftFile.get(0).getName();
+                int batch = -1;
+                for (int i = 0; i < batches.size(); i++) {
+                    if (!batchNames.get(i).contains(name) && (batch < 0 || batchCosts.get(i) < batchCosts.get(batch))) {
+                        batch = i;
+                    }
+                }
+                if (batch < 0) {
+                    batch = batches.size();
+                    batches.add(Lists.<File>newArrayList());
+                    batchNames.add(Sets.<String>newHashSet());
+                    batchCosts.add(0L);
+                }
+                batches.get(batch).add(thriftFile.get(0));
+                batchNames.get(batch).add(name);
+                batchCosts.set(batch, batchCosts.get(batch) + cost(thriftFile.get(0)));
+            }
+            units.addAll(batches);
+        }
+        return units;
+    }
 
-            if (result != 0) {
-                return result;
+    private File findThriftPathElement(File thriftFile) {
+        for (File directory = thriftFile.getParentFile(); directory != null; directory = directory.getParentFile()) {
+            if (thriftPathElements.contains(directory)) {
+                return directory;
             }
         }
+        return null;
+    }
 
-        // result will always be 0 here.
+    private boolean includesOnlyCompiledFiles(File thriftFile) {
+        final Set<File> visited = Sets.newHashSet();
+        final Deque<File> queue = new ArrayDeque<File>();
+        queue.add(thriftFile);
+        try {
+            while (!queue.isEmpty()) {
+                final File next = queue.poll();
+                if (!visited.add(next)) {
+                    continue;
+                }
+                for (String include : ThriftIncludes.parse(next)) {
+                    final File resolved = ThriftIncludes.resolve(include, next, thriftPathElements);
+                    if (resolved == null || !thriftFiles.contains(resolved)) {
+                        return false;
+                    }
+                    queue.add(resolved);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private int compile(List<File> unit) throws CommandLineException {
+        if (unit.size() == 1) {
+            return compile(unit.get(0));
+        }
+        // kept apart until it is known whether the batch failed because of the files
+        final ThriftDiagnostics batchDiagnostics = new ThriftDiagnostics();
+        final int result = compileBatch(unit, batchDiagnostics);
+        if (result == 0) {
+            diagnostics.addAll(batchDiagnostics);
+            return 0;
+        }
+        // compile the files one by one to find out which of them failed
+        for (File thriftFile : unit) {
+            final int fileResult = compile(thriftFile);
+            if (fileResult != 0) {
+                diagnostics.addAll(batchDiagnostics);
+                return fileResult;
+            }
+        }
+        // the batch failed for a reason of its own, every file has been generated since, so its errors are moot
         return 0;
     }
 
+    private int compile(File thriftFile) throws CommandLineException {
+        final ThriftOutput output = new ThriftOutput(diagnostics);
+        final ThriftOutput error = new ThriftOutput(diagnostics);
+        outputs.put(thriftFile, output);
+        errors.put(thriftFile, error);
+        final File outputDirectory = getOutputDirectory(thriftFile);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new CommandLineException("Unable to create directory " + outputDirectory);
+        }
+
+        final int result = execute(ImmutableList.of(thriftFile), buildThriftCommand(thriftFile, outputDirectory,
+                false, includePath(ImmutableList.of(thriftFile), null)), output, error);
+        if (result != 0 && failedThriftFile == null) {
+            failedThriftFile = thriftFile;
+        }
+        return result;
+    }
+
+    /**
+     * Compiles {@code batch} with a single {@code thrift -r} invocation on a generated
+     * umbrella file that includes each of them.
+     */
+    private int compileBatch(List<File> batch, ThriftDiagnostics batchDiagnostics) throws CommandLineException {
+        final File umbrellaDirectory = Files.createTempDir();
+        try {
+            final List<String> lines = Lists.newArrayList(
+                    "// generated by the thrift-maven-plugin to compile several files with one thrift process");
+            for (File thriftFile : batch) {
+                final String include = findThriftPathElement(thriftFile).toURI().relativize(thriftFile.toURI()).getPath();
+                lines.add("include \"" + include + "\"");
+            }
+            final File umbrella = new File(umbrellaDirectory, "thrift-maven-plugin-batch.thrift");
+            Files.asCharSink(umbrella, Charsets.UTF_8).writeLines(lines, "\n");
+
+            final ThriftOutput output = new ThriftOutput(batchDiagnostics);
+            final ThriftOutput error = new ThriftOutput(batchDiagnostics);
+            for (File thriftFile : batch) {
+                outputs.put(thriftFile, output);
+                errors.put(thriftFile, error);
+            }
+            return execute(batch, buildThriftCommand(umbrella, javaOutputDirectory, true,
+                    includePath(batch, findThriftPathElement(batch.get(0)))), output, error);
+        } catch (IOException e) {
+            throw new CommandLineException("Unable to write the batch file", e);
+        } finally {
+            try {
+                FileUtils.deleteDirectory(umbrellaDirectory);
+            } catch (IOException e) {
+                umbrellaDirectory.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Finds the thrift path elements {@code thrift} needs to resolve the includes of {@code thriftFiles},
+     * directly or transitively. The first element containing an include is the one {@code thrift} would
+     * pick from the full thrift path, so leaving out the others does not change what gets included.
+     *
+     * @param root a thrift path element to keep in any case, may be {@code null}.
+     * @return the needed thrift path elements in thrift path order, or all of them if an include
+     * cannot be resolved, so that {@code thrift} reports it as usual.
+     */
+    private Iterable<File> includePath(List<File> thriftFiles, File root) {
+        if (!minimalThriftPath) {
+            return thriftPathElements;
+        }
+        final Set<File> needed = Sets.newHashSet();
+        if (root != null) {
+            needed.add(root);
+        }
+        final Set<File> visited = Sets.newHashSet();
+        final Deque<File> queue = new ArrayDeque<File>(thriftFiles);
+        try {
+            while (!queue.isEmpty()) {
+                final File next = queue.poll();
+                if (!visited.add(next)) {
+                    continue;
+                }
+                for (String include : ThriftIncludes.parse(next)) {
+                    File resolved = ThriftIncludes.resolve(include, next, ImmutableList.<File>of());
+                    if (resolved == null) {
+                        for (File thriftPathElement : thriftPathElements) {
+                            final File candidate = new File(thriftPathElement, include);
+                            if (candidate.isFile()) {
+                                needed.add(thriftPathElement);
+                                resolved = candidate;
+                                break;
+                            }
+                        }
+                    }
+                    if (resolved == null) {
+                        return thriftPathElements;
+                    }
+                    queue.add(resolved);
+                }
+            }
+        } catch (IOException e) {
+            return thriftPathElements;
+        }
+        return Sets.filter(thriftPathElements, Predicates.in(needed));
+    }
+
+    private int execute(List<File> compiledThriftFiles, List<String> arguments, ThriftOutput output,
+                        ThriftOutput error) throws CommandLineException {
+        Commandline cl = new Commandline();
+        cl.setExecutable(executable);
+        cl.addArguments(arguments.toArray(new String[]{}));
+        final long start = System.nanoTime();
+        final int result;
+        try {
+            result = CommandLineUtils.executeCommandLine(cl, null, output, error);
+        } finally {
+            output.close();
+            error.close();
+        }
+        invocations.add(new Invocation(compiledThriftFiles, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                result));
+        return result;
+    }
+
+    /**
+     * @return the number of {@code thrift} processes launched so far
+     */
+    public int getProcessCount() {
+        return invocations.size();
+    }
+
+    /**
+     * @return the {@code thrift} processes run so far, in the order they finished
+     */
+    public ImmutableList<Invocation> getInvocations() {
+        synchronized (invocations) {
+            return ImmutableList.copyOf(invocations);
+        }
+    }
+
     /**
      * Creates the command line arguments.
      * <p/>
      * This method has been made visible for testing only.
      *
-     * @param thriftFile source .thrift file
+     * @param thriftFile      source .thrift file
+     * @param outputDirectory the directory to generate into
+     * @param recursive       whether the included files are generated as well
+     * @param includePath     the directories passed with {@code -I}
      * @return A list consisting of the executable followed by any arguments.
      */
-    private ImmutableList<String> buildThriftCommand(File thriftFile) {
+    private ImmutableList<String> buildThriftCommand(File thriftFile, File outputDirectory, boolean recursive,
+                                                     Iterable<File> includePath) {
         List<String> command = Lists.newLinkedList();
         // add the executable
-        for (File thriftPathElement : thriftPathElements) {
+        for (File thriftPathElement : includePath) {
             command.add("-I");
             command.add(thriftPathElement.toString());
         }
         command.add("-out");
-        command.add(javaOutputDirectory.toString());
+        command.add(outputDirectory.toString());
         command.add("--gen");
         command.add(generator);
+        if (recursive) {
+            command.add("-r");
+        }
         command.add(thriftFile.toString());
         return ImmutableList.copyOf(command);
     }
 
     /**
-     * @return the output
+     * @return the directory into which the java sources of {@code thriftFile} are generated
+     */
+    public File getOutputDirectory(File thriftFile) {
+        final File outputDirectory = outputDirectories.get(thriftFile);
+        Preconditions.checkArgument(outputDirectory != null, "%s is not compiled by this instance", thriftFile);
+        return outputDirectory;
+    }
+
+    /**
+     * @return the distinct warnings and errors reported by the invocations so far
+     */
+    public ThriftDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return the last lines of the output of every invocation, in thrift file order
      */
     public String getOutput() {
-        return output.getOutput();
+        return collect(outputs);
     }
 
     /**
-     * @return the error
+     * @return the last lines of the error of every invocation, in thrift file order
      */
     public String getError() {
-        return error.getOutput();
+        return collect(errors);
+    }
+
+    /**
+     * @return the last lines of the output of the invocation for {@code thriftFile},
+     * or an empty string if it has not been compiled
+     */
+    public String getOutput(File thriftFile) {
+        final ThriftOutput output = outputs.get(thriftFile);
+        return output == null ? "" : output.getOutput();
+    }
+
+    /**
+     * @return the last lines of the error of the invocation for {@code thriftFile},
+     * or an empty string if it has not been compiled
+     */
+    public String getError(File thriftFile) {
+        final ThriftOutput error = errors.get(thriftFile);
+        return error == null ? "" : error.getOutput();
+    }
+
+    /**
+     * @return the first thrift file whose invocation exited with a non-zero
+     * status, or {@code null} if none failed
+     */
+    public File getFailedThriftFile() {
+        return failedThriftFile;
+    }
+
+    private String collect(ConcurrentMap<File, ThriftOutput> consumers) {
+        final StringBuilder builder = new StringBuilder();
+        // files compiled in one batch share their consumers
+        final Set<ThriftOutput> collected = Sets.newIdentityHashSet();
+        for (File thriftFile : thriftFiles) {
+            final ThriftOutput consumer = consumers.get(thriftFile);
+            if (consumer != null && collected.add(consumer)) {
+                builder.append(consumer.getOutput());
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A finished {@code thrift} process.
+     */
+    static final class Invocation {
+
+        private final ImmutableList<File> thriftFiles;
+        private final long millis;
+        private final int exitCode;
+
+        Invocation(List<File> thriftFiles, long millis, int exitCode) {
+            this.thriftFiles = ImmutableList.copyOf(thriftFiles);
+            this.millis = millis;
+            this.exitCode = exitCode;
+        }
+
+        /**
+         * @return the thrift files compiled by the process, more than one for a batch
+         */
+        ImmutableList<File> getThriftFiles() {
+            return thriftFiles;
+        }
+
+        long getMillis() {
+            return millis;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+
     }
 
     /**
@@ -128,6 +611,11 @@ final class Thrift {
         private Set<File> thriftPathElements;
         private Set<File> thriftFiles;
         private String generator;
+        private int compileThreads;
+        private boolean separateOutputDirectories;
+        private boolean batchCompile;
+        private boolean minimalThriftPath;
+        private CompileHistory history;
 
         /**
          * Constructs a new builder. The two parameters are present as they are
@@ -145,7 +633,8 @@ final class Thrift {
             this.javaOutputDirectory = Preconditions.checkNotNull(javaOutputDirectory);
             Preconditions.checkArgument(javaOutputDirectory.isDirectory());
             this.thriftFiles = Sets.newHashSet();
-            this.thriftPathElements = Sets.newHashSet();
+            this.thriftPathElements = Sets.newLinkedHashSet();
+            this.compileThreads = 1;
         }
 
         /**
@@ -181,6 +670,74 @@ final class Thrift {
             return this;
         }
 
+        /**
+         * Sets the maximum number of {@code thrift} processes that may run at the
+         * same time. Defaults to {@code 1}, which compiles the files one after
+         * another.
+         *
+         * @param compileThreads
+         * @return The builder
+         * @throws IllegalArgumentException If {@code compileThreads} is not positive.
+         */
+        public Builder setCompileThreads(int compileThreads) {
+            Preconditions.checkArgument(compileThreads > 0, "compileThreads must be positive");
+            this.compileThreads = compileThreads;
+            return this;
+        }
+
+        /**
+         * Compiles each thrift file into its own subdirectory of the java output
+         * directory, so that the files generated from it can be told apart. Use
+         * {@link Thrift#getOutputDirectory(File)} to find that subdirectory.
+         *
+         * @param separateOutputDirectories
+         * @return The builder
+         */
+        public Builder setSeparateOutputDirectories(boolean separateOutputDirectories) {
+            this.separateOutputDirectories = separateOutputDirectories;
+            return this;
+        }
+
+        /**
+         * Compiles the thrift files in batches: files living in the same thrift path
+         * element are included by a generated umbrella file that is compiled with
+         * {@code thrift -r}, which saves a process launch per file. When a batch fails,
+         * its files are compiled one by one to tell which of them is broken; if none is,
+         * the compilation succeeds. Cannot be
+         * combined with {@link #setSeparateOutputDirectories(boolean)}.
+         *
+         * @param batchCompile
+         * @return The builder
+         */
+        public Builder setBatchCompile(boolean batchCompile) {
+            this.batchCompile = batchCompile;
+            return this;
+        }
+
+        /**
+         * Passes each {@code thrift} process only the thrift path elements needed to resolve
+         * the includes of the files it compiles, instead of all of them.
+         *
+         * @param minimalThriftPath
+         * @return The builder
+         */
+        public Builder setMinimalThriftPath(boolean minimalThriftPath) {
+            this.minimalThriftPath = minimalThriftPath;
+            return this;
+        }
+
+        /**
+         * Starts the thrift files that took longest to compile before first, and
+         * balances the batches by the time their files took.
+         *
+         * @param history
+         * @return The builder
+         */
+        public Builder setCompileHistory(CompileHistory history) {
+            this.history = history;
+            return this;
+        }
+
         private void checkThriftFileIsInThriftPath(File thriftFile) {
             assert thriftFile.isFile();
             Preconditions.checkState(checkThriftFileIsInThriftPathHelper(thriftFile.getParentFile()));
@@ -207,7 +764,9 @@ final class Thrift {
         }
 
         /**
-         * Adds the {@code thriftPathElement} to the thriftPath.
+         * Adds the {@code thriftPathElement} to the thriftPath. {@code thrift} searches the
+         * elements in the order they are added, so the source roots of the reactor must be
+         * added before the directories extracted from dependency jars.
          *
          * @param thriftPathElement A directory to be searched for imported thrift message
          *                          buffer definitions.
@@ -240,7 +799,8 @@ final class Thrift {
         public Thrift build() {
             Preconditions.checkState(!thriftFiles.isEmpty());
             return new Thrift(executable, generator, ImmutableSet.copyOf(thriftPathElements),
-                    ImmutableSet.copyOf(thriftFiles), javaOutputDirectory);
+                    ImmutableSet.copyOf(thriftFiles), javaOutputDirectory, separateOutputDirectories,
+                    compileThreads, batchCompile, minimalThriftPath, history);
         }
     }
 
@@ -8,6 +8,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -24,7 +25,7 @@ import java.util.List;
         requiresDependencyResolution = ResolutionScope.COMPILE,
         defaultPhase = LifecyclePhase.GENERATE_SOURCES
 )
-public final class ThriftCompileMojo extends AbstractThriftMojo {
+public class ThriftCompileMojo extends AbstractThriftMojo {
 
     /**
      * The source directories containing the sources to be compiled.
@@ -38,6 +39,21 @@ public final class ThriftCompileMojo extends AbstractThriftMojo {
     @Parameter(defaultValue = "${project.build.directory}/generated-sources/thrift", required = true)
     private File outputDirectory;
 
+    /**
+     * Set this to {@code true} to package an index of the thrift files, {@code META-INF/thrift/idl.index},
+     * with the thrift files. It lists the path and the content digest of every thrift file, so that
+     * consumers find them without enumerating the jar, and can skip jars without it altogether with
+     * {@code indexedDependenciesOnly}.
+     */
+    @Parameter(property = "thrift.writeIdlIndex", defaultValue = "false")
+    private boolean writeIdlIndex;
+
+    /**
+     * The directory in which the thrift index is written before it is packaged.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/thrift-idl-index", required = true)
+    private File idlIndexDirectory;
+
     @Override
     protected List<Artifact> getDependencyArtifacts() {
         // TODO(gak): maven-project needs generics
@@ -57,10 +73,15 @@ public final class ThriftCompileMojo extends AbstractThriftMojo {
     }
 
     @Override
-    protected void attachFiles() {
+    protected void attachFiles() throws IOException {
         project.addCompileSourceRoot(outputDirectory.getAbsolutePath());
         projectHelper.addResource(project, thriftSourceRoot.getAbsolutePath(),
                 ImmutableList.of("**/*.thrift"), ImmutableList.of());
+        if (writeIdlIndex) {
+            IdlIndex.write(thriftSourceRoot, new File(idlIndexDirectory, IdlIndex.ENTRY_NAME));
+            projectHelper.addResource(project, idlIndexDirectory.getAbsolutePath(),
+                    ImmutableList.of(IdlIndex.ENTRY_NAME), ImmutableList.of());
+        }
     }
 
 }
@@ -0,0 +1,238 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>The warnings and errors reported by the {@code thrift} processes of a build, parsed from
+ * lines like {@code [WARNING:/idl/a.thrift:12] message}, {@code [FAILURE:/idl/a.thrift:3] message}
+ * or {@code [ERROR:/idl/a.thrift:3] (last token was 'x')} followed by the message.</p>
+ *
+ * <p>The same diagnostic reported several times, by a batch and then by the invocation of the file
+ * alone, or for a file included by several others, is kept once. At most {@link #MAX_DIAGNOSTICS}
+ * distinct diagnostics are kept, the others are only counted, by severity.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftDiagnostics {
+
+    static final int MAX_DIAGNOSTICS = 1000;
+
+    private static final Pattern DIAGNOSTIC =
+            Pattern.compile("^\\[(WARNING|ERROR|FAILURE):(.+?)(?::(\\d+))?\\]\\s*(.*)$");
+
+    enum Severity {
+        WARNING, ERROR
+    }
+
+    private final Map<Diagnostic, Integer> diagnostics = Maps.newLinkedHashMap();
+    private int duplicates;
+    private final Map<Severity, Integer> droppedBySeverity = new EnumMap<Severity, Integer>(Severity.class);
+    private int dropped;
+
+    /**
+     * @return the diagnostic on {@code line}, or {@code null} if it is none. The message of an
+     * {@code ERROR} is on the next line, see {@link Diagnostic#withMessage(String)}.
+     */
+    static Diagnostic parse(String line) {
+        final Matcher matcher = DIAGNOSTIC.matcher(line);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Diagnostic(matcher.group(2), matcher.group(3) == null ? 0 : Integer.parseInt(matcher.group(3)),
+                matcher.group(1).equals("WARNING") ? Severity.WARNING : Severity.ERROR, matcher.group(4));
+    }
+
+    synchronized void add(Diagnostic diagnostic) {
+        final Integer count = diagnostics.get(diagnostic);
+        if (count != null) {
+            diagnostics.put(diagnostic, count + 1);
+            duplicates++;
+        } else if (diagnostics.size() < MAX_DIAGNOSTICS) {
+            diagnostics.put(diagnostic, 1);
+        } else {
+            final Integer droppedCount = droppedBySeverity.get(diagnostic.getSeverity());
+            droppedBySeverity.put(diagnostic.getSeverity(), droppedCount == null ? 1 : droppedCount + 1);
+            dropped++;
+        }
+    }
+
+    /**
+     * Adds the diagnostics of {@code other}, as often as they were reported there.
+     */
+    void addAll(ThriftDiagnostics other) {
+        final Map<Diagnostic, Integer> reports;
+        final Map<Severity, Integer> otherDropped;
+        synchronized (other) {
+            reports = Maps.newLinkedHashMap(other.diagnostics);
+            otherDropped = new EnumMap<Severity, Integer>(other.droppedBySeverity);
+        }
+        synchronized (this) {
+            for (Map.Entry<Diagnostic, Integer> report : reports.entrySet()) {
+                for (int i = 0; i < report.getValue(); i++) {
+                    add(report.getKey());
+                }
+            }
+            for (Map.Entry<Severity, Integer> entry : otherDropped.entrySet()) {
+                final Integer droppedCount = droppedBySeverity.get(entry.getKey());
+                droppedBySeverity.put(entry.getKey(), (droppedCount == null ? 0 : droppedCount) + entry.getValue());
+                dropped += entry.getValue();
+            }
+        }
+    }
+
+    /**
+     * @return the distinct diagnostics, in the order they were first reported.
+     */
+    synchronized ImmutableList<Diagnostic> getDiagnostics() {
+        return ImmutableList.copyOf(diagnostics.keySet());
+    }
+
+    /**
+     * @return how many distinct diagnostics of {@code severity} were reported, including those left out
+     * after {@link #MAX_DIAGNOSTICS}.
+     */
+    synchronized int count(Severity severity) {
+        final Integer droppedCount = droppedBySeverity.get(severity);
+        int count = droppedCount == null ? 0 : droppedCount;
+        for (Diagnostic diagnostic : diagnostics.keySet()) {
+            if (diagnostic.getSeverity() == severity) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return how many reports repeated a diagnostic that was already kept.
+     */
+    synchronized int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return how many distinct diagnostics were left out after {@link #MAX_DIAGNOSTICS}.
+     */
+    synchronized int getDropped() {
+        return dropped;
+    }
+
+    synchronized boolean isEmpty() {
+        return diagnostics.isEmpty();
+    }
+
+    /**
+     * Writes the diagnostics as JSON, with the number of times each one was reported.
+     */
+    synchronized void writeJson(File file) throws IOException {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"warnings\": ").append(count(Severity.WARNING))
+                .append(",\n  \"errors\": ").append(count(Severity.ERROR))
+                .append(",\n  \"duplicates\": ").append(duplicates)
+                .append(",\n  \"dropped\": ").append(dropped)
+                .append(",\n  \"diagnostics\": [");
+        boolean first = true;
+        for (Map.Entry<Diagnostic, Integer> entry : diagnostics.entrySet()) {
+            final Diagnostic diagnostic = entry.getKey();
+            json.append(first ? "\n" : ",\n")
+                    .append("    {\"file\": ").append(BuildMetrics.quote(diagnostic.getFile()))
+                    .append(", \"line\": ").append(diagnostic.getLine())
+                    .append(", \"severity\": ").append(BuildMetrics.quote(diagnostic.getSeverity().name()))
+                    .append(", \"message\": ").append(BuildMetrics.quote(diagnostic.getMessage()))
+                    .append(", \"count\": ").append(entry.getValue()).append('}');
+            first = false;
+        }
+        json.append(first ? "]\n}\n" : "\n  ]\n}\n");
+        Files.createParentDirs(file);
+        Files.asCharSink(file, Charsets.UTF_8).write(json);
+    }
+
+    /**
+     * A warning or error of {@code thrift}.
+     */
+    static final class Diagnostic {
+
+        private final String file;
+        private final int line;
+        private final Severity severity;
+        private final String message;
+
+        Diagnostic(String file, int line, Severity severity, String message) {
+            this.file = file;
+            this.line = line;
+            this.severity = severity;
+            this.message = message;
+        }
+
+        /**
+         * @return the thrift file, or what {@code thrift} was doing, like {@code arguments}.
+         */
+        String getFile() {
+            return file;
+        }
+
+        /**
+         * @return the line in {@link #getFile()}, or {@code 0} if there is none.
+         */
+        int getLine() {
+            return line;
+        }
+
+        Severity getSeverity() {
+            return severity;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return whether the message follows on the next line, as for syntax errors.
+         */
+        boolean isIncomplete() {
+            return severity == Severity.ERROR && message.startsWith("(last token was");
+        }
+
+        /**
+         * @return this diagnostic with {@code message} in front of the current one.
+         */
+        Diagnostic withMessage(String message) {
+            return new Diagnostic(file, line, severity, message + " " + this.message);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Diagnostic)) {
+                return false;
+            }
+            final Diagnostic other = (Diagnostic) o;
+            return line == other.line && file.equals(other.file) && severity == other.severity
+                    && message.equals(other.message);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(file, line, severity, message);
+        }
+
+        @Override
+        public String toString() {
+            return file + (line > 0 ? ":" + line : "") + ": " + message;
+        }
+
+    }
+
+}
@@ -0,0 +1,528 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The model of a thrift file, as read by {@link ThriftParser}: its includes, namespaces and
+ * definitions, in declaration order.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftDocument {
+
+    private final File file;
+    private final ImmutableList<Include> includes;
+    private final ImmutableMap<String, String> namespaces;
+    private final ImmutableList<Definition> definitions;
+
+    ThriftDocument(File file, List<Include> includes, Map<String, String> namespaces,
+                   List<Definition> definitions) {
+        this.file = file;
+        this.includes = ImmutableList.copyOf(includes);
+        this.namespaces = ImmutableMap.copyOf(namespaces);
+        this.definitions = ImmutableList.copyOf(definitions);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    ImmutableList<Include> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * @return the namespaces, by scope, like {@code java} or {@code *}.
+     */
+    ImmutableMap<String, String> getNamespaces() {
+        return namespaces;
+    }
+
+    ImmutableList<Definition> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * @return the definition named {@code name}, or {@code null} if there is none.
+     */
+    Definition getDefinition(String name) {
+        for (Definition definition : definitions) {
+            if (definition.getName().equals(name)) {
+                return definition;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the name other files refer to the definitions of this file with, the file name without {@code .thrift}.
+     */
+    String getProgramName() {
+        final String name = file.getName();
+        final int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    /**
+     * An {@code include} directive.
+     */
+    static final class Include {
+
+        private final String path;
+        private final int line;
+
+        Include(String path, int line) {
+            this.path = path;
+            this.line = line;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+    }
+
+    enum Kind {
+        TYPEDEF, CONST, ENUM, STRUCT, UNION, EXCEPTION, SERVICE
+    }
+
+    /**
+     * A named top level definition.
+     */
+    abstract static class Definition {
+
+        private final Kind kind;
+        private final String name;
+        private final int line;
+        private final String doc;
+
+        Definition(Kind kind, String name, int line, String doc) {
+            this.kind = Preconditions.checkNotNull(kind);
+            this.name = Preconditions.checkNotNull(name);
+            this.line = line;
+            this.doc = doc;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        /**
+         * @return the text of the {@code /**} comment in front of the definition, or {@code null}.
+         */
+        String getDoc() {
+            return doc;
+        }
+
+    }
+
+    static final class Typedef extends Definition {
+
+        private final Type type;
+
+        Typedef(String name, int line, String doc, Type type) {
+            super(Kind.TYPEDEF, name, line, doc);
+            this.type = type;
+        }
+
+        Type getType() {
+            return type;
+        }
+
+    }
+
+    static final class Const extends Definition {
+
+        private final Type type;
+        private final ConstValue value;
+
+        Const(String name, int line, String doc, Type type, ConstValue value) {
+            super(Kind.CONST, name, line, doc);
+            this.type = type;
+            this.value = value;
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        ConstValue getValue() {
+            return value;
+        }
+
+    }
+
+    static final class EnumDefinition extends Definition {
+
+        private final ImmutableList<EnumValue> values;
+
+        EnumDefinition(String name, int line, String doc, List<EnumValue> values) {
+            super(Kind.ENUM, name, line, doc);
+            this.values = ImmutableList.copyOf(values);
+        }
+
+        ImmutableList<EnumValue> getValues() {
+            return values;
+        }
+
+    }
+
+    static final class EnumValue {
+
+        private final String name;
+        private final int value;
+        private final int line;
+        private final String doc;
+
+        EnumValue(String name, int value, int line, String doc) {
+            this.name = name;
+            this.value = value;
+            this.line = line;
+            this.doc = doc;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getValue() {
+            return value;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getDoc() {
+            return doc;
+        }
+
+    }
+
+    /**
+     * A struct, union or exception.
+     */
+    static final class Struct extends Definition {
+
+        private final ImmutableList<Field> fields;
+
+        Struct(Kind kind, String name, int line, String doc, List<Field> fields) {
+            super(kind, name, line, doc);
+            Preconditions.checkArgument(kind == Kind.STRUCT || kind == Kind.UNION || kind == Kind.EXCEPTION);
+            this.fields = ImmutableList.copyOf(fields);
+        }
+
+        ImmutableList<Field> getFields() {
+            return fields;
+        }
+
+    }
+
+    static final class Service extends Definition {
+
+        private final String extendsName;
+        private final ImmutableList<Function> functions;
+
+        Service(String name, int line, String doc, String extendsName, List<Function> functions) {
+            super(Kind.SERVICE, name, line, doc);
+            this.extendsName = extendsName;
+            this.functions = ImmutableList.copyOf(functions);
+        }
+
+        /**
+         * @return the name of the extended service, or {@code null}.
+         */
+        String getExtendsName() {
+            return extendsName;
+        }
+
+        ImmutableList<Function> getFunctions() {
+            return functions;
+        }
+
+    }
+
+    static final class Function {
+
+        private final String name;
+        private final int line;
+        private final boolean oneway;
+        private final Type returnType;
+        private final ImmutableList<Field> arguments;
+        private final ImmutableList<Field> exceptions;
+        private final String doc;
+
+        Function(String name, int line, String doc, boolean oneway, Type returnType, List<Field> arguments,
+                 List<Field> exceptions) {
+            this.name = name;
+            this.line = line;
+            this.doc = doc;
+            this.oneway = oneway;
+            this.returnType = returnType;
+            this.arguments = ImmutableList.copyOf(arguments);
+            this.exceptions = ImmutableList.copyOf(exceptions);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        boolean isOneway() {
+            return oneway;
+        }
+
+        /**
+         * @return the return type, or {@code null} for {@code void}.
+         */
+        Type getReturnType() {
+            return returnType;
+        }
+
+        ImmutableList<Field> getArguments() {
+            return arguments;
+        }
+
+        ImmutableList<Field> getExceptions() {
+            return exceptions;
+        }
+
+        String getDoc() {
+            return doc;
+        }
+
+    }
+
+    enum Requiredness {
+        REQUIRED, OPTIONAL, DEFAULT
+    }
+
+    static final class Field {
+
+        private final int id;
+        private final boolean explicitId;
+        private final Requiredness requiredness;
+        private final Type type;
+        private final String name;
+        private final ConstValue defaultValue;
+        private final int line;
+        private final String doc;
+
+        Field(int id, boolean explicitId, Requiredness requiredness, Type type, String name,
+              ConstValue defaultValue, int line, String doc) {
+            this.id = id;
+            this.explicitId = explicitId;
+            this.requiredness = requiredness;
+            this.type = type;
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.line = line;
+            this.doc = doc;
+        }
+
+        /**
+         * @return the field id; negative and assigned in declaration order if it was not declared.
+         */
+        int getId() {
+            return id;
+        }
+
+        boolean hasExplicitId() {
+            return explicitId;
+        }
+
+        Requiredness getRequiredness() {
+            return requiredness;
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the default value, or {@code null}.
+         */
+        ConstValue getDefaultValue() {
+            return defaultValue;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getDoc() {
+            return doc;
+        }
+
+    }
+
+    /**
+     * A base type, a container type or a reference to a definition, possibly in an included file.
+     */
+    static final class Type {
+
+        static final ImmutableList<String> BASE_TYPES = ImmutableList.of(
+                "bool", "byte", "i8", "i16", "i32", "i64", "double", "string", "binary", "slist");
+
+        private final String name;
+        private final Type keyType;
+        private final Type valueType;
+        private final int line;
+
+        private Type(String name, Type keyType, Type valueType, int line) {
+            this.name = name;
+            this.keyType = keyType;
+            this.valueType = valueType;
+            this.line = line;
+        }
+
+        static Type named(String name, int line) {
+            return new Type(name, null, null, line);
+        }
+
+        static Type map(Type keyType, Type valueType, int line) {
+            return new Type("map", keyType, valueType, line);
+        }
+
+        static Type list(Type elementType, int line) {
+            return new Type("list", null, elementType, line);
+        }
+
+        static Type set(Type elementType, int line) {
+            return new Type("set", null, elementType, line);
+        }
+
+        /**
+         * @return the base type, {@code map}, {@code list} or {@code set}, or the name of the referenced definition.
+         */
+        String getName() {
+            return name;
+        }
+
+        boolean isBaseType() {
+            return valueType == null && BASE_TYPES.contains(name);
+        }
+
+        boolean isContainer() {
+            return valueType != null;
+        }
+
+        boolean isReference() {
+            return !isBaseType() && !isContainer();
+        }
+
+        /**
+         * @return the key type of a map, or {@code null}.
+         */
+        Type getKeyType() {
+            return keyType;
+        }
+
+        /**
+         * @return the value type of a map or the element type of a list or set, or {@code null}.
+         */
+        Type getValueType() {
+            return valueType;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        @Override
+        public String toString() {
+            if (keyType != null) {
+                return name + "<" + keyType + "," + valueType + ">";
+            }
+            return valueType != null ? name + "<" + valueType + ">" : name;
+        }
+
+    }
+
+    enum ConstKind {
+        INTEGER, DOUBLE, STRING, IDENTIFIER, LIST, MAP
+    }
+
+    /**
+     * A constant value. Lists hold their elements, maps their keys and values alternately.
+     */
+    static final class ConstValue {
+
+        private final ConstKind kind;
+        private final String text;
+        private final ImmutableList<ConstValue> elements;
+        private final int line;
+
+        ConstValue(ConstKind kind, String text, List<ConstValue> elements, int line) {
+            this.kind = kind;
+            this.text = text;
+            this.elements = ImmutableList.copyOf(elements);
+            this.line = line;
+        }
+
+        ConstKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the literal text: the digits of a number, the unquoted content of a string or an identifier.
+         */
+        String getText() {
+            return text;
+        }
+
+        ImmutableList<ConstValue> getElements() {
+            return elements;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case LIST:
+                    return "[" + Joiner.on(", ").join(elements) + "]";
+                case MAP:
+                    final StringBuilder map = new StringBuilder("{");
+                    for (int i = 0; i < elements.size(); i += 2) {
+                        map.append(i == 0 ? "" : ", ").append(elements.get(i)).append(": ").append(elements.get(i + 1));
+                    }
+                    return map.append('}').toString();
+                case STRING:
+                    return '"' + text + '"';
+                default:
+                    return text;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.potter.thrift.maven;
+
+/**
+ * How the plugin generates the java sources from the thrift files.
+ *
+ * @author zhfchdev@gmail.com
+ */
+public enum ThriftEngine {
+
+    /**
+     * Runs the {@code thrift} executable, configured with {@code thriftExecutable} or
+     * {@code thriftArtifact}, once per thrift file or batch.
+     */
+    NATIVE,
+
+    /**
+     * Generates the sources inside the build from the parsed thrift files, like the java generator
+     * of {@code thrift} 0.11.0, without a {@code thrift} executable, a download or a process. Only
+     * supports the {@code java} generator with the {@code hashcode}, {@code private-members} and
+     * {@code generated_annotations} options, and neither unions nor struct constants.
+     */
+    JAVA
+
+}
@@ -0,0 +1,123 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <p>Resolves and installs the {@code thrift} executable once per Maven session. The plugin
+ * is loaded once per session, so the modules of a parallel build share these instances:
+ * the first module resolving an artifact or installing an executable does the work, the
+ * others wait for it and reuse the result.</p>
+ *
+ * <p>Executables are installed with a temporary file and a rename, so that no process,
+ * in this build or another one, ever runs a half-written executable or writes to one
+ * that is running.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftExecutables {
+
+    private static final ConcurrentMap<MavenSession, ThriftExecutables> SESSIONS =
+            new MapMaker().weakKeys().makeMap();
+
+    private final ConcurrentMap<String, FutureTask<File>> resolved = Maps.newConcurrentMap();
+    private final ConcurrentMap<File, FutureTask<File>> installed = Maps.newConcurrentMap();
+
+    ThriftExecutables() {
+    }
+
+    /**
+     * @return the instance shared by the executions of {@code session}, or a new one if there is no session.
+     */
+    static ThriftExecutables forSession(MavenSession session) {
+        if (session == null) {
+            return new ThriftExecutables();
+        }
+        final ThriftExecutables executables = new ThriftExecutables();
+        final ThriftExecutables existing = SESSIONS.putIfAbsent(session, executables);
+        return existing == null ? executables : existing;
+    }
+
+    /**
+     * @param artifactSpec the artifact, in {@code groupId:artifactId:version[:type[:classifier]]} format.
+     * @param resolver     resolves the artifact, unless it was resolved before in this session.
+     * @return the file of the resolved artifact.
+     */
+    File resolve(String artifactSpec, Callable<File> resolver) throws MojoExecutionException {
+        return singleFlight(resolved, artifactSpec, resolver);
+    }
+
+    /**
+     * Installs {@code source} as the executable {@code target}, unless {@code target} has the same
+     * content already. A rebuilt executable of a snapshot often has the same length as the old one.
+     *
+     * @return {@code target}.
+     */
+    File install(final File source, final File target) throws MojoExecutionException {
+        return singleFlight(installed, target.getAbsoluteFile(), new Callable<File>() {
+            public File call() throws IOException {
+                if (!target.isFile() || !FileUtils.contentEquals(source, target)) {
+                    installAtomically(source, target);
+                }
+                return target;
+            }
+        });
+    }
+
+    static void installAtomically(File source, File target) throws IOException {
+        FileUtils.forceMkdir(target.getAbsoluteFile().getParentFile());
+        final File temporaryFile = new File(target.getAbsoluteFile().getParentFile(),
+                "." + target.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(source.toPath(), temporaryFile.toPath());
+            if (!Os.isFamily(Os.FAMILY_WINDOWS) && !temporaryFile.setExecutable(true)) {
+                throw new IOException("Unable to make " + temporaryFile + " executable");
+            }
+            try {
+                Files.move(temporaryFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    private static <K> File singleFlight(ConcurrentMap<K, FutureTask<File>> flights, K key, Callable<File> task)
+            throws MojoExecutionException {
+        final FutureTask<File> flight = new FutureTask<File>(task);
+        FutureTask<File> existing = flights.putIfAbsent(key, flight);
+        if (existing == null) {
+            existing = flight;
+            flight.run();
+        }
+        try {
+            return existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while waiting for " + key, e);
+        } catch (ExecutionException e) {
+            // let a later execution try again
+            flights.remove(key, existing);
+            Throwables.propagateIfPossible(e.getCause(), MojoExecutionException.class);
+            throw new MojoExecutionException("Unable to obtain " + key, e.getCause());
+        }
+    }
+
+}
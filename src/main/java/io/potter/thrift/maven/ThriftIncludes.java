@@ -0,0 +1,112 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the {@code include} directives of thrift files and resolves them the
+ * same way the {@code thrift} compiler does: relative to the including file
+ * first, then against each element of the thrift path in order.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftIncludes {
+
+    private static final Pattern INCLUDE = Pattern.compile("^\\s*include\\s+[\"']([^\"']+)[\"']", Pattern.MULTILINE);
+
+    private ThriftIncludes() {
+    }
+
+    /**
+     * @param thriftFile a thrift source file.
+     * @return the file names named by its {@code include} directives, in declaration order.
+     * @throws IOException if the file cannot be read.
+     */
+    static ImmutableList<String> parse(File thriftFile) throws IOException {
+        Preconditions.checkNotNull(thriftFile, "thriftFile");
+        return parse(Files.asCharSource(thriftFile, Charsets.UTF_8).read());
+    }
+
+    static ImmutableList<String> parse(CharSequence content) {
+        final ImmutableList.Builder<String> includes = ImmutableList.builder();
+        final Matcher matcher = INCLUDE.matcher(stripComments(content));
+        while (matcher.find()) {
+            includes.add(matcher.group(1));
+        }
+        return includes.build();
+    }
+
+    /**
+     * Resolves an include the way {@code thrift} does.
+     *
+     * @param include       the file name of the {@code include} directive.
+     * @param includingFile the thrift file containing the directive.
+     * @param thriftPath    the directories passed to {@code thrift} with {@code -I}.
+     * @return the included file, or {@code null} if it cannot be found.
+     */
+    static File resolve(String include, File includingFile, Iterable<File> thriftPath) {
+        final File file = new File(include);
+        if (file.isAbsolute()) {
+            return file.isFile() ? file : null;
+        }
+        final File sibling = new File(includingFile.getParentFile(), include);
+        if (sibling.isFile()) {
+            return sibling;
+        }
+        for (File thriftPathElement : thriftPath) {
+            final File candidate = new File(thriftPathElement, include);
+            if (candidate.isFile()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces {@code //}, {@code #} and {@code /* *}{@code /} comments by blanks, keeping
+     * line breaks and string literals intact.
+     */
+    private static String stripComments(CharSequence content) {
+        final StringBuilder result = new StringBuilder(content.length());
+        final int length = content.length();
+        int i = 0;
+        while (i < length) {
+            final char c = content.charAt(i);
+            if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length && content.charAt(end) != c && content.charAt(end) != '\n') {
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+                result.append(content, i, end);
+                i = end;
+            } else if (c == '#' || (c == '/' && i + 1 < length && content.charAt(i + 1) == '/')) {
+                while (i < length && content.charAt(i) != '\n') {
+                    result.append(' ');
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && content.charAt(i + 1) == '*') {
+                int end = i + 2;
+                while (end < length && !(content.charAt(end) == '*' && end + 1 < length && content.charAt(end + 1) == '/')) {
+                    end++;
+                }
+                end = Math.min(end + 2, length);
+                for (; i < end; i++) {
+                    result.append(content.charAt(i) == '\n' ? '\n' : ' ');
+                }
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+}
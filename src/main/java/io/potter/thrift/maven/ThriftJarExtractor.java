@@ -0,0 +1,170 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.io.RawInputStreamFacade;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Copies the thrift files embedded in a dependency jar to the file system.
+ *
+ * <p>The jar is opened as a plain {@link ZipFile}: entries are enumerated
+ * straight from the central directory, one at a time, and only the
+ * {@code .thrift} entries are ever inflated. Manifests and signatures are
+ * not verified, since nothing is loaded from the jar. Jars carrying an
+ * {@link IdlIndex} are not enumerated at all: the indexed entries are looked
+ * up by name, and their content is checked against the digest in the index.</p>
+ *
+ * <p>Entry names that are absolute or lead out of the extraction directory,
+ * like {@code ../../.bashrc}, are never extracted.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftJarExtractor {
+
+    private static final String THRIFT_FILE_SUFFIX = ".thrift";
+
+    /**
+     * The digest of the entries of jars without an index, which cannot be checked.
+     */
+    static final String NO_DIGEST = "";
+
+    private ThriftJarExtractor() {
+    }
+
+    /**
+     * Copies every thrift entry of {@code jar} below {@code targetDirectory},
+     * keeping the entry paths.
+     *
+     * @param jar             a dependency jar.
+     * @param targetDirectory the directory to extract into; created on demand.
+     * @param indexedOnly     whether jars without an {@link IdlIndex} are skipped.
+     * @param contentStore    the store to link the extracted files to, or {@code null} to copy them.
+     * @return the names of the extracted entries, in jar order.
+     * @throws IllegalArgumentException if {@code jar} is not a readable zip file.
+     * @throws IOException              if an entry cannot be extracted.
+     */
+    static ImmutableList<String> extract(File jar, File targetDirectory, boolean indexedOnly,
+                                         ContentStore contentStore) throws IOException {
+        final ZipFile zipFile = open(jar);
+        try {
+            final ImmutableMap<String, String> entries = listThriftEntries(zipFile, indexedOnly);
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                extractEntry(zipFile, entry.getKey(), entry.getValue(),
+                        RelativePaths.resolve(targetDirectory, entry.getKey()), contentStore);
+            }
+            return entries.keySet().asList();
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Copies the entry {@code entryName} of {@code zipFile} to {@code target}, or links it to
+     * {@code contentStore} if there is one.
+     *
+     * @param digest the SHA-256 the content must have, or {@link #NO_DIGEST}.
+     * @throws IOException if the content does not match {@code digest}; {@code target} is deleted then.
+     */
+    static void extractEntry(ZipFile zipFile, String entryName, String digest, File target,
+                             ContentStore contentStore) throws IOException {
+        final HashingInputStream in =
+                new HashingInputStream(Hashing.sha256(), zipFile.getInputStream(zipFile.getEntry(entryName)));
+        if (contentStore == null) {
+            FileUtils.copyStreamToFile(new RawInputStreamFacade(in), target);
+        } else {
+            try {
+                contentStore.materialize(in, target);
+            } finally {
+                in.close();
+            }
+        }
+        if (!digest.equals(NO_DIGEST) && !digest.equals(in.hash().toString())) {
+            FileUtils.forceDelete(target);
+            throw new IOException(String.format("%s in %s does not match its digest in %s",
+                    entryName, zipFile.getName(), IdlIndex.ENTRY_NAME));
+        }
+    }
+
+    /**
+     * @param jar         a dependency jar.
+     * @param indexedOnly whether jars without an {@link IdlIndex} are skipped.
+     * @return the names of the thrift entries of {@code jar}, in jar order, with the digest of their
+     * content in the index of the jar, or {@link #NO_DIGEST} if it has none.
+     * @throws IllegalArgumentException if {@code jar} is not a readable zip file.
+     */
+    static ImmutableMap<String, String> listThriftEntries(File jar, boolean indexedOnly) throws IOException {
+        final ZipFile zipFile = open(jar);
+        try {
+            return listThriftEntries(zipFile, indexedOnly);
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    private static ZipFile open(File jar) {
+        try {
+            return new ZipFile(jar);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("%s was not a readable artifact", jar));
+        }
+    }
+
+    private static ImmutableMap<String, String> listThriftEntries(ZipFile zipFile, boolean indexedOnly)
+            throws IOException {
+        final ZipEntry indexEntry = zipFile.getEntry(IdlIndex.ENTRY_NAME);
+        if (indexEntry != null) {
+            final ImmutableMap<String, String> indexedEntries = readIndex(zipFile, indexEntry);
+            if (indexedEntries != null) {
+                return indexedEntries;
+            }
+            // the jar does carry thrift files, but the index cannot be trusted
+        } else if (indexedOnly) {
+            return ImmutableMap.of();
+        }
+        final ImmutableMap.Builder<String, String> entryNames = ImmutableMap.builder();
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().endsWith(THRIFT_FILE_SUFFIX)
+                    && RelativePaths.isContained(entry.getName())) {
+                entryNames.put(entry.getName(), NO_DIGEST);
+            }
+        }
+        return entryNames.build();
+    }
+
+    /**
+     * @return the indexed entries with their digest, or {@code null} if the index is unreadable, lists a name
+     * leading out of the extraction directory or does not match the jar.
+     */
+    private static ImmutableMap<String, String> readIndex(ZipFile zipFile, ZipEntry indexEntry) throws IOException {
+        final InputStream in = zipFile.getInputStream(indexEntry);
+        final Map<String, String> index;
+        try {
+            index = IdlIndex.read(in);
+        } finally {
+            in.close();
+        }
+        if (index == null) {
+            return null;
+        }
+        for (String entryName : index.keySet()) {
+            if (!RelativePaths.isContained(entryName) || zipFile.getEntry(entryName) == null) {
+                return null;
+            }
+        }
+        return ImmutableMap.copyOf(index);
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.potter.thrift.maven;
+
+import org.codehaus.plexus.util.cli.StreamConsumer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * <p>Consumes the output or error stream of a {@code thrift} process line by line, keeping only
+ * its last {@link #MAX_CHARS} characters, and passes the warnings and errors on to a
+ * {@link ThriftDiagnostics}.</p>
+ *
+ * <p>The whole output of large thrift trees full of deprecation warnings would otherwise be held
+ * in memory until the build ends, and dumped into the log when it fails.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftOutput implements StreamConsumer {
+
+    static final int MAX_CHARS = 32 * 1024;
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private final ThriftDiagnostics diagnostics;
+    private final Deque<String> lines = new ArrayDeque<String>();
+    private int chars;
+    private int omitted;
+    private ThriftDiagnostics.Diagnostic incomplete;
+
+    ThriftOutput(ThriftDiagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    public synchronized void consumeLine(String line) {
+        lines.add(line);
+        chars += line.length();
+        while (chars > MAX_CHARS && lines.size() > 1) {
+            chars -= lines.poll().length();
+            omitted++;
+        }
+
+        final ThriftDiagnostics.Diagnostic diagnostic = ThriftDiagnostics.parse(line);
+        if (incomplete != null) {
+            diagnostics.add(diagnostic == null && !line.trim().isEmpty()
+                    ? incomplete.withMessage(line.trim()) : incomplete);
+            incomplete = null;
+        }
+        if (diagnostic != null) {
+            if (diagnostic.isIncomplete()) {
+                incomplete = diagnostic;
+            } else {
+                diagnostics.add(diagnostic);
+            }
+        }
+    }
+
+    /**
+     * Reports a diagnostic still waiting for its message once the stream ended.
+     */
+    synchronized void close() {
+        if (incomplete != null) {
+            diagnostics.add(incomplete);
+            incomplete = null;
+        }
+    }
+
+    /**
+     * @return the last lines of the stream, with a note on the number of lines left out.
+     */
+    synchronized String getOutput() {
+        final StringBuilder output = new StringBuilder();
+        if (omitted > 0) {
+            output.append(String.format("[%d earlier line(s) left out]", omitted)).append(LINE_SEPARATOR);
+        }
+        for (String line : lines) {
+            output.append(line).append(LINE_SEPARATOR);
+        }
+        return output.toString();
+    }
+
+}
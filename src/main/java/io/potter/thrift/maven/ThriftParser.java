@@ -0,0 +1,590 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+import io.potter.thrift.maven.ThriftDocument.Const;
+import io.potter.thrift.maven.ThriftDocument.ConstKind;
+import io.potter.thrift.maven.ThriftDocument.ConstValue;
+import io.potter.thrift.maven.ThriftDocument.Definition;
+import io.potter.thrift.maven.ThriftDocument.EnumDefinition;
+import io.potter.thrift.maven.ThriftDocument.EnumValue;
+import io.potter.thrift.maven.ThriftDocument.Field;
+import io.potter.thrift.maven.ThriftDocument.Function;
+import io.potter.thrift.maven.ThriftDocument.Include;
+import io.potter.thrift.maven.ThriftDocument.Kind;
+import io.potter.thrift.maven.ThriftDocument.Requiredness;
+import io.potter.thrift.maven.ThriftDocument.Service;
+import io.potter.thrift.maven.ThriftDocument.Struct;
+import io.potter.thrift.maven.ThriftDocument.Type;
+import io.potter.thrift.maven.ThriftDocument.Typedef;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Reads thrift files into a {@link ThriftDocument}, following the grammar of the
+ * {@code thrift} compiler: includes, namespaces, constants, typedefs, enums, senums,
+ * structs, unions, exceptions and services, with field ids, requiredness, default values
+ * and annotations. Annotations and the legacy XSD options are checked but not kept.</p>
+ *
+ * <p>Parsing stops at the first syntax error of a file, reported as a {@link SyntaxError}
+ * with its line and column.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftParser {
+
+    private static final ImmutableSet<String> CONTAINER_TYPES = ImmutableSet.of("map", "set", "list");
+
+    private final File file;
+    private final String content;
+    private int position;
+    private int line = 1;
+    private int column = 1;
+    /**
+     * The last {@code /**} comment, until the next token is read.
+     */
+    private String doc;
+
+    private ThriftParser(File file, String content) {
+        this.file = file;
+        this.content = content;
+    }
+
+    static ThriftDocument parse(File file) throws IOException, SyntaxError {
+        return parse(file, Files.asCharSource(file, Charsets.UTF_8).read());
+    }
+
+    static ThriftDocument parse(File file, String content) throws SyntaxError {
+        return new ThriftParser(file, content).document();
+    }
+
+    private ThriftDocument document() throws SyntaxError {
+        final List<Include> includes = Lists.newArrayList();
+        final Map<String, String> namespaces = Maps.newLinkedHashMap();
+        final List<Definition> definitions = Lists.newArrayList();
+        skipWhitespace();
+        while (position < content.length()) {
+            final int definitionLine = line;
+            final String definitionDoc = doc;
+            final String keyword = identifier("a header or definition");
+            if ("include".equals(keyword) || "cpp_include".equals(keyword)) {
+                if (!definitions.isEmpty()) {
+                    throw error(keyword + " must come before the definitions");
+                }
+                final String path = literal();
+                if ("include".equals(keyword)) {
+                    includes.add(new Include(path, definitionLine));
+                }
+            } else if ("namespace".equals(keyword)) {
+                if (!definitions.isEmpty()) {
+                    throw error("namespace must come before the definitions");
+                }
+                final String scope = accept('*') ? "*" : identifier("a namespace scope");
+                namespaces.put(scope, identifier("a namespace"));
+                annotations();
+            } else if ("const".equals(keyword)) {
+                final Type type = fieldType();
+                final String name = identifier("a constant name");
+                expect('=');
+                definitions.add(new Const(name, definitionLine, definitionDoc, type, constValue()));
+                listSeparator();
+            } else if ("typedef".equals(keyword)) {
+                final Type type = fieldType();
+                final String name = identifier("a type name");
+                annotations();
+                definitions.add(new Typedef(name, definitionLine, definitionDoc, type));
+                listSeparator();
+            } else if ("enum".equals(keyword)) {
+                definitions.add(enumDefinition(definitionLine, definitionDoc));
+            } else if ("senum".equals(keyword)) {
+                definitions.add(senum(definitionLine, definitionDoc));
+            } else if ("struct".equals(keyword)) {
+                definitions.add(struct(Kind.STRUCT, definitionLine, definitionDoc));
+            } else if ("union".equals(keyword)) {
+                definitions.add(struct(Kind.UNION, definitionLine, definitionDoc));
+            } else if ("exception".equals(keyword)) {
+                definitions.add(struct(Kind.EXCEPTION, definitionLine, definitionDoc));
+            } else if ("service".equals(keyword)) {
+                definitions.add(service(definitionLine, definitionDoc));
+            } else {
+                throw error("unexpected '" + keyword + "'", definitionLine);
+            }
+        }
+        return new ThriftDocument(file, includes, namespaces, definitions);
+    }
+
+    private EnumDefinition enumDefinition(int definitionLine, String definitionDoc) throws SyntaxError {
+        final String name = identifier("an enum name");
+        expect('{');
+        final List<EnumValue> values = Lists.newArrayList();
+        int next = 0;
+        while (!accept('}')) {
+            final int valueLine = line;
+            final String valueDoc = doc;
+            final String valueName = identifier("an enum value");
+            int value = next;
+            if (accept('=')) {
+                value = intValue(integer());
+            }
+            annotations();
+            listSeparator();
+            values.add(new EnumValue(valueName, value, valueLine, valueDoc));
+            next = value + 1;
+        }
+        annotations();
+        return new EnumDefinition(name, definitionLine, definitionDoc, values);
+    }
+
+    /**
+     * Senums are deprecated sets of string values, the {@code thrift} compiler treats them as strings.
+     */
+    private Typedef senum(int definitionLine, String definitionDoc) throws SyntaxError {
+        final String name = identifier("a senum name");
+        expect('{');
+        while (!accept('}')) {
+            literal();
+            listSeparator();
+        }
+        annotations();
+        return new Typedef(name, definitionLine, definitionDoc, Type.named("string", definitionLine));
+    }
+
+    private Struct struct(Kind kind, int definitionLine, String definitionDoc) throws SyntaxError {
+        final String name = identifier("a " + kind.name().toLowerCase() + " name");
+        acceptKeyword("xsd_all");
+        expect('{');
+        final List<Field> fields = fields('}');
+        annotations();
+        return new Struct(kind, name, definitionLine, definitionDoc, fields);
+    }
+
+    private Service service(int definitionLine, String definitionDoc) throws SyntaxError {
+        final String name = identifier("a service name");
+        String extendsName = null;
+        if (acceptKeyword("extends")) {
+            extendsName = identifier("a service name");
+        }
+        expect('{');
+        final List<Function> functions = Lists.newArrayList();
+        while (!accept('}')) {
+            final int functionLine = line;
+            final String functionDoc = doc;
+            final boolean oneway = acceptKeyword("oneway") || acceptKeyword("async");
+            final Type returnType = acceptKeyword("void") ? null : fieldType();
+            final String functionName = identifier("a function name");
+            expect('(');
+            final List<Field> arguments = fields(')');
+            List<Field> exceptions = Collections.emptyList();
+            if (acceptKeyword("throws")) {
+                expect('(');
+                exceptions = fields(')');
+            }
+            annotations();
+            listSeparator();
+            functions.add(new Function(functionName, functionLine, functionDoc, oneway, returnType, arguments, exceptions));
+        }
+        annotations();
+        return new Service(name, definitionLine, definitionDoc, extendsName, functions);
+    }
+
+    /**
+     * Reads fields up to and including {@code end}. Fields without an id get negative ids in
+     * declaration order, like the {@code thrift} compiler assigns them.
+     */
+    private List<Field> fields(char end) throws SyntaxError {
+        final List<Field> fields = Lists.newArrayList();
+        int implicitId = -1;
+        while (!accept(end)) {
+            final int fieldLine = line;
+            final String fieldDoc = doc;
+            int id = implicitId;
+            boolean explicitId = false;
+            if (peekInteger()) {
+                id = intValue(integer());
+                explicitId = true;
+                expect(':');
+            } else {
+                implicitId--;
+            }
+            Requiredness requiredness = Requiredness.DEFAULT;
+            if (acceptKeyword("required")) {
+                requiredness = Requiredness.REQUIRED;
+            } else if (acceptKeyword("optional")) {
+                requiredness = Requiredness.OPTIONAL;
+            }
+            final Type type = fieldType();
+            final String name = identifier("a field name");
+            ConstValue defaultValue = null;
+            if (accept('=')) {
+                defaultValue = constValue();
+            }
+            // legacy XSD options
+            acceptKeyword("xsd_optional");
+            acceptKeyword("xsd_nillable");
+            if (acceptKeyword("xsd_attrs")) {
+                expect('{');
+                fields('}');
+            }
+            annotations();
+            listSeparator();
+            fields.add(new Field(id, explicitId, requiredness, type, name, defaultValue, fieldLine, fieldDoc));
+        }
+        return fields;
+    }
+
+    private Type fieldType() throws SyntaxError {
+        final int typeLine = line;
+        final String name = identifier("a type");
+        final Type type;
+        if (CONTAINER_TYPES.contains(name)) {
+            if (acceptKeyword("cpp_type")) {
+                literal();
+            }
+            expect('<');
+            final Type first = fieldType();
+            if ("map".equals(name)) {
+                expect(',');
+                final Type second = fieldType();
+                type = Type.map(first, second, typeLine);
+            } else {
+                type = "list".equals(name) ? Type.list(first, typeLine) : Type.set(first, typeLine);
+            }
+            expect('>');
+            if ("list".equals(name)) {
+                acceptKeyword("cpp_type");
+            }
+        } else {
+            type = Type.named(name, typeLine);
+        }
+        annotations();
+        return type;
+    }
+
+    private ConstValue constValue() throws SyntaxError {
+        final int valueLine = line;
+        if (position >= content.length()) {
+            throw error("expected a constant value");
+        }
+        final char c = content.charAt(position);
+        if (c == '"' || c == '\'') {
+            return new ConstValue(ConstKind.STRING, literal(), Collections.<ConstValue>emptyList(), valueLine);
+        }
+        if (accept('[')) {
+            final List<ConstValue> elements = Lists.newArrayList();
+            while (!accept(']')) {
+                elements.add(constValue());
+                listSeparator();
+            }
+            return new ConstValue(ConstKind.LIST, null, elements, valueLine);
+        }
+        if (accept('{')) {
+            final List<ConstValue> elements = Lists.newArrayList();
+            while (!accept('}')) {
+                elements.add(constValue());
+                expect(':');
+                elements.add(constValue());
+                listSeparator();
+            }
+            return new ConstValue(ConstKind.MAP, null, elements, valueLine);
+        }
+        if (c == '+' || c == '-' || c == '.' || Character.isDigit(c)) {
+            final String number = number();
+            final boolean isDouble = !number.startsWith("0x") && !number.startsWith("+0x")
+                    && !number.startsWith("-0x") && (number.indexOf('.') >= 0 || number.indexOf('e') >= 0
+                    || number.indexOf('E') >= 0);
+            return new ConstValue(isDouble ? ConstKind.DOUBLE : ConstKind.INTEGER, number,
+                    Collections.<ConstValue>emptyList(), valueLine);
+        }
+        return new ConstValue(ConstKind.IDENTIFIER, identifier("a constant value"),
+                Collections.<ConstValue>emptyList(), valueLine);
+    }
+
+    private void annotations() throws SyntaxError {
+        if (!accept('(')) {
+            return;
+        }
+        while (!accept(')')) {
+            identifier("an annotation name");
+            if (accept('=')) {
+                literal();
+            }
+            listSeparator();
+        }
+    }
+
+    private void listSeparator() throws SyntaxError {
+        if (!accept(',')) {
+            accept(';');
+        }
+    }
+
+    // lexical analysis
+
+    private String identifier(String expected) throws SyntaxError {
+        skipWhitespace();
+        final int start = position;
+        if (position < content.length()
+                && (Character.isLetter(content.charAt(position)) || content.charAt(position) == '_')) {
+            position++;
+            while (position < content.length() && isIdentifierPart(content.charAt(position))) {
+                position++;
+            }
+        }
+        if (start == position) {
+            throw error("expected " + expected);
+        }
+        column += position - start;
+        final String identifier = content.substring(start, position);
+        endToken();
+        return identifier;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+
+    private boolean acceptKeyword(String keyword) throws SyntaxError {
+        skipWhitespace();
+        final int end = position + keyword.length();
+        if (content.startsWith(keyword, position)
+                && (end == content.length() || !isIdentifierPart(content.charAt(end)))) {
+            position = end;
+            column += keyword.length();
+            endToken();
+            return true;
+        }
+        return false;
+    }
+
+    private String literal() throws SyntaxError {
+        skipWhitespace();
+        if (position >= content.length() || (content.charAt(position) != '"' && content.charAt(position) != '\'')) {
+            throw error("expected a string literal");
+        }
+        final char quote = content.charAt(position);
+        final int startLine = line;
+        final int startColumn = column;
+        final StringBuilder literal = new StringBuilder();
+        advance();
+        while (position < content.length() && content.charAt(position) != quote) {
+            if (content.charAt(position) == '\\' && position + 1 < content.length()) {
+                literal.append(content.charAt(position));
+                advance();
+            }
+            literal.append(content.charAt(position));
+            advance();
+        }
+        if (position >= content.length()) {
+            throw new SyntaxError(file, startLine, startColumn, "unterminated string literal");
+        }
+        advance();
+        endToken();
+        return literal.toString();
+    }
+
+    private boolean peekInteger() {
+        if (position >= content.length()) {
+            return false;
+        }
+        final char c = content.charAt(position);
+        return Character.isDigit(c) || ((c == '+' || c == '-') && position + 1 < content.length()
+                && Character.isDigit(content.charAt(position + 1)));
+    }
+
+    private String integer() throws SyntaxError {
+        final int startLine = line;
+        final int startColumn = column;
+        final String number = number();
+        if (number.indexOf('.') >= 0 || (!number.contains("0x") && number.toLowerCase().indexOf('e') >= 0)) {
+            throw new SyntaxError(file, startLine, startColumn, "expected an integer, found " + number);
+        }
+        return number;
+    }
+
+    private int intValue(String number) throws SyntaxError {
+        try {
+            final boolean negative = number.startsWith("-");
+            final String digits = number.startsWith("+") || negative ? number.substring(1) : number;
+            final long value = digits.startsWith("0x") ? Long.parseLong(digits.substring(2), 16) : Long.parseLong(digits);
+            return (int) (negative ? -value : value);
+        } catch (NumberFormatException e) {
+            throw error("invalid integer " + number);
+        }
+    }
+
+    private String number() throws SyntaxError {
+        skipWhitespace();
+        final int start = position;
+        if (position < content.length() && (content.charAt(position) == '+' || content.charAt(position) == '-')) {
+            position++;
+        }
+        if (content.startsWith("0x", position)) {
+            position += 2;
+            while (position < content.length() && Character.digit(content.charAt(position), 16) >= 0) {
+                position++;
+            }
+        } else {
+            while (position < content.length() && (Character.isDigit(content.charAt(position))
+                    || content.charAt(position) == '.')) {
+                position++;
+            }
+            if (position < content.length() && (content.charAt(position) == 'e' || content.charAt(position) == 'E')) {
+                position++;
+                if (position < content.length() && (content.charAt(position) == '+' || content.charAt(position) == '-')) {
+                    position++;
+                }
+                while (position < content.length() && Character.isDigit(content.charAt(position))) {
+                    position++;
+                }
+            }
+        }
+        final String number = content.substring(start, position);
+        if (number.isEmpty() || "+".equals(number) || "-".equals(number) || "0x".equals(number)) {
+            position = start;
+            throw error("expected a number");
+        }
+        column += position - start;
+        endToken();
+        return number;
+    }
+
+    private boolean accept(char c) throws SyntaxError {
+        skipWhitespace();
+        if (position < content.length() && content.charAt(position) == c) {
+            advance();
+            endToken();
+            return true;
+        }
+        if (position >= content.length() && (c == '}' || c == ')' || c == ']')) {
+            throw error("expected '" + c + "' before the end of the file");
+        }
+        return false;
+    }
+
+    private void expect(char c) throws SyntaxError {
+        if (!accept(c)) {
+            throw error("expected '" + c + "'");
+        }
+    }
+
+    private void advance() {
+        if (content.charAt(position) == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        position++;
+    }
+
+    /**
+     * Skips the whitespace after a token. The token ends the scope of the last {@code /**} comment.
+     */
+    private void endToken() throws SyntaxError {
+        doc = null;
+        skipWhitespace();
+    }
+
+    private void skipWhitespace() throws SyntaxError {
+        while (position < content.length()) {
+            final char c = content.charAt(position);
+            if (Character.isWhitespace(c)) {
+                advance();
+            } else if (c == '#' || content.startsWith("//", position)) {
+                while (position < content.length() && content.charAt(position) != '\n') {
+                    advance();
+                }
+            } else if (content.startsWith("/*", position)) {
+                final int startLine = line;
+                final int startColumn = column;
+                final int end = content.indexOf("*/", position + 2);
+                if (end < 0) {
+                    throw new SyntaxError(file, startLine, startColumn, "unterminated comment");
+                }
+                if (content.startsWith("/**", position) && end > position + 2) {
+                    doc = cleanDoc(content.substring(position + 3, end));
+                }
+                while (position < end + 2) {
+                    advance();
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Strips the leading {@code *} and whitespace of each line of a doc comment, and the blank lines around it.
+     */
+    private static String cleanDoc(String comment) {
+        final List<String> lines = Lists.newArrayList();
+        for (String commentLine : comment.split("\\r?\\n", -1)) {
+            String trimmed = commentLine.trim();
+            if (trimmed.startsWith("*")) {
+                trimmed = trimmed.substring(1);
+                if (trimmed.startsWith(" ")) {
+                    trimmed = trimmed.substring(1);
+                }
+            }
+            lines.add(CharMatcher.whitespace().trimTrailingFrom(trimmed));
+        }
+        while (!lines.isEmpty() && lines.get(0).isEmpty()) {
+            lines.remove(0);
+        }
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines.isEmpty() ? null : Joiner.on('\n').join(lines);
+    }
+
+    private SyntaxError error(String message) {
+        return new SyntaxError(file, line, column, message + (position < content.length()
+                ? ", found '" + content.charAt(position) + "'" : ""));
+    }
+
+    private SyntaxError error(String message, int errorLine) {
+        return new SyntaxError(file, errorLine, 1, message);
+    }
+
+    /**
+     * A syntax error in a thrift file.
+     */
+    static final class SyntaxError extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File file;
+        private final int line;
+        private final int column;
+
+        SyntaxError(File file, int line, int column, String message) {
+            super(message);
+            this.file = file;
+            this.line = line;
+            this.column = column;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        int getColumn() {
+            return column;
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import io.potter.thrift.maven.ThriftDocument.Const;
+import io.potter.thrift.maven.ThriftDocument.ConstKind;
+import io.potter.thrift.maven.ThriftDocument.ConstValue;
+import io.potter.thrift.maven.ThriftDocument.Definition;
+import io.potter.thrift.maven.ThriftDocument.EnumDefinition;
+import io.potter.thrift.maven.ThriftDocument.EnumValue;
+import io.potter.thrift.maven.ThriftDocument.Field;
+import io.potter.thrift.maven.ThriftDocument.Function;
+import io.potter.thrift.maven.ThriftDocument.Include;
+import io.potter.thrift.maven.ThriftDocument.Requiredness;
+import io.potter.thrift.maven.ThriftDocument.Service;
+import io.potter.thrift.maven.ThriftDocument.Struct;
+import io.potter.thrift.maven.ThriftDocument.Typedef;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link ThriftDocument} back as a thrift file. The includes, namespaces, definitions,
+ * field ids, default values and doc comments are kept; comments, annotations and
+ * {@code cpp_include} directives are not, as {@link ThriftParser} does not keep them.
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftPrinter {
+
+    private final StringBuilder out = new StringBuilder();
+
+    private ThriftPrinter() {
+    }
+
+    static String print(ThriftDocument document) {
+        return new ThriftPrinter().document(document);
+    }
+
+    private String document(ThriftDocument document) {
+        for (Include include : document.getIncludes()) {
+            out.append("include \"").append(include.getPath()).append("\"\n");
+        }
+        if (!document.getIncludes().isEmpty()) {
+            out.append('\n');
+        }
+        for (Map.Entry<String, String> namespace : document.getNamespaces().entrySet()) {
+            out.append("namespace ").append(namespace.getKey()).append(' ').append(namespace.getValue()).append('\n');
+        }
+        for (Definition definition : document.getDefinitions()) {
+            out.append('\n');
+            doc(definition.getDoc(), "");
+            switch (definition.getKind()) {
+                case TYPEDEF:
+                    out.append("typedef ").append(((Typedef) definition).getType()).append(' ')
+                            .append(definition.getName()).append('\n');
+                    break;
+                case CONST:
+                    final Const constant = (Const) definition;
+                    out.append("const ").append(constant.getType()).append(' ').append(constant.getName())
+                            .append(" = ").append(value(constant.getValue())).append('\n');
+                    break;
+                case ENUM:
+                    enumeration((EnumDefinition) definition);
+                    break;
+                case SERVICE:
+                    service((Service) definition);
+                    break;
+                default:
+                    struct((Struct) definition);
+                    break;
+            }
+        }
+        return out.toString();
+    }
+
+    private void doc(String doc, String indent) {
+        if (doc == null) {
+            return;
+        }
+        out.append(indent).append("/**\n");
+        for (String line : Splitter.on('\n').split(doc)) {
+            out.append(indent).append(line.isEmpty() ? " *" : " * " + line.replace("*/", "* /")).append('\n');
+        }
+        out.append(indent).append(" */\n");
+    }
+
+    private void enumeration(EnumDefinition enumeration) {
+        out.append("enum ").append(enumeration.getName()).append(" {\n");
+        for (EnumValue value : enumeration.getValues()) {
+            doc(value.getDoc(), "  ");
+            out.append("  ").append(value.getName()).append(" = ").append(value.getValue()).append(",\n");
+        }
+        out.append("}\n");
+    }
+
+    private void struct(Struct struct) {
+        out.append(struct.getKind().name().toLowerCase()).append(' ').append(struct.getName()).append(" {\n");
+        for (Field field : struct.getFields()) {
+            doc(field.getDoc(), "  ");
+            out.append("  ").append(field(field)).append(",\n");
+        }
+        out.append("}\n");
+    }
+
+    private void service(Service service) {
+        out.append("service ").append(service.getName());
+        if (service.getExtendsName() != null) {
+            out.append(" extends ").append(service.getExtendsName());
+        }
+        out.append(" {\n");
+        for (Function function : service.getFunctions()) {
+            doc(function.getDoc(), "  ");
+            out.append("  ").append(function.isOneway() ? "oneway " : "")
+                    .append(function.getReturnType() == null ? "void" : function.getReturnType().toString())
+                    .append(' ').append(function.getName()).append('(').append(fields(function.getArguments())).append(')');
+            if (!function.getExceptions().isEmpty()) {
+                out.append(" throws (").append(fields(function.getExceptions())).append(')');
+            }
+            out.append(",\n");
+        }
+        out.append("}\n");
+    }
+
+    private static String fields(List<Field> fields) {
+        final List<String> printed = Lists.newArrayList();
+        for (Field field : fields) {
+            printed.add(field(field));
+        }
+        return Joiner.on(", ").join(printed);
+    }
+
+    private static String field(Field field) {
+        final StringBuilder printed = new StringBuilder();
+        if (field.hasExplicitId()) {
+            printed.append(field.getId()).append(": ");
+        }
+        if (field.getRequiredness() != Requiredness.DEFAULT) {
+            printed.append(field.getRequiredness().name().toLowerCase()).append(' ');
+        }
+        printed.append(field.getType()).append(' ').append(field.getName());
+        if (field.getDefaultValue() != null) {
+            printed.append(" = ").append(value(field.getDefaultValue()));
+        }
+        return printed.toString();
+    }
+
+    private static String value(ConstValue value) {
+        final List<String> elements = Lists.newArrayList();
+        if (value.getKind() == ConstKind.LIST) {
+            for (ConstValue element : value.getElements()) {
+                elements.add(value(element));
+            }
+            return "[" + Joiner.on(", ").join(elements) + "]";
+        }
+        if (value.getKind() == ConstKind.MAP) {
+            for (int i = 0; i + 1 < value.getElements().size(); i += 2) {
+                elements.add(value(value.getElements().get(i)) + ": " + value(value.getElements().get(i + 1)));
+            }
+            return "{" + Joiner.on(", ").join(elements) + "}";
+        }
+        if (value.getKind() == ConstKind.STRING) {
+            return '"' + quote(value.getText()) + '"';
+        }
+        return value.getText();
+    }
+
+    /**
+     * Escapes the double quotes of a string literal that was single quoted.
+     */
+    private static String quote(String text) {
+        final StringBuilder quoted = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                quoted.append(c).append(text.charAt(++i));
+            } else {
+                quoted.append(c == '"' ? "\\\"" : String.valueOf(c));
+            }
+        }
+        return quoted.toString();
+    }
+
+}
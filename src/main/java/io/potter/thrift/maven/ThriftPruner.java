@@ -0,0 +1,304 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import io.potter.thrift.maven.ThriftDocument.Const;
+import io.potter.thrift.maven.ThriftDocument.ConstKind;
+import io.potter.thrift.maven.ThriftDocument.ConstValue;
+import io.potter.thrift.maven.ThriftDocument.Definition;
+import io.potter.thrift.maven.ThriftDocument.Field;
+import io.potter.thrift.maven.ThriftDocument.Function;
+import io.potter.thrift.maven.ThriftDocument.Service;
+import io.potter.thrift.maven.ThriftDocument.Struct;
+import io.potter.thrift.maven.ThriftDocument.Type;
+import io.potter.thrift.maven.ThriftDocument.Typedef;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Leaves out the definitions that cannot be reached from a set of roots, so that only the
+ * types a project uses are generated.</p>
+ *
+ * <p>A root is a service, struct or other definition named like {@code program.Name}. A service
+ * reaches the service it extends and the types of its functions, a struct the types and default
+ * values of its fields, a typedef its type and a constant its type and value, across includes.
+ * The reachable definitions of every parsed file are written back with {@link ThriftPrinter} into
+ * a mirror of each thrift path element, which replace the thrift path, so that the includes still
+ * resolve the same way.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftPruner {
+
+    private final ThriftValidator.Result parsed;
+    private final Map<File, Set<String>> reachable = Maps.newLinkedHashMap();
+    private final Deque<Reference> pending = new ArrayDeque<Reference>();
+
+    /**
+     * @param parsed the valid result of parsing the thrift files.
+     * @param roots  the definitions to keep, named like {@code program.Name}.
+     * @throws IllegalArgumentException if a root names no parsed definition.
+     */
+    ThriftPruner(ThriftValidator.Result parsed, Set<String> roots) {
+        Preconditions.checkArgument(parsed.isValid(), "the thrift files have problems");
+        this.parsed = parsed;
+        for (File file : parsed.getDocuments().keySet()) {
+            reachable.put(file, Sets.<String>newLinkedHashSet());
+        }
+        for (String root : roots) {
+            final int dot = root.indexOf('.');
+            boolean found = false;
+            for (ThriftDocument document : parsed.getDocuments().values()) {
+                if (dot > 0 && document.getProgramName().equals(root.substring(0, dot))
+                        && document.getDefinition(root.substring(dot + 1)) != null) {
+                    pending.add(new Reference(document, document.getDefinition(root.substring(dot + 1))));
+                    found = true;
+                }
+            }
+            Preconditions.checkArgument(found, "the root %s names no definition of the thrift files", root);
+        }
+        while (!pending.isEmpty()) {
+            final Reference reference = pending.poll();
+            if (reachable.get(reference.document.getFile()).add(reference.definition.getName())) {
+                visit(reference.document, reference.definition);
+            }
+        }
+    }
+
+    /**
+     * @return the number of definitions that are kept.
+     */
+    int getKept() {
+        int kept = 0;
+        for (Set<String> names : reachable.values()) {
+            kept += names.size();
+        }
+        return kept;
+    }
+
+    /**
+     * @return the number of definitions of the parsed files.
+     */
+    int getTotal() {
+        int total = 0;
+        for (ThriftDocument document : parsed.getDocuments().values()) {
+            total += document.getDefinitions().size();
+        }
+        return total;
+    }
+
+    /**
+     * Writes the pruned files below {@code directory}, which is cleaned of the files of an earlier
+     * run, and checks that they still parse and resolve.
+     *
+     * @param thriftFiles the thrift files to compile.
+     * @param thriftPath  the thrift path they were parsed with.
+     * @param threads     the number of files to check at the same time.
+     * @return the pruned thrift files to compile and the thrift path to compile them with, or
+     * {@code null} if a parsed file is outside the thrift path or the pruned files do not resolve
+     * like the original ones.
+     */
+    Pruned write(Set<File> thriftFiles, List<File> thriftPath, File directory, int threads) throws IOException {
+        final List<String> elements = Lists.newArrayList();
+        for (File thriftPathElement : thriftPath) {
+            elements.add(thriftPathElement.getCanonicalPath() + File.separator);
+        }
+        final Map<File, File> copies = Maps.newHashMap();
+        final Set<File> written = Sets.newHashSet();
+        for (ThriftDocument document : parsed.getDocuments().values()) {
+            final String path = document.getFile().getPath();
+            final String content = ThriftPrinter.print(prune(document));
+            for (int i = 0; i < elements.size(); i++) {
+                if (path.startsWith(elements.get(i))) {
+                    final File copy = new File(new File(directory, String.valueOf(i)),
+                            path.substring(elements.get(i).length()));
+                    if (!copies.containsKey(document.getFile())) {
+                        copies.put(document.getFile(), copy);
+                    }
+                    write(copy, content);
+                    written.add(copy);
+                }
+            }
+            if (!copies.containsKey(document.getFile())) {
+                return null;
+            }
+        }
+        if (directory.isDirectory()) {
+            for (File file : FileUtils.getFiles(directory, "**", null)) {
+                if (!written.contains(file)) {
+                    FileUtils.forceDelete(file);
+                }
+            }
+        }
+
+        final ImmutableList.Builder<File> prunedThriftPath = ImmutableList.builder();
+        for (int i = 0; i < elements.size(); i++) {
+            prunedThriftPath.add(new File(directory, String.valueOf(i)));
+        }
+        final ImmutableSet.Builder<File> prunedThriftFiles = ImmutableSet.builder();
+        for (File thriftFile : thriftFiles) {
+            final File file = thriftFile.getCanonicalFile();
+            if (!reachable.get(file).isEmpty()) {
+                prunedThriftFiles.add(copies.get(file));
+            }
+        }
+        final Pruned pruned = new Pruned(prunedThriftFiles.build(), prunedThriftPath.build());
+        if (!new ThriftValidator(pruned.getThriftPath(), threads).validate(pruned.getThriftFiles()).isValid()) {
+            return null;
+        }
+        return pruned;
+    }
+
+    private ThriftDocument prune(ThriftDocument document) {
+        final List<Definition> definitions = Lists.newArrayList();
+        for (Definition definition : document.getDefinitions()) {
+            if (reachable.get(document.getFile()).contains(definition.getName())) {
+                definitions.add(definition);
+            }
+        }
+        return new ThriftDocument(document.getFile(), document.getIncludes(), document.getNamespaces(), definitions);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        if (file.isFile() && Files.asCharSource(file, Charsets.UTF_8).read().equals(content)) {
+            // keeps the timestamp of an unchanged file
+            return;
+        }
+        Files.createParentDirs(file);
+        Files.asCharSink(file, Charsets.UTF_8).write(content);
+    }
+
+    private void visit(ThriftDocument document, Definition definition) {
+        switch (definition.getKind()) {
+            case TYPEDEF:
+                visit(document, ((Typedef) definition).getType());
+                break;
+            case CONST:
+                visit(document, ((Const) definition).getType());
+                visit(document, ((Const) definition).getValue());
+                break;
+            case ENUM:
+                break;
+            case SERVICE:
+                final Service service = (Service) definition;
+                if (service.getExtendsName() != null) {
+                    reach(document, service.getExtendsName());
+                }
+                for (Function function : service.getFunctions()) {
+                    if (function.getReturnType() != null) {
+                        visit(document, function.getReturnType());
+                    }
+                    visit(document, function.getArguments());
+                    visit(document, function.getExceptions());
+                }
+                break;
+            default:
+                visit(document, ((Struct) definition).getFields());
+                break;
+        }
+    }
+
+    private void visit(ThriftDocument document, List<Field> fields) {
+        for (Field field : fields) {
+            visit(document, field.getType());
+            if (field.getDefaultValue() != null) {
+                visit(document, field.getDefaultValue());
+            }
+        }
+    }
+
+    private void visit(ThriftDocument document, Type type) {
+        if (type.getKeyType() != null) {
+            visit(document, type.getKeyType());
+        }
+        if (type.getValueType() != null) {
+            visit(document, type.getValueType());
+        }
+        if (type.isReference()) {
+            reach(document, type.getName());
+        }
+    }
+
+    private void visit(ThriftDocument document, ConstValue value) {
+        if (value.getKind() == ConstKind.IDENTIFIER) {
+            // a constant, or the value of an enum like Operation.ADD
+            if (!reach(document, value.getText()) && value.getText().indexOf('.') > 0) {
+                reach(document, value.getText().substring(0, value.getText().lastIndexOf('.')));
+            }
+        }
+        for (ConstValue element : value.getElements()) {
+            visit(document, element);
+        }
+    }
+
+    /**
+     * Queues the definition {@code name} refers to, qualified with the program name of an included
+     * file or not.
+     *
+     * @return whether {@code name} refers to a definition.
+     */
+    private boolean reach(ThriftDocument document, String name) {
+        final int dot = name.indexOf('.');
+        ThriftDocument target = document;
+        String simpleName = name;
+        if (dot > 0) {
+            target = parsed.getIncludedDocuments(document.getFile()).get(name.substring(0, dot));
+            simpleName = name.substring(dot + 1);
+        }
+        final Definition definition = target == null ? null : target.getDefinition(simpleName);
+        if (definition == null) {
+            return false;
+        }
+        pending.add(new Reference(target, definition));
+        return true;
+    }
+
+    private static final class Reference {
+
+        private final ThriftDocument document;
+        private final Definition definition;
+
+        Reference(ThriftDocument document, Definition definition) {
+            this.document = document;
+            this.definition = definition;
+        }
+
+    }
+
+    /**
+     * The pruned thrift files and the thrift path they resolve their includes with.
+     */
+    static final class Pruned {
+
+        private final ImmutableSet<File> thriftFiles;
+        private final ImmutableList<File> thriftPath;
+
+        Pruned(ImmutableSet<File> thriftFiles, ImmutableList<File> thriftPath) {
+            this.thriftFiles = thriftFiles;
+            this.thriftPath = thriftPath;
+        }
+
+        ImmutableSet<File> getThriftFiles() {
+            return thriftFiles;
+        }
+
+        ImmutableList<File> getThriftPath() {
+            return thriftPath;
+        }
+
+    }
+
+}
@@ -2,33 +2,38 @@ package io.potter.thrift.maven;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 
 import java.io.File;
 import java.util.List;
 
 /**
- * @phase generate-test-sources
- * @goal testCompile
- * @requiresDependencyResolution test
+ * This mojo executes the {@code thrift} compiler for generating java test sources
+ * from thrift definitions in {@code src/test/thrift}, with the test dependencies
+ * on the thrift path.
  *
  * Created by Fucheng on 2018/04/05.
  */
+@Mojo(
+        name = "testCompile",
+        requiresDependencyResolution = ResolutionScope.TEST,
+        defaultPhase = LifecyclePhase.GENERATE_TEST_SOURCES
+)
 public final class ThriftTestCompileMojo extends AbstractThriftMojo {
 
     /**
      * The source directories containing the sources to be compiled.
-     *
-     * @parameter default-value="${basedir}/src/test/thrift"
-     * @required
      */
+    @Parameter(defaultValue = "${basedir}/src/test/thrift", required = true)
     private File thriftTestSourceRoot;
 
     /**
      * This is the directory into which the {@code .java} will be created.
-     *
-     * @parameter default-value="${project.build.directory}/generated-test-sources/thrift"
-     * @required
      */
+    @Parameter(defaultValue = "${project.build.directory}/generated-test-sources/thrift", required = true)
     private File outputDirectory;
 
     @Override
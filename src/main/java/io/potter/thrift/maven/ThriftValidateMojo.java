@@ -0,0 +1,27 @@
+package io.potter.thrift.maven;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+/**
+ * This mojo checks the thrift files and the files they include without running {@code thrift}:
+ * their syntax, their includes against the thrift path, include cycles and references to
+ * unknown types. It reports all problems at once, and needs neither {@code thriftExecutable}
+ * nor {@code thriftArtifact}.
+ *
+ * @author zhfchdev@gmail.com
+ */
+@Mojo(
+        name = "validate",
+        requiresDependencyResolution = ResolutionScope.COMPILE,
+        defaultPhase = LifecyclePhase.VALIDATE
+)
+public final class ThriftValidateMojo extends ThriftCompileMojo {
+
+    @Override
+    protected boolean validateOnly() {
+        return true;
+    }
+
+}
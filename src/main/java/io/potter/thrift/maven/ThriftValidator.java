@@ -0,0 +1,416 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.potter.thrift.maven.ThriftDocument.Definition;
+import io.potter.thrift.maven.ThriftDocument.EnumDefinition;
+import io.potter.thrift.maven.ThriftDocument.EnumValue;
+import io.potter.thrift.maven.ThriftDocument.Field;
+import io.potter.thrift.maven.ThriftDocument.Function;
+import io.potter.thrift.maven.ThriftDocument.Include;
+import io.potter.thrift.maven.ThriftDocument.Kind;
+import io.potter.thrift.maven.ThriftDocument.Service;
+import io.potter.thrift.maven.ThriftDocument.Struct;
+import io.potter.thrift.maven.ThriftDocument.Type;
+import io.potter.thrift.maven.ThriftDocument.Typedef;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Checks thrift files without running {@code thrift}: parses them and the files they include,
+ * resolving the includes against the thrift path like {@code thrift} does, and checks that the
+ * includes form no cycle, that every referenced type exists and that no name or field id is
+ * declared twice.</p>
+ *
+ * <p>All problems are collected, so that a single run reports all of them. The files are parsed
+ * in parallel, one wave of newly included files after the other.</p>
+ *
+ * @author zhfchdev@gmail.com
+ */
+final class ThriftValidator {
+
+    private final ImmutableList<File> thriftPath;
+    private final int threads;
+
+    /**
+     * @param thriftPath the directories passed to {@code thrift} with {@code -I}.
+     * @param threads    the number of files to parse at the same time.
+     */
+    ThriftValidator(List<File> thriftPath, int threads) {
+        this.thriftPath = ImmutableList.copyOf(thriftPath);
+        this.threads = threads;
+    }
+
+    /**
+     * Validates {@code thriftFiles} and the files they include.
+     */
+    Result validate(Set<File> thriftFiles) throws IOException {
+        final Map<File, ThriftDocument> documents = Maps.newLinkedHashMap();
+        final Map<File, Map<Include, File>> resolvedIncludes = Maps.newHashMap();
+        final List<Problem> problems = Lists.newArrayList();
+        Set<File> wave = Sets.newLinkedHashSet();
+        for (File thriftFile : thriftFiles) {
+            wave.add(thriftFile.getCanonicalFile());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("thrift-validate-%d").setDaemon(true).build());
+        try {
+            final Set<File> seen = Sets.newHashSet(wave);
+            while (!wave.isEmpty()) {
+                final Map<File, Future<ThriftDocument>> futures = Maps.newLinkedHashMap();
+                for (final File file : wave) {
+                    futures.put(file, executor.submit(new Callable<ThriftDocument>() {
+                        public ThriftDocument call() throws IOException, ThriftParser.SyntaxError {
+                            return ThriftParser.parse(file);
+                        }
+                    }));
+                }
+                final Set<File> nextWave = Sets.newLinkedHashSet();
+                for (Map.Entry<File, Future<ThriftDocument>> future : futures.entrySet()) {
+                    final File file = future.getKey();
+                    final ThriftDocument document;
+                    try {
+                        document = get(future.getValue());
+                    } catch (ThriftParser.SyntaxError e) {
+                        problems.add(new Problem(file, e.getLine(), e.getColumn() + ": " + e.getMessage()));
+                        continue;
+                    }
+                    documents.put(file, document);
+                    final Map<Include, File> includes = Maps.newLinkedHashMap();
+                    for (Include include : document.getIncludes()) {
+                        final File included = ThriftIncludes.resolve(include.getPath(), file, thriftPath);
+                        if (included == null) {
+                            problems.add(new Problem(file, include.getLine(),
+                                    "cannot find include '" + include.getPath() + "'"));
+                            continue;
+                        }
+                        final File canonicalIncluded = included.getCanonicalFile();
+                        includes.put(include, canonicalIncluded);
+                        if (seen.add(canonicalIncluded)) {
+                            nextWave.add(canonicalIncluded);
+                        }
+                    }
+                    resolvedIncludes.put(file, includes);
+                }
+                wave = nextWave;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while validating " + thriftFiles, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        findCycles(documents, resolvedIncludes, problems);
+        final Map<File, Map<String, ThriftDocument>> includedDocuments = Maps.newHashMap();
+        for (Map.Entry<File, ThriftDocument> document : documents.entrySet()) {
+            includedDocuments.put(document.getKey(), includedDocuments(document.getKey(), documents, resolvedIncludes));
+            new DocumentCheck(document.getValue(), includedDocuments.get(document.getKey()), problems).run();
+        }
+        return new Result(documents, includedDocuments, problems);
+    }
+
+    private static ThriftDocument get(Future<ThriftDocument> future)
+            throws IOException, ThriftParser.SyntaxError, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            Throwables.throwIfInstanceOf(cause, ThriftParser.SyntaxError.class);
+            Throwables.throwIfInstanceOf(cause, IOException.class);
+            Throwables.throwIfUnchecked(cause);
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return the included documents by program name, {@code null} for the includes that could not be
+     * found or parsed, as their problems are reported already.
+     */
+    private static Map<String, ThriftDocument> includedDocuments(File file, Map<File, ThriftDocument> documents,
+                                                                 Map<File, Map<Include, File>> resolvedIncludes) {
+        final Map<String, ThriftDocument> included = Maps.newHashMap();
+        for (Include include : documents.get(file).getIncludes()) {
+            final File includedFile = resolvedIncludes.get(file).get(include);
+            final String fileName = new File(include.getPath()).getName();
+            final int dot = fileName.lastIndexOf('.');
+            included.put(dot < 0 ? fileName : fileName.substring(0, dot),
+                    includedFile == null ? null : documents.get(includedFile));
+        }
+        return included;
+    }
+
+    private static void findCycles(Map<File, ThriftDocument> documents, Map<File, Map<Include, File>> resolvedIncludes,
+                                   List<Problem> problems) {
+        final Set<File> done = Sets.newHashSet();
+        for (File file : documents.keySet()) {
+            findCycles(file, Lists.<File>newArrayList(), done, documents, resolvedIncludes, problems);
+        }
+    }
+
+    private static void findCycles(File file, List<File> stack, Set<File> done, Map<File, ThriftDocument> documents,
+                                   Map<File, Map<Include, File>> resolvedIncludes, List<Problem> problems) {
+        if (done.contains(file) || !resolvedIncludes.containsKey(file)) {
+            return;
+        }
+        stack.add(file);
+        for (Map.Entry<Include, File> include : resolvedIncludes.get(file).entrySet()) {
+            final int index = stack.indexOf(include.getValue());
+            if (index >= 0) {
+                final List<String> names = Lists.newArrayList();
+                for (File cycleFile : stack.subList(index, stack.size())) {
+                    names.add(cycleFile.getName());
+                }
+                names.add(include.getValue().getName());
+                problems.add(new Problem(file, include.getKey().getLine(),
+                        "include cycle " + Joiner.on(" -> ").join(names)));
+            } else {
+                findCycles(include.getValue(), stack, done, documents, resolvedIncludes, problems);
+            }
+        }
+        stack.remove(stack.size() - 1);
+        done.add(file);
+    }
+
+    /**
+     * Checks the names and references of a single document.
+     */
+    private static final class DocumentCheck {
+
+        private final ThriftDocument document;
+        private final Map<String, ThriftDocument> includedDocuments;
+        private final List<Problem> problems;
+
+        DocumentCheck(ThriftDocument document, Map<String, ThriftDocument> includedDocuments, List<Problem> problems) {
+            this.document = document;
+            this.includedDocuments = includedDocuments;
+            this.problems = problems;
+        }
+
+        void run() {
+            final Set<String> names = Sets.newHashSet();
+            for (Definition definition : document.getDefinitions()) {
+                if (!names.add(definition.getName())) {
+                    problem(definition.getLine(), "'" + definition.getName() + "' is already defined");
+                }
+                switch (definition.getKind()) {
+                    case TYPEDEF:
+                        checkType(((Typedef) definition).getType());
+                        break;
+                    case CONST:
+                        checkType(((ThriftDocument.Const) definition).getType());
+                        break;
+                    case ENUM:
+                        checkEnum((EnumDefinition) definition);
+                        break;
+                    case SERVICE:
+                        checkService((Service) definition);
+                        break;
+                    default:
+                        checkFields(definition.getName(), ((Struct) definition).getFields(), false);
+                        break;
+                }
+            }
+        }
+
+        private void checkEnum(EnumDefinition definition) {
+            final Set<String> names = Sets.newHashSet();
+            for (EnumValue value : definition.getValues()) {
+                if (!names.add(value.getName())) {
+                    problem(value.getLine(), "'" + value.getName() + "' is already defined in " + definition.getName());
+                }
+            }
+        }
+
+        private void checkService(Service service) {
+            if (service.getExtendsName() != null && !isUnresolvable(service.getExtendsName())) {
+                final Definition extended = resolve(service.getExtendsName());
+                if (extended == null) {
+                    problem(service.getLine(), "unknown service '" + service.getExtendsName() + "'");
+                } else if (extended.getKind() != Kind.SERVICE) {
+                    problem(service.getLine(), "'" + service.getExtendsName() + "' is not a service");
+                }
+            }
+            final Set<String> names = Sets.newHashSet();
+            for (Function function : service.getFunctions()) {
+                if (!names.add(function.getName())) {
+                    problem(function.getLine(), "'" + function.getName() + "' is already defined in " + service.getName());
+                }
+                if (function.getReturnType() != null) {
+                    checkType(function.getReturnType());
+                }
+                checkFields(service.getName() + "." + function.getName(), function.getArguments(), false);
+                checkFields(service.getName() + "." + function.getName(), function.getExceptions(), true);
+            }
+        }
+
+        private void checkFields(String owner, List<Field> fields, boolean exceptions) {
+            final Set<String> names = Sets.newHashSet();
+            final Set<Integer> ids = Sets.newHashSet();
+            for (Field field : fields) {
+                if (!names.add(field.getName())) {
+                    problem(field.getLine(), "field '" + field.getName() + "' is already defined in " + owner);
+                }
+                if (!ids.add(field.getId())) {
+                    problem(field.getLine(), "field id " + field.getId() + " is already used in " + owner);
+                }
+                if (checkType(field.getType()) && exceptions) {
+                    final Definition definition = resolve(field.getType().getName());
+                    if (definition.getKind() != Kind.EXCEPTION) {
+                        problem(field.getLine(), "'" + field.getType() + "' is not an exception");
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return whether {@code type} is a reference to a known type.
+         */
+        private boolean checkType(Type type) {
+            if (type.isContainer()) {
+                if (type.getKeyType() != null) {
+                    checkType(type.getKeyType());
+                }
+                checkType(type.getValueType());
+                return false;
+            }
+            if (type.isBaseType()) {
+                return false;
+            }
+            if (isUnresolvable(type.getName())) {
+                return false;
+            }
+            final Definition definition = resolve(type.getName());
+            if (definition == null) {
+                problem(type.getLine(), "unknown type '" + type.getName() + "'");
+                return false;
+            }
+            if (definition.getKind() == Kind.SERVICE || definition.getKind() == Kind.CONST) {
+                problem(type.getLine(), "'" + type.getName() + "' is not a type");
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Resolves a name, qualified with the program name of an included file or not.
+         */
+        private Definition resolve(String name) {
+            final int dot = name.indexOf('.');
+            if (dot < 0) {
+                return document.getDefinition(name);
+            }
+            final ThriftDocument included = includedDocuments.get(name.substring(0, dot));
+            return included == null ? null : included.getDefinition(name.substring(dot + 1));
+        }
+
+        /**
+         * @return whether {@code name} refers to an included file that could not be found or parsed.
+         */
+        private boolean isUnresolvable(String name) {
+            final int dot = name.indexOf('.');
+            if (dot < 0) {
+                return false;
+            }
+            final String program = name.substring(0, dot);
+            return includedDocuments.containsKey(program) && includedDocuments.get(program) == null;
+        }
+
+        private void problem(int line, String message) {
+            problems.add(new Problem(document.getFile(), line, message));
+        }
+
+    }
+
+    /**
+     * A problem in a thrift file.
+     */
+    static final class Problem {
+
+        private final File file;
+        private final int line;
+        private final String message;
+
+        Problem(File file, int line, String message) {
+            this.file = file;
+            this.line = line;
+            this.message = message;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return file + ":" + line + ": " + message;
+        }
+
+    }
+
+    /**
+     * The parsed documents and the problems found.
+     */
+    static final class Result {
+
+        private final ImmutableMap<File, ThriftDocument> documents;
+        private final Map<File, Map<String, ThriftDocument>> includedDocuments;
+        private final ImmutableList<Problem> problems;
+
+        Result(Map<File, ThriftDocument> documents, Map<File, Map<String, ThriftDocument>> includedDocuments,
+               List<Problem> problems) {
+            this.documents = ImmutableMap.copyOf(documents);
+            this.includedDocuments = includedDocuments;
+            this.problems = ImmutableList.copyOf(problems);
+        }
+
+        /**
+         * @return the documents that could be parsed, by canonical file.
+         */
+        ImmutableMap<File, ThriftDocument> getDocuments() {
+            return documents;
+        }
+
+        /**
+         * @return the documents included by the document of {@code canonicalFile}, by program name,
+         * {@code null} for the includes that could not be found or parsed.
+         */
+        Map<String, ThriftDocument> getIncludedDocuments(File canonicalFile) {
+            final Map<String, ThriftDocument> included = includedDocuments.get(canonicalFile);
+            return included == null ? Collections.<String, ThriftDocument>emptyMap() : included;
+        }
+
+        ImmutableList<Problem> getProblems() {
+            return problems;
+        }
+
+        boolean isValid() {
+            return problems.isEmpty();
+        }
+
+    }
+
+}
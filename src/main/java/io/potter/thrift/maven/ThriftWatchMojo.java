@@ -0,0 +1,98 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * This mojo compiles the thrift files like the compile goal, then keeps watching the thrift
+ * source root and the additional thrift path elements, and compiles again whenever thrift
+ * files change, until it is interrupted. Only the changed thrift files and the files that
+ * include them are compiled again. The {@code thrift} executable and the thrift path derived
+ * from the dependencies are looked up once.
+ *
+ * @author zhfchdev@gmail.com
+ */
+@Mojo(
+        name = "watch",
+        requiresDependencyResolution = ResolutionScope.COMPILE
+)
+public final class ThriftWatchMojo extends ThriftCompileMojo {
+
+    /**
+     * How long to wait after a change before compiling, so that a burst of changes is compiled at once.
+     */
+    @Parameter(property = "thrift.watchQuietMillis", defaultValue = "200")
+    private long watchQuietMillis;
+
+    private boolean attached;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkParameters();
+        // a broken thrift file at startup is what the watch is there to fix
+        compileAndReport();
+        final ImmutableList<File> watchedDirectories = ImmutableList.<File>builder()
+                .add(getThriftSourceRoot())
+                .addAll(getAdditionalThriftPathElements())
+                .build();
+        try {
+            final DirectoryWatcher watcher = new DirectoryWatcher(watchedDirectories);
+            try {
+                getLog().info("Watching " + Joiner.on(", ").join(watchedDirectories) + " for changes.");
+                while (!Thread.currentThread().isInterrupted()) {
+                    final ImmutableSet<File> changes = watcher.awaitChanges(watchQuietMillis);
+                    getLog().info("Changed: " + Joiner.on(", ").join(changes));
+                    compileAndReport();
+                }
+            } finally {
+                watcher.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to watch " + watchedDirectories, e);
+        }
+    }
+
+    /**
+     * Compiles once, logging a failure instead of ending the watch: the next change may fix it.
+     */
+    private void compileAndReport() {
+        try {
+            compileOnce();
+        } catch (MojoFailureException e) {
+            getLog().error(e.getMessage());
+        } catch (MojoExecutionException e) {
+            // an unreadable dependency or a thrift that could not be started, fixed the same way
+            getLog().error(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    protected boolean retainDependencies() {
+        return true;
+    }
+
+    @Override
+    protected void attachFiles() throws IOException {
+        if (!attached) {
+            super.attachFiles();
+            attached = true;
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * tester for BuildCache
+ */
+public class BuildCacheTest {
+
+    private File testRootDir;
+    private File cacheDir;
+    private File generatedDir;
+    private File outputDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-build-cache-test");
+
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        } else {
+            Assert.assertTrue("Failed to create output directory for test: " + testRootDir.getPath(), testRootDir.mkdir());
+        }
+
+        cacheDir = new File(testRootDir, "cache");
+        generatedDir = new File(testRootDir, "generated");
+        outputDir = new File(testRootDir, "out");
+        write(new File(generatedDir, "shared/SharedService.java"), "class SharedService {}");
+        write(new File(generatedDir, "shared/SharedStruct.java"), "class SharedStruct {}");
+    }
+
+    @Test
+    public void testStoreAndRestore() throws Exception {
+        final BuildCache cache = new BuildCache(cacheDir, 1024 * 1024);
+        final String key = key("shared");
+        final List<String> paths = ImmutableList.of("shared/SharedService.java", "shared/SharedStruct.java");
+
+        Assert.assertNull(cache.restore(key, outputDir));
+        cache.store(key, generatedDir, paths);
+        Assert.assertEquals(paths, cache.restore(key, outputDir));
+        Assert.assertEquals("class SharedStruct {}",
+                Files.asCharSource(new File(outputDir, "shared/SharedStruct.java"), Charsets.UTF_8).read());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        final BuildCache cache = new BuildCache(cacheDir, 30);
+        final List<String> paths = ImmutableList.of("shared/SharedService.java");
+        cache.store(key("old"), generatedDir, paths);
+        cache.store(key("new"), generatedDir, paths);
+        Assert.assertTrue(new File(cacheDir, key("old") + ".entry").setLastModified(System.currentTimeMillis() - 60000));
+
+        Assert.assertEquals(1, cache.evict());
+        Assert.assertNull(cache.restore(key("old"), outputDir));
+        Assert.assertEquals(paths, cache.restore(key("new"), outputDir));
+        Assert.assertEquals(0, cache.evict());
+    }
+
+    @Test
+    public void testRejectEntryLeavingOutputDirectory() throws Exception {
+        final BuildCache cache = new BuildCache(cacheDir, 1024 * 1024);
+        final String key = key("hostile");
+        // what the entry would copy from, next to the cache directory
+        write(new File(testRootDir, "escaped.java"), "class Escaped {}");
+        FileUtils.forceMkdir(new File(cacheDir, key));
+        write(new File(cacheDir, key + ".entry"),
+                "# thrift-maven-plugin generated sources v1\n16\n../../escaped.java\n");
+
+        Assert.assertNull(cache.restore(key, outputDir));
+        Assert.assertFalse(new File(outputDir, "../../escaped.java").exists());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testKeepEntryBeingPublished() throws Exception {
+        final BuildCache cache = new BuildCache(cacheDir, 1024 * 1024);
+        final String key = key("shared");
+        final List<String> paths = ImmutableList.of("shared/SharedService.java");
+        // renamed into place by another build, which has not written the entry file yet
+        write(new File(cacheDir, key + "/shared/SharedService.java"), "class SharedService {}");
+
+        cache.store(key, generatedDir, paths);
+        Assert.assertTrue(new File(cacheDir, key + "/shared/SharedService.java").isFile());
+        Assert.assertEquals(ImmutableList.of(key), ImmutableList.copyOf(cacheDir.list()));
+
+        // but a directory left behind long ago is replaced
+        Assert.assertTrue(new File(cacheDir, key).setLastModified(System.currentTimeMillis() - 2 * 3600 * 1000));
+        cache.store(key, generatedDir, paths);
+        Assert.assertEquals(paths, cache.restore(key, outputDir));
+    }
+
+    private static String key(String content) {
+        return BuildCache.key("java", "thrift", Hashing.sha256().hashString(content, Charsets.UTF_8));
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.createParentDirs(file);
+        Files.asCharSink(file, Charsets.UTF_8).write(content);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+            Assert.assertTrue("Failed to delete output directory for test: " + testRootDir.getPath(), testRootDir.delete());
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for BuildMetrics
+ */
+public class BuildMetricsTest {
+
+    @Test
+    public void testCountersAndPhasesAccumulate() throws Exception {
+        final BuildMetrics metrics = new BuildMetrics();
+        metrics.increment("jarsScanned", 1);
+        metrics.increment("jarsScanned", 2);
+        metrics.recordPhase("thrift", System.nanoTime());
+        metrics.recordPhase("thrift", System.nanoTime());
+
+        Assert.assertEquals(Long.valueOf(3), metrics.getCounters().get("jarsScanned"));
+        Assert.assertEquals(ImmutableList.of("thrift"), metrics.getPhaseMillis().keySet().asList());
+    }
+
+    @Test
+    public void testWriteJson() throws Exception {
+        final BuildMetrics metrics = new BuildMetrics();
+        metrics.increment("filesCompiled", 1);
+        metrics.recordInvocations(ImmutableList.of(
+                new Thrift.Invocation(ImmutableList.of(new File("a\\\"b.thrift")), 12, 0)));
+
+        final File json = File.createTempFile("thrift-metrics", ".json");
+        try {
+            metrics.writeJson(json, "compile-default");
+            final String content = Files.asCharSource(json, Charsets.UTF_8).read();
+            Assert.assertTrue(content, content.contains("\"execution\": \"compile-default\""));
+            Assert.assertTrue(content, content.contains("\"filesCompiled\": 1, \"thriftInvocations\": 1"));
+            Assert.assertTrue(content, content.contains("[\"a\\\\\\\"b.thrift\"], \"millis\": 12, \"exitCode\": 0"));
+        } finally {
+            Assert.assertTrue(json.delete());
+        }
+    }
+
+}
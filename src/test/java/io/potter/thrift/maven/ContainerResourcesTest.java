@@ -0,0 +1,73 @@
+package io.potter.thrift.maven;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for ContainerResources
+ */
+public class ContainerResourcesTest {
+
+    private static final long MIB = 1024 * 1024;
+
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-container-resources-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        FileUtils.deleteDirectory(testRootDir);
+    }
+
+    @Test
+    public void testNoLimits() throws Exception {
+        final ContainerResources resources = new ContainerResources(testRootDir, 8, 512 * MIB);
+        Assert.assertEquals(-1, resources.getCpuLimit());
+        Assert.assertEquals(-1, resources.getMemoryLimit());
+        Assert.assertEquals(8, resources.getCompileThreads());
+
+        FileUtils.fileWrite(new File(testRootDir, "cpu.max"), "UTF-8", "max 100000\n");
+        FileUtils.fileWrite(new File(testRootDir, "memory.max"), "UTF-8", "max\n");
+        Assert.assertEquals(8, resources.getCompileThreads());
+    }
+
+    @Test
+    public void testCgroupV2() throws Exception {
+        FileUtils.fileWrite(new File(testRootDir, "cpu.max"), "UTF-8", "250000 100000\n");
+        final ContainerResources resources = new ContainerResources(testRootDir, 16, 512 * MIB);
+        Assert.assertEquals(3, resources.getCpuLimit());
+        Assert.assertEquals(3, resources.getCompileThreads());
+
+        // 1 GiB leaves room for 4 thrift processes next to the build
+        FileUtils.fileWrite(new File(testRootDir, "memory.max"), "UTF-8", (1024 * MIB) + "\n");
+        Assert.assertEquals(2, new ContainerResources(testRootDir, 16, 768 * MIB).getCompileThreads());
+        Assert.assertEquals(1, new ContainerResources(testRootDir, 16, 1024 * MIB).getCompileThreads());
+    }
+
+    @Test
+    public void testCgroupV1() throws Exception {
+        FileUtils.forceMkdir(new File(testRootDir, "cpu"));
+        FileUtils.forceMkdir(new File(testRootDir, "memory"));
+        FileUtils.fileWrite(new File(testRootDir, "cpu/cpu.cfs_quota_us"), "UTF-8", "-1\n");
+        FileUtils.fileWrite(new File(testRootDir, "cpu/cpu.cfs_period_us"), "UTF-8", "100000\n");
+        FileUtils.fileWrite(new File(testRootDir, "memory/memory.limit_in_bytes"), "UTF-8", "9223372036854771712\n");
+        Assert.assertEquals(4, new ContainerResources(testRootDir, 4, 512 * MIB).getCompileThreads());
+
+        FileUtils.fileWrite(new File(testRootDir, "cpu/cpu.cfs_quota_us"), "UTF-8", "200000\n");
+        Assert.assertEquals(2, new ContainerResources(testRootDir, 4, 512 * MIB).getCompileThreads());
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+/**
+ * tester for ContentStore
+ */
+public class ContentStoreTest {
+
+    private File testRootDir;
+    private File storeDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-content-store-test");
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+        storeDir = new File(testRootDir, "store");
+    }
+
+    @Test
+    public void testWriteEachContentOnce() throws Exception {
+        final ContentStore store = new ContentStore(storeDir);
+        final File first = new File(testRootDir, "a/idl/common.thrift");
+        final File second = new File(testRootDir, "b/idl/common.thrift");
+        store.materialize(stream("struct Common {}\n"), first);
+        store.materialize(stream("struct Common {}\n"), second);
+        store.materialize(stream("struct Other {}\n"), new File(testRootDir, "b/idl/other.thrift"));
+
+        Assert.assertEquals(2, store.getBlobsWritten());
+        Assert.assertEquals(3, store.getLinked() + store.getCopied());
+        Assert.assertEquals("struct Common {}\n", FileUtils.fileRead(second, "UTF-8"));
+    }
+
+    @Test
+    public void testReplaceExistingFile() throws Exception {
+        final ContentStore store = new ContentStore(storeDir);
+        final File target = new File(testRootDir, "a/idl/common.thrift");
+        store.materialize(stream("struct Common {}\n"), target);
+        store.materialize(stream("struct Changed {}\n"), target);
+
+        Assert.assertEquals("struct Changed {}\n", FileUtils.fileRead(target, "UTF-8"));
+        // the first blob is left alone
+        Assert.assertEquals(2, store.getBlobsWritten());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(Charsets.UTF_8));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * tester for DependencyIdlCache
+ */
+public class DependencyIdlCacheTest {
+
+    private File testRootDir;
+    private File cacheDir;
+    private File jar;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-dependency-idl-cache-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+        cacheDir = new File(testRootDir, "cache");
+        jar = new File(testRootDir, "idl.jar");
+        writeJar(jar, "idl/common.thrift", "struct Common {}\n");
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        final DependencyIdlCache cache = new DependencyIdlCache(cacheDir, false, null);
+        final ImmutableSet<File> extracted = cache.getOrExtract(jar);
+        Assert.assertEquals(1, extracted.size());
+        Assert.assertTrue(new File(extracted.iterator().next(), "common.thrift").isFile());
+        Assert.assertEquals(1, cache.getMisses());
+
+        // another build sharing the cache directory
+        final DependencyIdlCache nextBuild = new DependencyIdlCache(cacheDir, false, null);
+        Assert.assertEquals(extracted, nextBuild.getOrExtract(jar));
+        Assert.assertEquals(1, nextBuild.getHits());
+        Assert.assertEquals(0, nextBuild.getMisses());
+        Assert.assertEquals(0, nextBuild.getExtractedBytes());
+    }
+
+    @Test
+    public void testInvalidateRewrittenJar() throws Exception {
+        final DependencyIdlCache cache = new DependencyIdlCache(cacheDir, false, null);
+        final ImmutableSet<File> extracted = cache.getOrExtract(jar);
+
+        writeJar(jar, "idl/common.thrift", "struct Common {\n  1: string name\n}\n");
+        Assert.assertTrue(jar.setLastModified(jar.lastModified() + 10000));
+        Assert.assertNull(cache.get(jar));
+        final ImmutableSet<File> reextracted = cache.getOrExtract(jar);
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertFalse(extracted.equals(reextracted));
+        Assert.assertEquals("struct Common {\n  1: string name\n}\n",
+                Files.asCharSource(new File(reextracted.iterator().next(), "common.thrift"), Charsets.UTF_8).read());
+    }
+
+    @Test
+    public void testIndexedOnly() throws Exception {
+        final DependencyIdlCache indexedOnly = new DependencyIdlCache(cacheDir, true, null);
+        // the jar has no index, so it is cached as holding no thrift file
+        Assert.assertEquals(ImmutableSet.<File>of(), indexedOnly.getOrExtract(jar));
+        Assert.assertEquals(ImmutableSet.<File>of(), indexedOnly.getOrExtract(jar));
+        Assert.assertEquals(1, indexedOnly.getHits());
+
+        // but not for the builds extracting every jar, which share the cache directory
+        final DependencyIdlCache all = new DependencyIdlCache(cacheDir, false, null);
+        Assert.assertNull(all.get(jar));
+        Assert.assertEquals(1, all.getOrExtract(jar).size());
+        Assert.assertEquals(ImmutableSet.<File>of(), indexedOnly.get(jar));
+    }
+
+    private static void writeJar(File jar, String entryName, String content) throws Exception {
+        final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry(entryName));
+            out.write(content.getBytes(Charsets.UTF_8));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
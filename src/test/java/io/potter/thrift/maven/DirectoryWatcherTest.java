@@ -0,0 +1,65 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for DirectoryWatcher
+ */
+public class DirectoryWatcherTest {
+
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-directory-watcher-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        Assert.assertTrue(new File(testRootDir, "thrift/nested").mkdirs());
+    }
+
+    @Test
+    public void testReportBurstOfChanges() throws Exception {
+        final File thriftRoot = new File(testRootDir, "thrift");
+        final DirectoryWatcher watcher = new DirectoryWatcher(ImmutableList.of(thriftRoot));
+        try {
+            final Thread writer = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        FileUtils.fileWrite(new File(thriftRoot, "README.md"), "UTF-8", "ignored\n");
+                        FileUtils.fileWrite(new File(thriftRoot, "nested/a.thrift"), "UTF-8", "struct A {}\n");
+                        Thread.sleep(50);
+                        FileUtils.fileWrite(new File(thriftRoot, "b.thrift"), "UTF-8", "struct B {}\n");
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            writer.start();
+            final ImmutableSet<File> changes = watcher.awaitChanges(1000);
+            writer.join();
+            Assert.assertEquals(ImmutableSet.of(new File(thriftRoot, "nested/a.thrift"), new File(thriftRoot, "b.thrift")),
+                    changes);
+        } finally {
+            watcher.close();
+        }
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for DuplicateThriftPathElements
+ */
+public class DuplicateThriftPathElementsTest {
+
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-duplicate-path-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+    }
+
+    @Test
+    public void testFindDuplicates() throws Exception {
+        final File first = write("v1/common.thrift", "struct Common {}\n");
+        final File second = write("v2/common.thrift", "struct Common {}\n");
+        final File changed = write("v3/common.thrift", "struct Common { 1: i32 id }\n");
+        final File renamed = write("v4/other.thrift", "struct Common {}\n");
+        final File empty = new File(testRootDir, "empty");
+        Assert.assertTrue(empty.mkdirs());
+
+        Assert.assertEquals(ImmutableMap.of(second, first),
+                DuplicateThriftPathElements.find(ImmutableList.of(empty, first, second, changed, renamed), 2));
+    }
+
+    private File write(String path, String content) throws Exception {
+        final File file = new File(testRootDir, path);
+        FileUtils.forceMkdir(file.getParentFile());
+        FileUtils.fileWrite(file, "UTF-8", content);
+        return file.getParentFile();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * tester for ExtractedDependencies
+ */
+public class ExtractedDependenciesTest {
+
+    private File testRootDir;
+    private File extractDir;
+    private File jar;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-extracted-dependencies-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        extractDir = new File(testRootDir, "thrift-dependencies");
+        Assert.assertTrue(extractDir.mkdirs());
+        jar = new File(testRootDir, "idl.jar");
+        final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry("idl/common.thrift"));
+            out.write("struct Common {}\n".getBytes(Charsets.UTF_8));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testReuseUnchangedJar() throws Exception {
+        final ExtractedDependencies compile = ExtractedDependencies.open(extractDir, false, null);
+        final ImmutableSet<File> extracted = compile.getOrExtract(jar, "idl");
+        compile.write();
+        Assert.assertEquals(ImmutableSet.of(new File(extractDir, "idl/idl")), extracted);
+        Assert.assertEquals(1, compile.getExtracted());
+
+        final ExtractedDependencies testCompile = ExtractedDependencies.open(extractDir, false, null);
+        Assert.assertEquals(extracted, testCompile.getOrExtract(jar, "idl"));
+        Assert.assertEquals(1, testCompile.getReused());
+        Assert.assertEquals(0, testCompile.getExtracted());
+    }
+
+    @Test
+    public void testExtractChangedJarAgain() throws Exception {
+        final ExtractedDependencies compile = ExtractedDependencies.open(extractDir, false, null);
+        compile.getOrExtract(jar, "idl");
+        compile.write();
+        Assert.assertTrue(jar.setLastModified(jar.lastModified() - 10000));
+
+        final ExtractedDependencies testCompile = ExtractedDependencies.open(extractDir, false, null);
+        testCompile.getOrExtract(jar, "idl");
+        Assert.assertEquals(0, testCompile.getReused());
+        Assert.assertEquals(1, testCompile.getExtracted());
+    }
+
+    @Test
+    public void testCleanWithoutIndex() throws Exception {
+        final File stale = new File(extractDir, "stale/stale.thrift");
+        FileUtils.forceMkdir(stale.getParentFile());
+        Assert.assertTrue(stale.createNewFile());
+
+        ExtractedDependencies.open(extractDir, false, null);
+        Assert.assertFalse("stale file was not removed", stale.exists());
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
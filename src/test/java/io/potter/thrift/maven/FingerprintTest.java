@@ -0,0 +1,105 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.FileWriteMode;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * tester for Fingerprint
+ */
+public class FingerprintTest {
+
+    private File testRootDir;
+    private File idlDir;
+    private Set<File> thriftFiles;
+    private List<File> thriftPath;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-fingerprint-test");
+
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        } else {
+            Assert.assertTrue("Failed to create output directory for test: " + testRootDir.getPath(), testRootDir.mkdir());
+        }
+
+        idlDir = new File(testRootDir, "idl");
+        FileUtils.copyDirectory(new File("src/test/resources/idl"), idlDir);
+        thriftFiles = ImmutableSet.of(new File(idlDir, "shared.thrift"), new File(idlDir, "tutorial.thrift"));
+        thriftPath = ImmutableList.of(idlDir);
+    }
+
+    @Test
+    public void testStableAcrossTouch() throws Exception {
+        final Fingerprint fingerprint = compute("java");
+        for (File thriftFile : thriftFiles) {
+            Assert.assertTrue(thriftFile.setLastModified(System.currentTimeMillis() + 10000));
+        }
+        Assert.assertEquals(fingerprint, compute("java"));
+        Assert.assertTrue(fingerprint.differences(compute("java")).isEmpty());
+    }
+
+    @Test
+    public void testContentAndGeneratorChanges() throws Exception {
+        final Fingerprint fingerprint = compute("java");
+        Assert.assertEquals(ImmutableList.of("generator"), fingerprint.differences(compute("java:hashcode")));
+
+        Files.asCharSink(new File(idlDir, "shared.thrift"), Charsets.UTF_8, FileWriteMode.APPEND).write("\n");
+        Assert.assertEquals(ImmutableList.of("includePath", "sources"), fingerprint.differences(compute("java")));
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final File fingerprintFile = new File(testRootDir, "thrift.fingerprint");
+        Assert.assertNull(Fingerprint.read(fingerprintFile));
+
+        final Fingerprint fingerprint = compute("java");
+        fingerprint.write(fingerprintFile, new File(testRootDir, "generated"));
+        Assert.assertEquals(fingerprint, Fingerprint.read(fingerprintFile));
+    }
+
+    @Test
+    public void testMissingOutput() throws Exception {
+        final File fingerprintFile = new File(testRootDir, "thrift.fingerprint");
+        final File outputDir = new File(testRootDir, "generated");
+        final File generatedFile = new File(outputDir, "shared/SharedStruct.java");
+        FileUtils.forceMkdir(generatedFile.getParentFile());
+        FileUtils.fileWrite(generatedFile, "UTF-8", "class SharedStruct {}");
+        compute("java").write(fingerprintFile, outputDir);
+        Assert.assertTrue(Fingerprint.read(fingerprintFile).isOutputPresent(outputDir));
+
+        Assert.assertTrue(generatedFile.delete());
+        Assert.assertFalse(Fingerprint.read(fingerprintFile).isOutputPresent(outputDir));
+        FileUtils.deleteDirectory(outputDir);
+        Assert.assertFalse(Fingerprint.read(fingerprintFile).isOutputPresent(outputDir));
+        // nothing was generated, or the directory was emptied before the fingerprint was written
+        compute("java").write(fingerprintFile, outputDir);
+        Assert.assertFalse(Fingerprint.read(fingerprintFile).isOutputPresent(outputDir));
+    }
+
+    private Fingerprint compute(String generator) throws Exception {
+        return Fingerprint.compute(thriftFiles, thriftPath, "thrift", generator, 2);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+            Assert.assertTrue("Failed to delete output directory for test: " + testRootDir.getPath(), testRootDir.delete());
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.potter.thrift.maven;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for GeneratedSourceNormalizer
+ */
+public class GeneratedSourceNormalizerTest {
+
+    private static final String SOURCE = "package tutorial;\n"
+            + "@SuppressWarnings({\"cast\", \"rawtypes\", \"serial\", \"unchecked\", \"unused\"})\n"
+            + "@javax.annotation.Generated(value = \"Autogenerated by Thrift Compiler (0.11.0)\", date = \"2018-04-05\")\n"
+            + "public class Work {}\n";
+
+    private File testRootDir;
+    private File javaFile;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-normalizer-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        javaFile = new File(testRootDir, "tutorial/Work.java");
+        FileUtils.forceMkdir(javaFile.getParentFile());
+        FileUtils.fileWrite(javaFile, "UTF-8", SOURCE);
+    }
+
+    @Test
+    public void testRemoveDate() throws Exception {
+        final GeneratedSourceNormalizer normalizer = new GeneratedSourceNormalizer(null, 2);
+        normalizer.normalize(testRootDir);
+        Assert.assertEquals(SOURCE.replace(", date = \"2018-04-05\"", ""), FileUtils.fileRead(javaFile, "UTF-8"));
+        Assert.assertEquals(1, normalizer.getNormalized());
+    }
+
+    @Test
+    public void testPinDate() throws Exception {
+        final GeneratedSourceNormalizer normalizer = new GeneratedSourceNormalizer("2000-01-01", 2);
+        normalizer.normalize(testRootDir);
+        normalizer.normalize(testRootDir);
+        Assert.assertEquals(SOURCE.replace("2018-04-05", "2000-01-01"), FileUtils.fileRead(javaFile, "UTF-8"));
+        // already normalized files are left alone
+        Assert.assertEquals(1, normalizer.getNormalized());
+    }
+
+    @Test
+    public void testKeepLineSeparatorsAndBody() throws Exception {
+        final String source = SOURCE.replace("\n", "\r\n").replace("{}", "{\r\n  int work;\r\n}");
+        FileUtils.fileWrite(javaFile, "UTF-8", source);
+        new GeneratedSourceNormalizer("2000-01-01", 1).normalize(testRootDir);
+        Assert.assertEquals(source.replace("2018-04-05", "2000-01-01"), FileUtils.fileRead(javaFile, "UTF-8"));
+        // no temporary file is left behind
+        Assert.assertEquals(1, javaFile.getParentFile().list().length);
+    }
+
+    @Test
+    public void testSkipFileWithoutAnnotation() throws Exception {
+        final String source = "package tutorial;\npublic enum Operation {\n  ADD;\n}\n"
+                + "// @javax.annotation.Generated(value = \"x\", date = \"2018-04-05\")\n";
+        FileUtils.fileWrite(javaFile, "UTF-8", source);
+        final GeneratedSourceNormalizer normalizer = new GeneratedSourceNormalizer(null, 1);
+        normalizer.normalize(testRootDir);
+        Assert.assertEquals(source, FileUtils.fileRead(javaFile, "UTF-8"));
+        Assert.assertEquals(0, normalizer.getNormalized());
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * tester for IdlIndex
+ */
+public class IdlIndexTest {
+
+    private File testRootDir;
+    private File sourceDir;
+    private File extractDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-idl-index-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        sourceDir = new File(testRootDir, "thrift");
+        Assert.assertTrue(new File(sourceDir, "idl").mkdirs());
+        FileUtils.fileWrite(new File(sourceDir, "idl/common.thrift"), "UTF-8", "struct Common {}\n");
+        extractDir = new File(testRootDir, "extracted");
+    }
+
+    @Test
+    public void testExtractFromIndex() throws Exception {
+        final File indexFile = new File(testRootDir, "index/" + IdlIndex.ENTRY_NAME);
+        final ImmutableMap<String, String> entries = IdlIndex.write(sourceDir, indexFile);
+        Assert.assertEquals(ImmutableList.of("idl/common.thrift"), entries.keySet().asList());
+
+        // a thrift file left out of the index is not looked for
+        final File jar = writeJar("indexed.jar", indexFile, "idl/common.thrift", "idl/unlisted.thrift");
+        Assert.assertEquals(ImmutableList.of("idl/common.thrift"), ThriftJarExtractor.extract(jar, extractDir, true, null));
+        Assert.assertFalse(new File(extractDir, "idl/unlisted.thrift").exists());
+    }
+
+    @Test
+    public void testSkipJarWithoutIndex() throws Exception {
+        final File jar = writeJar("plain.jar", null, "idl/common.thrift");
+        Assert.assertTrue(ThriftJarExtractor.listThriftEntries(jar, true).isEmpty());
+        Assert.assertEquals(ImmutableList.of("idl/common.thrift"), ThriftJarExtractor.listThriftEntries(jar, false).keySet().asList());
+    }
+
+    @Test
+    public void testEnumerateJarWithStaleIndex() throws Exception {
+        final File indexFile = new File(testRootDir, "index/" + IdlIndex.ENTRY_NAME);
+        IdlIndex.write(sourceDir, indexFile);
+        final File jar = writeJar("stale.jar", indexFile, "idl/other.thrift");
+        Assert.assertEquals(ImmutableList.of("idl/other.thrift"),
+                ThriftJarExtractor.listThriftEntries(jar, true).keySet().asList());
+    }
+
+    @Test
+    public void testRejectTamperedEntry() throws Exception {
+        final File indexFile = new File(testRootDir, "index/" + IdlIndex.ENTRY_NAME);
+        // the index is built, the packaged file changes afterwards
+        FileUtils.fileWrite(new File(sourceDir, "idl/common.thrift"), "UTF-8", "struct Tampered {}\n");
+        IdlIndex.write(sourceDir, indexFile);
+        final File jar = writeJar("tampered.jar", indexFile, "idl/common.thrift");
+        try {
+            ThriftJarExtractor.extract(jar, extractDir, true, null);
+            Assert.fail("the tampered entry is extracted");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("idl/common.thrift"));
+        }
+        Assert.assertFalse(new File(extractDir, "idl/common.thrift").exists());
+    }
+
+    @Test
+    public void testSkipEntriesLeavingTargetDirectory() throws Exception {
+        final File indexFile = new File(testRootDir, "index/" + IdlIndex.ENTRY_NAME);
+        FileUtils.forceMkdir(indexFile.getParentFile());
+        FileUtils.fileWrite(indexFile, "UTF-8", "# thrift-maven-plugin idl index v1\n../escaped.thrift\t"
+                + Hashing.sha256().hashString("struct Common {}\n", Charsets.UTF_8) + "\n");
+        final File jar = writeJar("escaping.jar", indexFile, "../escaped.thrift", "idl/common.thrift");
+
+        // the index is not trusted, and the escaping entry is left out
+        Assert.assertEquals(ImmutableList.of("idl/common.thrift"),
+                ThriftJarExtractor.extract(jar, extractDir, true, null));
+        Assert.assertFalse(new File(testRootDir, "escaped.thrift").exists());
+    }
+
+    private File writeJar(String name, File indexFile, String... thriftEntries) throws Exception {
+        final File jar = new File(testRootDir, name);
+        final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            if (indexFile != null) {
+                out.putNextEntry(new ZipEntry(IdlIndex.ENTRY_NAME));
+                out.write(Files.toByteArray(indexFile));
+                out.closeEntry();
+            }
+            for (String thriftEntry : thriftEntries) {
+                out.putNextEntry(new ZipEntry(thriftEntry));
+                out.write("struct Common {}\n".getBytes(Charsets.UTF_8));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * tester for IncludeDrivenExtractor
+ */
+public class IncludeDrivenExtractorTest {
+
+    private File testRootDir;
+    private File sourceDir;
+    private File extractDir;
+    private File jar;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-include-driven-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        sourceDir = new File(testRootDir, "src");
+        extractDir = new File(testRootDir, "thrift-dependencies");
+        Assert.assertTrue(sourceDir.mkdirs());
+        jar = new File(testRootDir, "idl.jar");
+        final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            putEntry(out, "unused/unused.thrift", "struct Unused {}\n");
+            putEntry(out, "idl/common.thrift", "include \"base.thrift\"\nstruct Common {}\n");
+            putEntry(out, "idl/base.thrift", "struct Base {}\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void putEntry(ZipOutputStream out, String name, String content) throws Exception {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(Charsets.UTF_8));
+        out.closeEntry();
+    }
+
+    @Test
+    public void testExtractIncludedFilesOnly() throws Exception {
+        final File source = new File(sourceDir, "service.thrift");
+        FileUtils.fileWrite(source, "UTF-8", "include \"common.thrift\"\nservice Service {}\n");
+
+        final IncludeDrivenExtractor extractor = IncludeDrivenExtractor.index(extractDir,
+                ImmutableList.of(jar), ImmutableMap.of(jar, "jar"), false, null);
+        final ImmutableSet<File> thriftPath = extractor.extract(ImmutableSet.of(source),
+                ImmutableList.of(sourceDir), ImmutableList.<File>of());
+
+        Assert.assertEquals(ImmutableSet.of(new File(extractDir, "jar/idl/")), thriftPath);
+        Assert.assertEquals(3, extractor.getIndexedFiles());
+        Assert.assertEquals(2, extractor.getExtractedFiles());
+        Assert.assertTrue(new File(extractDir, "jar/idl/base.thrift").isFile());
+        Assert.assertFalse(new File(extractDir, "jar/unused").exists());
+    }
+
+    @Test
+    public void testSourcePathComesFirst() throws Exception {
+        final File source = new File(sourceDir, "service.thrift");
+        FileUtils.fileWrite(source, "UTF-8", "include \"common.thrift\"\nservice Service {}\n");
+        FileUtils.fileWrite(new File(sourceDir, "common.thrift"), "UTF-8", "struct Common {}\n");
+
+        final IncludeDrivenExtractor extractor = IncludeDrivenExtractor.index(extractDir,
+                ImmutableList.of(jar), ImmutableMap.of(jar, "jar"), false, null);
+        Assert.assertTrue(extractor.extract(ImmutableSet.of(source),
+                ImmutableList.of(sourceDir), ImmutableList.<File>of()).isEmpty());
+        Assert.assertEquals(0, extractor.getExtractedFiles());
+    }
+
+    @Test
+    public void testNormalize() {
+        Assert.assertEquals("a/c.thrift", IncludeDrivenExtractor.normalize("a/b/../c.thrift"));
+        Assert.assertEquals("c.thrift", IncludeDrivenExtractor.normalize("./c.thrift"));
+        Assert.assertNull(IncludeDrivenExtractor.normalize("../c.thrift"));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.FileWriteMode;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * tester for IncrementalState
+ */
+public class IncrementalStateTest {
+
+    private File testRootDir;
+    private File idlDir;
+    private File outputDir;
+    private File sharedThrift;
+    private File tutorialThrift;
+    private List<File> thriftPath;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-incremental-test");
+
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        } else {
+            Assert.assertTrue("Failed to create output directory for test: " + testRootDir.getPath(), testRootDir.mkdir());
+        }
+
+        idlDir = new File(testRootDir, "idl");
+        outputDir = new File(testRootDir, "out");
+        Assert.assertTrue(outputDir.mkdir());
+        FileUtils.copyDirectory(new File("src/test/resources/idl"), idlDir);
+        sharedThrift = new File(idlDir, "shared.thrift");
+        tutorialThrift = new File(idlDir, "tutorial.thrift");
+        thriftPath = ImmutableList.of(idlDir);
+    }
+
+    @Test
+    public void testParseIncludes() throws Exception {
+        Assert.assertEquals(ImmutableList.of("shared.thrift"), ThriftIncludes.parse(tutorialThrift));
+        Assert.assertEquals(ImmutableList.of(), ThriftIncludes.parse(sharedThrift));
+        Assert.assertEquals(ImmutableList.of("b.thrift"), ThriftIncludes.parse(
+                "# include \"a.thrift\"\n/* include \"c.thrift\"\n*/ include 'b.thrift'\nconst string X = \"#\"\n"));
+        Assert.assertEquals(sharedThrift, ThriftIncludes.resolve("shared.thrift", tutorialThrift, thriftPath));
+        Assert.assertNull(ThriftIncludes.resolve("missing.thrift", tutorialThrift, thriftPath));
+    }
+
+    @Test
+    public void testUnchangedSourcesAreNotStale() throws Exception {
+        final IncrementalState previous = scan(sharedThrift, tutorialThrift);
+        final IncrementalState current = scan(sharedThrift, tutorialThrift);
+
+        Assert.assertTrue(current.staleSources(previous, outputDir).isEmpty());
+    }
+
+    @Test
+    public void testChangedIncludeMakesIncludersStale() throws Exception {
+        final IncrementalState previous = scan(sharedThrift, tutorialThrift);
+        Files.asCharSink(sharedThrift, Charsets.UTF_8, FileWriteMode.APPEND).write("\n");
+        final IncrementalState current = scan(sharedThrift, tutorialThrift);
+
+        Assert.assertEquals(ImmutableSet.of(sharedThrift, tutorialThrift), current.staleSources(previous, outputDir));
+    }
+
+    @Test
+    public void testChangedIncluderLeavesIncludeAlone() throws Exception {
+        final IncrementalState previous = scan(sharedThrift, tutorialThrift);
+        Files.asCharSink(tutorialThrift, Charsets.UTF_8, FileWriteMode.APPEND).write("\n");
+        final IncrementalState current = scan(sharedThrift, tutorialThrift);
+
+        Assert.assertEquals(ImmutableSet.of(tutorialThrift), current.staleSources(previous, outputDir));
+    }
+
+    @Test
+    public void testRemovedAndMissingOutputs() throws Exception {
+        final IncrementalState previous = scan(sharedThrift, tutorialThrift);
+        previous.setGeneratedFiles(sharedThrift, ImmutableList.of("shared/SharedService.java"));
+        final IncrementalState current = scan(sharedThrift);
+
+        Assert.assertEquals(ImmutableSet.of(sharedThrift), current.staleSources(previous, outputDir));
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final File stateFile = new File(testRootDir, "state/compile.state");
+        final IncrementalState state = scan(sharedThrift, tutorialThrift);
+        state.setGeneratedFiles(tutorialThrift, ImmutableList.of("tutorial/Calculator.java", "tutorial/Work.java"));
+        state.write(stateFile);
+
+        final IncrementalState read = IncrementalState.read(stateFile);
+        Assert.assertNotNull(read);
+        Assert.assertEquals("thrift --gen java", read.getConfiguration());
+        Assert.assertEquals(ImmutableSet.of("tutorial/Calculator.java", "tutorial/Work.java"),
+                read.getGeneratedFiles(tutorialThrift));
+        Assert.assertTrue(scan(sharedThrift, tutorialThrift).staleSources(read, outputDir).contains(tutorialThrift));
+    }
+
+    private IncrementalState scan(File... sources) throws Exception {
+        return IncrementalState.scan("thrift --gen java", ImmutableSet.copyOf(sources), thriftPath);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+            Assert.assertTrue("Failed to delete output directory for test: " + testRootDir.getPath(), testRootDir.delete());
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.potter.thrift.maven;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for InstalledExecutable
+ */
+public class InstalledExecutableTest {
+
+    private static final String ARTIFACT_SPEC = "org.apache.thrift:thrift:0.11.0-SNAPSHOT:exe:linux-x86_64";
+
+    private File testRootDir;
+    private File executable;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-installed-executable-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+        executable = new File(testRootDir, "thrift-0.11.0-SNAPSHOT-linux-x86_64.exe");
+        FileUtils.fileWrite(executable, "UTF-8", "#!/bin/sh\nexit 0\n");
+    }
+
+    @Test
+    public void testFindRecordedExecutable() throws Exception {
+        Assert.assertNull(InstalledExecutable.find(testRootDir, ARTIFACT_SPEC, Long.MAX_VALUE));
+        InstalledExecutable.record(testRootDir, ARTIFACT_SPEC, executable, executable);
+        Assert.assertEquals(executable, InstalledExecutable.find(testRootDir, ARTIFACT_SPEC, Long.MAX_VALUE));
+        // too old to be used without resolving the snapshot again
+        Assert.assertNull(InstalledExecutable.find(testRootDir, ARTIFACT_SPEC, -1));
+    }
+
+    @Test
+    public void testIgnoreModifiedExecutable() throws Exception {
+        InstalledExecutable.record(testRootDir, ARTIFACT_SPEC, executable, executable);
+        FileUtils.fileWrite(executable, "UTF-8", "#!/bin/sh\nexit 1\n");
+        Assert.assertNull(InstalledExecutable.find(testRootDir, ARTIFACT_SPEC, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testIgnoreExecutableNotMatchingArtifact() throws Exception {
+        final File artifactFile = new File(testRootDir, "repository/thrift-0.11.0-SNAPSHOT-linux-x86_64.exe");
+        FileUtils.forceMkdir(artifactFile.getParentFile());
+        FileUtils.fileWrite(artifactFile, "UTF-8", "#!/bin/sh\nexit 1\n");
+        // a stale executable is never recorded as the installed one of the artifact
+        InstalledExecutable.record(testRootDir, ARTIFACT_SPEC, executable, artifactFile);
+        Assert.assertNull(InstalledExecutable.find(testRootDir, ARTIFACT_SPEC, Long.MAX_VALUE));
+        FileUtils.copyFile(artifactFile, executable);
+        Assert.assertEquals(executable, InstalledExecutable.find(testRootDir, ARTIFACT_SPEC, Long.MAX_VALUE));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
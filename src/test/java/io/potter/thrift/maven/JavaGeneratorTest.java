@@ -0,0 +1,155 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * tester for JavaGenerator
+ */
+public class JavaGeneratorTest {
+
+    private static final String GOLDEN_DATE = "2018-04-05";
+
+    private final File idlDir = new File("src/test/resources/idl");
+    private final File goldenDir = new File("src/test/resources/golden/java");
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-java-generator-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        FileUtils.deleteDirectory(testRootDir);
+    }
+
+    @Test
+    public void testGoldenFiles() throws Exception {
+        final File tutorial = new File(idlDir, "tutorial.thrift");
+        final File shared = new File(idlDir, "shared.thrift");
+        final ThriftValidator.Result parsed = new ThriftValidator(ImmutableList.of(idlDir), 2)
+                .validate(ImmutableSet.of(tutorial, shared));
+        Assert.assertTrue(parsed.getProblems().toString(), parsed.isValid());
+
+        final JavaGenerator generator = new JavaGenerator("java:hashcode", GOLDEN_DATE);
+        Assert.assertEquals(ImmutableList.of("tutorial/tutorialConstants.java", "tutorial/Operation.java",
+                "tutorial/Work.java", "tutorial/InvalidOperation.java", "tutorial/Calculator.java"),
+                generator.generate(tutorial, parsed, testRootDir));
+        Assert.assertEquals(ImmutableList.of("shared/SharedStruct.java", "shared/SharedService.java"),
+                generator.generate(shared, parsed, testRootDir));
+
+        assertSameFiles(goldenDir, testRootDir);
+    }
+
+    /**
+     * Compares the generated sources with those of the native thrift 0.11.0, found on the {@code PATH} or
+     * given with {@code -Dthrift.executable}, and skips without it. With {@code -Dthrift.regenerateGoldens=true}
+     * the native sources replace the golden files as well.
+     */
+    @Test
+    public void testNativeThrift() throws Exception {
+        final String executable = System.getProperty("thrift.executable", "thrift");
+        final String version = run(executable, "-version");
+        // skipped unless thrift 0.11.0 is available
+        Assume.assumeTrue(version != null && version.endsWith(" 0.11.0"));
+
+        final File tutorial = new File(idlDir, "tutorial.thrift");
+        final File shared = new File(idlDir, "shared.thrift");
+        final File nativeDir = new File(testRootDir, "native");
+        FileUtils.forceMkdir(nativeDir);
+        for (File thriftFile : ImmutableList.of(tutorial, shared)) {
+            Assert.assertNotNull(thriftFile.toString(), run(executable, "--gen", "java:hashcode",
+                    "-I", idlDir.getAbsolutePath(), "-out", nativeDir.getAbsolutePath(), thriftFile.getAbsolutePath()));
+        }
+        new GeneratedSourceNormalizer(GOLDEN_DATE, 1).normalize(nativeDir);
+        if (Boolean.getBoolean("thrift.regenerateGoldens")) {
+            FileUtils.deleteDirectory(goldenDir);
+            FileUtils.copyDirectoryStructure(nativeDir, goldenDir);
+        }
+
+        final ThriftValidator.Result parsed = new ThriftValidator(ImmutableList.of(idlDir), 2)
+                .validate(ImmutableSet.of(tutorial, shared));
+        final File generatedDir = new File(testRootDir, "generated");
+        FileUtils.forceMkdir(generatedDir);
+        final JavaGenerator generator = new JavaGenerator("java:hashcode", GOLDEN_DATE);
+        generator.generate(tutorial, parsed, generatedDir);
+        generator.generate(shared, parsed, generatedDir);
+        assertSameFiles(nativeDir, generatedDir);
+    }
+
+    @Test
+    public void testOptions() throws Exception {
+        final File shared = new File(idlDir, "shared.thrift");
+        final ThriftValidator.Result parsed = new ThriftValidator(ImmutableList.of(idlDir), 1)
+                .validate(ImmutableSet.of(shared));
+        new JavaGenerator("java:private-members,generated_annotations=undated", "2018-04-05")
+                .generate(shared, parsed, testRootDir);
+        final String struct = read(new File(testRootDir, "shared/SharedStruct.java"));
+        Assert.assertTrue(struct.contains("  private int key; // required\n"));
+        Assert.assertTrue(struct.contains(
+                "@javax.annotation.Generated(value = \"Autogenerated by Thrift Compiler (0.11.0)\")\n"));
+
+        try {
+            new JavaGenerator("java:beans", "2018-04-05");
+            Assert.fail("the unsupported option is accepted");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("beans"));
+        }
+    }
+
+    private static void assertSameFiles(File expectedDir, File actualDir) throws Exception {
+        final List<String> expected = sortedPaths(expectedDir);
+        Assert.assertEquals(expected, sortedPaths(actualDir));
+        for (String path : expected) {
+            Assert.assertEquals(path, read(new File(expectedDir, path)), read(new File(actualDir, path)));
+        }
+    }
+
+    /**
+     * @return the output of {@code command}, or {@code null} if it cannot be run or does not exit cleanly.
+     */
+    private static String run(String... command) throws Exception {
+        final Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            return null;
+        }
+        final String output = new String(ByteStreams.toByteArray(process.getInputStream()), Charsets.UTF_8);
+        return process.waitFor() == 0 ? output.trim() : null;
+    }
+
+    private static List<String> sortedPaths(File directory) throws Exception {
+        final List<String> paths = FileUtils.getFileNames(directory, "**", null, false);
+        for (int i = 0; i < paths.size(); i++) {
+            paths.set(i, paths.get(i).replace(File.separatorChar, '/'));
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static String read(File file) throws Exception {
+        return Files.asCharSource(file, Charsets.UTF_8).read();
+    }
+
+}
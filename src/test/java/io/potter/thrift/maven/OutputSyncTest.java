@@ -0,0 +1,71 @@
+package io.potter.thrift.maven;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for OutputSync
+ */
+public class OutputSyncTest {
+
+    private File testRootDir;
+    private File generatedDir;
+    private File outputDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-output-sync-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        generatedDir = new File(testRootDir, "generated");
+        outputDir = new File(testRootDir, "output");
+        Assert.assertTrue(generatedDir.mkdirs());
+        Assert.assertTrue(outputDir.mkdirs());
+    }
+
+    @Test
+    public void testSync() throws Exception {
+        write(outputDir, "a/Same.java", "same");
+        write(outputDir, "a/Changed.java", "old");
+        write(outputDir, "b/Obsolete.java", "obsolete");
+        final File same = new File(outputDir, "a/Same.java");
+        Assert.assertTrue(same.setLastModified(1000000000L));
+
+        write(generatedDir, "a/Same.java", "same");
+        write(generatedDir, "a/Changed.java", "new");
+        write(generatedDir, "a/Added.java", "added");
+
+        final OutputSync outputSync = new OutputSync();
+        outputSync.sync(generatedDir, outputDir);
+
+        Assert.assertEquals(2, outputSync.getWritten());
+        Assert.assertEquals(1, outputSync.getUnchanged());
+        Assert.assertEquals(1, outputSync.getDeleted());
+        Assert.assertEquals(1000000000L, same.lastModified());
+        Assert.assertEquals("new", FileUtils.fileRead(new File(outputDir, "a/Changed.java"), "UTF-8"));
+        Assert.assertTrue(new File(outputDir, "a/Added.java").isFile());
+        Assert.assertFalse("empty directory was not removed", new File(outputDir, "b").exists());
+        Assert.assertTrue(FileUtils.getFileNames(generatedDir, "**", null, false).isEmpty());
+    }
+
+    private static void write(File directory, String path, String content) throws Exception {
+        final File file = new File(directory, path);
+        FileUtils.forceMkdir(file.getParentFile());
+        FileUtils.fileWrite(file, "UTF-8", content);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
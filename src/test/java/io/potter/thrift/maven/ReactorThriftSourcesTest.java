@@ -0,0 +1,99 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for ReactorThriftSources
+ */
+public class ReactorThriftSourcesTest {
+
+    private static final String PLUGIN_KEY = "io.potter.thrift:thrift-maven-plugin";
+
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-reactor-sources-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        Assert.assertTrue(new File(testRootDir, "idl/src/main/thrift").mkdirs());
+        Assert.assertTrue(new File(testRootDir, "custom/idl").mkdirs());
+        Assert.assertTrue(new File(testRootDir, "plain/src/main/thrift").mkdirs());
+    }
+
+    @Test
+    public void testFindSourceRoots() throws Exception {
+        final Xpp3Dom configuration = new Xpp3Dom("configuration");
+        final Xpp3Dom thriftSourceRoot = new Xpp3Dom("thriftSourceRoot");
+        thriftSourceRoot.setValue("idl");
+        configuration.addChild(thriftSourceRoot);
+        final ImmutableList<MavenProject> reactor = ImmutableList.of(
+                project("idl", new Xpp3Dom("configuration")),
+                project("custom", configuration),
+                project("plain", null));
+
+        final Artifact idl = artifact("idl", null);
+        final Artifact custom = artifact("custom", null);
+        final Artifact plain = artifact("plain", null);
+        final Artifact external = artifact("external", null);
+        final Artifact sources = artifact("idl", "sources");
+
+        Assert.assertEquals(ImmutableMap.of(
+                idl.getFile(), new File(testRootDir, "idl/src/main/thrift"),
+                custom.getFile(), new File(testRootDir, "custom/idl")),
+                ReactorThriftSources.find(reactor, PLUGIN_KEY,
+                        ImmutableList.of(idl, custom, plain, external, sources)));
+    }
+
+    private MavenProject project(String artifactId, Xpp3Dom configuration) {
+        final Model model = new Model();
+        model.setGroupId("sample");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0-SNAPSHOT");
+        model.setBuild(new Build());
+        if (configuration != null) {
+            final Plugin plugin = new Plugin();
+            plugin.setGroupId("io.potter.thrift");
+            plugin.setArtifactId("thrift-maven-plugin");
+            plugin.setConfiguration(configuration);
+            model.getBuild().addPlugin(plugin);
+        }
+        final MavenProject project = new MavenProject(model);
+        project.setFile(new File(testRootDir, artifactId + "/pom.xml"));
+        return project;
+    }
+
+    private Artifact artifact(String artifactId, String classifier) {
+        final Artifact artifact = new DefaultArtifact("sample", artifactId, VersionRange.createFromVersion("1.0-SNAPSHOT"),
+                Artifact.SCOPE_COMPILE, "jar", classifier, new DefaultArtifactHandler("jar"));
+        artifact.setFile(new File(testRootDir, artifactId + "/target/" + artifactId + ".jar"));
+        return artifact;
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
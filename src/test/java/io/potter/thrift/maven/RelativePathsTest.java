@@ -0,0 +1,29 @@
+package io.potter.thrift.maven;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * tester for RelativePaths
+ */
+public class RelativePathsTest {
+
+    @Test
+    public void testContained() {
+        Assert.assertTrue(RelativePaths.isContained("shared/SharedService.java"));
+        Assert.assertTrue(RelativePaths.isContained("idl/../common.thrift"));
+        Assert.assertTrue(RelativePaths.isContained("./common.thrift"));
+    }
+
+    @Test
+    public void testNotContained() {
+        Assert.assertFalse(RelativePaths.isContained(""));
+        Assert.assertFalse(RelativePaths.isContained("."));
+        Assert.assertFalse(RelativePaths.isContained("../common.thrift"));
+        Assert.assertFalse(RelativePaths.isContained("idl/../../common.thrift"));
+        Assert.assertFalse(RelativePaths.isContained("idl/../../root/common.thrift"));
+        Assert.assertFalse(RelativePaths.isContained("/etc/passwd"));
+        Assert.assertFalse(RelativePaths.isContained("\\etc\\passwd"));
+    }
+
+}
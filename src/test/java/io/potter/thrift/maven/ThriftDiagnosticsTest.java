@@ -0,0 +1,118 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for ThriftDiagnostics and ThriftOutput
+ */
+public class ThriftDiagnosticsTest {
+
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-diagnostics-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        FileUtils.deleteDirectory(testRootDir);
+    }
+
+    @Test
+    public void testParse() {
+        final ThriftDiagnostics.Diagnostic warning =
+                ThriftDiagnostics.parse("[WARNING:/idl/a.thrift:12] Consider using the more efficient \"binary\" type");
+        Assert.assertEquals("/idl/a.thrift", warning.getFile());
+        Assert.assertEquals(12, warning.getLine());
+        Assert.assertEquals(ThriftDiagnostics.Severity.WARNING, warning.getSeverity());
+        Assert.assertEquals("Consider using the more efficient \"binary\" type", warning.getMessage());
+
+        final ThriftDiagnostics.Diagnostic failure =
+                ThriftDiagnostics.parse("[FAILURE:arguments] Could not open input file with realpath: a.thrift");
+        Assert.assertEquals("arguments", failure.getFile());
+        Assert.assertEquals(0, failure.getLine());
+        Assert.assertEquals(ThriftDiagnostics.Severity.ERROR, failure.getSeverity());
+
+        Assert.assertEquals(3, ThriftDiagnostics.parse("[ERROR:C:\\idl\\a.thrift:3] x").getLine());
+        Assert.assertNull(ThriftDiagnostics.parse("Generating a.thrift"));
+    }
+
+    @Test
+    public void testStreams() throws Exception {
+        final ThriftDiagnostics diagnostics = new ThriftDiagnostics();
+        final ThriftOutput error = new ThriftOutput(diagnostics);
+        error.consumeLine("[WARNING:/idl/a.thrift:3] deprecated");
+        error.consumeLine("[ERROR:/idl/a.thrift:7] (last token was 'x')");
+        error.consumeLine("syntax error");
+        error.close();
+        final ThriftOutput again = new ThriftOutput(diagnostics);
+        again.consumeLine("[WARNING:/idl/a.thrift:3] deprecated");
+        again.consumeLine("[ERROR:/idl/b.thrift:1] (last token was 'y')");
+        again.close();
+
+        Assert.assertEquals(3, diagnostics.getDiagnostics().size());
+        Assert.assertEquals(1, diagnostics.getDuplicates());
+        Assert.assertEquals(1, diagnostics.count(ThriftDiagnostics.Severity.WARNING));
+        Assert.assertEquals(2, diagnostics.count(ThriftDiagnostics.Severity.ERROR));
+        Assert.assertEquals("/idl/a.thrift:7: syntax error (last token was 'x')",
+                diagnostics.getDiagnostics().get(1).toString());
+
+        final File report = new File(testRootDir, "diagnostics.json");
+        diagnostics.writeJson(report);
+        final String json = Files.asCharSource(report, Charsets.UTF_8).read();
+        Assert.assertTrue(json, json.contains("{\"file\": \"/idl/a.thrift\", \"line\": 3, \"severity\": \"WARNING\","
+                + " \"message\": \"deprecated\", \"count\": 2}"));
+    }
+
+    @Test
+    public void testAddAll() {
+        final ThriftDiagnostics diagnostics = new ThriftDiagnostics();
+        diagnostics.add(ThriftDiagnostics.parse("[WARNING:/idl/a.thrift:3] deprecated"));
+        final ThriftDiagnostics batch = new ThriftDiagnostics();
+        batch.add(ThriftDiagnostics.parse("[WARNING:/idl/a.thrift:3] deprecated"));
+        batch.add(ThriftDiagnostics.parse("[FAILURE:/idl/b.thrift:1] type not defined"));
+
+        diagnostics.addAll(batch);
+        Assert.assertEquals(2, diagnostics.getDiagnostics().size());
+        Assert.assertEquals(1, diagnostics.getDuplicates());
+        Assert.assertEquals(1, diagnostics.count(ThriftDiagnostics.Severity.ERROR));
+    }
+
+    @Test
+    public void testBounds() {
+        final ThriftDiagnostics diagnostics = new ThriftDiagnostics();
+        final ThriftOutput output = new ThriftOutput(diagnostics);
+        final int lines = 2 * ThriftOutput.MAX_CHARS / 40;
+        for (int i = 0; i < lines; i++) {
+            output.consumeLine(String.format("[WARNING:/idl/a.thrift:%d] deprecated thing number %06d", i + 1, i));
+        }
+        final String kept = output.getOutput();
+        Assert.assertTrue(kept.length() < ThriftOutput.MAX_CHARS + 2000);
+        Assert.assertTrue(kept, kept.startsWith("["));
+        Assert.assertTrue(kept.contains("left out"));
+        Assert.assertTrue(kept.contains(String.format("number %06d", lines - 1)));
+
+        Assert.assertEquals(ThriftDiagnostics.MAX_DIAGNOSTICS, diagnostics.getDiagnostics().size());
+        Assert.assertEquals(lines - ThriftDiagnostics.MAX_DIAGNOSTICS, diagnostics.getDropped());
+        // the diagnostics left out are still counted
+        Assert.assertEquals(lines, diagnostics.count(ThriftDiagnostics.Severity.WARNING));
+        Assert.assertEquals(0, diagnostics.count(ThriftDiagnostics.Severity.ERROR));
+        output.consumeLine("[FAILURE:/idl/b.thrift:1] type not defined");
+        Assert.assertEquals(1, diagnostics.count(ThriftDiagnostics.Severity.ERROR));
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.Lists;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * tester for ThriftExecutables
+ */
+public class ThriftExecutablesTest {
+
+    private File testRootDir;
+    private File source;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-executables-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        source = new File(testRootDir, "repository/thrift-0.11.0.exe");
+        FileUtils.forceMkdir(source.getParentFile());
+        FileUtils.fileWrite(source, "UTF-8", "#!/bin/sh\nexit 0\n");
+    }
+
+    @Test
+    public void testResolveOncePerSession() throws Exception {
+        final ThriftExecutables executables = new ThriftExecutables();
+        final AtomicInteger resolutions = new AtomicInteger();
+        final Callable<File> resolver = new Callable<File>() {
+            public File call() throws Exception {
+                resolutions.incrementAndGet();
+                Thread.sleep(50);
+                return source;
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<File>> futures = Lists.newArrayList();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<File>() {
+                    public File call() throws Exception {
+                        return executables.install(executables.resolve("org.apache.thrift:thrift:0.11.0", resolver),
+                                new File(testRootDir, "plugins/thrift"));
+                    }
+                }));
+            }
+            for (Future<File> future : futures) {
+                Assert.assertEquals(new File(testRootDir, "plugins/thrift"), future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, resolutions.get());
+        Assert.assertTrue(new File(testRootDir, "plugins/thrift").canExecute());
+        // no temporary file is left behind
+        Assert.assertEquals(1, new File(testRootDir, "plugins").list().length);
+    }
+
+    @Test
+    public void testReplaceTruncatedExecutable() throws Exception {
+        final File target = new File(testRootDir, "plugins/thrift");
+        FileUtils.forceMkdir(target.getParentFile());
+        FileUtils.fileWrite(target, "UTF-8", "#!/bin");
+        new ThriftExecutables().install(source, target);
+        Assert.assertEquals(source.length(), target.length());
+    }
+
+    @Test
+    public void testReplaceExecutableOfSameLength() throws Exception {
+        final File target = new File(testRootDir, "plugins/thrift");
+        FileUtils.forceMkdir(target.getParentFile());
+        FileUtils.fileWrite(target, "UTF-8", "#!/bin/sh\nexit 1\n");
+        Assert.assertEquals(source.length(), target.length());
+        new ThriftExecutables().install(source, target);
+        Assert.assertTrue(FileUtils.contentEquals(source, target));
+        Assert.assertTrue(target.canExecute());
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
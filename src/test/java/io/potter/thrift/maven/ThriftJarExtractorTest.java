@@ -0,0 +1,184 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * tester for ThriftJarExtractor and the dependency scan of AbstractThriftMojo
+ */
+public class ThriftJarExtractorTest {
+
+    private File testRootDir;
+    private File jar;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-jar-extractor-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+        jar = new File(testRootDir, "idl.jar");
+        writeJar(jar, ImmutableMap.of(
+                "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n",
+                "idl/common.thrift", "struct Common {}\n",
+                "io/potter/Common.class", "not a class",
+                "idl/shared/shared.thrift", "include \"../common.thrift\"\n",
+                "thrift/", ""));
+    }
+
+    @Test
+    public void testSameFilesAsWholeJarExtraction() throws Exception {
+        final File streamed = new File(testRootDir, "streamed");
+        final File whole = new File(testRootDir, "whole");
+        final ImmutableList<String> entryNames = ThriftJarExtractor.extract(jar, streamed, false, null);
+        final List<String> wholeEntryNames = extractWholeJar(jar, whole);
+
+        Assert.assertEquals(ImmutableList.of("idl/common.thrift", "idl/shared/shared.thrift"), entryNames);
+        Assert.assertEquals(wholeEntryNames, entryNames);
+        Assert.assertEquals(relativeFiles(whole), relativeFiles(streamed));
+        for (String entryName : entryNames) {
+            Assert.assertTrue(entryName, FileUtils.contentEquals(new File(whole, entryName),
+                    new File(streamed, entryName)));
+        }
+    }
+
+    @Test
+    public void testSkipJarWithoutThriftEntries() throws Exception {
+        final File classesJar = new File(testRootDir, "classes.jar");
+        writeJar(classesJar, ImmutableMap.of("io/potter/Common.class", "not a class"));
+        final File target = new File(testRootDir, "classes");
+        Assert.assertEquals(ImmutableList.<String>of(), ThriftJarExtractor.extract(classesJar, target, false, null));
+        Assert.assertFalse(target.exists());
+        // jars without an index are not even looked at in indexed-only mode
+        Assert.assertTrue(ThriftJarExtractor.listThriftEntries(jar, true).isEmpty());
+    }
+
+    @Test
+    public void testParallelScan() throws Exception {
+        final List<File> classpathElements = Lists.newArrayList();
+        final List<File> expected = Lists.newArrayList();
+        for (int i = 0; i < 16; i++) {
+            final File idlJar = new File(testRootDir, "repository/idl-" + i + ".jar");
+            FileUtils.forceMkdir(idlJar.getParentFile());
+            if (i % 3 == 0) {
+                // jars without thrift files add nothing to the thrift path
+                writeJar(idlJar, ImmutableMap.of("io/potter/Common.class", "not a class"));
+            } else {
+                writeJar(idlJar, ImmutableMap.of("idl" + i + "/common.thrift", "struct Common {}\n"));
+            }
+            classpathElements.add(idlJar);
+        }
+        final File pom = new File(testRootDir, "repository/idl.xml");
+        FileUtils.fileWrite(pom, "UTF-8", "<project/>");
+        classpathElements.add(pom);
+
+        final File extractDir = new File(testRootDir, "thrift-dependencies");
+        final ThriftCompileMojo mojo = new ThriftCompileMojo();
+        set(mojo, "compileThreads", 4);
+        set(mojo, "hashDependentPaths", true);
+        set(mojo, "metrics", new BuildMetrics());
+        final ImmutableSet<File> thriftPath = mojo.makeThriftPathFromJars(extractDir, classpathElements);
+
+        for (int i = 0; i < 16; i++) {
+            if (i % 3 != 0) {
+                expected.add(new File(extractDir,
+                        mojo.truncatePath(classpathElements.get(i).getPath()) + "/idl" + i));
+            }
+        }
+        // in classpath order, whichever jar was scanned first
+        Assert.assertEquals(expected, thriftPath.asList());
+        for (File thriftDirectory : thriftPath) {
+            Assert.assertTrue(new File(thriftDirectory, "common.thrift").isFile());
+        }
+    }
+
+    /**
+     * Extracts the thrift files the way the plugin did before entries were streamed: through a
+     * {@link JarFile}, reading every entry.
+     */
+    private static List<String> extractWholeJar(File jar, File targetDirectory) throws Exception {
+        final List<String> entryNames = Lists.newArrayList();
+        final JarFile jarFile = new JarFile(jar);
+        try {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getName().endsWith(".thrift")) {
+                    final File target = new File(targetDirectory, entry.getName());
+                    FileUtils.forceMkdir(target.getParentFile());
+                    final InputStream in = jarFile.getInputStream(entry);
+                    final OutputStream out = new FileOutputStream(target);
+                    try {
+                        IOUtil.copy(in, out);
+                    } finally {
+                        IOUtil.close(out);
+                        IOUtil.close(in);
+                    }
+                    entryNames.add(entry.getName());
+                }
+            }
+        } finally {
+            jarFile.close();
+        }
+        return entryNames;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> relativeFiles(File directory) throws Exception {
+        final List<String> files = FileUtils.getFileNames(directory, "**", null, false);
+        Collections.sort(files);
+        return files;
+    }
+
+    private static void writeJar(File jar, Map<String, String> entries) throws Exception {
+        final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(Charsets.UTF_8));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void set(Object mojo, String name, Object value) throws Exception {
+        final Field field = AbstractThriftMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        if (testRootDir.exists()) {
+            FileUtils.deleteDirectory(testRootDir);
+        }
+    }
+
+}
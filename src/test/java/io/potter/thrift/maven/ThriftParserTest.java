@@ -0,0 +1,75 @@
+package io.potter.thrift.maven;
+
+import io.potter.thrift.maven.ThriftDocument.ConstKind;
+import io.potter.thrift.maven.ThriftDocument.EnumDefinition;
+import io.potter.thrift.maven.ThriftDocument.Field;
+import io.potter.thrift.maven.ThriftDocument.Function;
+import io.potter.thrift.maven.ThriftDocument.Kind;
+import io.potter.thrift.maven.ThriftDocument.Requiredness;
+import io.potter.thrift.maven.ThriftDocument.Service;
+import io.potter.thrift.maven.ThriftDocument.Struct;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * tester for ThriftParser
+ */
+public class ThriftParserTest {
+
+    private final File idlDir = new File("src/test/resources/idl");
+
+    @Test
+    public void testParseTutorial() throws Exception {
+        final ThriftDocument document = ThriftParser.parse(new File(idlDir, "tutorial.thrift"));
+        Assert.assertEquals("tutorial", document.getProgramName());
+        Assert.assertEquals("shared.thrift", document.getIncludes().get(0).getPath());
+        Assert.assertEquals("tutorial", document.getNamespaces().get("java"));
+        Assert.assertEquals("Thrift.Tutorial", document.getNamespaces().get("smalltalk.category"));
+
+        Assert.assertEquals(ConstKind.MAP, ((ThriftDocument.Const) document.getDefinition("MAPCONSTANT")).getValue().getKind());
+        Assert.assertEquals(4, ((EnumDefinition) document.getDefinition("Operation")).getValues().get(3).getValue());
+        Assert.assertEquals("You can define enums, which are just 32 bit integers. Values are optional\n"
+                + "and start at 1 if not supplied, C style again.", document.getDefinition("Operation").getDoc());
+
+        final Field comment = ((Struct) document.getDefinition("Work")).getFields().get(3);
+        Assert.assertEquals(4, comment.getId());
+        Assert.assertEquals(Requiredness.OPTIONAL, comment.getRequiredness());
+        Assert.assertEquals("string", comment.getType().getName());
+        Assert.assertEquals(Kind.EXCEPTION, document.getDefinition("InvalidOperation").getKind());
+
+        final Service calculator = (Service) document.getDefinition("Calculator");
+        Assert.assertEquals("shared.SharedService", calculator.getExtendsName());
+        final Function calculate = calculator.getFunctions().get(2);
+        Assert.assertEquals("InvalidOperation", calculate.getExceptions().get(0).getType().getName());
+        Assert.assertNull(calculator.getFunctions().get(3).getReturnType());
+        Assert.assertTrue(calculator.getFunctions().get(3).isOneway());
+    }
+
+    @Test
+    public void testParseAnnotationsAndContainers() throws Exception {
+        final ThriftDocument document = ThriftParser.parse(new File("inline.thrift"),
+                "struct Holder {\n"
+                        + "  1: required map<string, list<i64>> values = {\"a\": [1, -2, 0x10]} (java.final = \"true\");\n"
+                        + "  i32 implicit\n"
+                        + "} (deprecated)\n");
+        final Struct holder = (Struct) document.getDefinition("Holder");
+        Assert.assertEquals("map<string,list<i64>>", holder.getFields().get(0).getType().toString());
+        Assert.assertEquals("{\"a\": [1, -2, 0x10]}", holder.getFields().get(0).getDefaultValue().toString());
+        Assert.assertEquals(-1, holder.getFields().get(1).getId());
+        Assert.assertFalse(holder.getFields().get(1).hasExplicitId());
+    }
+
+    @Test
+    public void testSyntaxError() throws Exception {
+        try {
+            ThriftParser.parse(new File("broken.thrift"), "struct A {\n  1: i32 a\n  2: i32\n}\n");
+            Assert.fail("the missing field name is not reported");
+        } catch (ThriftParser.SyntaxError e) {
+            Assert.assertEquals(4, e.getLine());
+            Assert.assertEquals(1, e.getColumn());
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package io.potter.thrift.maven;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Set;
+
+/**
+ * tester for ThriftPruner
+ */
+public class ThriftPrunerTest {
+
+    private final File idlDir = new File("src/test/resources/idl");
+    private final File goldenDir = new File("src/test/resources/golden/java");
+    private final File tutorial = new File(idlDir, "tutorial.thrift");
+    private final File shared = new File(idlDir, "shared.thrift");
+    private File testRootDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-pruner-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        FileUtils.forceMkdir(testRootDir);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        FileUtils.deleteDirectory(testRootDir);
+    }
+
+    @Test
+    public void testStruct() throws Exception {
+        final ThriftPruner pruner = new ThriftPruner(parse(), ImmutableSet.of("tutorial.Work"));
+        Assert.assertEquals(2, pruner.getKept());
+        Assert.assertEquals(9, pruner.getTotal());
+
+        final File directory = new File(testRootDir, "pruned");
+        final ThriftPruner.Pruned pruned =
+                pruner.write(ImmutableSet.of(tutorial, shared), ImmutableList.of(idlDir), directory, 1);
+        Assert.assertNotNull(pruned);
+        final File prunedTutorial = new File(directory, "0/tutorial.thrift");
+        Assert.assertEquals(ImmutableSet.of(prunedTutorial), pruned.getThriftFiles());
+        Assert.assertEquals(ImmutableList.of(new File(directory, "0")), pruned.getThriftPath());
+        Assert.assertTrue(new File(directory, "0/shared.thrift").isFile());
+
+        final ThriftDocument document = ThriftParser.parse(prunedTutorial);
+        Assert.assertEquals(2, document.getDefinitions().size());
+        Assert.assertNotNull(document.getDefinition("Operation"));
+        Assert.assertNotNull(document.getDefinition("Work"));
+        Assert.assertEquals("tutorial", document.getNamespaces().get("java"));
+    }
+
+    @Test
+    public void testService() throws Exception {
+        final ThriftPruner pruner = new ThriftPruner(parse(), ImmutableSet.of("tutorial.Calculator"));
+        final File directory = new File(testRootDir, "pruned");
+        final ThriftPruner.Pruned pruned =
+                pruner.write(ImmutableSet.of(tutorial, shared), ImmutableList.of(idlDir), directory, 1);
+        Assert.assertEquals(6, pruner.getKept());
+
+        // the kept definitions generate the same sources as the original files
+        final ThriftValidator.Result parsed =
+                new ThriftValidator(pruned.getThriftPath(), 1).validate(pruned.getThriftFiles());
+        final File output = new File(testRootDir, "output");
+        final JavaGenerator generator = new JavaGenerator("java:hashcode", "2018-04-05");
+        for (File thriftFile : pruned.getThriftFiles()) {
+            for (String path : generator.generate(thriftFile, parsed, output)) {
+                Assert.assertEquals(path, read(new File(goldenDir, path)), read(new File(output, path)));
+            }
+        }
+        Assert.assertFalse(new File(output, "tutorial/tutorialConstants.java").exists());
+        Assert.assertTrue(new File(output, "shared/SharedService.java").isFile());
+    }
+
+    @Test
+    public void testUnknownRoot() throws Exception {
+        final Set<String> roots = ImmutableSet.of("tutorial.Work", "tutorial.Missing");
+        try {
+            new ThriftPruner(parse(), roots);
+            Assert.fail("the unknown root is accepted");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("tutorial.Missing"));
+        }
+    }
+
+    private ThriftValidator.Result parse() throws Exception {
+        final ThriftValidator.Result parsed =
+                new ThriftValidator(ImmutableList.of(idlDir), 1).validate(ImmutableSet.of(tutorial, shared));
+        Assert.assertTrue(parsed.getProblems().toString(), parsed.isValid());
+        return parsed;
+    }
+
+    private static String read(File file) throws Exception {
+        return Files.asCharSource(file, Charsets.UTF_8).read();
+    }
+
+}
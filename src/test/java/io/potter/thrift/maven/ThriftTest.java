@@ -1,5 +1,11 @@
 package io.potter.thrift.maven;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.junit.After;
@@ -8,6 +14,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.List;
+import java.util.Set;
 
 /**
  * tester for Thrift
@@ -96,6 +104,254 @@ public class ThriftTest {
                 new File(testRootDir, "tutorial/InvalidOperation.java").exists());
     }
 
+    @Test
+    public void testThriftParallelCompile() throws Exception {
+        final File sharedThrift = new File(idlDir, "shared.thrift");
+        final File tutorialThrift = new File(idlDir, "tutorial.thrift");
+
+        builder.addThriftFile(sharedThrift);
+        builder.addThriftFile(tutorialThrift);
+        builder.setCompileThreads(2);
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(0, result);
+        Assert.assertNull(thrift.getFailedThriftFile());
+
+        Assert.assertTrue("generated java code doesn't exist",
+                new File(testRootDir, "shared/SharedService.java").exists());
+        Assert.assertTrue("generated java code doesn't exist",
+                new File(testRootDir, "tutorial/InvalidOperation.java").exists());
+    }
+
+    @Test
+    public void testThriftBatchCompile() throws Exception {
+        final File sharedThrift = new File(idlDir, "shared.thrift");
+        final File tutorialThrift = new File(idlDir, "tutorial.thrift");
+
+        builder.addThriftFile(sharedThrift);
+        builder.addThriftFile(tutorialThrift);
+        builder.setBatchCompile(true);
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(0, result);
+        Assert.assertEquals(1, thrift.getProcessCount());
+
+        Assert.assertTrue("generated java code doesn't exist",
+                new File(testRootDir, "shared/SharedService.java").exists());
+        Assert.assertTrue("generated java code doesn't exist",
+                new File(testRootDir, "tutorial/InvalidOperation.java").exists());
+    }
+
+    @Test
+    public void testThriftMinimalThriftPathCompile() throws Exception {
+        // the include of tutorial.thrift is only found in idlDir, the other element is left out
+        builder.addThriftPathElement(testRootDir);
+        builder.addThriftFile(new File(idlDir, "tutorial.thrift"));
+        builder.setMinimalThriftPath(true);
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(0, result);
+        Assert.assertTrue("generated java code doesn't exist",
+                new File(testRootDir, "tutorial/InvalidOperation.java").exists());
+    }
+
+    @Test
+    public void testThriftLongestFirstCompile() throws Exception {
+        final File sharedThrift = new File(idlDir, "shared.thrift");
+        final File tutorialThrift = new File(idlDir, "tutorial.thrift");
+        final File historyFile = new File(testRootDir, "history");
+        FileUtils.fileWrite(historyFile, "UTF-8", "# thrift-maven-plugin compile history v1\n"
+                + "10\t" + sharedThrift + "\n500\t" + tutorialThrift + "\n");
+        final CompileHistory history = CompileHistory.read(historyFile);
+
+        builder.addThriftFile(sharedThrift);
+        builder.addThriftFile(tutorialThrift);
+        builder.setCompileHistory(history);
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(0, result);
+        Assert.assertEquals(ImmutableList.of(tutorialThrift), thrift.getInvocations().get(0).getThriftFiles());
+        Assert.assertEquals(ImmutableList.of(sharedThrift), thrift.getInvocations().get(1).getThriftFiles());
+
+        history.record(thrift.getInvocations());
+        history.write(historyFile);
+        Assert.assertEquals(ImmutableSet.of(sharedThrift, tutorialThrift),
+                CompileHistory.read(historyFile).getMillis().keySet());
+    }
+
+    @Test
+    public void testThriftBalancedBatchCompile() throws Exception {
+        final File historyFile = new File(testRootDir, "history");
+        final StringBuilder lines = new StringBuilder("# thrift-maven-plugin compile history v1\n");
+        final String[] names = {"a", "b", "c"};
+        final int[] millis = {300, 200, 100};
+        builder.addThriftPathElement(testRootDir);
+        for (int i = 0; i < names.length; i++) {
+            final File thriftFile = new File(testRootDir, names[i] + ".thrift");
+            FileUtils.fileWrite(thriftFile, "UTF-8", "struct " + names[i].toUpperCase() + " {}\n");
+            lines.append(millis[i]).append('\t').append(thriftFile).append('\n');
+            builder.addThriftFile(thriftFile);
+        }
+        FileUtils.fileWrite(historyFile, "UTF-8", lines.toString());
+        builder.setBatchCompile(true);
+        builder.setCompileThreads(2);
+        builder.setCompileHistory(CompileHistory.read(historyFile));
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(0, result);
+        Assert.assertEquals(2, thrift.getProcessCount());
+        final Set<List<String>> batches = Sets.newHashSet();
+        for (Thrift.Invocation invocation : thrift.getInvocations()) {
+            final List<String> batch = Lists.newArrayList();
+            for (File thriftFile : invocation.getThriftFiles()) {
+                batch.add(thriftFile.getName());
+            }
+            batches.add(batch);
+        }
+        Assert.assertEquals(ImmutableSet.of(ImmutableList.of("a.thrift"), ImmutableList.of("b.thrift", "c.thrift")),
+                batches);
+    }
+
+    @Test
+    public void testThriftMinimalThriftPathOrder() throws Exception {
+        // every element holds common.thrift, the first one added is the one thrift must use
+        final List<File> thriftPath = Lists.newArrayList();
+        for (String name : new String[]{"e", "d", "c", "b", "a"}) {
+            final File thriftPathElement = new File(testRootDir, name);
+            FileUtils.forceMkdir(thriftPathElement);
+            FileUtils.fileWrite(new File(thriftPathElement, "common.thrift"), "UTF-8", "struct Common {}\n");
+            thriftPath.add(thriftPathElement);
+        }
+        final File sourceRoot = new File(testRootDir, "src");
+        final File thriftFile = new File(sourceRoot, "main.thrift");
+        FileUtils.forceMkdir(sourceRoot);
+        FileUtils.fileWrite(thriftFile, "UTF-8", "include \"common.thrift\"\n");
+
+        final Thrift thrift = recordingBuilder()
+                .addThriftPathElement(sourceRoot)
+                .addThriftPathElements(thriftPath)
+                .addThriftFile(thriftFile)
+                .setMinimalThriftPath(true)
+                .build();
+        Assert.assertEquals(0, thrift.compile());
+        Assert.assertEquals(ImmutableList.of("-I", thriftPath.get(0).toString()), recordedIncludePath());
+    }
+
+    @Test
+    public void testThriftPathOrder() throws Exception {
+        // the source root, then a reactor sibling, then a dependency holding a stale copy of its file
+        final File sourceRoot = new File(testRootDir, "src");
+        final File reactorSourceRoot = new File(testRootDir, "sibling");
+        final File dependencyDirectory = new File(testRootDir, "dependency");
+        final List<File> thriftPath = Lists.newArrayList();
+        for (File thriftPathElement : new File[]{sourceRoot, reactorSourceRoot, dependencyDirectory}) {
+            FileUtils.forceMkdir(thriftPathElement);
+            thriftPath.add(thriftPathElement);
+        }
+        FileUtils.fileWrite(new File(reactorSourceRoot, "common.thrift"), "UTF-8", "struct Common {}\n");
+        FileUtils.fileWrite(new File(dependencyDirectory, "common.thrift"), "UTF-8", "struct Stale {}\n");
+        final File thriftFile = new File(sourceRoot, "main.thrift");
+        FileUtils.fileWrite(thriftFile, "UTF-8", "include \"common.thrift\"\n");
+
+        final Thrift thrift = recordingBuilder()
+                .addThriftPathElements(thriftPath)
+                .addThriftFile(thriftFile)
+                .build();
+        Assert.assertEquals(0, thrift.compile());
+        Assert.assertEquals(ImmutableList.of("-I", sourceRoot.toString(), "-I", reactorSourceRoot.toString(),
+                "-I", dependencyDirectory.toString()), recordedIncludePath());
+    }
+
+    @Test
+    public void testBadBatchCompile() throws Exception {
+        final File brokenThrift = new File(testRootDir, "broken.thrift");
+        final File validThrift = new File(testRootDir, "valid.thrift");
+        FileUtils.fileWrite(brokenThrift, "UTF-8", "SYNTAX_ERROR\n");
+        FileUtils.fileWrite(validThrift, "UTF-8", "struct Valid {}\n");
+        builder.addThriftPathElement(testRootDir);
+        builder.addThriftFile(validThrift);
+        builder.addThriftFile(brokenThrift);
+        builder.setBatchCompile(true);
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(1, result);
+        // the batch is compiled file by file once it failed
+        Assert.assertEquals(3, thrift.getProcessCount());
+        Assert.assertEquals(brokenThrift, thrift.getFailedThriftFile());
+        Assert.assertFalse("missing error output", thrift.getError(brokenThrift).isEmpty());
+        Assert.assertEquals(1, thrift.getDiagnostics().count(ThriftDiagnostics.Severity.ERROR));
+        Assert.assertTrue(thrift.getDiagnostics().getDiagnostics().get(0).getMessage().startsWith("syntax error"));
+    }
+
+    @Test
+    public void testFailedBatchRecompiled() throws Exception {
+        // the batch fails, like on concurrent output to the same directory, the files alone do not
+        final File executable = new File(testRootDir, "thrift-batch-failure");
+        FileUtils.fileWrite(executable, "UTF-8", "#!/bin/sh\nfor argument in \"$@\"; do\n"
+                + "  if [ \"$argument\" = \"-r\" ]; then echo \"[FAILURE:generation] batch\" >&2; exit 1; fi\n"
+                + "done\nexit 0\n");
+        Assert.assertTrue(executable.setExecutable(true));
+        final File firstThrift = new File(testRootDir, "first.thrift");
+        final File secondThrift = new File(testRootDir, "second.thrift");
+        FileUtils.fileWrite(firstThrift, "UTF-8", "struct First {}\n");
+        FileUtils.fileWrite(secondThrift, "UTF-8", "struct Second {}\n");
+
+        final Thrift thrift = new Thrift.Builder(executable.getPath(), testRootDir)
+                .setGenerator("java")
+                .addThriftPathElement(testRootDir)
+                .addThriftFile(firstThrift)
+                .addThriftFile(secondThrift)
+                .setBatchCompile(true)
+                .build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(0, result);
+        Assert.assertEquals(3, thrift.getProcessCount());
+        Assert.assertNull(thrift.getFailedThriftFile());
+        // the error of the batch is not reported on a successful build
+        Assert.assertTrue(thrift.getDiagnostics().isEmpty());
+    }
+
+    @Test
+    public void testBadParallelCompile() throws Exception {
+        final File thriftFile = new File(testRootDir, "missing.thrift");
+        builder.addThriftPathElement(testRootDir);
+
+        // Hacking around checks in addThrift file.
+        Assert.assertTrue(thriftFile.createNewFile());
+        builder.addThriftFile(thriftFile);
+        Assert.assertTrue(thriftFile.delete());
+        builder.addThriftFile(new File(idlDir, "shared.thrift"));
+        builder.setCompileThreads(2);
+
+        final Thrift thrift = builder.build();
+
+        // execute the compile
+        final int result = thrift.compile();
+        Assert.assertEquals(1, result);
+        Assert.assertEquals(thriftFile, thrift.getFailedThriftFile());
+        Assert.assertFalse("missing error output", thrift.getError(thriftFile).isEmpty());
+    }
+
     @Test
     public void testBadCompile() throws Exception {
         final File thriftFile = new File(testRootDir, "missing.thrift");
@@ -129,6 +385,34 @@ public class ThriftTest {
         }
     }
 
+    /**
+     * @return a builder for an executable that records its arguments instead of compiling.
+     */
+    private Thrift.Builder recordingBuilder() throws Exception {
+        final File executable = new File(testRootDir, "thrift-recorder");
+        FileUtils.fileWrite(executable, "UTF-8",
+                "#!/bin/sh\nfor argument in \"$@\"; do echo \"$argument\"; done > " + new File(testRootDir, "arguments") + "\n");
+        Assert.assertTrue(executable.setExecutable(true));
+        final File outputDirectory = new File(testRootDir, "out");
+        FileUtils.forceMkdir(outputDirectory);
+        return new Thrift.Builder(executable.getPath(), outputDirectory).setGenerator("java");
+    }
+
+    /**
+     * @return the {@code -I} arguments of the last recorded invocation, in command line order.
+     */
+    private List<String> recordedIncludePath() throws Exception {
+        final List<String> arguments = Files.readLines(new File(testRootDir, "arguments"), Charsets.UTF_8);
+        final List<String> includePath = Lists.newArrayList();
+        for (int i = 0; i < arguments.size() - 1; i++) {
+            if (arguments.get(i).equals("-I")) {
+                includePath.add(arguments.get(i));
+                includePath.add(arguments.get(++i));
+            }
+        }
+        return includePath;
+    }
+
     @After
     public void cleanup() throws Exception {
         if (testRootDir.exists()) {
@@ -0,0 +1,94 @@
+package io.potter.thrift.maven;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * tester for ThriftValidator
+ */
+public class ThriftValidatorTest {
+
+    private File testRootDir;
+    private File sourceDir;
+    private File includeDir;
+
+    @Before
+    public void setup() throws Exception {
+        final File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+        testRootDir = new File(tmpDir, "thrift-validator-test");
+        if (testRootDir.exists()) {
+            FileUtils.cleanDirectory(testRootDir);
+        }
+        sourceDir = new File(testRootDir, "thrift");
+        includeDir = new File(testRootDir, "include");
+        FileUtils.forceMkdir(sourceDir);
+        FileUtils.forceMkdir(includeDir);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        FileUtils.deleteDirectory(testRootDir);
+    }
+
+    @Test
+    public void testValidFiles() throws Exception {
+        final File idlDir = new File("src/test/resources/idl");
+        final ThriftValidator.Result result = new ThriftValidator(ImmutableList.of(idlDir), 2)
+                .validate(ImmutableSet.of(new File(idlDir, "tutorial.thrift")));
+        Assert.assertEquals(ImmutableList.of(), result.getProblems());
+        Assert.assertEquals(2, result.getDocuments().size());
+    }
+
+    @Test
+    public void testReportsAllProblems() throws Exception {
+        write(new File(includeDir, "common.thrift"), "struct Common {}\n");
+        final File a = write(new File(sourceDir, "a.thrift"), "include \"common.thrift\"\n"
+                + "include \"missing.thrift\"\n"
+                + "struct A {\n"
+                + "  1: common.Common common\n"
+                + "  2: Unknown unknown\n"
+                + "  2: i32 duplicate\n"
+                + "}\n"
+                + "service S {\n"
+                + "  void f() throws (1: A a)\n"
+                + "}\n");
+        final File b = write(new File(sourceDir, "b.thrift"), "struct B {\n  1: i32\n}\n");
+        final File c = write(new File(sourceDir, "c.thrift"), "include \"d.thrift\"\n");
+        write(new File(sourceDir, "d.thrift"), "include \"c.thrift\"\n");
+
+        final List<ThriftValidator.Problem> problems = new ThriftValidator(ImmutableList.of(sourceDir, includeDir), 2)
+                .validate(ImmutableSet.of(a, b, c)).getProblems();
+        Assert.assertEquals(problems.toString(), 6, problems.size());
+        Assert.assertTrue(problems.toString(), contains(problems, "a.thrift", 2, "cannot find include 'missing.thrift'"));
+        Assert.assertTrue(problems.toString(), contains(problems, "a.thrift", 5, "unknown type 'Unknown'"));
+        Assert.assertTrue(problems.toString(), contains(problems, "a.thrift", 6, "field id 2 is already used in A"));
+        Assert.assertTrue(problems.toString(), contains(problems, "a.thrift", 9, "'A' is not an exception"));
+        Assert.assertTrue(problems.toString(), contains(problems, "b.thrift", 3, "1: expected a field name, found '}'"));
+        Assert.assertTrue(problems.toString(),
+                contains(problems, "d.thrift", 1, "include cycle c.thrift -> d.thrift -> c.thrift"));
+    }
+
+    private static boolean contains(List<ThriftValidator.Problem> problems, String fileName, int line, String message) {
+        for (ThriftValidator.Problem problem : problems) {
+            if (problem.getFile().getName().equals(fileName) && problem.getLine() == line
+                    && problem.getMessage().equals(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static File write(File file, String content) throws Exception {
+        FileUtils.fileWrite(file, "UTF-8", content);
+        return file;
+    }
+
+}